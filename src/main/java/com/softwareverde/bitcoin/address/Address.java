@@ -17,7 +17,7 @@ public class Address extends ImmutableByteArray {
         byteArrayBuilder.appendBytes(bytes);
         final byte[] versionPayload = byteArrayBuilder.build();
 
-        final byte[] fullChecksum = BitcoinUtil.sha256(BitcoinUtil.sha256(versionPayload));
+        final byte[] fullChecksum = BitcoinUtil.doubleSha256(versionPayload);
         return ByteUtil.copyBytes(fullChecksum, 0, CHECKSUM_BYTE_COUNT);
     }
 
@@ -1,7 +1,6 @@
 package com.softwareverde.bitcoin.address;
 
 import com.softwareverde.bitcoin.block.BlockId;
-import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.database.cache.AddressIdCache;
 import com.softwareverde.bitcoin.transaction.TransactionId;
@@ -26,6 +25,7 @@ import java.util.Set;
 
 public class AddressDatabaseManager {
     public static final AddressIdCache ADDRESS_CACHE = new AddressIdCache();
+    protected static final Integer ADDRESS_INDEX_HEAD_ID = 1;
 
     protected final MysqlDatabaseConnection _databaseConnection;
 
@@ -46,91 +46,130 @@ public class AddressDatabaseManager {
         public Boolean isMined() { return (_blockId != null); }
     }
 
+    /**
+     * The blocks disconnected from and connected to the address index by updateAddressIndex.
+     *  Disconnected blocks are ordered most recent first, and connected blocks are ordered oldest first.
+     */
+    public static class HeadBlockChange {
+        protected final MutableList<BlockId> _disconnectedBlockIds = new MutableList<BlockId>();
+        protected final MutableList<BlockId> _connectedBlockIds = new MutableList<BlockId>();
+
+        public List<BlockId> getDisconnectedBlockIds() { return _disconnectedBlockIds; }
+        public List<BlockId> getConnectedBlockIds() { return _connectedBlockIds; }
+    }
+
+    /**
+     * Returns the outputs sent to the address within the head block chain, as maintained by connectBlock and disconnectBlock.
+     */
     protected List<SpendableTransactionOutput> _getAddressOutputs(final AddressId addressId) throws DatabaseException {
         final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT block_id, transaction_id, transaction_output_id, amount, spent_by_transaction_input_id FROM address_transaction_outputs WHERE address_id = ? ORDER BY id ASC")
+                .setParameter(addressId)
+        );
+
+        final MutableList<SpendableTransactionOutput> spendableTransactionOutputs = new MutableList<SpendableTransactionOutput>(rows.size());
+        for (final Row row : rows) {
+            final SpendableTransactionOutput spendableTransactionOutput = new SpendableTransactionOutput();
+            spendableTransactionOutput._blockId = BlockId.wrap(row.getLong("block_id"));
+            spendableTransactionOutput._transactionId = TransactionId.wrap(row.getLong("transaction_id"));
+            spendableTransactionOutput._transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
+            spendableTransactionOutput._amount = row.getLong("amount");
+            spendableTransactionOutput._spentByTransactionInputId = TransactionInputId.wrap(row.getLong("spent_by_transaction_input_id"));
+
+            spendableTransactionOutputs.add(spendableTransactionOutput);
+        }
+
+        return spendableTransactionOutputs;
+    }
+
+    /**
+     * Adds amount * sign to the balance of each address that received an output within blockId (if isSpent is false),
+     *  or that spent an output within blockId (if isSpent is true).
+     */
+    protected void _updateAddressBalances(final BlockId blockId, final Boolean isSpent, final Integer sign) throws DatabaseException {
+        final String blockIdColumn = (isSpent ? "spent_by_block_id" : "block_id");
+        _databaseConnection.executeSql(
             new Query(
-                "SELECT " +
-                        "transactions.block_id, transactions.id AS transaction_id, transaction_outputs.id AS transaction_output_id, transaction_outputs.amount " +
+                "INSERT INTO address_balances (address_id, balance) " +
+                    "SELECT address_id, (? * SUM(amount)) FROM address_transaction_outputs WHERE " + blockIdColumn + " = ? GROUP BY address_id " +
+                "ON DUPLICATE KEY UPDATE balance = (balance + VALUES(balance))"
+            )
+                .setParameter(sign)
+                .setParameter(blockId)
+        );
+    }
+
+    protected void _connectBlock(final BlockId blockId) throws DatabaseException {
+        _databaseConnection.executeSql(
+            new Query(
+                "INSERT INTO address_transaction_outputs (address_id, block_id, transaction_id, transaction_output_id, amount) " +
+                    "SELECT " +
+                        "locking_scripts.address_id, transactions.block_id, transactions.id, transaction_outputs.id, transaction_outputs.amount " +
                     "FROM " +
                         "transactions " +
                         "INNER JOIN transaction_outputs " +
-                            "ON transactions.id = transaction_outputs.transaction_id " +
+                            "ON transaction_outputs.transaction_id = transactions.id " +
                         "INNER JOIN locking_scripts " +
-                            "ON transaction_outputs.id = locking_scripts.transaction_output_id " +
+                            "ON locking_scripts.transaction_output_id = transaction_outputs.id " +
                     "WHERE " +
-                        "locking_scripts.address_id = ?"
+                        "transactions.block_id = ? AND locking_scripts.address_id IS NOT NULL"
             )
-                .setParameter(addressId)
+                .setParameter(blockId)
         );
 
-        if (rows.isEmpty()) { return new MutableList<SpendableTransactionOutput>(); }
-
-        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
-
-        final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
-        final BlockChainSegmentId headBlockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(headBlockId);
+        _databaseConnection.executeSql(
+            new Query(
+                "UPDATE " +
+                    "address_transaction_outputs " +
+                    "INNER JOIN transaction_inputs " +
+                        "ON transaction_inputs.previous_transaction_output_id = address_transaction_outputs.transaction_output_id " +
+                    "INNER JOIN transactions " +
+                        "ON transactions.id = transaction_inputs.transaction_id " +
+                "SET " +
+                    "address_transaction_outputs.spent_by_block_id = transactions.block_id, " +
+                    "address_transaction_outputs.spent_by_transaction_input_id = transaction_inputs.id " +
+                "WHERE " +
+                    "transactions.block_id = ?"
+            )
+                .setParameter(blockId)
+        );
 
-        final MutableList<SpendableTransactionOutput> spendableTransactionOutputs = new MutableList<SpendableTransactionOutput>(rows.size());
+        _updateAddressBalances(blockId, false, 1);
+        _updateAddressBalances(blockId, true, -1);
+    }
 
-        for (final Row row : rows) {
-            final SpendableTransactionOutput spendableTransactionOutput = new SpendableTransactionOutput();
-            {
-                spendableTransactionOutput._blockId = BlockId.wrap(row.getLong("block_id"));
-                spendableTransactionOutput._transactionId = TransactionId.wrap(row.getLong("transaction_id"));
-                spendableTransactionOutput._transactionOutputId = TransactionOutputId.wrap(row.getLong("transaction_output_id"));
-                spendableTransactionOutput._amount = row.getLong("amount");
-            }
+    protected BlockId _getAddressIndexHeadBlockId() throws DatabaseException {
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT block_id FROM address_index_head WHERE id = ?")
+                .setParameter(ADDRESS_INDEX_HEAD_ID)
+        );
+        if (rows.isEmpty()) { return null; }
 
-            if (spendableTransactionOutput.isMined()) {
-                final Boolean transactionWasMinedOnMainChain = blockDatabaseManager.isBlockConnectedToChain(spendableTransactionOutput._blockId, headBlockChainSegmentId);
+        final Row row = rows.get(0);
+        return BlockId.wrap(row.getLong("block_id"));
+    }
 
-                if (! transactionWasMinedOnMainChain) {
-                    continue;
-                }
-            }
+    protected void _setAddressIndexHeadBlockId(final BlockId blockId) throws DatabaseException {
+        _databaseConnection.executeSql(
+            new Query("INSERT INTO address_index_head (id, block_id) VALUES (?, ?) ON DUPLICATE KEY UPDATE block_id = VALUES(block_id)")
+                .setParameter(ADDRESS_INDEX_HEAD_ID)
+                .setParameter(blockId)
+        );
+    }
 
-            {
-                final java.util.List<Row> rowsSpendingTransactionOutput = _databaseConnection.query(
-                    new Query(
-                        "SELECT " +
-                                "transactions.block_id, transactions.id AS transaction_id, transaction_inputs.id AS transaction_input_id " +
-                            "FROM " +
-                                "transaction_inputs " +
-                                "INNER JOIN transactions " +
-                                    "ON transactions.id = transaction_inputs.transaction_id " +
-                            "WHERE " +
-                                "previous_transaction_output_id = ?"
-                    )
-                        .setParameter(spendableTransactionOutput._transactionOutputId)
-                );
+    protected void _disconnectBlock(final BlockId blockId) throws DatabaseException {
+        _updateAddressBalances(blockId, false, -1);
+        _updateAddressBalances(blockId, true, 1);
 
-                for (final Row rowSpendingTransactionOutput : rowsSpendingTransactionOutput) {
-                    final BlockId spendingBlockId = BlockId.wrap(rowSpendingTransactionOutput.getLong("block_id"));
-                    final TransactionId spendingTransactionId = TransactionId.wrap(rowSpendingTransactionOutput.getLong("transaction_id"));
-                    final TransactionInputId spendingTransactionInputId = TransactionInputId.wrap(rowSpendingTransactionOutput.getLong("transaction_input_id"));
-
-                    final Boolean spendingTransactionIsMined = (spendingBlockId != null);
-
-                    final Boolean transactionOutputHasBeenSpent;
-                    if (! spendingTransactionIsMined) {
-                        transactionOutputHasBeenSpent = true;
-                    }
-                    else {
-                        final Boolean spendingTransactionIsMinedOnMainChain = (blockDatabaseManager.isBlockConnectedToChain(spendingBlockId, headBlockChainSegmentId));
-                        transactionOutputHasBeenSpent = spendingTransactionIsMinedOnMainChain;
-                    }
-
-                    if (transactionOutputHasBeenSpent) {
-                        spendableTransactionOutput._spentByTransactionInputId = spendingTransactionInputId;
-                        break;
-                    }
-                }
-            }
-
-            spendableTransactionOutputs.add(spendableTransactionOutput);
-        }
+        _databaseConnection.executeSql(
+            new Query("UPDATE address_transaction_outputs SET spent_by_block_id = NULL, spent_by_transaction_input_id = NULL WHERE spent_by_block_id = ?")
+                .setParameter(blockId)
+        );
 
-        return spendableTransactionOutputs;
+        _databaseConnection.executeSql(
+            new Query("DELETE FROM address_transaction_outputs WHERE block_id = ?")
+                .setParameter(blockId)
+        );
     }
 
     public AddressDatabaseManager(final MysqlDatabaseConnection databaseConnection) {
@@ -336,16 +375,121 @@ public class AddressDatabaseManager {
         return _getAddressOutputs(addressId);
     }
 
+    /**
+     * Returns the sum of every output sent to the address within the head block chain, regardless of whether it has been spent.
+     */
+    public BigInteger getAddressTotalReceived(final AddressId addressId) throws DatabaseException {
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT COALESCE(SUM(amount), 0) AS total_received FROM address_transaction_outputs WHERE address_id = ?")
+                .setParameter(addressId)
+        );
+
+        final Row row = rows.get(0);
+        return BigInteger.valueOf(row.getLong("total_received"));
+    }
+
+    /**
+     * Returns the sum of the address's unspent outputs within the head block chain.
+     */
     public BigInteger getAddressBalance(final AddressId addressId) throws DatabaseException {
-        final List<SpendableTransactionOutput> spendableTransactionOutputs = _getAddressOutputs(addressId);
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT balance FROM address_balances WHERE address_id = ?")
+                .setParameter(addressId)
+        );
+        if (rows.isEmpty()) { return BigInteger.ZERO; }
 
-        BigInteger amount = BigInteger.ZERO;
-        for (final SpendableTransactionOutput spendableTransactionOutput : spendableTransactionOutputs) {
-            if (! spendableTransactionOutput.wasSpent()) {
-                amount = amount.add(BigInteger.valueOf(spendableTransactionOutput.getAmount()));
-            }
+        final Row row = rows.get(0);
+        return BigInteger.valueOf(row.getLong("balance"));
+    }
+
+    /**
+     * Adds the outputs of blockId to the address index, and marks the indexed outputs spent by blockId as spent.
+     *  blockId must be the child of the address index's current head block.
+     */
+    public void connectBlock(final BlockId blockId) throws DatabaseException {
+        _connectBlock(blockId);
+        _setAddressIndexHeadBlockId(blockId);
+    }
+
+    /**
+     * Reverts connectBlock for blockId.  blockId must be the address index's current head block.
+     */
+    public void disconnectBlock(final BlockId blockId) throws DatabaseException {
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
+        final BlockId previousBlockId = blockDatabaseManager.getAncestorBlockId(blockId, 1);
+
+        _disconnectBlock(blockId);
+
+        if (previousBlockId != null) {
+            _setAddressIndexHeadBlockId(previousBlockId);
+        }
+        else {
+            _databaseConnection.executeSql(
+                new Query("DELETE FROM address_index_head WHERE id = ?")
+                    .setParameter(ADDRESS_INDEX_HEAD_ID)
+            );
+        }
+    }
+
+    /**
+     * Returns the block the address index was last moved to via updateAddressIndex, or null if nothing has been indexed.
+     */
+    public BlockId getAddressIndexHeadBlockId() throws DatabaseException {
+        return _getAddressIndexHeadBlockId();
+    }
+
+    /**
+     * Moves the address index from its current head block (see getAddressIndexHeadBlockId) to headBlockId.
+     *  The blocks of the indexed chain that are not ancestors of headBlockId are disconnected (most recent first), and
+     *  then the blocks of the new head chain after their common ancestor are connected (oldest first).
+     *  The index's own head is persisted (rather than derived from the blocks table) so that the disconnected blocks are
+     *  always those that were actually connected, even if another block of the same height has since been stored.
+     *  Returns the blocks that were disconnected and connected, so that other head-chain state (e.g. the MemoryPool) may be
+     *  moved along the same path.
+     */
+    public HeadBlockChange updateAddressIndex(final BlockId headBlockId) throws DatabaseException {
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
+        final HeadBlockChange headBlockChange = new HeadBlockChange();
+
+        final BlockId previousHeadBlockId = _getAddressIndexHeadBlockId();
+        if (Util.areEqual(previousHeadBlockId, headBlockId)) { return headBlockChange; }
+
+        final java.util.LinkedList<BlockId> blockIdsToConnect = new java.util.LinkedList<BlockId>();
+
+        BlockId disconnectedBlockId = previousHeadBlockId;
+        Long disconnectedBlockHeight = (previousHeadBlockId != null ? blockDatabaseManager.getBlockHeightForBlockId(previousHeadBlockId) : -1L);
+        BlockId connectedBlockId = headBlockId;
+        Long connectedBlockHeight = blockDatabaseManager.getBlockHeightForBlockId(headBlockId);
+
+        while (connectedBlockHeight > disconnectedBlockHeight) {
+            blockIdsToConnect.addFirst(connectedBlockId);
+            connectedBlockId = blockDatabaseManager.getAncestorBlockId(connectedBlockId, 1);
+            connectedBlockHeight -= 1L;
         }
 
-        return amount;
+        while (disconnectedBlockHeight > connectedBlockHeight) {
+            _disconnectBlock(disconnectedBlockId);
+            headBlockChange._disconnectedBlockIds.add(disconnectedBlockId);
+            disconnectedBlockId = blockDatabaseManager.getAncestorBlockId(disconnectedBlockId, 1);
+            disconnectedBlockHeight -= 1L;
+        }
+
+        while (! Util.areEqual(disconnectedBlockId, connectedBlockId)) {
+            _disconnectBlock(disconnectedBlockId);
+            headBlockChange._disconnectedBlockIds.add(disconnectedBlockId);
+            blockIdsToConnect.addFirst(connectedBlockId);
+
+            disconnectedBlockId = blockDatabaseManager.getAncestorBlockId(disconnectedBlockId, 1);
+            connectedBlockId = blockDatabaseManager.getAncestorBlockId(connectedBlockId, 1);
+        }
+
+        for (final BlockId blockId : blockIdsToConnect) {
+            _connectBlock(blockId);
+            headBlockChange._connectedBlockIds.add(blockId);
+        }
+
+        _setAddressIndexHeadBlockId(headBlockId);
+
+        return headBlockChange;
     }
 }
@@ -10,7 +10,7 @@ import com.softwareverde.util.HexUtil;
 
 public class AddressInflater {
     protected byte[] _hashPublicKey(final PublicKey publicKey) {
-        return BitcoinUtil.ripemd160(BitcoinUtil.sha256(publicKey.getBytes()));
+        return BitcoinUtil.hash160(publicKey.getBytes());
     }
 
     public Address fromPrivateKey(final PrivateKey privateKey) {
@@ -12,7 +12,7 @@ public class BlockHasher {
     protected final BlockHeaderDeflater _blockHeaderDeflater = new BlockHeaderDeflater();
 
     protected Sha256Hash _calculateDoubleHash(final byte[] bytes) {
-        return MutableSha256Hash.wrap(ByteUtil.reverseEndian(BitcoinUtil.sha256(BitcoinUtil.sha256(bytes))));
+        return MutableSha256Hash.wrap(ByteUtil.reverseEndian(BitcoinUtil.doubleSha256(bytes)));
     }
 
     public Sha256Hash calculateBlockHash(final BlockHeader blockHeader) {
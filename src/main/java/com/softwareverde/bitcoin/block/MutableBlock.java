@@ -2,7 +2,7 @@ package com.softwareverde.bitcoin.block;
 
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
-import com.softwareverde.bitcoin.block.merkleroot.MerkleTreeNode;
+import com.softwareverde.bitcoin.block.merkleroot.FlatMerkleTree;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.coinbase.CoinbaseTransaction;
 import com.softwareverde.bitcoin.transaction.coinbase.MutableCoinbaseTransaction;
@@ -19,7 +19,7 @@ public class MutableBlock implements Block {
     protected Long _timestamp;
     protected Difficulty _difficulty;
     protected Long _nonce;
-    protected MerkleTreeNode<Transaction> _merkleTree = new MerkleTreeNode<Transaction>();
+    protected FlatMerkleTree<Transaction> _merkleTree = new FlatMerkleTree<Transaction>();
     protected MutableList<Transaction> _transactions = new MutableList<Transaction>();
 
     protected final BlockHasher _blockHasher = new BlockHasher();
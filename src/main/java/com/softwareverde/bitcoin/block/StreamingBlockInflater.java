@@ -0,0 +1,176 @@
+package com.softwareverde.bitcoin.block;
+
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionInflater;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.io.Logger;
+import com.softwareverde.util.Util;
+
+/**
+ * Inflates a Block incrementally while its bytes are still being received.
+ *  The block is read from a byte[] (i.e. a packet being assembled by the PacketBuffer) of which only a prefix has been
+ *  received; each invocation of onBytesReceived inflates every transaction that has been fully received since the previous
+ *  invocation.  Each transaction's hash is calculated and added to the block's merkle tree as it is inflated.
+ *
+ *  A transaction's length is not known until it has been parsed, so a partially received transaction is parsed again once
+ *  more bytes arrive; to keep the total work linear in the transaction's size, the re-parse is deferred until the received
+ *  portion of the transaction has at least doubled (or the entire block has been received).
+ *
+ *  The block is rejected as soon as it is known to be invalid, rather than after all of its bytes have been buffered:
+ *   - its header does not satisfy its own difficulty,
+ *   - its transaction count is zero, or could not fit within the block's size,
+ *   - a transaction is malformed or extends beyond the end of the block,
+ *   - bytes remain after its last transaction, or
+ *   - its merkle root does not match its transactions.
+ *
+ *  StreamingBlockInflater is not thread-safe.
+ */
+public class StreamingBlockInflater {
+    public static final Integer MIN_TRANSACTION_BYTE_COUNT = 60;
+
+    protected final Integer _blockEndIndex;
+    protected final TransactionInflater _transactionInflater = new TransactionInflater();
+
+    protected Integer _readIndex;
+    protected BlockHeader _blockHeader = null;
+    protected MutableBlock _block = null;
+    protected Long _transactionCount = null;
+    protected Integer _nextTransactionParseEndIndex = 0; // The received end index required before a partially received transaction is parsed again...
+    protected Boolean _isInvalid = false;
+
+    protected Boolean _markInvalid(final String reason) {
+        Logger.log("NOTICE: Rejecting streamed block" + (_blockHeader != null ? (" " + _blockHeader.getHash()) : "") + ": " + reason);
+        _isInvalid = true;
+        _block = null;
+        return false;
+    }
+
+    protected ByteArrayReader _createByteArrayReader(final byte[] bytes) {
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        byteArrayReader.setPosition(_readIndex);
+        return byteArrayReader;
+    }
+
+    /**
+     * Inflates the header and transaction count once they have been received.  Returns false if the header cannot be parsed yet.
+     */
+    protected Boolean _inflateBlockHeader(final byte[] bytes, final int receivedEndIndex) {
+        final int variableSizedIntegerMaxByteCount = 9;
+        final int requiredByteCount = Math.min((BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT + variableSizedIntegerMaxByteCount), (_blockEndIndex - _readIndex));
+        if ((receivedEndIndex - _readIndex) < requiredByteCount) { return false; }
+
+        final ByteArrayReader byteArrayReader = _createByteArrayReader(bytes);
+
+        final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(byteArrayReader);
+        if (blockHeader == null) { return _markInvalid("Unable to inflate header."); }
+        _blockHeader = blockHeader;
+
+        if (! blockHeader.isValid()) { return _markInvalid("Header does not satisfy its difficulty."); }
+
+        final Long transactionCount = byteArrayReader.readVariableSizedInteger();
+        if ( (byteArrayReader.didOverflow()) || (byteArrayReader.getPosition() > _blockEndIndex) ) { return _markInvalid("Unable to inflate transaction count."); }
+
+        final long remainingByteCount = (_blockEndIndex - byteArrayReader.getPosition());
+        if ( (transactionCount < 1L) || (transactionCount > (remainingByteCount / MIN_TRANSACTION_BYTE_COUNT)) ) {
+            return _markInvalid("Invalid transaction count: " + transactionCount);
+        }
+
+        _transactionCount = transactionCount;
+        _block = new MutableBlock(blockHeader);
+        _readIndex = byteArrayReader.getPosition();
+        return true;
+    }
+
+    /**
+     * Inflates the transactions that have been fully received.
+     *  A transaction that has only been partially received is re-inflated once the received portion of it has doubled.
+     */
+    protected Boolean _inflateTransactions(final byte[] bytes, final int receivedEndIndex) {
+        while ( (_block.getTransactionCount() < _transactionCount) && (_readIndex < receivedEndIndex) && (receivedEndIndex >= _nextTransactionParseEndIndex) ) {
+            final ByteArrayReader byteArrayReader = _createByteArrayReader(bytes);
+            final Transaction transaction = _transactionInflater.fromBytes(byteArrayReader, receivedEndIndex); // Partially received transactions are not hashed...
+            final int transactionEndIndex = byteArrayReader.getPosition();
+
+            if (transactionEndIndex > _blockEndIndex) { return _markInvalid("Transaction extends beyond the end of the block."); }
+
+            if (transaction == null) {
+                if (receivedEndIndex >= _blockEndIndex) { return _markInvalid("Unable to inflate transaction " + _block.getTransactionCount() + "."); }
+
+                final int receivedTransactionByteCount = (receivedEndIndex - _readIndex);
+                _nextTransactionParseEndIndex = Math.min((receivedEndIndex + Math.max(receivedTransactionByteCount, MIN_TRANSACTION_BYTE_COUNT)), _blockEndIndex);
+                break;
+            }
+
+            _block.addTransaction(transaction);
+            _readIndex = transactionEndIndex;
+        }
+
+        if (_block.getTransactionCount() < _transactionCount) { return true; }
+
+        if (_readIndex < _blockEndIndex) { return _markInvalid("Block contains " + (_blockEndIndex - _readIndex) + " bytes after its last transaction."); }
+
+        if (! Util.areEqual(_blockHeader.getMerkleRoot(), _block.getMerkleRoot())) { return _markInvalid("Merkle root mismatch."); }
+
+        return true;
+    }
+
+    /**
+     * The block begins at blockStartIndex of the byte[] later provided to onBytesReceived, and is blockByteCount bytes long.
+     */
+    public StreamingBlockInflater(final Integer blockStartIndex, final Integer blockByteCount) {
+        _blockEndIndex = (blockStartIndex + blockByteCount);
+        _readIndex = blockStartIndex;
+    }
+
+    /**
+     * Inflates any of the block's newly received bytes.
+     *  bytes's contents before receivedEndIndex must have been received, and must be the same for each invocation (though bytes
+     *  itself may be a larger copy of the previous invocation's byte[]).
+     *  Returns false if the block is invalid, in which case its remaining bytes need not be received.
+     */
+    public Boolean onBytesReceived(final byte[] bytes, final Integer receivedEndIndex) {
+        if (_isInvalid) { return false; }
+
+        final int safeReceivedEndIndex = Math.min(receivedEndIndex, _blockEndIndex);
+
+        if (_blockHeader == null) {
+            if (! _inflateBlockHeader(bytes, safeReceivedEndIndex)) {
+                return (! _isInvalid);
+            }
+        }
+
+        return _inflateTransactions(bytes, safeReceivedEndIndex);
+    }
+
+    public Boolean isInvalid() {
+        return _isInvalid;
+    }
+
+    /**
+     * Returns true once every transaction of the block has been inflated and the block has passed each of the streamed checks.
+     */
+    public Boolean isComplete() {
+        if (_isInvalid) { return false; }
+        if (_block == null) { return false; }
+
+        return ( (_block.getTransactionCount().longValue() == _transactionCount) && (_readIndex.intValue() == _blockEndIndex) );
+    }
+
+    /**
+     * Returns the block header once it has been received, or null.
+     */
+    public BlockHeader getBlockHeader() {
+        return _blockHeader;
+    }
+
+    /**
+     * Returns the inflated block if it is complete, otherwise null.
+     */
+    public MutableBlock getBlock() {
+        if (! isComplete()) { return null; }
+        return _block;
+    }
+}
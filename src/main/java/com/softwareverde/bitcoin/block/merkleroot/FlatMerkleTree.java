@@ -0,0 +1,260 @@
+package com.softwareverde.bitcoin.block.merkleroot;
+
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.type.merkleroot.MerkleRoot;
+import com.softwareverde.bitcoin.type.merkleroot.MutableMerkleRoot;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A MerkleTree that stores each level of the tree as a single flat byte[] of 32-byte hashes.
+ *  Each node is hashed directly from its children's slices of the level below, via BitcoinUtil's per-thread digests,
+ *  without creating any intermediary objects.  Levels with at least PARALLEL_NODE_COUNT nodes are hashed across the
+ *  common ForkJoinPool.
+ *
+ *  Nodes are only re-hashed if they are affected by an item added or replaced since the merkle root was last calculated;
+ *  therefore, appending items (i.e. while a block is being inflated) or replacing an item (i.e. the coinbase of a block
+ *  template) does not re-hash the whole tree.
+ *
+ *  Within the levels, hashes are stored in the byte order they are hashed in, which is the reverse of Sha256Hash::getBytes.
+ *  Each item's hash is captured when the item is added or replaced.
+ *
+ *  FlatMerkleTree is not thread-safe.
+ */
+public class FlatMerkleTree<T extends Hashable> implements MerkleTree<T> {
+    public static final Integer PARALLEL_NODE_COUNT = 2048;
+    protected static final int HASH_BYTE_COUNT = Sha256Hash.BYTE_COUNT;
+
+    protected static final ThreadLocal<byte[]> _threadLocalScratchSpace = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[HASH_BYTE_COUNT * 2];
+        }
+    };
+
+    /**
+     * Hashes the nodes [startIndex, endIndex) of the parent level from the childCount nodes of the child level.
+     *  A node without a right child is hashed with its left child twice.
+     */
+    protected static void _hashNodes(final byte[] childLevel, final int childCount, final byte[] parentLevel, final int startIndex, final int endIndex) {
+        for (int i = startIndex; i < endIndex; ++i) {
+            final int leftChildIndex = (i * 2);
+            final int rightChildIndex = Math.min((leftChildIndex + 1), (childCount - 1));
+
+            if (rightChildIndex != leftChildIndex) { // The children are adjacent within the child level...
+                BitcoinUtil.doubleSha256(childLevel, (leftChildIndex * HASH_BYTE_COUNT), (HASH_BYTE_COUNT * 2), parentLevel, (i * HASH_BYTE_COUNT));
+            }
+            else {
+                final byte[] scratchSpace = _threadLocalScratchSpace.get();
+                System.arraycopy(childLevel, (leftChildIndex * HASH_BYTE_COUNT), scratchSpace, 0, HASH_BYTE_COUNT);
+                System.arraycopy(childLevel, (leftChildIndex * HASH_BYTE_COUNT), scratchSpace, HASH_BYTE_COUNT, HASH_BYTE_COUNT);
+                BitcoinUtil.doubleSha256(scratchSpace, 0, (HASH_BYTE_COUNT * 2), parentLevel, (i * HASH_BYTE_COUNT));
+            }
+        }
+    }
+
+    protected static class HashNodesTask extends RecursiveAction {
+        protected final byte[] _childLevel;
+        protected final int _childCount;
+        protected final byte[] _parentLevel;
+        protected final int _startIndex;
+        protected final int _endIndex;
+
+        public HashNodesTask(final byte[] childLevel, final int childCount, final byte[] parentLevel, final int startIndex, final int endIndex) {
+            _childLevel = childLevel;
+            _childCount = childCount;
+            _parentLevel = parentLevel;
+            _startIndex = startIndex;
+            _endIndex = endIndex;
+        }
+
+        @Override
+        protected void compute() {
+            final int nodeCount = (_endIndex - _startIndex);
+            if (nodeCount <= (PARALLEL_NODE_COUNT / 2)) {
+                _hashNodes(_childLevel, _childCount, _parentLevel, _startIndex, _endIndex);
+                return;
+            }
+
+            final int midIndex = (_startIndex + (nodeCount / 2));
+            RecursiveAction.invokeAll(
+                new HashNodesTask(_childLevel, _childCount, _parentLevel, _startIndex, midIndex),
+                new HashNodesTask(_childLevel, _childCount, _parentLevel, midIndex, _endIndex)
+            );
+        }
+    }
+
+    protected final ArrayList<T> _items = new ArrayList<T>();
+    protected final ArrayList<byte[]> _levels = new ArrayList<byte[]>(); // _levels.get(0) contains the items' hashes...
+    protected int _dirtyItemIndex = 0; // The lowest index of an item added or replaced since the levels were last calculated...
+
+    protected byte[] _ensureLevelCapacity(final int levelIndex, final int nodeCount) {
+        final int requiredByteCount = (nodeCount * HASH_BYTE_COUNT);
+
+        while (_levels.size() <= levelIndex) {
+            _levels.add(new byte[Math.max(requiredByteCount, HASH_BYTE_COUNT)]);
+        }
+
+        final byte[] level = _levels.get(levelIndex);
+        if (level.length >= requiredByteCount) { return level; }
+
+        final byte[] resizedLevel = new byte[Math.max(requiredByteCount, (level.length * 2))];
+        System.arraycopy(level, 0, resizedLevel, 0, level.length);
+        _levels.set(levelIndex, resizedLevel);
+        return resizedLevel;
+    }
+
+    protected void _setItemHash(final int index, final T item) {
+        final byte[] itemHashes = _ensureLevelCapacity(0, (index + 1));
+        final Sha256Hash itemHash = item.getHash();
+
+        final int offset = (index * HASH_BYTE_COUNT);
+        for (int i = 0; i < HASH_BYTE_COUNT; ++i) {
+            itemHashes[offset + i] = itemHash.getByte(HASH_BYTE_COUNT - i - 1);
+        }
+
+        _dirtyItemIndex = Math.min(_dirtyItemIndex, index);
+    }
+
+    /**
+     * Re-hashes each node affected by the items changed since the last calculation.
+     *  Returns the level containing the root, which is the first hash of the returned level.
+     */
+    protected byte[] _calculateLevels() {
+        int nodeCount = _items.size();
+        int dirtyNodeIndex = _dirtyItemIndex;
+        int levelIndex = 0;
+
+        while (nodeCount > 1) {
+            final int parentCount = ((nodeCount + 1) / 2);
+            final int dirtyParentIndex = (dirtyNodeIndex / 2);
+
+            if (dirtyParentIndex < parentCount) {
+                final byte[] childLevel = _levels.get(levelIndex);
+                final byte[] parentLevel = _ensureLevelCapacity((levelIndex + 1), parentCount);
+
+                final int dirtyParentCount = (parentCount - dirtyParentIndex);
+                if (dirtyParentCount >= PARALLEL_NODE_COUNT) {
+                    ForkJoinPool.commonPool().invoke(new HashNodesTask(childLevel, nodeCount, parentLevel, dirtyParentIndex, parentCount));
+                }
+                else {
+                    _hashNodes(childLevel, nodeCount, parentLevel, dirtyParentIndex, parentCount);
+                }
+            }
+
+            nodeCount = parentCount;
+            dirtyNodeIndex = dirtyParentIndex;
+            levelIndex += 1;
+        }
+
+        _dirtyItemIndex = Integer.MAX_VALUE;
+        return _levels.get(levelIndex);
+    }
+
+    /**
+     * Returns a copy of the hash at index within level, in Sha256Hash byte order.
+     */
+    protected static byte[] _getHash(final byte[] level, final int index) {
+        final byte[] hash = new byte[HASH_BYTE_COUNT];
+        final int offset = (index * HASH_BYTE_COUNT);
+        for (int i = 0; i < HASH_BYTE_COUNT; ++i) {
+            hash[i] = level[offset + HASH_BYTE_COUNT - i - 1];
+        }
+        return hash;
+    }
+
+    public FlatMerkleTree() { }
+
+    public FlatMerkleTree(final List<? extends T> items) {
+        _items.ensureCapacity(items.getSize());
+        for (final T item : items) {
+            addItem(item);
+        }
+    }
+
+    @Override
+    public void addItem(final T item) {
+        final int index = _items.size();
+        _items.add(item);
+        _setItemHash(index, item);
+    }
+
+    @Override
+    public List<T> getItems() {
+        final ImmutableListBuilder<T> immutableListBuilder = new ImmutableListBuilder<T>(_items.size());
+        for (final T item : _items) {
+            immutableListBuilder.add(item);
+        }
+        return immutableListBuilder.build();
+    }
+
+    @Override
+    public void replaceItem(final int index, final T item) {
+        if ( (index < 0) || (index >= _items.size()) ) { return; }
+
+        _items.set(index, item);
+        _setItemHash(index, item);
+    }
+
+    @Override
+    public int getItemCount() {
+        return _items.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _items.isEmpty();
+    }
+
+    public void clear() {
+        _items.clear();
+        _dirtyItemIndex = 0;
+    }
+
+    @Override
+    public MerkleRoot getMerkleRoot() {
+        if (_items.isEmpty()) {
+            // Consistent with MerkleTreeNode, the root of an empty tree is the hash of two empty hashes...
+            final byte[] emptyLevel = new byte[HASH_BYTE_COUNT];
+            final byte[] rootLevel = new byte[HASH_BYTE_COUNT];
+            _hashNodes(emptyLevel, 1, rootLevel, 0, 1);
+            return MutableMerkleRoot.wrap(_getHash(rootLevel, 0));
+        }
+
+        final byte[] rootLevel = _calculateLevels();
+        return MutableMerkleRoot.wrap(_getHash(rootLevel, 0));
+    }
+
+    /**
+     * Returns the hashes required to calculate the merkle root from the item at index (i.e. the item's merkle branch),
+     *  ordered from the item's sibling to the root's child.  Where a node has no sibling, the node itself is included,
+     *  since the node is hashed with itself.
+     */
+    @Override
+    public List<Sha256Hash> getPartialTree(final int index) {
+        final ImmutableListBuilder<Sha256Hash> partialTreeBuilder = new ImmutableListBuilder<Sha256Hash>();
+        if ( (index < 0) || (index >= _items.size()) ) { return partialTreeBuilder.build(); }
+
+        _calculateLevels();
+
+        int nodeCount = _items.size();
+        int nodeIndex = index;
+        int levelIndex = 0;
+        while (nodeCount > 1) {
+            final int siblingIndex = Math.min((nodeIndex ^ 1), (nodeCount - 1));
+            partialTreeBuilder.add(MutableSha256Hash.wrap(_getHash(_levels.get(levelIndex), siblingIndex)));
+
+            nodeCount = ((nodeCount + 1) / 2);
+            nodeIndex /= 2;
+            levelIndex += 1;
+        }
+
+        return partialTreeBuilder.build();
+    }
+}
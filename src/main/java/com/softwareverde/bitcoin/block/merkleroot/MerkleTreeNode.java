@@ -24,7 +24,7 @@ public class MerkleTreeNode<T extends Hashable> implements MerkleTree<T> {
         ByteUtil.setBytes(scratchSpace, hash0.toReversedEndian().getBytes());
         ByteUtil.setBytes(scratchSpace, hash1.toReversedEndian().getBytes(), Sha256Hash.BYTE_COUNT);
 
-        return ByteUtil.reverseEndian(BitcoinUtil.sha256(BitcoinUtil.sha256(scratchSpace)));
+        return ByteUtil.reverseEndian(BitcoinUtil.doubleSha256(scratchSpace));
     }
 
     protected Boolean _hashIsValid = false;
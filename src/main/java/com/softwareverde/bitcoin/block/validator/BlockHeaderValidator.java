@@ -4,6 +4,7 @@ import com.softwareverde.bitcoin.bip.Bip113;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
+import com.softwareverde.bitcoin.block.validator.difficulty.BlockHeaderWindow;
 import com.softwareverde.bitcoin.block.validator.difficulty.DifficultyCalculator;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTimeWithBlocks;
@@ -12,6 +13,7 @@ import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.io.Logger;
 import com.softwareverde.network.time.NetworkTime;
+import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.Timer;
 
 public class BlockHeaderValidator {
@@ -19,6 +21,28 @@ public class BlockHeaderValidator {
     protected final MedianBlockTimeWithBlocks _medianBlockTime;
     protected final MysqlDatabaseConnection _databaseConnection;
 
+    protected Boolean _validateBlockTime(final BlockHeader blockHeader, final Long minimumTimeInSeconds) {
+        final Long blockTime = blockHeader.getTimestamp();
+        final Long networkTime = _networkTime.getCurrentTimeInSeconds();
+        final Long secondsInTwoHours = 7200L;
+        final Long maximumNetworkTime = networkTime + secondsInTwoHours;
+
+        if (blockTime < minimumTimeInSeconds) { return false; }
+        if (blockTime > maximumNetworkTime) { return false; }
+
+        return true;
+    }
+
+    protected Boolean _validateDifficulty(final BlockHeader blockHeader, final Difficulty calculatedRequiredDifficulty) {
+        final Boolean difficultyIsCorrect = calculatedRequiredDifficulty.equals(blockHeader.getDifficulty());
+        if (!difficultyIsCorrect) {
+            Logger.log("Invalid difficulty for block. Required: " + calculatedRequiredDifficulty.encode() + " Found: " + blockHeader.getDifficulty().encode());
+            return false;
+        }
+
+        return true;
+    }
+
     protected Boolean _validateBlockHeader(final BlockChainSegmentId blockChainSegmentId, final BlockHeader blockHeader, final Long blockHeight) {
         if (! blockHeader.isValid()) {
             Logger.log("Block header is invalid.");
@@ -29,7 +53,6 @@ public class BlockHeaderValidator {
         validateBlockTimer.start();
 
         { // Validate Block Timestamp...
-            final Long blockTime = blockHeader.getTimestamp();
             final Long minimumTimeInSeconds;
             {
                 if (Bip113.isEnabled(blockHeight)) {
@@ -39,12 +62,8 @@ public class BlockHeaderValidator {
                     minimumTimeInSeconds = 0L;
                 }
             }
-            final Long networkTime = _networkTime.getCurrentTimeInSeconds();
-            final Long secondsInTwoHours = 7200L;
-            final Long maximumNetworkTime = networkTime + secondsInTwoHours;
 
-            if (blockTime < minimumTimeInSeconds) { return false; }
-            if (blockTime > maximumNetworkTime) { return false; }
+            if (! _validateBlockTime(blockHeader, minimumTimeInSeconds)) { return false; }
         }
 
         { // Validate block (calculated) difficulty...
@@ -55,11 +74,7 @@ public class BlockHeaderValidator {
                 return false;
             }
 
-            final Boolean difficultyIsCorrect = calculatedRequiredDifficulty.equals(blockHeader.getDifficulty());
-            if (!difficultyIsCorrect) {
-                Logger.log("Invalid difficulty for block. Required: " + calculatedRequiredDifficulty.encode() + " Found: " + blockHeader.getDifficulty().encode());
-                return false;
-            }
+            if (! _validateDifficulty(blockHeader, calculatedRequiredDifficulty)) { return false; }
         }
 
         validateBlockTimer.stop();
@@ -94,4 +109,52 @@ public class BlockHeaderValidator {
     public Boolean validateBlockHeader(final BlockChainSegmentId blockChainSegmentId, final BlockHeader blockHeader, final Long blockHeight) {
         return _validateBlockHeader(blockChainSegmentId, blockHeader, blockHeight);
     }
+
+    /**
+     * Validates a blockHeader that extends the head of the blockHeaderWindow, without accessing the database.
+     *  The median-time-past and required difficulty are calculated from the blockHeaderWindow instead of the validator's MedianBlockTime.
+     */
+    public Boolean validateBlockHeader(final BlockHeaderWindow blockHeaderWindow, final BlockHeader blockHeader) {
+        if (! blockHeader.isValid()) {
+            Logger.log("Block header is invalid.");
+            return false;
+        }
+
+        if (! Util.areEqual(blockHeader.getPreviousBlockHash(), blockHeaderWindow.getHeadBlockHash())) {
+            Logger.log("Block header does not extend the BlockHeaderWindow: " + blockHeader.getHash());
+            return false;
+        }
+
+        final Long blockHeight = (blockHeaderWindow.getHeadBlockHeight() + 1L);
+
+        { // Validate Block Timestamp...
+            final Long minimumTimeInSeconds;
+            {
+                if (Bip113.isEnabled(blockHeight)) {
+                    minimumTimeInSeconds = blockHeaderWindow.getMedianBlockTime();
+                    if (minimumTimeInSeconds == null) {
+                        Logger.log("Unable to calculate MedianBlockTime for block: " + blockHeader.getHash());
+                        return false;
+                    }
+                }
+                else {
+                    minimumTimeInSeconds = 0L;
+                }
+            }
+
+            if (! _validateBlockTime(blockHeader, minimumTimeInSeconds)) { return false; }
+        }
+
+        { // Validate block (calculated) difficulty...
+            final Difficulty calculatedRequiredDifficulty = blockHeaderWindow.calculateRequiredDifficulty();
+            if (calculatedRequiredDifficulty == null) {
+                Logger.log("Unable to calculate required difficulty for block: " + blockHeader.getHash());
+                return false;
+            }
+
+            if (! _validateDifficulty(blockHeader, calculatedRequiredDifficulty)) { return false; }
+        }
+
+        return true;
+    }
 }
@@ -32,6 +32,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class BlockValidator {
+    protected static final ParallelledTaskSpawner.WeightCalculator<Transaction> TRANSACTION_INPUT_COUNT_WEIGHT_CALCULATOR = new ParallelledTaskSpawner.WeightCalculator<Transaction>() {
+        @Override
+        public Integer calculateWeight(final Transaction transaction) {
+            return transaction.getTransactionInputs().getSize();
+        }
+    };
+
     protected final NetworkTime _networkTime;
     protected final MedianBlockTimeWithBlocks _medianBlockTime;
     protected final SystemTime _systemTime = new SystemTime();
@@ -139,10 +146,12 @@ public class BlockValidator {
 
         final ParallelledTaskSpawner<Transaction, Long> totalExpenditureValidationTaskSpawner = new ParallelledTaskSpawner<Transaction, Long>(_databaseConnectionFactory);
         totalExpenditureValidationTaskSpawner.setTaskHandlerFactory(totalExpenditureTaskHandlerFactory);
+        totalExpenditureValidationTaskSpawner.setWeightCalculator(TRANSACTION_INPUT_COUNT_WEIGHT_CALCULATOR);
         totalExpenditureValidationTaskSpawner.executeTasks(transactions, threadCount);
 
         final ParallelledTaskSpawner<Transaction, Boolean> unlockedInputsValidationTaskSpawner = new ParallelledTaskSpawner<Transaction, Boolean>(_databaseConnectionFactory);
         unlockedInputsValidationTaskSpawner.setTaskHandlerFactory(unlockedInputsTaskHandlerFactory);
+        unlockedInputsValidationTaskSpawner.setWeightCalculator(TRANSACTION_INPUT_COUNT_WEIGHT_CALCULATOR);
 
         final Boolean shouldValidateInputs = (blockHeight > _trustedBlockHeight);
         if (shouldValidateInputs) {
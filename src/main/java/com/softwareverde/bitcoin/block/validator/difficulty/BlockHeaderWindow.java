@@ -0,0 +1,213 @@
+package com.softwareverde.bitcoin.block.validator.difficulty;
+
+import com.softwareverde.bitcoin.bip.Bip55;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
+import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.util.Util;
+
+import java.util.Arrays;
+
+/**
+ * A rolling window of the most recent block headers of a single chain, sufficient to calculate the required difficulty
+ *  and the median-time-past of the next block without accessing the database.
+ *
+ *  The window is a ring buffer of the last (2016 + 11) headers' hash, timestamp, and difficulty.  The median-time-past of
+ *  each header is calculated once as the header is added, so the emergency difficulty adjustment compares two stored values
+ *  instead of re-sorting both 11-block windows.
+ *
+ *  A header whose parent is within the window (but is not the head) rewinds the window to its parent before it is added;
+ *  a header whose parent is not within the window cannot be added, and the window should be reloaded from the database
+ *  (via BlockDatabaseManager::initializeBlockHeaderWindow).  Rewinding discards the headers after the new head, so a deep
+ *  rewind may leave too few headers to calculate the next retarget; the window should then also be reloaded (see hasCompleteHistory).
+ *
+ *  BlockHeaderWindow is not thread-safe.
+ */
+public class BlockHeaderWindow {
+    public static final Integer DEFAULT_CAPACITY = (DifficultyCalculator.BLOCK_COUNT_PER_DIFFICULTY_ADJUSTMENT + MedianBlockTime.BLOCK_COUNT);
+
+    protected final Integer _capacity;
+    protected final Sha256Hash[] _blockHashes;
+    protected final long[] _timestamps;
+    protected final Difficulty[] _difficulties;
+    protected final Long[] _medianBlockTimes; // null if the median-time-past could not be calculated because the window was partially loaded...
+
+    protected final long[] _medianBlockTimeBuffer = new long[MedianBlockTime.BLOCK_COUNT];
+
+    protected int _headIndex = -1;
+    protected int _blockCount = 0;
+    protected Long _headBlockHeight = null;
+
+    /**
+     * Returns the buffer index of the header that is indexFromHead headers before the head.
+     */
+    protected int _getIndex(final int indexFromHead) {
+        return ((_headIndex - indexFromHead + _capacity) % _capacity);
+    }
+
+    protected Long _calculateMedianBlockTime(final Long blockHeight) {
+        final int blockCount = MedianBlockTime.BLOCK_COUNT;
+        if (_blockCount < blockCount) {
+            if (blockHeight < (blockCount - 1)) { return MedianBlockTime.GENESIS_BLOCK_TIMESTAMP; } // Fewer than 11 blocks exist...
+            return null;
+        }
+
+        for (int i = 0; i < blockCount; ++i) {
+            _medianBlockTimeBuffer[i] = _timestamps[_getIndex(i)];
+        }
+        Arrays.sort(_medianBlockTimeBuffer);
+
+        return _medianBlockTimeBuffer[blockCount / 2];
+    }
+
+    protected Integer _getIndexFromHead(final Sha256Hash blockHash) {
+        for (int i = 0; i < _blockCount; ++i) {
+            if (Util.areEqual(blockHash, _blockHashes[_getIndex(i)])) {
+                return i;
+            }
+        }
+        return null;
+    }
+
+    public BlockHeaderWindow() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BlockHeaderWindow(final Integer capacity) {
+        _capacity = capacity;
+        _blockHashes = new Sha256Hash[capacity];
+        _timestamps = new long[capacity];
+        _difficulties = new Difficulty[capacity];
+        _medianBlockTimes = new Long[capacity];
+    }
+
+    /**
+     * Adds the block as the new head of the window.
+     *  blockHeight must be one greater than the current head's height, unless the window is empty.
+     */
+    public void addBlock(final Sha256Hash blockHash, final Long blockHeight, final Long timestamp, final Difficulty difficulty) {
+        if ( (_headBlockHeight != null) && (blockHeight != (_headBlockHeight + 1L)) ) {
+            throw new IllegalArgumentException("Block " + blockHash + " at height " + blockHeight + " does not extend the window's head at height " + _headBlockHeight + ".");
+        }
+
+        _headIndex = ((_headIndex + 1) % _capacity);
+        _blockCount = Math.min(_blockCount + 1, _capacity);
+        _headBlockHeight = blockHeight;
+
+        _blockHashes[_headIndex] = blockHash;
+        _timestamps[_headIndex] = timestamp;
+        _difficulties[_headIndex] = difficulty;
+        _medianBlockTimes[_headIndex] = _calculateMedianBlockTime(blockHeight);
+    }
+
+    /**
+     * Adds the blockHeader as the new head of the window.
+     *  If the blockHeader's parent is within the window but is not the head, the window is rewound to its parent first.
+     *  Returns false if the blockHeader's parent is not within the window.
+     */
+    public Boolean addBlockHeader(final BlockHeader blockHeader) {
+        if (! _rewindTo(blockHeader.getPreviousBlockHash())) { return false; }
+
+        addBlock(blockHeader.getHash(), (_headBlockHeight + 1L), blockHeader.getTimestamp(), blockHeader.getDifficulty());
+        return true;
+    }
+
+    protected Boolean _rewindTo(final Sha256Hash blockHash) {
+        final Integer indexFromHead = _getIndexFromHead(blockHash);
+        if (indexFromHead == null) { return false; }
+
+        _headIndex = _getIndex(indexFromHead);
+        _blockCount -= indexFromHead;
+        _headBlockHeight -= indexFromHead;
+        return true;
+    }
+
+    /**
+     * Rewinds the window so that blockHash is its head.
+     *  Returns false if blockHash is not within the window, in which case the window is unchanged.
+     */
+    public Boolean rewindTo(final Sha256Hash blockHash) {
+        return _rewindTo(blockHash);
+    }
+
+    public Sha256Hash getHeadBlockHash() {
+        if (_blockCount == 0) { return null; }
+        return _blockHashes[_headIndex];
+    }
+
+    public Long getHeadBlockHeight() {
+        return _headBlockHeight;
+    }
+
+    public Integer getBlockCount() {
+        return _blockCount;
+    }
+
+    /**
+     * Returns true if the window contains enough of the head's ancestors to calculate the required difficulty of the next block,
+     *  i.e. the window contains at least one full difficulty-adjustment period or contains every block since the genesis block.
+     */
+    public Boolean hasCompleteHistory() {
+        if (_blockCount == 0) { return false; }
+        if (_blockCount >= DifficultyCalculator.BLOCK_COUNT_PER_DIFFICULTY_ADJUSTMENT) { return true; }
+        return (_blockCount == (_headBlockHeight + 1L));
+    }
+
+    /**
+     * Returns the median-time-past of the head block, in seconds; this is the minimum timestamp for the next block (BIP113).
+     *  Returns null if the window does not contain enough blocks.
+     */
+    public Long getMedianBlockTime() {
+        if (_blockCount == 0) { return null; }
+        return _medianBlockTimes[_headIndex];
+    }
+
+    /**
+     * Returns the difficulty required for the block following the head of the window.
+     *  Returns null if the window does not contain enough blocks to calculate the difficulty.
+     */
+    public Difficulty calculateRequiredDifficulty() {
+        if (_blockCount == 0) { return null; }
+
+        final Long blockHeight = (_headBlockHeight + 1L);
+        final int blockCountPerDifficultyAdjustment = DifficultyCalculator.BLOCK_COUNT_PER_DIFFICULTY_ADJUSTMENT;
+
+        final Boolean requiresDifficultyEvaluation = (blockHeight % blockCountPerDifficultyAdjustment == 0);
+        if (requiresDifficultyEvaluation) {
+            // The previous adjustment block is 2016 blocks before the new block, which is 2015 blocks before the head...
+            final int previousAdjustmentIndexFromHead = (blockCountPerDifficultyAdjustment - 1);
+            if (_blockCount <= previousAdjustmentIndexFromHead) { return null; }
+
+            final int previousAdjustmentIndex = _getIndex(previousAdjustmentIndexFromHead);
+            return DifficultyCalculator._calculateAdjustedDifficulty(_difficulties[previousAdjustmentIndex], _timestamps[previousAdjustmentIndex], _timestamps[_headIndex]);
+        }
+
+        final Difficulty headDifficulty = _difficulties[_headIndex];
+
+        if (Bip55.isEnabled(blockHeight)) {
+            final int sixthParentIndexFromHead = 6;
+            if (_blockCount <= sixthParentIndexFromHead) { return null; }
+
+            final Long medianBlockTime = _medianBlockTimes[_headIndex];
+            final Long sixthParentMedianBlockTime = _medianBlockTimes[_getIndex(sixthParentIndexFromHead)];
+            if ( (medianBlockTime == null) || (sixthParentMedianBlockTime == null) ) { return null; }
+
+            final Difficulty emergencyDifficulty = DifficultyCalculator._calculateEmergencyDifficulty(headDifficulty, blockHeight, medianBlockTime, sixthParentMedianBlockTime);
+            if (emergencyDifficulty != null) {
+                return emergencyDifficulty;
+            }
+        }
+
+        return headDifficulty;
+    }
+
+    public void clear() {
+        Arrays.fill(_blockHashes, null);
+        Arrays.fill(_difficulties, null);
+        Arrays.fill(_medianBlockTimes, null);
+        _headIndex = -1;
+        _blockCount = 0;
+        _headBlockHeight = null;
+    }
+}
@@ -14,6 +14,67 @@ import com.softwareverde.util.DateUtil;
 import com.softwareverde.util.Util;
 
 public class DifficultyCalculator {
+    protected static final Integer BLOCK_COUNT_PER_DIFFICULTY_ADJUSTMENT = 2016;
+    protected static final Long SECONDS_IN_TWELVE_HOURS = 43200L;
+
+    /**
+     * Calculates the difficulty for the first block of a difficulty period.
+     *  blockTimestamp is the timestamp of the new block's parent.  previousAdjustmentDifficulty and previousBlockTimestamp
+     *  belong to the block 2016 blocks before the new block.
+     */
+    protected static Difficulty _calculateAdjustedDifficulty(final Difficulty previousAdjustmentDifficulty, final Long previousBlockTimestamp, final Long blockTimestamp) {
+        Logger.log(DateUtil.Utc.timestampToDatetimeString(blockTimestamp * 1000L));
+        Logger.log(DateUtil.Utc.timestampToDatetimeString(previousBlockTimestamp * 1000L));
+
+        //  3. Calculate the difference between the network-time and the time of the 2015th-parent block ("secondsElapsed"). (NOTE: 2015 instead of 2016 due to protocol bug.)
+        final Long secondsElapsed = (blockTimestamp - previousBlockTimestamp);
+        Logger.log("2016 blocks in "+ secondsElapsed + " ("+ (secondsElapsed/60F/60F/24F) +" days)");
+
+        //  4. Calculate the desired two-weeks elapse-time ("secondsInTwoWeeks").
+        final Long secondsInTwoWeeks = 2L * 7L * 24L * 60L * 60L; // <Week Count> * <Days / Week> * <Hours / Day> * <Minutes / Hour> * <Seconds / Minute>
+
+        //  5. Calculate the difficulty adjustment via (secondsInTwoWeeks / secondsElapsed) ("difficultyAdjustment").
+        final double difficultyAdjustment = (secondsInTwoWeeks.doubleValue() / secondsElapsed.doubleValue());
+        Logger.log("Adjustment: "+ difficultyAdjustment);
+
+        //  6. Bound difficultyAdjustment between [4, 0.25].
+        final double boundedDifficultyAdjustment = (Math.min(4D, Math.max(0.25D, difficultyAdjustment)));
+
+        //  7. Multiply the difficulty by the bounded difficultyAdjustment.
+        final Difficulty newDifficulty = (previousAdjustmentDifficulty.multiplyBy(1.0D / boundedDifficultyAdjustment));
+
+        //  8. The new difficulty cannot be less than the base difficulty.
+        final Difficulty minimumDifficulty = Difficulty.BASE_DIFFICULTY;
+        if (newDifficulty.isLessDifficultThan(minimumDifficulty)) {
+            return minimumDifficulty;
+        }
+
+        return newDifficulty;
+    }
+
+    /**
+     * Calculates the Bitcoin Cash emergency difficulty adjustment (EDA) for a block whose parent's difficulty is headDifficulty.
+     *  The adjustment applies only when the median-time-past of the parent is more than twelve hours after the median-time-past of the parent's sixth ancestor.
+     *  Returns null if the emergency adjustment does not apply.
+     */
+    protected static Difficulty _calculateEmergencyDifficulty(final Difficulty headDifficulty, final Long blockHeight, final Long medianBlockTimeInSeconds, final Long sixthParentMedianBlockTimeInSeconds) {
+        if ((medianBlockTimeInSeconds - sixthParentMedianBlockTimeInSeconds) <= SECONDS_IN_TWELVE_HOURS) { return null; }
+
+        final Difficulty emergencyDifficulty;
+        {
+            Difficulty newDifficulty = headDifficulty.multiplyBy(1.25D);
+
+            final Difficulty minimumDifficulty = Difficulty.BASE_DIFFICULTY;
+            if (newDifficulty.isLessDifficultThan(minimumDifficulty)) {
+                newDifficulty = minimumDifficulty;
+            }
+            emergencyDifficulty = newDifficulty;
+        }
+
+        Logger.log("Emergency Difficulty Adjustment: BlockHeight: " + blockHeight + " Original Difficulty: " + headDifficulty + " New Difficulty: " + emergencyDifficulty);
+        return emergencyDifficulty;
+    }
+
     protected final MysqlDatabaseConnection _databaseConnection;
     protected final BlockDatabaseManager _blockDatabaseManager;
 
@@ -23,7 +84,7 @@ public class DifficultyCalculator {
     }
 
     public Difficulty calculateRequiredDifficulty(final BlockChainSegmentId blockChainSegmentId, final BlockHeader blockHeader) {
-        final Integer blockCountPerDifficultyAdjustment = 2016;
+        final Integer blockCountPerDifficultyAdjustment = BLOCK_COUNT_PER_DIFFICULTY_ADJUSTMENT;
         try {
             final BlockId blockId = _blockDatabaseManager.getBlockIdFromHash(blockHeader.getHash());
             if (blockId == null) {
@@ -56,35 +117,8 @@ public class DifficultyCalculator {
                     final BlockHeader previousBlock = _blockDatabaseManager.getBlockHeader(previousBlockId);
                     blockTimestamp = previousBlock.getTimestamp();
                 }
-                final Long previousBlockTimestamp = blockWithPreviousAdjustment.getTimestamp();
-
-                Logger.log(DateUtil.Utc.timestampToDatetimeString(blockTimestamp * 1000L));
-                Logger.log(DateUtil.Utc.timestampToDatetimeString(previousBlockTimestamp * 1000L));
 
-                //  3. Calculate the difference between the network-time and the time of the 2015th-parent block ("secondsElapsed"). (NOTE: 2015 instead of 2016 due to protocol bug.)
-                final Long secondsElapsed = (blockTimestamp - previousBlockTimestamp);
-                Logger.log("2016 blocks in "+ secondsElapsed + " ("+ (secondsElapsed/60F/60F/24F) +" days)");
-
-                //  4. Calculate the desired two-weeks elapse-time ("secondsInTwoWeeks").
-                final Long secondsInTwoWeeks = 2L * 7L * 24L * 60L * 60L; // <Week Count> * <Days / Week> * <Hours / Day> * <Minutes / Hour> * <Seconds / Minute>
-
-                //  5. Calculate the difficulty adjustment via (secondsInTwoWeeks / secondsElapsed) ("difficultyAdjustment").
-                final double difficultyAdjustment = (secondsInTwoWeeks.doubleValue() / secondsElapsed.doubleValue());
-                Logger.log("Adjustment: "+ difficultyAdjustment);
-
-                //  6. Bound difficultyAdjustment between [4, 0.25].
-                final double boundedDifficultyAdjustment = (Math.min(4D, Math.max(0.25D, difficultyAdjustment)));
-
-                //  7. Multiply the difficulty by the bounded difficultyAdjustment.
-                final Difficulty newDifficulty = (blockWithPreviousAdjustment.getDifficulty().multiplyBy(1.0D / boundedDifficultyAdjustment));
-
-                //  8. The new difficulty cannot be less than the base difficulty.
-                final Difficulty minimumDifficulty = Difficulty.BASE_DIFFICULTY;
-                if (newDifficulty.isLessDifficultThan(minimumDifficulty)) {
-                    return minimumDifficulty;
-                }
-
-                return newDifficulty;
+                return _calculateAdjustedDifficulty(blockWithPreviousAdjustment.getDifficulty(), blockWithPreviousAdjustment.getTimestamp(), blockTimestamp);
             }
             else {
                 final BlockId previousBlockBlockId = _blockDatabaseManager.getBlockIdFromHash(blockHeader.getPreviousBlockHash());
@@ -96,26 +130,14 @@ public class DifficultyCalculator {
                     final MedianBlockTime medianBlockTime = _blockDatabaseManager.calculateMedianBlockTime(blockId);
                     final BlockId sixthParentBlockId = _blockDatabaseManager.getAncestorBlockId(blockId, 6);
                     final MedianBlockTime medianBlockTimeForSixthBlock = _blockDatabaseManager.calculateMedianBlockTime(sixthParentBlockId);
-                    final Long secondsInTwelveHours = 43200L;
 
                     if (medianBlockTime == null || medianBlockTimeForSixthBlock == null) {
                         Logger.log("Unable to calculate difficulty for block: " + blockHeader.getHash());
                         return null;
                     }
 
-                    if (medianBlockTime.getCurrentTimeInSeconds() - medianBlockTimeForSixthBlock.getCurrentTimeInSeconds() > secondsInTwelveHours) {
-                        final Difficulty emergencyDifficulty;
-                        {
-                            Difficulty newDifficulty = headBlockHeader.getDifficulty().multiplyBy(1.25D);
-
-                            final Difficulty minimumDifficulty = Difficulty.BASE_DIFFICULTY;
-                            if (newDifficulty.isLessDifficultThan(minimumDifficulty)) {
-                                newDifficulty = minimumDifficulty;
-                            }
-                            emergencyDifficulty = newDifficulty;
-                        }
-
-                        Logger.log("Emergency Difficulty Adjustment: BlockHeight: " + blockHeight + " Original Difficulty: " + headBlockHeader.getDifficulty() + " New Difficulty: " + emergencyDifficulty);
+                    final Difficulty emergencyDifficulty = _calculateEmergencyDifficulty(headBlockHeader.getDifficulty(), blockHeight, medianBlockTime.getCurrentTimeInSeconds(), medianBlockTimeForSixthBlock.getCurrentTimeInSeconds());
+                    if (emergencyDifficulty != null) {
                         return emergencyDifficulty;
                     }
                 }
@@ -2,72 +2,100 @@ package com.softwareverde.bitcoin.block.validator.thread;
 
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
-import com.softwareverde.database.DatabaseException;
-import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.database.mysql.embedded.factory.ReadUncommittedDatabaseConnectionFactory;
-import com.softwareverde.io.Logger;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes a TaskHandler against each item of a list, across multiple threads.
+ *  The items are divided into batches of (approximately) equal weight, and each thread claims the next unclaimed batch
+ *  once it has finished its previous one; an expensive batch therefore only delays the thread processing it.
+ *  If any TaskHandler reports that it should abort, then all remaining batches are skipped.
+ */
 public class ParallelledTaskSpawner<T, S> {
-    protected static final ExecutorService THREAD_POOL = Executors.newCachedThreadPool();
-
-    protected static void _closeConnection(final MysqlDatabaseConnection databaseConnection) {
-        try {
-            if (databaseConnection != null) {
-                databaseConnection.close();
-            }
-        }
-        catch (DatabaseException exception) { }
+    public interface WeightCalculator<T> {
+        Integer calculateWeight(T item);
     }
 
-    protected static void _closeConnections(final MysqlDatabaseConnection[] databaseConnections) {
-        for (final MysqlDatabaseConnection databaseConnection : databaseConnections) {
-            _closeConnection(databaseConnection);
-        }
-    }
+    /**
+     * The number of batches created per thread; higher values improve load balancing at the cost of coordination.
+     */
+    protected static final int BATCHES_PER_THREAD = 8;
+
+    protected static final ExecutorService THREAD_POOL = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
 
     protected final ReadUncommittedDatabaseConnectionFactory _databaseConnectionFactory;
     protected List<ValidationTask<T, S>> _validationTasks = null;
     protected TaskHandlerFactory<T, S> _taskHandlerFactory;
+    protected WeightCalculator<T> _weightCalculator = null;
 
-    public void setTaskHandlerFactory(final TaskHandlerFactory<T, S> taskHandlerFactory) {
-        _taskHandlerFactory = taskHandlerFactory;
+    protected int _getWeight(final T item) {
+        if (_weightCalculator == null) { return 1; }
+        return Math.max(1, _weightCalculator.calculateWeight(item));
+    }
+
+    protected int[] _createBatches(final List<T> items, final int batchCount) {
+        final int itemCount = items.getSize();
+        if (itemCount == 0) { return new int[0]; }
+
+        long totalWeight = 0L;
+        for (final T item : items) {
+            totalWeight += _getWeight(item);
+        }
+        final long weightPerBatch = Math.max(1L, (totalWeight / batchCount));
+
+        final int[] batchStartIndexes = new int[Math.min(itemCount, batchCount)];
+        int batchIndex = 0;
+        long batchWeight = 0L;
+        for (int i = 0; i < itemCount; ++i) {
+            if ( (batchWeight == 0L) && (batchIndex < batchStartIndexes.length) ) {
+                batchStartIndexes[batchIndex] = i;
+                batchIndex += 1;
+            }
+
+            batchWeight += _getWeight(items.get(i));
+            if (batchWeight >= weightPerBatch) {
+                batchWeight = 0L;
+            }
+        }
+
+        if (batchIndex == batchStartIndexes.length) { return batchStartIndexes; }
+
+        final int[] trimmedBatchStartIndexes = new int[batchIndex];
+        System.arraycopy(batchStartIndexes, 0, trimmedBatchStartIndexes, 0, batchIndex);
+        return trimmedBatchStartIndexes;
     }
 
     public ParallelledTaskSpawner(final ReadUncommittedDatabaseConnectionFactory databaseConnectionFactory) {
         _databaseConnectionFactory = databaseConnectionFactory;
     }
 
+    public void setTaskHandlerFactory(final TaskHandlerFactory<T, S> taskHandlerFactory) {
+        _taskHandlerFactory = taskHandlerFactory;
+    }
+
+    /**
+     * Sets the calculator used to determine the relative cost of each item when dividing the items into batches.
+     *  If not set, each item is assumed to have the same cost.
+     */
+    public void setWeightCalculator(final WeightCalculator<T> weightCalculator) {
+        _weightCalculator = weightCalculator;
+    }
+
     public void executeTasks(final List<T> items, final int maxThreadCount) {
         final int totalItemCount = items.getSize();
-        final int threadCount = Math.min(maxThreadCount, Math.max(1, (totalItemCount / maxThreadCount)));
-        final int itemsPerThread = (totalItemCount / threadCount);
+        final int threadCount = Math.max(1, Math.min(maxThreadCount, totalItemCount));
 
-        final MysqlDatabaseConnection[] mysqlDatabaseConnections = new MysqlDatabaseConnection[threadCount];
-        for (int i=0; i<threadCount; ++i) {
-            try {
-                mysqlDatabaseConnections[i] = _databaseConnectionFactory.newConnection();
-            }
-            catch (final DatabaseException exception) {
-                Logger.log(exception);
-                _closeConnections(mysqlDatabaseConnections);
-                return;
-            }
-        }
+        final int[] batchStartIndexes = _createBatches(items, (threadCount * BATCHES_PER_THREAD));
+        final AtomicInteger nextBatchIndex = new AtomicInteger(0);
+        final AtomicBoolean shouldAbort = new AtomicBoolean(false);
 
         final ImmutableListBuilder<ValidationTask<T, S>> listBuilder = new ImmutableListBuilder<ValidationTask<T, S>>(threadCount);
-
         for (int i = 0; i < threadCount; ++i) {
-            final int startIndex = i * itemsPerThread;
-            final int remainingItems = (items.getSize() - startIndex);
-            final int itemCount = ( (i < (threadCount - 1)) ? Math.min(itemsPerThread, remainingItems) : remainingItems);
-
-            final MysqlDatabaseConnection databaseConnection = mysqlDatabaseConnections[i];
-            final ValidationTask<T, S> validationTask = new ValidationTask<T, S>(databaseConnection, items, _taskHandlerFactory.newInstance());
-            validationTask.setStartIndex(startIndex);
-            validationTask.setItemCount(itemCount);
+            final ValidationTask<T, S> validationTask = new ValidationTask<T, S>(_databaseConnectionFactory, items, batchStartIndexes, nextBatchIndex, shouldAbort, _taskHandlerFactory.newInstance());
             validationTask.enqueueTo(THREAD_POOL);
             listBuilder.add(validationTask);
         }
@@ -78,15 +106,19 @@ public class ParallelledTaskSpawner<T, S> {
     public List<S> waitForResults() {
         final ImmutableListBuilder<S> listBuilder = new ImmutableListBuilder<S>();
 
+        boolean encounteredNullResult = false;
         for (int i = 0; i < _validationTasks.getSize(); ++i) {
             final ValidationTask<T, S> validationTask = _validationTasks.get(i);
-            final S result = validationTask.getResult();
+            final S result = validationTask.getResult(); // NOTE: Every task is waited upon so that no task is still using its connection once this method returns...
             if (result == null) {
-                return null;
+                encounteredNullResult = true;
+                continue;
             }
 
             listBuilder.add(result);
         }
+
+        if (encounteredNullResult) { return null; }
         return listBuilder.build();
     }
 }
@@ -8,9 +8,20 @@ public interface TaskHandler<T, S> {
     /**
      * TaskHandler.executeTask() is invoked an arbitrary number of unique times by the same thread.
      *  Each invocation should perform its task and update its internal (as necessary), in preparation for a call
-     *  to getResult().  While TaskHandler.executeTask() is invoked multiple times, TaskHandler.getResult() is normally
+     *  to getResult().  While TaskHandler.executeTask() is invoked multiple times, TaskHandler.getResult() is
      *  invoked only a single time (once all tasks have been executed).
      */
     void executeTask(T item);
+
+    /**
+     * Returns true once the TaskHandler's result can no longer change in a meaningful way (i.e. an item was found to be invalid).
+     *  Once any TaskHandler within an execution reports that it should abort, the remaining items are not executed.
+     */
+    Boolean shouldAbort();
+
+    /**
+     * TaskHandler.getResult() is invoked once by the same thread that executed the tasks, after all tasks have been executed
+     *  and before the TaskHandler's database connection is released.
+     */
     S getResult();
 }
@@ -2,6 +2,7 @@ package com.softwareverde.bitcoin.block.validator.thread;
 
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.server.database.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.server.database.cache.utxo.CachedUnspentTransactionOutput;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
@@ -51,6 +52,27 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Lon
         return null;
     }
 
+    protected static Long _getTransactionOutputAmount(final BlockChainSegmentId blockChainSegmentId, final Sha256Hash outputTransactionHash, final Integer transactionOutputIndex, final Map<Sha256Hash, Transaction> queuedTransactions, final MysqlDatabaseConnection databaseConnection) {
+        { // Only the amount is required, which is available within the UnspentTransactionOutput cache...
+            try {
+                final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(databaseConnection);
+                final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(blockChainSegmentId, outputTransactionHash, transactionOutputIndex);
+                final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = transactionOutputDatabaseManager.getCachedUnspentTransactionOutput(transactionOutputIdentifier);
+                if (cachedUnspentTransactionOutput != null) {
+                    return cachedUnspentTransactionOutput.getAmount();
+                }
+            }
+            catch (final DatabaseException exception) {
+                Logger.log(exception);
+            }
+        }
+
+        final TransactionOutput transactionOutput = _getTransactionOutput(blockChainSegmentId, outputTransactionHash, transactionOutputIndex, queuedTransactions, databaseConnection);
+        if (transactionOutput == null) { return null; }
+
+        return transactionOutput.getAmount();
+    }
+
     protected static Long _calculateTotalTransactionInputs(final BlockChainSegmentId blockChainSegmentId, final Transaction transaction, final Map<Sha256Hash, Transaction> queuedTransactions, final MysqlDatabaseConnection databaseConnection) {
         long totalInputValue = 0L;
         final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
@@ -61,14 +83,14 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Lon
             final Sha256Hash outputTransactionHash = transactionInput.getPreviousOutputTransactionHash();
             final Integer transactionOutputIndex = transactionInput.getPreviousOutputIndex();
 
-            final TransactionOutput transactionOutput = _getTransactionOutput(blockChainSegmentId, outputTransactionHash, transactionOutputIndex, queuedTransactions, databaseConnection);
+            final Long transactionOutputAmount = _getTransactionOutputAmount(blockChainSegmentId, outputTransactionHash, transactionOutputIndex, queuedTransactions, databaseConnection);
 
-            if (transactionOutput == null) {
+            if (transactionOutputAmount == null) {
                 Logger.log("Tx Input, Output Not Found: " + HexUtil.toHexString(outputTransactionHash.getBytes()) + ":" + transactionOutputIndex);
                 return -1L;
             }
 
-            totalInputValue += transactionOutput.getAmount();
+            totalInputValue += transactionOutputAmount;
         }
 
         return totalInputValue;
@@ -103,6 +125,11 @@ public class TotalExpenditureTaskHandler implements TaskHandler<Transaction, Lon
         _totalFees += (totalInputValue - totalOutputValue);
     }
 
+    @Override
+    public Boolean shouldAbort() {
+        return (! _allTransactionsExpendituresAreValid);
+    }
+
     @Override
     public Long getResult() {
         if (! _allTransactionsExpendituresAreValid) { return null; }
@@ -2,20 +2,63 @@ package com.softwareverde.bitcoin.block.validator.thread;
 
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.signer.TransactionSigner;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidator;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.io.Logger;
 import com.softwareverde.network.time.NetworkTime;
 
+/**
+ * Validates the inputs of each transaction, deferring single-signature checks to a SignatureVerificationBatch so that the
+ *  signatures may be verified together across multiple threads.  If a batch is found to be invalid, then the transactions
+ *  that contributed to the batch are re-validated with each signature verified immediately.
+ */
 public class UnlockedInputsTaskHandler implements TaskHandler<Transaction, Boolean> {
+    protected static final Integer MAX_BATCH_SIZE = 1024;
+
     private final BlockChainSegmentId _blockChainSegmentId;
     private final Long _blockHeight;
     private final NetworkTime _networkTime;
     private final MedianBlockTime _medianBlockTime;
+    private final SignatureVerificationBatch _signatureVerificationBatch = new SignatureVerificationBatch(TransactionSigner.SIGNATURE_CACHE);
+    private final MutableList<Transaction> _transactionsWithDeferredSignatures = new MutableList<Transaction>();
     private TransactionValidator _transactionValidator;
     private boolean _allInputsAreUnlocked = true;
 
+    protected Boolean _validateTransactionInputsAreUnlocked(final Transaction transaction, final SignatureVerificationBatch signatureVerificationBatch) {
+        try {
+            return _transactionValidator.validateTransactionInputsAreUnlocked(_blockChainSegmentId, _blockHeight, transaction, signatureVerificationBatch);
+        }
+        catch (final Exception exception) {
+            Logger.log(exception);
+            return false;
+        }
+    }
+
+    protected void _verifyDeferredSignatures() {
+        if (_signatureVerificationBatch.isEmpty()) {
+            _transactionsWithDeferredSignatures.clear();
+            return;
+        }
+
+        final Boolean signaturesAreValid = _signatureVerificationBatch.verify();
+        if (! signaturesAreValid) { // At least one deferred signature was invalid; re-validate the transactions without deferring their signatures...
+            for (final Transaction transaction : _transactionsWithDeferredSignatures) {
+                final Boolean inputsAreUnlocked = _validateTransactionInputsAreUnlocked(transaction, null);
+                if (! inputsAreUnlocked) {
+                    _allInputsAreUnlocked = false;
+                    break;
+                }
+            }
+        }
+
+        _signatureVerificationBatch.clear();
+        _transactionsWithDeferredSignatures.clear();
+    }
+
     public UnlockedInputsTaskHandler(final BlockChainSegmentId blockChainSegmentId, final Long blockHeight, final NetworkTime networkTime, final MedianBlockTime medianBlockTime) {
         _blockChainSegmentId = blockChainSegmentId;
         _blockHeight = blockHeight;
@@ -32,23 +75,44 @@ public class UnlockedInputsTaskHandler implements TaskHandler<Transaction, Boole
     public void executeTask(final Transaction transaction) {
         if (! _allInputsAreUnlocked) { return; }
 
-        final boolean transactionInputsAreUnlocked;
+        final Integer deferredSignatureCount = _signatureVerificationBatch.getSize();
+        final Boolean transactionInputsAreUnlocked;
         {
-            boolean inputsAreUnlocked = false;
-            try {
-                inputsAreUnlocked = _transactionValidator.validateTransactionInputsAreUnlocked(_blockChainSegmentId, _blockHeight, transaction);
+            final Boolean inputsAreUnlocked = _validateTransactionInputsAreUnlocked(transaction, _signatureVerificationBatch);
+            if (inputsAreUnlocked) {
+                transactionInputsAreUnlocked = true;
+            }
+            else { // The transaction may have relied upon a deferred signature being invalid; re-validate it without deferring its signatures...
+                _signatureVerificationBatch.truncate(deferredSignatureCount);
+                transactionInputsAreUnlocked = _validateTransactionInputsAreUnlocked(transaction, null);
             }
-            catch (final Exception exception) { Logger.log(exception); }
-            transactionInputsAreUnlocked = inputsAreUnlocked;
         }
 
         if (! transactionInputsAreUnlocked) {
             _allInputsAreUnlocked = false;
+            return;
+        }
+
+        if (_signatureVerificationBatch.getSize() > deferredSignatureCount) {
+            _transactionsWithDeferredSignatures.add(transaction);
+        }
+
+        if (_signatureVerificationBatch.getSize() >= MAX_BATCH_SIZE) {
+            _verifyDeferredSignatures();
         }
     }
 
+    @Override
+    public Boolean shouldAbort() {
+        return (! _allInputsAreUnlocked);
+    }
+
     @Override
     public Boolean getResult() {
+        if (_allInputsAreUnlocked) {
+            _verifyDeferredSignatures();
+        }
+
         return _allInputsAreUnlocked;
     }
 }
@@ -2,60 +2,83 @@ package com.softwareverde.bitcoin.block.validator.thread;
 
 import com.softwareverde.constable.list.List;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.database.mysql.embedded.factory.ReadUncommittedDatabaseConnectionFactory;
 import com.softwareverde.io.Logger;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A single worker of a ParallelledTaskSpawner execution.
+ *  Rather than being assigned a fixed range of items, the worker repeatedly claims the next unclaimed batch until all
+ *  batches have been claimed, so that workers that finish early continue to take work from the slower workers.
+ *  The worker's database connection is acquired when it begins running and is released once its result has been calculated.
+ */
 class ValidationTask<T, S> implements Runnable {
-    private final MysqlDatabaseConnection _databaseConnection;
+    private final ReadUncommittedDatabaseConnectionFactory _databaseConnectionFactory;
     private final TaskHandler<T, S> _taskHandler;
     private final List<T> _list;
-    private int _startIndex;
-    private int _itemCount;
+    private final int[] _batchStartIndexes;
+    private final AtomicInteger _nextBatchIndex;
+    private final AtomicBoolean _shouldAbort;
     private Future _future;
     private boolean _didEncounterError = false;
+    private S _result = null;
 
-    public ValidationTask(final MysqlDatabaseConnection databaseConnection, final List<T> list, final TaskHandler<T, S> taskHandler) {
-        _databaseConnection = databaseConnection;
+    public ValidationTask(final ReadUncommittedDatabaseConnectionFactory databaseConnectionFactory, final List<T> list, final int[] batchStartIndexes, final AtomicInteger nextBatchIndex, final AtomicBoolean shouldAbort, final TaskHandler<T, S> taskHandler) {
+        _databaseConnectionFactory = databaseConnectionFactory;
         _list = list;
+        _batchStartIndexes = batchStartIndexes;
+        _nextBatchIndex = nextBatchIndex;
+        _shouldAbort = shouldAbort;
         _taskHandler = taskHandler;
     }
 
-    public void setStartIndex(final int startIndex) {
-        _startIndex = startIndex;
-    }
-
-    public void setItemCount(final int itemCount) {
-        _itemCount = itemCount;
-    }
-
     public void enqueueTo(final ExecutorService executorService) {
         _future = executorService.submit(this);
     }
 
     @Override
     public void run() {
-        try {
-            _taskHandler.init(_databaseConnection);
+        if (_shouldAbort.get()) {
+            _result = _taskHandler.getResult();
+            return;
+        }
+
+        try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
+            _taskHandler.init(databaseConnection);
+
+            while (! _shouldAbort.get()) {
+                final int batchIndex = _nextBatchIndex.getAndIncrement();
+                if (batchIndex >= _batchStartIndexes.length) { break; }
+
+                final int startIndex = _batchStartIndexes[batchIndex];
+                final int endIndex = ( (batchIndex + 1 < _batchStartIndexes.length) ? _batchStartIndexes[batchIndex + 1] : _list.getSize() );
+                for (int i = startIndex; i < endIndex; ++i) {
+                    final T item = _list.get(i);
+                    _taskHandler.executeTask(item);
 
-            for (int j = 0; j < _itemCount; ++j) {
-                final T item = _list.get(_startIndex + j);
-                _taskHandler.executeTask(item);
+                    if (_taskHandler.shouldAbort()) {
+                        _shouldAbort.set(true);
+                        break;
+                    }
+
+                    if (_shouldAbort.get()) { break; }
+                }
             }
+
+            _result = _taskHandler.getResult(); // NOTE: The result is calculated while the connection is still available, since the TaskHandler may require it to finalize its result...
         }
         catch (final Exception exception) {
             Logger.log(exception);
             _didEncounterError = true;
-        }
-        finally {
-            try { _databaseConnection.close(); } catch (final Exception exception) { }
+            _shouldAbort.set(true);
         }
     }
 
     public S getResult() {
-        if (_didEncounterError) { return null; }
-
         if (_future != null) {
             try {
                 _future.get();
@@ -66,6 +89,8 @@ class ValidationTask<T, S> implements Runnable {
             }
         }
 
-        return _taskHandler.getResult();
+        if (_didEncounterError) { return null; }
+
+        return _result;
     }
-}
\ No newline at end of file
+}
@@ -19,6 +19,7 @@
 
 package com.softwareverde.bitcoin.jni;
 
+import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.io.Logger;
 import com.softwareverde.util.jni.NativeUtil;
 import org.apache.commons.lang3.SystemUtils;
@@ -53,6 +54,7 @@ public class NativeSecp256k1 {
     private static final Lock _readLock = _reentrantReadWriteLock.readLock();
     private static final Lock _writeLock = _reentrantReadWriteLock.writeLock();
     private static final ThreadLocal<ByteBuffer> _nativeECDSABuffer = new ThreadLocal<ByteBuffer>();
+    private static final int NATIVE_ECDSA_BUFFER_BYTE_COUNT = 520;
 
     static {
         boolean isEnabled = true;
@@ -84,8 +86,8 @@ public class NativeSecp256k1 {
 
     protected static ByteBuffer _getByteBuffer() {
         ByteBuffer byteBuff = _nativeECDSABuffer.get();
-        if ((byteBuff == null) || (byteBuff.capacity() < 520)) {
-            byteBuff = ByteBuffer.allocateDirect(520);
+        if ((byteBuff == null) || (byteBuff.capacity() < NATIVE_ECDSA_BUFFER_BYTE_COUNT)) {
+            byteBuff = ByteBuffer.allocateDirect(NATIVE_ECDSA_BUFFER_BYTE_COUNT);
             byteBuff.order(ByteOrder.nativeOrder());
             _nativeECDSABuffer.set(byteBuff);
         }
@@ -127,6 +129,43 @@ public class NativeSecp256k1 {
         }
     }
 
+    /**
+     * Verifies the given secp256k1 signature in native code.
+     *  The signature and public key are written directly into the thread's direct ByteBuffer that is handed to libsecp256k1,
+     *  without first being copied into intermediary byte arrays.
+     *
+     * @param data The data which was signed, must be exactly 32 bytes
+     * @param signature The DER-encoded signature
+     * @param pub The public key which did the signing
+     */
+    public static boolean verify(final byte[] data, final ByteArray signature, final ByteArray pub) {
+        if (data.length != 32) { throw new RuntimeException("Invalid data length. Required 32 bytes; found "+ data.length + " bytes."); }
+        if (! _libraryLoadedCorrectly) { throw new RuntimeException("Cannot run NativeSecp256k1. Library failed to load."); }
+
+        final int signatureByteCount = signature.getByteCount();
+        final int publicKeyByteCount = pub.getByteCount();
+        if ((data.length + signatureByteCount + publicKeyByteCount) > NATIVE_ECDSA_BUFFER_BYTE_COUNT) { return false; }
+
+        final ByteBuffer byteBuff = _getByteBuffer();
+
+        byteBuff.rewind();
+        byteBuff.put(data);
+        for (int i = 0; i < signatureByteCount; ++i) {
+            byteBuff.put(signature.getByte(i));
+        }
+        for (int i = 0; i < publicKeyByteCount; ++i) {
+            byteBuff.put(pub.getByte(i));
+        }
+
+        _readLock.lock();
+        try {
+            return (secp256k1_ecdsa_verify(byteBuff, _context, signatureByteCount, publicKeyByteCount) == 1);
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
     /**
      * libsecp256k1 Cleanup - This destroys the secp256k1 context object.
      * This should be called at the end of the program for proper cleanup of the context.
@@ -19,10 +19,21 @@ import org.bouncycastle.math.ec.ECPoint;
 
 import java.math.BigInteger;
 import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Secp256k1 {
     public static final byte[] CURVE_P;
 
+    protected static final int BATCH_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+    protected static final int MIN_PARALLEL_BATCH_SIZE = 32;
+    protected static final ExecutorService BATCH_THREAD_POOL = Executors.newFixedThreadPool(BATCH_THREAD_COUNT);
+
     protected static final ECCurve CURVE;
     protected static final ECPoint CURVE_POINT_G;
     public static final ECDomainParameters CURVE_DOMAIN;
@@ -72,7 +83,7 @@ public class Secp256k1 {
 
     protected static Boolean _verifySignatureViaJni(final Signature signature, final PublicKey publicKey, final byte[] message) {
         try {
-            return NativeSecp256k1.verify(message, signature.toCanonical().encodeAsDer().getBytes(), publicKey.getBytes());
+            return NativeSecp256k1.verify(message, signature.toCanonical().encodeAsDer(), publicKey);
         }
         catch (Exception e) {
             Logger.log(e);
@@ -89,6 +100,63 @@ public class Secp256k1 {
         return _verifySignatureViaBouncyCastle(signature, publicKey, message);
     }
 
+    protected static Boolean _verifySignatures(final List<SignatureVerificationBatch.SignatureVerification> signatureVerifications, final int startIndex, final int endIndex, final AtomicBoolean invalidSignatureWasFound) {
+        for (int i = startIndex; i < endIndex; ++i) {
+            if (invalidSignatureWasFound.get()) { return false; }
+
+            final SignatureVerificationBatch.SignatureVerification signatureVerification = signatureVerifications.get(i);
+            final Boolean signatureIsValid = verifySignature(signatureVerification.signature, signatureVerification.publicKey, signatureVerification.message);
+            if (! signatureIsValid) {
+                invalidSignatureWasFound.set(true);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifies every signature within the batch, distributing the verifications across BATCH_THREAD_COUNT threads.
+     *  Returns true only if every signature is valid; once an invalid signature is found the remaining verifications are skipped.
+     *  Batches smaller than MIN_PARALLEL_BATCH_SIZE are verified by the calling thread.
+     */
+    public static Boolean verifySignatures(final SignatureVerificationBatch signatureVerificationBatch) {
+        final List<SignatureVerificationBatch.SignatureVerification> signatureVerifications = signatureVerificationBatch.getSignatureVerifications();
+        final int signatureCount = signatureVerifications.size();
+        final AtomicBoolean invalidSignatureWasFound = new AtomicBoolean(false);
+
+        if (signatureCount < MIN_PARALLEL_BATCH_SIZE) {
+            return _verifySignatures(signatureVerifications, 0, signatureCount, invalidSignatureWasFound);
+        }
+
+        final int signaturesPerThread = ((signatureCount + BATCH_THREAD_COUNT - 1) / BATCH_THREAD_COUNT);
+        final ArrayList<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(BATCH_THREAD_COUNT);
+        for (int startIndex = signaturesPerThread; startIndex < signatureCount; startIndex += signaturesPerThread) {
+            final int batchStartIndex = startIndex;
+            final int batchEndIndex = Math.min(signatureCount, (startIndex + signaturesPerThread));
+            futures.add(BATCH_THREAD_POOL.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return _verifySignatures(signatureVerifications, batchStartIndex, batchEndIndex, invalidSignatureWasFound);
+                }
+            }));
+        }
+
+        boolean allSignaturesAreValid = _verifySignatures(signatureVerifications, 0, Math.min(signatureCount, signaturesPerThread), invalidSignatureWasFound); // NOTE: The calling thread verifies the first range itself...
+        for (final Future<Boolean> future : futures) {
+            try {
+                if (! future.get()) {
+                    allSignaturesAreValid = false;
+                }
+            }
+            catch (final Exception exception) {
+                Logger.log(exception);
+                allSignaturesAreValid = false;
+            }
+        }
+
+        return allSignaturesAreValid;
+    }
+
     public static Signature sign(final byte[] privateKey, final byte[] message) {
         final ECPrivateKeyParameters privateKeyParameters;
         {
@@ -0,0 +1,153 @@
+package com.softwareverde.bitcoin.secp256k1;
+
+import com.softwareverde.bitcoin.secp256k1.signature.Signature;
+import com.softwareverde.bitcoin.type.key.PublicKey;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.io.Logger;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers (message, publicKey, signature) tuples that have already been verified as valid, so that a signature is only
+ *  verified once, whether it is first seen within a relayed transaction or within a block.
+ *  Only valid signatures are cached; invalid signatures are always re-verified.
+ *
+ *  Entries are identified by a salted hash of the tuple and are stored within a fixed-size, lock-free, direct-mapped table;
+ *  a new entry replaces any older entry occupying the same slot.  The salt is generated per-instance so that colliding
+ *  entries cannot be crafted to evict one another.
+ */
+public class SignatureCache {
+    public static final Integer DEFAULT_CACHE_SIZE = 262144;
+
+    protected final byte[] _salt;
+    protected final AtomicReferenceArray<byte[]> _cache;
+    protected final int _mask;
+
+    protected final AtomicLong _cacheQueryCount = new AtomicLong(0L);
+    protected final AtomicLong _cacheMissCount = new AtomicLong(0L);
+
+    protected byte[] _calculateKey(final byte[] message, final PublicKey publicKey, final Signature signature) {
+        final byte[] publicKeyBytes = publicKey.getBytes();
+        final byte[] rBytes = signature.getR().getBytes();
+        final byte[] sBytes = signature.getS().getBytes();
+
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(_salt);
+        byteArrayBuilder.appendBytes(message);
+        byteArrayBuilder.appendByte((byte) publicKeyBytes.length);
+        byteArrayBuilder.appendBytes(publicKeyBytes);
+        byteArrayBuilder.appendByte((byte) rBytes.length);
+        byteArrayBuilder.appendBytes(rBytes);
+        byteArrayBuilder.appendByte((byte) sBytes.length);
+        byteArrayBuilder.appendBytes(sBytes);
+        return BitcoinUtil.sha256(byteArrayBuilder.build());
+    }
+
+    protected int _getSlot(final byte[] key) {
+        final int value = ( ((key[0] & 0xFF) << 24) | ((key[1] & 0xFF) << 16) | ((key[2] & 0xFF) << 8) | (key[3] & 0xFF) );
+        return (value & _mask);
+    }
+
+    public SignatureCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a SignatureCache that retains up to maxItemCount signatures.  maxItemCount is rounded down to the nearest power of two.
+     */
+    public SignatureCache(final Integer maxItemCount) {
+        final int capacity = Integer.highestOneBit(Math.max(1, maxItemCount));
+        _cache = new AtomicReferenceArray<byte[]>(capacity);
+        _mask = (capacity - 1);
+
+        _salt = new byte[32];
+        (new SecureRandom()).nextBytes(_salt);
+    }
+
+    /**
+     * Returns true if the signature has previously been cached as valid for the provided message and publicKey.
+     */
+    public Boolean isSignatureCached(final byte[] message, final PublicKey publicKey, final Signature signature) {
+        _cacheQueryCount.incrementAndGet();
+
+        final byte[] key = _calculateKey(message, publicKey, signature);
+        final byte[] cachedKey = _cache.get(_getSlot(key));
+        if ( (cachedKey == null) || (! Arrays.equals(key, cachedKey)) ) {
+            _cacheMissCount.incrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks the signature as valid for the provided message and publicKey.
+     */
+    public void cacheSignature(final byte[] message, final PublicKey publicKey, final Signature signature) {
+        final byte[] key = _calculateKey(message, publicKey, signature);
+        _cache.set(_getSlot(key), key);
+    }
+
+    /**
+     * Returns true if the signature is valid for the provided message and publicKey.
+     *  The signature is only verified if it has not already been cached as valid.
+     */
+    public Boolean verifySignature(final byte[] message, final PublicKey publicKey, final Signature signature) {
+        _cacheQueryCount.incrementAndGet();
+
+        final byte[] key = _calculateKey(message, publicKey, signature);
+        final int slot = _getSlot(key);
+
+        final byte[] cachedKey = _cache.get(slot);
+        if ( (cachedKey != null) && (Arrays.equals(key, cachedKey)) ) {
+            return true;
+        }
+
+        _cacheMissCount.incrementAndGet();
+
+        final Boolean signatureIsValid = Secp256k1.verifySignature(signature, publicKey, message);
+        if (signatureIsValid) {
+            _cache.set(slot, key);
+        }
+        return signatureIsValid;
+    }
+
+    public void clear() {
+        for (int i = 0; i < _cache.length(); ++i) {
+            _cache.set(i, null);
+        }
+
+        _clearDebug();
+    }
+
+    public void clearDebug() {
+        _clearDebug();
+    }
+
+    protected void _clearDebug() {
+        _cacheQueryCount.set(0L);
+        _cacheMissCount.set(0L);
+    }
+
+    public Long getCacheQueryCount() {
+        return _cacheQueryCount.get();
+    }
+
+    public Long getCacheMissCount() {
+        return _cacheMissCount.get();
+    }
+
+    public Long getCacheHitCount() {
+        return (_cacheQueryCount.get() - _cacheMissCount.get());
+    }
+
+    public void debug() {
+        final long cacheMissCount = _cacheMissCount.get();
+        final long cacheQueryCount = _cacheQueryCount.get();
+        Logger.log("SignatureCache Miss/Queries: " + cacheMissCount + "/" + cacheQueryCount + " ("+ (((float) cacheMissCount) / ((float) cacheQueryCount) * 100) +"% Miss) | Max Cache Size: " + _cache.length());
+    }
+}
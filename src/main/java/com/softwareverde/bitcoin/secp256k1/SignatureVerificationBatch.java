@@ -0,0 +1,91 @@
+package com.softwareverde.bitcoin.secp256k1;
+
+import com.softwareverde.bitcoin.secp256k1.signature.Signature;
+import com.softwareverde.bitcoin.type.key.PublicKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects (message, publicKey, signature) tuples so that they may be verified together via Secp256k1.verifySignatures().
+ *  If a SignatureCache is provided, then the tuples are added to the cache once the batch has been verified as valid.
+ *
+ *  This class is not thread-safe; a batch is intended to be filled by a single thread.
+ */
+public class SignatureVerificationBatch {
+    static class SignatureVerification {
+        public final byte[] message;
+        public final PublicKey publicKey;
+        public final Signature signature;
+
+        public SignatureVerification(final byte[] message, final PublicKey publicKey, final Signature signature) {
+            this.message = message;
+            this.publicKey = publicKey;
+            this.signature = signature;
+        }
+    }
+
+    protected final SignatureCache _signatureCache;
+    protected final ArrayList<SignatureVerification> _signatureVerifications = new ArrayList<SignatureVerification>();
+
+    public SignatureVerificationBatch() {
+        this(null);
+    }
+
+    public SignatureVerificationBatch(final SignatureCache signatureCache) {
+        _signatureCache = signatureCache;
+    }
+
+    public void addSignature(final byte[] message, final PublicKey publicKey, final Signature signature) {
+        _signatureVerifications.add(new SignatureVerification(message, publicKey, signature));
+    }
+
+    /**
+     * Returns true if the signature has already been verified as valid by the batch's SignatureCache.
+     */
+    public Boolean isSignatureCached(final byte[] message, final PublicKey publicKey, final Signature signature) {
+        if (_signatureCache == null) { return false; }
+        return _signatureCache.isSignatureCached(message, publicKey, signature);
+    }
+
+    /**
+     * Removes any signatures added after the batch contained signatureCount signatures.
+     */
+    public void truncate(final Integer signatureCount) {
+        while (_signatureVerifications.size() > signatureCount) {
+            _signatureVerifications.remove(_signatureVerifications.size() - 1);
+        }
+    }
+
+    /**
+     * Returns true if every signature within the batch is valid.
+     *  The batch is not cleared after verification.
+     */
+    public Boolean verify() {
+        final Boolean allSignaturesAreValid = Secp256k1.verifySignatures(this);
+
+        if ( allSignaturesAreValid && (_signatureCache != null) ) {
+            for (final SignatureVerification signatureVerification : _signatureVerifications) {
+                _signatureCache.cacheSignature(signatureVerification.message, signatureVerification.publicKey, signatureVerification.signature);
+            }
+        }
+
+        return allSignaturesAreValid;
+    }
+
+    public Integer getSize() {
+        return _signatureVerifications.size();
+    }
+
+    public Boolean isEmpty() {
+        return _signatureVerifications.isEmpty();
+    }
+
+    public void clear() {
+        _signatureVerifications.clear();
+    }
+
+    List<SignatureVerification> getSignatureVerifications() {
+        return _signatureVerifications;
+    }
+}
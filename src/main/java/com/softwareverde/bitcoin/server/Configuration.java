@@ -1,5 +1,7 @@
 package com.softwareverde.bitcoin.server;
 
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
 import com.softwareverde.database.mysql.embedded.properties.DatabaseProperties;
 import com.softwareverde.json.Json;
 import com.softwareverde.util.ByteUtil;
@@ -31,23 +33,37 @@ public class Configuration {
     public static class ServerProperties {
         private Integer _bitcoinPort;
         private Integer _stratumPort;
+        private String _stratumCoinbaseAddress;
+        private String _stratumCoinbaseMessage;
         private Integer _bitcoinRpcPort;
         private SeedNodeProperties[] _seedNodeProperties;
         private Integer _maxPeerCount;
         private Integer _maxBlockQueueSize;
+        private Integer _blockDownloadWindowSize;
         private Integer _maxThreadCount;
+        private Integer _blockPreValidationThreadCount;
         private Integer _trustedBlockHeight;
         private Long _maxMemoryByteCount;
+        private Long _maxUtxoCacheByteCount;
+        private Long _maxMemoryPoolByteCount;
+        private String _blockDataDirectory;
 
         public Integer getBitcoinPort() { return _bitcoinPort; }
         public Integer getBitcoinRpcPort() { return _bitcoinRpcPort; }
         public Integer getStratumPort() { return _stratumPort; }
+        public String getStratumCoinbaseAddress() { return _stratumCoinbaseAddress; }
+        public String getStratumCoinbaseMessage() { return _stratumCoinbaseMessage; }
         public SeedNodeProperties[] getSeedNodeProperties() { return Util.copyArray(_seedNodeProperties); }
         public Integer getMaxPeerCount() { return _maxPeerCount; }
         public Integer getMaxBlockQueueSize() { return _maxBlockQueueSize; }
+        public Integer getBlockDownloadWindowSize() { return _blockDownloadWindowSize; }
         public Integer getMaxThreadCount() { return _maxThreadCount; }
+        public Integer getBlockPreValidationThreadCount() { return _blockPreValidationThreadCount; }
         public Integer getTrustedBlockHeight() { return _trustedBlockHeight; }
         public Long getMaxMemoryByteCount() { return _maxMemoryByteCount; }
+        public Long getMaxUtxoCacheByteCount() { return _maxUtxoCacheByteCount; }
+        public Long getMaxMemoryPoolByteCount() { return _maxMemoryPoolByteCount; }
+        public String getBlockDataDirectory() { return _blockDataDirectory; }
     }
 
     public static class ExplorerProperties {
@@ -101,6 +117,8 @@ public class Configuration {
         _serverProperties._bitcoinPort = Util.parseInt(_properties.getProperty("bitcoin.port", BITCOIN_PORT.toString()));
         _serverProperties._bitcoinRpcPort = Util.parseInt(_properties.getProperty("bitcoin.rpcPort", BITCOIN_RPC_PORT.toString()));
         _serverProperties._stratumPort = Util.parseInt(_properties.getProperty("stratum.port", STRATUM_PORT.toString()));
+        _serverProperties._stratumCoinbaseAddress = _properties.getProperty("stratum.coinbaseAddress", "");
+        _serverProperties._stratumCoinbaseMessage = _properties.getProperty("stratum.coinbaseMessage", "Mined via Bitcoin-Verde.");
 
         final Json seedNodesJson = Json.parse(_properties.getProperty("bitcoin.seedNodes", "[\"btc.softwareverde.com\"]"));
         _serverProperties._seedNodeProperties = new SeedNodeProperties[seedNodesJson.length()];
@@ -123,9 +141,14 @@ public class Configuration {
 
         _serverProperties._maxPeerCount = Util.parseInt(_properties.getProperty("bitcoin.maxPeerCount", "24"));
         _serverProperties._maxBlockQueueSize = Util.parseInt(_properties.getProperty("bitcoin.maxBlockQueueSize", "56"));
+        _serverProperties._blockDownloadWindowSize = Util.parseInt(_properties.getProperty("bitcoin.blockDownloadWindowSize", "128"));
         _serverProperties._maxThreadCount = Util.parseInt(_properties.getProperty("bitcoin.maxThreadCount", "4"));
+        _serverProperties._blockPreValidationThreadCount = Util.parseInt(_properties.getProperty("bitcoin.blockPreValidationThreadCount", "2"));
         _serverProperties._trustedBlockHeight = Util.parseInt(_properties.getProperty("bitcoin.trustedBlockHeight", "0"));
         _serverProperties._maxMemoryByteCount = Util.parseLong(_properties.getProperty("bitcoin.maxMemoryByteCount", String.valueOf(2L * ByteUtil.Unit.GIGABYTES)));
+        _serverProperties._maxUtxoCacheByteCount = Util.parseLong(_properties.getProperty("bitcoin.maxUtxoCacheByteCount", String.valueOf(UnspentTransactionOutputCache.DEFAULT_MAX_BYTE_COUNT)));
+        _serverProperties._maxMemoryPoolByteCount = Util.parseLong(_properties.getProperty("bitcoin.maxMemoryPoolByteCount", String.valueOf(MemoryPool.DEFAULT_MAX_BYTE_COUNT)));
+        _serverProperties._blockDataDirectory = _properties.getProperty("bitcoin.blockDataDirectory", "blocks");
     }
 
     private void _loadExplorerProperties() {
@@ -1,7 +1,7 @@
 package com.softwareverde.bitcoin.server;
 
 public class Constants {
-    public static final Integer DATABASE_VERSION = 1;
+    public static final Integer DATABASE_VERSION = 4;
     public static final Integer PROTOCOL_VERSION = 0x0001117F;
     public static String USER_AGENT = "/Bitcoin-Verde:0.1.0/";
 }
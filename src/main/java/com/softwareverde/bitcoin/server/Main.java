@@ -3,8 +3,8 @@ package com.softwareverde.bitcoin.server;
 import com.softwareverde.bitcoin.gui.VerdeWallet;
 import com.softwareverde.bitcoin.server.module.AddressModule;
 import com.softwareverde.bitcoin.server.module.DatabaseModule;
+import com.softwareverde.bitcoin.server.module.MigrationModule;
 import com.softwareverde.bitcoin.server.module.MinerModule;
-import com.softwareverde.bitcoin.server.module.StratumModule;
 import com.softwareverde.bitcoin.server.module.explorer.ExplorerModule;
 import com.softwareverde.bitcoin.server.module.node.NodeModule;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
@@ -54,7 +54,7 @@ public class Main {
 
         _printError("\tModule: STRATUM");
         _printError("\tArguments: <Configuration File>");
-        _printError("\tDescription: Starts a Stratum server for pooled mining.");
+        _printError("\tDescription: Starts a full node that also serves block templates to stratum miners, paying to stratum.coinbaseAddress.");
         _printError("\tArgument Description: <Configuration File>");
         _printError("\t\tThe path and filename of the configuration file for running the stratum server.  Ex: conf/server.conf");
         _printError("\t----------------");
@@ -69,6 +69,15 @@ public class Main {
         _printError("\t----------------");
         _printError("");
 
+        _printError("\tModule: MIGRATION");
+        _printError("\tArguments: <Configuration File>");
+        _printError("\tDescription: Upgrades an existing database to the version required by this release.");
+        _printError("\t\tThe migration is a one-time operation and should not be run while the node is running.");
+        _printError("\tArgument Description: <Configuration File>");
+        _printError("\t\tThe path and filename of the configuration file for running the node.  Ex: conf/server.conf");
+        _printError("\t----------------");
+        _printError("");
+
         _printError("\tModule: ADDRESS");
         _printError("\tArguments:");
         _printError("\tDescription: Generates a private key and its associated public key and Base58Check Bitcoin address.");
@@ -142,7 +151,7 @@ public class Main {
                 }
 
                 final String configurationFile = _arguments[1];
-                StratumModule.execute(configurationFile);
+                NodeModule.execute(configurationFile, true);
             } break;
 
             case "DATABASE": {
@@ -156,6 +165,17 @@ public class Main {
                 DatabaseModule.execute(configurationFile);
             } break;
 
+            case "MIGRATION": {
+                if (_arguments.length != 2) {
+                    _printUsage();
+                    BitcoinUtil.exitFailure();
+                    break;
+                }
+
+                final String configurationFile = _arguments[1];
+                MigrationModule.execute(configurationFile);
+            } break;
+
             case "ADDRESS": {
                 AddressModule.execute();
             } break;
@@ -6,6 +6,7 @@ import com.softwareverde.bitcoin.chain.segment.BlockChainSegment;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentInflater;
 import com.softwareverde.bitcoin.server.database.cache.BlockChainSegmentCache;
+import com.softwareverde.constable.list.List;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.Query;
 import com.softwareverde.database.Row;
@@ -164,6 +165,7 @@ public class BlockChainDatabaseManager {
             //  The head_block_id should point to the previousBlock.
             //  The block_height is the total number of blocks below this chain; this is equivalent to the original block height minus the number of blocks moved to the refactoredChain.
             BLOCK_CHAIN_SEGMENT_CACHE.clear(); // Invalidate cache due to update...
+            TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.invalidateBlockChainSegmentIds(); // Cached outputs may now belong to a different BlockChainSegment...
             _databaseConnection.executeSql(
                 new Query("UPDATE block_chain_segments SET head_block_id = ?, block_height = ?, block_count = (block_count - ?) WHERE id = ?")
                     .setParameter(previousBlockId)
@@ -209,6 +211,71 @@ public class BlockChainDatabaseManager {
             // 3.5 Set the newBlock's block_chain_id to the newBlockChain's id created in 3.4.
             blockDatabaseManager.setBlockChainSegmentId(newBlockId, newChainId);
         }
+
+        // 4. Add the newBlock to the BlockTree.  The BlockTree's uncommitted blocks must be committed (or rolled back) alongside the database transaction.
+        final Long newBlockHeight = blockDatabaseManager.getBlockHeightForBlockId(newBlockId);
+        BlockDatabaseManager.BLOCK_TREE.addBlock(newBlockId, previousBlockId, newBlockHeight);
+    }
+
+    /**
+     * Returns true if blockId is the head of its BlockChainSegment and has no children, in which case new blocks following
+     *  blockId may be added via updateBlockChainsForNewBlocks.
+     */
+    public Boolean canExtendBlockChainSegment(final BlockId blockId) throws DatabaseException {
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
+
+        if (blockDatabaseManager.getBlockDirectDescendantCount(blockId) > 0) { return false; }
+
+        final BlockChainSegmentId blockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(blockId);
+        if (blockChainSegmentId == null) { return false; }
+
+        final BlockChainSegment blockChainSegment = _inflateBlockChainSegmentFromId(blockChainSegmentId);
+        if (blockChainSegment == null) { return false; }
+
+        return blockId.equals(blockChainSegment.getHeadBlockId());
+    }
+
+    /**
+     * Appends a chain of newly inserted blocks to the BlockChainSegment of previousBlockId.
+     *  This is equivalent to invoking updateBlockChainsForNewBlock for each block, but updates the BlockChainSegment once.
+     *  previousBlockId must satisfy canExtendBlockChainSegment (prior to the blocks being inserted), and newBlockIds must be
+     *  sequential, as returned by BlockDatabaseManager::insertBlockHeaders.
+     */
+    public void updateBlockChainsForNewBlocks(final BlockId previousBlockId, final List<BlockId> newBlockIds) throws DatabaseException {
+        if (newBlockIds.isEmpty()) { return; }
+
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
+
+        final BlockChainSegmentId blockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(previousBlockId);
+        final Long previousBlockHeight = blockDatabaseManager.getBlockHeightForBlockId(previousBlockId);
+
+        final Integer newBlockCount = newBlockIds.getSize();
+        final BlockId firstBlockId = newBlockIds.get(0);
+        final BlockId lastBlockId = newBlockIds.get(newBlockCount - 1);
+
+        BLOCK_CHAIN_SEGMENT_CACHE.clear(); // Invalidate cache due to update...
+        _databaseConnection.executeSql(
+            new Query("UPDATE block_chain_segments SET head_block_id = ?, block_height = (block_height + ?), block_count = (block_count + ?) WHERE id = ?")
+                .setParameter(lastBlockId)
+                .setParameter(newBlockCount)
+                .setParameter(newBlockCount)
+                .setParameter(blockChainSegmentId)
+        );
+
+        _databaseConnection.executeSql(
+            new Query("UPDATE blocks SET block_chain_segment_id = ? WHERE id >= ? AND id <= ?")
+                .setParameter(blockChainSegmentId)
+                .setParameter(firstBlockId)
+                .setParameter(lastBlockId)
+        );
+
+        BlockId parentBlockId = previousBlockId;
+        for (int i = 0; i < newBlockCount; ++i) {
+            final BlockId newBlockId = newBlockIds.get(i);
+            BlockDatabaseManager.BLOCK_CHAIN_SEGMENT_CACHE.cacheBlockChainSegmentId(newBlockId, blockChainSegmentId);
+            BlockDatabaseManager.BLOCK_TREE.addBlock(newBlockId, parentBlockId, (previousBlockHeight + i + 1L));
+            parentBlockId = newBlockId;
+        }
     }
 
 //    public Boolean blockChainSegmentExists(final BlockChainSegmentId blockChainSegmentId) throws DatabaseException {
@@ -7,11 +7,14 @@ import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
 import com.softwareverde.bitcoin.block.header.difficulty.ImmutableDifficulty;
+import com.softwareverde.bitcoin.block.validator.difficulty.BlockHeaderWindow;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegment;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
 import com.softwareverde.bitcoin.chain.time.MutableMedianBlockTime;
 import com.softwareverde.bitcoin.server.database.cache.BlockChainSegmentIdCache;
+import com.softwareverde.bitcoin.server.database.cache.BlockTree;
+import com.softwareverde.bitcoin.server.database.store.BlockFileLocation;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
@@ -20,9 +23,11 @@ import com.softwareverde.bitcoin.type.merkleroot.MerkleRoot;
 import com.softwareverde.bitcoin.type.merkleroot.MutableMerkleRoot;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.Query;
 import com.softwareverde.database.Row;
+import com.softwareverde.database.mysql.BatchedInsertQuery;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.io.Logger;
 import com.softwareverde.util.HexUtil;
@@ -30,9 +35,12 @@ import com.softwareverde.util.Util;
 
 public class BlockDatabaseManager {
     public static final BlockChainSegmentIdCache BLOCK_CHAIN_SEGMENT_CACHE = new BlockChainSegmentIdCache();
+    public static final BlockTree BLOCK_TREE = new BlockTree();
 
     public static final Object MUTEX = new Object();
 
+    protected static final Long BLOCK_TREE_LOAD_BATCH_BLOCK_HEIGHT_COUNT = 16384L;
+
     /**
      * Initializes a MedianBlockTime from the database.
      *  NOTE: The headBlockHash is included within the MedianBlockTime.
@@ -71,6 +79,9 @@ public class BlockDatabaseManager {
     }
 
     protected Long _getBlockHeightForBlockId(final BlockId blockId) throws DatabaseException {
+        final Long cachedBlockHeight = BLOCK_TREE.getBlockHeight(blockId);
+        if (cachedBlockHeight != null) { return cachedBlockHeight; }
+
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT id, block_height FROM blocks WHERE id = ?")
                 .setParameter(blockId)
@@ -85,7 +96,7 @@ public class BlockDatabaseManager {
     protected BlockId _getBlockIdFromHash(final Sha256Hash blockHash) throws DatabaseException {
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT id FROM blocks WHERE hash = ?")
-                .setParameter(blockHash)
+                .setParameter(blockHash.getBytes())
         );
 
         if (rows.isEmpty()) { return null; }
@@ -107,8 +118,7 @@ public class BlockDatabaseManager {
         }
         else {
             final Row previousBlockRow = rows.get(0);
-            final String hashString = previousBlockRow.getString("hash");
-            return MutableSha256Hash.fromHexString(hashString);
+            return MutableSha256Hash.wrap(previousBlockRow.getBytes("hash"));
         }
     }
 
@@ -133,13 +143,13 @@ public class BlockDatabaseManager {
         final MutableBlockHeader blockHeader = new MutableBlockHeader();
         blockHeader.setPreviousBlockHash(previousBlockHash);
         blockHeader.setVersion(row.getLong("version"));
-        blockHeader.setMerkleRoot(MutableMerkleRoot.wrap(HexUtil.hexStringToByteArray(row.getString("merkle_root"))));
+        blockHeader.setMerkleRoot(MutableMerkleRoot.wrap(row.getBytes("merkle_root")));
         blockHeader.setTimestamp(row.getLong("timestamp"));
         blockHeader.setDifficulty(ImmutableDifficulty.decode(HexUtil.hexStringToByteArray(row.getString("difficulty"))));
         blockHeader.setNonce(row.getLong("nonce"));
 
         { // Assert that the hashes match after inflation...
-            final Sha256Hash expectedHash = MutableSha256Hash.fromHexString(row.getString("hash"));
+            final Sha256Hash expectedHash = MutableSha256Hash.wrap(row.getBytes("hash"));
             final Sha256Hash actualHash = blockHeader.getHash();
             if (! Util.areEqual(expectedHash, actualHash)) {
                 throw new DatabaseException("Unable to inflate BlockHeader.");
@@ -167,10 +177,10 @@ public class BlockDatabaseManager {
 
         _databaseConnection.executeSql(
             new Query("UPDATE blocks SET hash = ?, previous_block_id = ?, block_height = ?, merkle_root = ?, version = ?, timestamp = ?, difficulty = ?, nonce = ? WHERE id = ?")
-                .setParameter(HexUtil.toHexString(blockHeader.getHash().getBytes()))
+                .setParameter(blockHeader.getHash().getBytes())
                 .setParameter(previousBlockId)
                 .setParameter(blockHeight)
-                .setParameter(HexUtil.toHexString(blockHeader.getMerkleRoot().getBytes()))
+                .setParameter(blockHeader.getMerkleRoot().getBytes())
                 .setParameter(blockHeader.getVersion())
                 .setParameter(blockHeader.getTimestamp())
                 .setParameter(blockHeader.getDifficulty().encode())
@@ -186,10 +196,10 @@ public class BlockDatabaseManager {
 
         return BlockId.wrap(_databaseConnection.executeSql(
             new Query("INSERT INTO blocks (hash, previous_block_id, block_height, merkle_root, version, timestamp, difficulty, nonce) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")
-                .setParameter(HexUtil.toHexString(blockHeader.getHash().getBytes()))
+                .setParameter(blockHeader.getHash().getBytes())
                 .setParameter(previousBlockId)
                 .setParameter(blockHeight)
-                .setParameter(HexUtil.toHexString(blockHeader.getMerkleRoot().getBytes()))
+                .setParameter(blockHeader.getMerkleRoot().getBytes())
                 .setParameter(blockHeader.getVersion())
                 .setParameter(blockHeader.getTimestamp())
                 .setParameter(blockHeader.getDifficulty().encode())
@@ -197,6 +207,46 @@ public class BlockDatabaseManager {
         ));
     }
 
+    protected List<BlockId> _insertBlockHeaders(final List<BlockHeader> blockHeaders) throws DatabaseException {
+        final BlockHeader firstBlockHeader = blockHeaders.get(0);
+        final BlockId previousBlockId = _getBlockIdFromHash(firstBlockHeader.getPreviousBlockHash());
+        final Long previousBlockHeight = _getBlockHeightForBlockId(previousBlockId);
+        final Long firstBlockHeight = (previousBlockHeight == null ? 0 : (previousBlockHeight + 1));
+
+        // The BlockIds are not known until after the insert, so only the first block's previous_block_id is set here...
+        final Query batchedInsertQuery = new BatchedInsertQuery("INSERT INTO blocks (hash, previous_block_id, block_height, merkle_root, version, timestamp, difficulty, nonce) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < blockHeaders.getSize(); ++i) {
+            final BlockHeader blockHeader = blockHeaders.get(i);
+
+            batchedInsertQuery.setParameter(blockHeader.getHash().getBytes());
+            batchedInsertQuery.setParameter(i == 0 ? previousBlockId : null);
+            batchedInsertQuery.setParameter(firstBlockHeight + i);
+            batchedInsertQuery.setParameter(blockHeader.getMerkleRoot().getBytes());
+            batchedInsertQuery.setParameter(blockHeader.getVersion());
+            batchedInsertQuery.setParameter(blockHeader.getTimestamp());
+            batchedInsertQuery.setParameter(blockHeader.getDifficulty().encode());
+            batchedInsertQuery.setParameter(blockHeader.getNonce());
+        }
+
+        final Long firstBlockId = _databaseConnection.executeSql(batchedInsertQuery);
+        if (firstBlockId == null) { return null; }
+
+        final Long lastBlockId = (firstBlockId + blockHeaders.getSize() - 1);
+
+        // The bulk-inserted rows receive sequential ids, so each block's parent is the row before it...
+        _databaseConnection.executeSql(
+            new Query("UPDATE blocks SET previous_block_id = (id - 1) WHERE id > ? AND id <= ?")
+                .setParameter(firstBlockId)
+                .setParameter(lastBlockId)
+        );
+
+        final MutableList<BlockId> blockIds = new MutableList<BlockId>(blockHeaders.getSize());
+        for (int i = 0; i < blockHeaders.getSize(); ++i) {
+            blockIds.add(BlockId.wrap(firstBlockId + i));
+        }
+        return blockIds;
+    }
+
     protected void _setBlockChainSegmentId(final BlockId blockId, final BlockChainSegmentId blockChainSegmentId) throws DatabaseException {
         BLOCK_CHAIN_SEGMENT_CACHE.cacheBlockChainSegmentId(blockId, blockChainSegmentId);
 
@@ -274,7 +324,7 @@ public class BlockDatabaseManager {
             previousBlockHash = _getBlockHashFromId(previousBlockId);
         }
 
-        final MerkleRoot merkleRoot = MutableMerkleRoot.fromHexString(row.getString("merkle_root"));
+        final MerkleRoot merkleRoot = MutableMerkleRoot.wrap(row.getBytes("merkle_root"));
         final Long timestamp = row.getLong("timestamp");
         final Difficulty difficulty = ImmutableDifficulty.decode(HexUtil.hexStringToByteArray(row.getString("difficulty")));
         final Long nonce = row.getLong("nonce");
@@ -291,7 +341,28 @@ public class BlockDatabaseManager {
         return mutableBlockHeader;
     }
 
+    protected BlockId _getChildBlockIdFromBlockTree(final BlockChainSegmentId blockChainSegmentId, final List<BlockId> childBlockIds) throws DatabaseException {
+        if (childBlockIds.isEmpty()) { return null; }
+
+        if ( (childBlockIds.getSize() == 1) || (blockChainSegmentId == null) ) {
+            return childBlockIds.get(0);
+        }
+
+        for (final BlockId blockId : childBlockIds) {
+            if (_isBlockConnectedToChain(blockId, blockChainSegmentId)) {
+                return blockId;
+            }
+        }
+
+        return null;
+    }
+
     protected BlockId _getChildBlockId(final BlockChainSegmentId blockChainSegmentId, final BlockId previousBlockId) throws DatabaseException {
+        final List<BlockId> cachedChildBlockIds = BLOCK_TREE.getChildBlockIds(previousBlockId);
+        if (cachedChildBlockIds != null) {
+            return _getChildBlockIdFromBlockTree(blockChainSegmentId, cachedChildBlockIds);
+        }
+
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT id FROM blocks WHERE previous_block_id = ?")
                 .setParameter(previousBlockId)
@@ -323,9 +394,32 @@ public class BlockDatabaseManager {
         return null;
     }
 
+    /**
+     * Returns the head BlockId of the BlockChainSegment if the head is within the BlockTree, otherwise null.
+     */
+    protected BlockId _getBlockTreeHeadBlockId(final BlockChainSegmentId blockChainSegmentId) throws DatabaseException {
+        if (! BLOCK_TREE.isEnabled()) { return null; }
+
+        final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(_databaseConnection);
+        final BlockChainSegment blockChainSegment = blockChainDatabaseManager.getBlockChainSegment(blockChainSegmentId);
+        if (blockChainSegment == null) { return null; }
+
+        final BlockId headBlockId = blockChainSegment.getHeadBlockId();
+        if (! BLOCK_TREE.containsBlock(headBlockId)) { return null; }
+        return headBlockId;
+    }
+
     protected Boolean _isBlockConnectedToChain(final BlockId blockId, final BlockChainSegmentId blockChainSegmentId) throws DatabaseException {
         final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(_databaseConnection);
 
+        { // The block is connected to the chain if it is an ancestor of the segment's head, or if the segment's head is its ancestor...
+            final BlockId headBlockId = _getBlockTreeHeadBlockId(blockChainSegmentId);
+            if (headBlockId != null) {
+                final Boolean isConnected = BLOCK_TREE.areBlocksConnected(blockId, headBlockId);
+                if (isConnected != null) { return isConnected; }
+            }
+        }
+
         final Long blockHeight = _getBlockHeightForBlockId(blockId);
         final BlockChainSegmentId blockIdBlockChainSegmentId = _getBlockChainSegmentId(blockId);
 
@@ -377,7 +471,7 @@ public class BlockDatabaseManager {
         if (rows.isEmpty()) { return null; }
 
         final Row row = rows.get(0);
-        return MutableSha256Hash.wrap(HexUtil.hexStringToByteArray(row.getString("hash")));
+        return MutableSha256Hash.wrap(row.getBytes("hash"));
     }
 
     protected Sha256Hash _getHeadBlockHeaderHash() throws DatabaseException {
@@ -387,7 +481,7 @@ public class BlockDatabaseManager {
         if (rows.isEmpty()) { return null; }
 
         final Row row = rows.get(0);
-        return MutableSha256Hash.wrap(HexUtil.hexStringToByteArray(row.getString("hash")));
+        return MutableSha256Hash.wrap(row.getBytes("hash"));
     }
 
     protected BlockId _getHeadBlockHeaderId() throws DatabaseException {
@@ -410,6 +504,27 @@ public class BlockDatabaseManager {
         return BlockId.wrap(row.getLong("id"));
     }
 
+    protected void _setBlockFileLocation(final BlockId blockId, final BlockFileLocation blockFileLocation) throws DatabaseException {
+        _databaseConnection.executeSql(
+            new Query("INSERT INTO block_files (block_id, file_index, file_offset, byte_count) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE file_index = VALUES(file_index), file_offset = VALUES(file_offset), byte_count = VALUES(byte_count)")
+                .setParameter(blockId)
+                .setParameter(blockFileLocation.getFileIndex())
+                .setParameter(blockFileLocation.getFileOffset())
+                .setParameter(blockFileLocation.getByteCount())
+        );
+    }
+
+    protected BlockFileLocation _getBlockFileLocation(final BlockId blockId) throws DatabaseException {
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT id, file_index, file_offset, byte_count FROM block_files WHERE block_id = ?")
+                .setParameter(blockId)
+        );
+        if (rows.isEmpty()) { return null; }
+
+        final Row row = rows.get(0);
+        return new BlockFileLocation(row.getInteger("file_index"), row.getLong("file_offset"), row.getInteger("byte_count"));
+    }
+
     public BlockId insertBlockHeader(final BlockHeader blockHeader) throws DatabaseException {
         return _insertBlockHeader(blockHeader);
     }
@@ -418,6 +533,17 @@ public class BlockDatabaseManager {
         _updateBlockHeader(blockId, blockHeader);
     }
 
+    /**
+     * Inserts a chain of BlockHeaders with a single query.
+     *  Each BlockHeader must be the child of the BlockHeader before it, and none of the BlockHeaders may already be stored.
+     *  Returns the BlockIds of the inserted BlockHeaders, in the same order.
+     *  BlockChainDatabaseManager::updateBlockChainsForNewBlocks must be invoked afterwards, instead of updateBlockChainsForNewBlock.
+     */
+    public List<BlockId> insertBlockHeaders(final List<BlockHeader> blockHeaders) throws DatabaseException {
+        if (blockHeaders.isEmpty()) { return new MutableList<BlockId>(0); }
+        return _insertBlockHeaders(blockHeaders);
+    }
+
     public BlockId storeBlockHeader(final BlockHeader blockHeader) throws DatabaseException {
         final BlockId existingBlockId = _getBlockIdFromHash(blockHeader.getHash());
 
@@ -538,6 +664,15 @@ public class BlockDatabaseManager {
     public BlockHeader findBlockAtBlockHeight(final BlockChainSegmentId startingBlockChainSegmentId, final Long blockHeight) throws DatabaseException {
         final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(_databaseConnection);
 
+        { // The block at blockHeight is the ancestor of the segment's head at that height...
+            final BlockId headBlockId = _getBlockTreeHeadBlockId(startingBlockChainSegmentId);
+            if (headBlockId != null) {
+                final BlockId blockId = BLOCK_TREE.getAncestorBlockId(headBlockId, blockHeight);
+                if (blockId == null) { return null; }
+                return _inflateBlockHeader(blockId);
+            }
+        }
+
         BlockChainSegmentId blockChainSegmentId = startingBlockChainSegmentId;
         while (true) {
             final BlockChainSegment blockChainSegment = blockChainDatabaseManager.getBlockChainSegment(blockChainSegmentId);
@@ -602,11 +737,30 @@ public class BlockDatabaseManager {
         return _getBlockHashFromId(blockId);
     }
 
+    /**
+     * Records the location of the Block's serialized bytes within the BlockStore.
+     */
+    public void setBlockFileLocation(final BlockId blockId, final BlockFileLocation blockFileLocation) throws DatabaseException {
+        _setBlockFileLocation(blockId, blockFileLocation);
+    }
+
+    /**
+     * Returns the location of the Block's serialized bytes within the BlockStore, or null if the Block has not been stored.
+     */
+    public BlockFileLocation getBlockFileLocation(final BlockId blockId) throws DatabaseException {
+        return _getBlockFileLocation(blockId);
+    }
+
     /**
      * Returns the BlockId of the nth-parent, where n is the parentCount.
      *  For instance, getAncestor(blockId, 0) returns blockId, and getAncestor(blockId, 1) returns blockId's parent.
      */
     public BlockId getAncestorBlockId(final BlockId blockId, final Integer parentCount) throws DatabaseException {
+        final Long blockHeight = BLOCK_TREE.getBlockHeight(blockId);
+        if (blockHeight != null) {
+            return BLOCK_TREE.getAncestorBlockId(blockId, (blockHeight - parentCount));
+        }
+
         BlockId nextBlockId = blockId;
         for (int i = 0; i < parentCount; ++i) {
             final BlockHeader blockHeader = _inflateBlockHeader(nextBlockId);
@@ -615,6 +769,52 @@ public class BlockDatabaseManager {
         return nextBlockId;
     }
 
+    /**
+     * Loads every block (and block header) into the BlockTree.
+     *  Blocks are loaded in ascending block-height order so that each block's parent is loaded before the block itself.
+     *  Returns the number of blocks loaded.
+     */
+    public Integer loadBlockTree() throws DatabaseException {
+        BLOCK_TREE.clear();
+        if (! BLOCK_TREE.isEnabled()) { return 0; }
+
+        final Long maxBlockHeight;
+        {
+            final java.util.List<Row> rows = _databaseConnection.query(
+                new Query("SELECT MAX(block_height) AS max_block_height FROM blocks")
+            );
+            if (rows.isEmpty()) { return 0; }
+
+            final Row row = rows.get(0);
+            maxBlockHeight = row.getLong("max_block_height");
+            if (maxBlockHeight == null) { return 0; }
+        }
+
+        long lowerBlockHeight = 0L;
+        while (lowerBlockHeight <= maxBlockHeight) {
+            final long upperBlockHeight = (lowerBlockHeight + BLOCK_TREE_LOAD_BATCH_BLOCK_HEIGHT_COUNT);
+
+            final java.util.List<Row> rows = _databaseConnection.query(
+                new Query("SELECT id, previous_block_id, block_height FROM blocks WHERE block_height >= ? AND block_height < ? ORDER BY block_height ASC, id ASC")
+                    .setParameter(lowerBlockHeight)
+                    .setParameter(upperBlockHeight)
+            );
+
+            for (final Row row : rows) {
+                final BlockId blockId = BlockId.wrap(row.getLong("id"));
+                final BlockId previousBlockId = BlockId.wrap(row.getLong("previous_block_id"));
+                final Long blockHeight = row.getLong("block_height");
+
+                BLOCK_TREE.addBlock(blockId, previousBlockId, blockHeight);
+            }
+
+            BLOCK_TREE.commit();
+            lowerBlockHeight = upperBlockHeight;
+        }
+
+        return BLOCK_TREE.getSize();
+    }
+
     /**
      * Initializes a Mutable MedianBlockTime using only blocks that have been fully validated.
      */
@@ -634,6 +834,56 @@ public class BlockDatabaseManager {
         return _newInitializedMedianBlockTime(_databaseConnection, blockHash);
     }
 
+    /**
+     * Initializes a BlockHeaderWindow containing headBlockHash and its most recent ancestors.
+     *  The headers are loaded with a single query (instead of inflating each header), and are linked via previous_block_id.
+     *  If headBlockHash is not found, the returned BlockHeaderWindow is empty.
+     */
+    public BlockHeaderWindow initializeBlockHeaderWindow(final Sha256Hash headBlockHash) throws DatabaseException {
+        final BlockHeaderWindow blockHeaderWindow = new BlockHeaderWindow();
+
+        final BlockId headBlockId = _getBlockIdFromHash(headBlockHash);
+        if (headBlockId == null) { return blockHeaderWindow; }
+
+        final Long headBlockHeight = _getBlockHeightForBlockId(headBlockId);
+        final Long lowerBlockHeight = Math.max(0L, (headBlockHeight - BlockHeaderWindow.DEFAULT_CAPACITY + 1L));
+
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT id, previous_block_id, hash, timestamp, difficulty FROM blocks WHERE block_height >= ? AND block_height <= ?")
+                .setParameter(lowerBlockHeight)
+                .setParameter(headBlockHeight)
+        );
+
+        final java.util.HashMap<Long, Row> rowsByBlockId = new java.util.HashMap<Long, Row>(rows.size());
+        for (final Row row : rows) {
+            rowsByBlockId.put(row.getLong("id"), row);
+        }
+
+        // Follow the head's ancestry; rows for blocks on other chains at the same heights are ignored...
+        final java.util.List<Row> rowsInDescendingOrder = new java.util.ArrayList<Row>(BlockHeaderWindow.DEFAULT_CAPACITY);
+        Long blockId = headBlockId.longValue();
+        while (blockId != null) {
+            final Row row = rowsByBlockId.get(blockId);
+            if (row == null) { break; }
+
+            rowsInDescendingOrder.add(row);
+            blockId = row.getLong("previous_block_id");
+        }
+
+        final int rowCount = rowsInDescendingOrder.size();
+        for (int i = 0; i < rowCount; ++i) {
+            final Row row = rowsInDescendingOrder.get(rowCount - i - 1);
+            final Sha256Hash blockHash = MutableSha256Hash.wrap(row.getBytes("hash"));
+            final Long blockHeight = (headBlockHeight - (rowCount - i - 1));
+            final Long timestamp = row.getLong("timestamp");
+            final Difficulty difficulty = ImmutableDifficulty.decode(HexUtil.hexStringToByteArray(row.getString("difficulty")));
+
+            blockHeaderWindow.addBlock(blockHash, blockHeight, timestamp, difficulty);
+        }
+
+        return blockHeaderWindow;
+    }
+
     /**
      * Calculates the MedianBlockTime of the provided startingBlockId.
      * NOTE: startingBlockId is exclusive. The MedianBlockTime does NOT include the provided startingBlockId; instead,
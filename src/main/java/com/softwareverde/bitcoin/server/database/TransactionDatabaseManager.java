@@ -22,7 +22,6 @@ import com.softwareverde.database.Row;
 import com.softwareverde.database.mysql.BatchedInsertQuery;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.io.Logger;
-import com.softwareverde.util.HexUtil;
 import com.softwareverde.util.Util;
 
 import java.util.Map;
@@ -40,11 +39,15 @@ public class TransactionDatabaseManager {
         }
     }
 
-    protected void _insertTransactionOutputs(final TransactionId transactionId, final Transaction transaction) throws DatabaseException {
+    protected void _insertTransactionOutputs(final BlockChainSegmentId blockChainSegmentId, final BlockId blockId, final TransactionId transactionId, final Transaction transaction) throws DatabaseException {
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(_databaseConnection);
 
+        final Sha256Hash transactionHash = transaction.getHash();
         for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
-            transactionOutputDatabaseManager.insertTransactionOutput(transactionId, transactionOutput);
+            final TransactionOutputId transactionOutputId = transactionOutputDatabaseManager.insertTransactionOutput(transactionId, transactionOutput);
+            if (transactionOutputId == null) { continue; }
+
+            TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.cacheUnspentTransactionOutput(transactionHash, transactionOutput.getIndex(), transactionOutputId, blockId, blockChainSegmentId, transactionOutput.getAmount());
         }
     }
 
@@ -59,7 +62,7 @@ public class TransactionDatabaseManager {
         transactionInputDatabaseManager.insertTransactionInputs(blockChainSegmentId, transactionIds, transactionInputs);
     }
 
-    protected void _insertTransactionOutputs(final List<TransactionId> transactionIds, final List<Transaction> transactions) throws DatabaseException {
+    protected void _insertTransactionOutputs(final BlockChainSegmentId blockChainSegmentId, final BlockId blockId, final List<TransactionId> transactionIds, final List<Transaction> transactions) throws DatabaseException {
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(_databaseConnection);
 
         final MutableList<List<TransactionOutput>> transactionOutputs = new MutableList<List<TransactionOutput>>(transactions.getSize());
@@ -67,7 +70,22 @@ public class TransactionDatabaseManager {
             transactionOutputs.add(transaction.getTransactionOutputs());
         }
 
-        transactionOutputDatabaseManager.insertTransactionOutputs(transactionIds, transactionOutputs);
+        final List<TransactionOutputId> transactionOutputIds = transactionOutputDatabaseManager.insertTransactionOutputs(transactionIds, transactionOutputs);
+        if (transactionOutputIds == null) { return; }
+
+        { // Cache the new outputs so that subsequent blocks may spend them without querying the database...
+            int transactionOutputIdIndex = 0;
+            for (int i = 0; i < transactions.getSize(); ++i) {
+                final Transaction transaction = transactions.get(i);
+                final Sha256Hash transactionHash = transaction.getHash();
+
+                for (final TransactionOutput transactionOutput : transactionOutputs.get(i)) {
+                    final TransactionOutputId transactionOutputId = transactionOutputIds.get(transactionOutputIdIndex);
+                    TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.cacheUnspentTransactionOutput(transactionHash, transactionOutput.getIndex(), transactionOutputId, blockId, blockChainSegmentId, transactionOutput.getAmount());
+                    transactionOutputIdIndex += 1;
+                }
+            }
+        }
     }
 
     /**
@@ -91,7 +109,7 @@ public class TransactionDatabaseManager {
 
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT id, block_id FROM transactions WHERE hash = ?")
-                .setParameter(HexUtil.toHexString(transactionHash.getBytes()))
+                .setParameter(transactionHash.getBytes())
         );
         if (rows.isEmpty()) { return null; }
 
@@ -120,7 +138,7 @@ public class TransactionDatabaseManager {
     protected TransactionId _getUncommittedTransactionIdFromHash(final Sha256Hash transactionHash) throws DatabaseException {
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT transactions.id, transactions.block_id FROM transactions INNER JOIN blocks ON blocks.id = transactions.block_id WHERE blocks.block_chain_segment_id IS NULL AND transactions.hash = ?")
-                .setParameter(HexUtil.toHexString(transactionHash.getBytes()))
+                .setParameter(transactionHash.getBytes())
         );
         if (rows.isEmpty()) { return null; }
 
@@ -136,7 +154,7 @@ public class TransactionDatabaseManager {
             new Query(
                 "SELECT id FROM transactions WHERE block_id = ? AND hash = ?")
                 .setParameter(blockId)
-                .setParameter(HexUtil.toHexString(transactionHash.getBytes()))
+                .setParameter(transactionHash.getBytes())
         );
 
         if (rows.isEmpty()) { return null; }
@@ -153,7 +171,7 @@ public class TransactionDatabaseManager {
         final LockTime lockTime = transaction.getLockTime();
         _databaseConnection.executeSql(
             new Query("UPDATE transactions SET hash = ?, block_id = ?, version = ? = ?, lock_time = ? WHERE id = ?")
-                .setParameter(HexUtil.toHexString(transaction.getHash().getBytes()))
+                .setParameter(transaction.getHash().getBytes())
                 .setParameter(blockId)
                 .setParameter(transaction.getVersion())
                 .setParameter(lockTime.getValue())
@@ -167,7 +185,7 @@ public class TransactionDatabaseManager {
         final LockTime lockTime = transaction.getLockTime();
         final TransactionId transactionId = TransactionId.wrap(_databaseConnection.executeSql(
             new Query("INSERT INTO transactions (hash, block_id, version, lock_time) VALUES (?, ?, ?, ?)")
-                .setParameter(transaction.getHash())
+                .setParameter(transaction.getHash().getBytes())
                 .setParameter(blockId)
                 .setParameter(transaction.getVersion())
                 .setParameter(lockTime.getValue())
@@ -182,7 +200,7 @@ public class TransactionDatabaseManager {
         for (final Transaction transaction : transactions) {
             final LockTime lockTime = transaction.getLockTime();
 
-            batchedInsertQuery.setParameter(transaction.getHash());
+            batchedInsertQuery.setParameter(transaction.getHash().getBytes());
             batchedInsertQuery.setParameter(blockId);
             batchedInsertQuery.setParameter(transaction.getVersion());
             batchedInsertQuery.setParameter(lockTime.getValue());
@@ -209,7 +227,7 @@ public class TransactionDatabaseManager {
     public TransactionId insertTransaction(final BlockChainSegmentId blockChainSegmentId, final BlockId blockId, final Transaction transaction) throws DatabaseException {
         final TransactionId transactionId = _insertTransaction(blockId, transaction);
 
-        _insertTransactionOutputs(transactionId, transaction);
+        _insertTransactionOutputs(blockChainSegmentId, blockId, transactionId, transaction);
         _insertTransactionInputs(blockChainSegmentId, transactionId, transaction);
 
         return transactionId;
@@ -218,7 +236,7 @@ public class TransactionDatabaseManager {
     public void insertTransactions(final BlockChainSegmentId blockChainSegmentId, final BlockId blockId, final List<Transaction> transactions) throws DatabaseException {
         final List<TransactionId> transactionIds = _insertTransactions(blockId, transactions);
 
-        _insertTransactionOutputs(transactionIds, transactions); // NOTE: Since this is a bulk-insert and the following inputs may reference these outputs, insert the TransactionOutputs first...
+        _insertTransactionOutputs(blockChainSegmentId, blockId, transactionIds, transactions); // NOTE: Since this is a bulk-insert and the following inputs may reference these outputs, insert the TransactionOutputs first...
         _insertTransactionInputs(blockChainSegmentId, transactionIds, transactions);
 
         // TODO: Bulk-inserting does not validate the order of the transactions (inputs may be (incorrectly) spending outputs that are in this batch, but not in the correct order).  Consider asserting that the order of the transactions is correct.
@@ -227,7 +245,7 @@ public class TransactionDatabaseManager {
     public List<TransactionId> getTransactionIdsFromHash(final Sha256Hash transactionHash) throws DatabaseException {
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT id FROM transactions WHERE hash = ?")
-                .setParameter(transactionHash)
+                .setParameter(transactionHash.getBytes())
         );
 
         final MutableList<TransactionId> transactionIds = new MutableList<TransactionId>(rows.size());
@@ -257,7 +275,7 @@ public class TransactionDatabaseManager {
         if (rows.isEmpty()) { return null; }
 
         final Row row = rows.get(0);
-        return MutableSha256Hash.fromHexString(row.getString("hash"));
+        return MutableSha256Hash.wrap(row.getBytes("hash"));
     }
 
     /**
@@ -314,7 +332,7 @@ public class TransactionDatabaseManager {
         }
 
         { // Validate inflated transaction hash...
-            final Sha256Hash expectedTransactionHash = MutableSha256Hash.fromHexString(row.getString("hash"));
+            final Sha256Hash expectedTransactionHash = MutableSha256Hash.wrap(row.getBytes("hash"));
             if (! Util.areEqual(expectedTransactionHash, transaction.getHash())) {
                 Logger.log("ERROR: Error inflating transaction: " + expectedTransactionHash);
                 Logger.log(transaction.toJson());
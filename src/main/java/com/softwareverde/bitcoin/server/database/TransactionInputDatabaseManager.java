@@ -1,6 +1,7 @@
 package com.softwareverde.bitcoin.server.database;
 
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.server.database.cache.utxo.CachedUnspentTransactionOutput;
 import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
@@ -8,6 +9,7 @@ import com.softwareverde.bitcoin.transaction.input.TransactionInputId;
 import com.softwareverde.bitcoin.transaction.locktime.ImmutableSequenceNumber;
 import com.softwareverde.bitcoin.transaction.locktime.SequenceNumber;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.bitcoin.transaction.script.unlocking.MutableUnlockingScript;
 import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
 import com.softwareverde.bitcoin.type.hash.sha256.ImmutableSha256Hash;
@@ -33,6 +35,14 @@ public class TransactionInputDatabaseManager {
 
         final Sha256Hash previousOutputTransactionHash = transactionInput.getPreviousOutputTransactionHash();
 
+        { // Attempt to find the output within the UnspentTransactionOutput cache first...
+            final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(blockChainSegmentId, previousOutputTransactionHash, transactionInput.getPreviousOutputIndex());
+            final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = transactionOutputDatabaseManager.getCachedUnspentTransactionOutput(transactionOutputIdentifier);
+            if (cachedUnspentTransactionOutput != null) {
+                return cachedUnspentTransactionOutput.getTransactionOutputId();
+            }
+        }
+
         final TransactionId previousOutputTransactionId;
         {
             // NOTE: Searching for transactions that spend outputs from the same block appear to be less common than transactions that spend outputs from a previous block.
@@ -92,6 +102,9 @@ public class TransactionInputDatabaseManager {
 
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(_databaseConnection);
         transactionOutputDatabaseManager.markTransactionOutputAsSpent(previousTransactionOutputId);
+        if (previousTransactionOutputId != null) {
+            TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.markTransactionOutputAsSpent(transactionInput.getPreviousOutputTransactionHash(), transactionInput.getPreviousOutputIndex());
+        }
 
         final TransactionInputId transactionInputId = TransactionInputId.wrap(transactionInputIdLong);
         if (transactionInputId == null) { return null; }
@@ -153,6 +166,7 @@ public class TransactionInputDatabaseManager {
 
         final MutableList<UnlockingScript> unlockingScripts = new MutableList<UnlockingScript>(transactionIds.getSize() * 2);
         final MutableList<TransactionOutputId> previousTransactionOutputIds = new MutableList<TransactionOutputId>(transactionIds.getSize() * 2);
+        final MutableList<TransactionInput> spentTransactionInputs = new MutableList<TransactionInput>(transactionIds.getSize() * 2);
 
         int transactionInputIdCount = 0;
         for (int i = 0; i < transactionIds.getSize(); ++i) {
@@ -170,6 +184,8 @@ public class TransactionInputDatabaseManager {
                         if (previousTransactionOutputId == null) {
                             throw new DatabaseException("Could not find TransactionInput.previousOutputTransaction: " + blockChainSegmentId + " " + transactionId + " " + transactionInput.getPreviousOutputIndex() + ":" + transactionInput.getPreviousOutputTransactionHash());
                         }
+
+                        spentTransactionInputs.add(transactionInput);
                     }
                 }
 
@@ -200,6 +216,10 @@ public class TransactionInputDatabaseManager {
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(_databaseConnection);
         transactionOutputDatabaseManager.markTransactionOutputsAsSpent(previousTransactionOutputIds);
 
+        for (final TransactionInput transactionInput : spentTransactionInputs) {
+            TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.markTransactionOutputAsSpent(transactionInput.getPreviousOutputTransactionHash(), transactionInput.getPreviousOutputIndex());
+        }
+
         return transactionInputIds;
     }
 
@@ -227,7 +247,7 @@ public class TransactionInputDatabaseManager {
             }
             else {
                 final Row previousOutputTransactionRow = previousOutputTransactionRows.get(0);
-                previousOutputTransactionHash = MutableSha256Hash.fromHexString(previousOutputTransactionRow.getString("hash"));
+                previousOutputTransactionHash = MutableSha256Hash.wrap(previousOutputTransactionRow.getBytes("hash"));
                 previousOutputIndex = previousOutputTransactionRow.getInteger("index");
             }
         }
@@ -2,6 +2,10 @@ package com.softwareverde.bitcoin.server.database;
 
 import com.softwareverde.bitcoin.address.AddressDatabaseManager;
 import com.softwareverde.bitcoin.address.AddressId;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.server.database.cache.utxo.CachedUnspentTransactionOutput;
+import com.softwareverde.bitcoin.server.database.cache.utxo.UnspentTransactionOutputCache;
 import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
@@ -11,6 +15,8 @@ import com.softwareverde.bitcoin.transaction.script.ScriptPatternMatcher;
 import com.softwareverde.bitcoin.transaction.script.ScriptType;
 import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
 import com.softwareverde.bitcoin.transaction.script.locking.MutableLockingScript;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableList;
@@ -23,8 +29,33 @@ import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.util.Util;
 
 public class TransactionOutputDatabaseManager {
+    public static final UnspentTransactionOutputCache UNSPENT_TRANSACTION_OUTPUT_CACHE = new UnspentTransactionOutputCache();
+    protected static final Integer UNSPENT_TRANSACTION_OUTPUT_CACHE_LOAD_BATCH_SIZE = 16384;
+
     protected final MysqlDatabaseConnection _databaseConnection;
 
+    /**
+     * Returns the cached unspent TransactionOutput matching the transactionHash/transactionOutputIndex, or null if one was not found.
+     *  A matched TransactionOutput must belong to a block that is connected to the blockChainSegmentId.
+     */
+    protected CachedUnspentTransactionOutput _getCachedUnspentTransactionOutput(final BlockChainSegmentId blockChainSegmentId, final Sha256Hash transactionHash, final Integer transactionOutputIndex) throws DatabaseException {
+        if (blockChainSegmentId == null) { return null; }
+
+        final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = UNSPENT_TRANSACTION_OUTPUT_CACHE.getCachedUnspentTransactionOutput(transactionHash, transactionOutputIndex);
+        if (cachedUnspentTransactionOutput == null) { return null; }
+
+        // NOTE: The common case is that the output was created within the same BlockChainSegment, which may be determined without querying the database...
+        if (Util.areEqual(blockChainSegmentId, cachedUnspentTransactionOutput.getBlockChainSegmentId())) {
+            return cachedUnspentTransactionOutput;
+        }
+
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
+        final Boolean blockIsConnectedToChain = blockDatabaseManager.isBlockConnectedToChain(cachedUnspentTransactionOutput.getBlockId(), blockChainSegmentId);
+        if (! blockIsConnectedToChain) { return null; }
+
+        return cachedUnspentTransactionOutput;
+    }
+
     protected TransactionOutputId _findTransactionOutput(final Boolean isSpent, final TransactionId transactionId, final Integer transactionOutputIndex) throws DatabaseException {
         final java.util.List<Row> rows = _databaseConnection.query(
             new Query("SELECT id FROM transaction_outputs WHERE is_spent = ? AND transaction_id = ? AND `index` = ?")
@@ -210,6 +241,13 @@ public class TransactionOutputDatabaseManager {
     }
 
     public TransactionOutputId findTransactionOutput(final TransactionOutputIdentifier transactionOutputIdentifier) throws DatabaseException {
+        { // Attempt to find the output within the UnspentTransactionOutput cache first...
+            final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = _getCachedUnspentTransactionOutput(transactionOutputIdentifier.getBlockChainSegmentId(), transactionOutputIdentifier.getTransactionHash(), transactionOutputIdentifier.getOutputIndex());
+            if (cachedUnspentTransactionOutput != null) {
+                return cachedUnspentTransactionOutput.getTransactionOutputId();
+            }
+        }
+
         final TransactionDatabaseManager transactionDatabaseManager = new TransactionDatabaseManager(_databaseConnection);
 
         final Integer transactionOutputIndex = transactionOutputIdentifier.getOutputIndex();
@@ -220,10 +258,56 @@ public class TransactionOutputDatabaseManager {
         return transactionOutputId;
     }
 
+    /**
+     * Returns the unspent TransactionOutput from the UnspentTransactionOutput cache, or null if it is not cached.
+     *  A null result does not imply the output does not exist; the caller should fall back to findTransactionOutput.
+     */
+    public CachedUnspentTransactionOutput getCachedUnspentTransactionOutput(final TransactionOutputIdentifier transactionOutputIdentifier) throws DatabaseException {
+        return _getCachedUnspentTransactionOutput(transactionOutputIdentifier.getBlockChainSegmentId(), transactionOutputIdentifier.getTransactionHash(), transactionOutputIdentifier.getOutputIndex());
+    }
+
     public TransactionOutput getTransactionOutput(final TransactionOutputId transactionOutputId) throws DatabaseException {
         return _getTransactionOutput(transactionOutputId);
     }
 
+    public Boolean isTransactionOutputSpent(final TransactionOutputId transactionOutputId) throws DatabaseException {
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT id, is_spent FROM transaction_outputs WHERE id = ?")
+                .setParameter(transactionOutputId)
+        );
+        if (rows.isEmpty()) { return null; }
+
+        final Row row = rows.get(0);
+        return (row.getInteger("is_spent") > 0);
+    }
+
+    /**
+     * Returns true if the output is spent by a transaction within a block connected to blockChainSegmentId, or null if the
+     *  output does not exist.  Unlike isTransactionOutputSpent, spends within blocks of other (e.g. stale) chains are
+     *  disregarded: the is_spent flag is set by every stored block that spends the output, and is never cleared.
+     */
+    public Boolean isTransactionOutputSpentWithinChain(final BlockChainSegmentId blockChainSegmentId, final TransactionOutputId transactionOutputId) throws DatabaseException {
+        final Boolean isFlaggedAsSpent = isTransactionOutputSpent(transactionOutputId);
+        if ( (isFlaggedAsSpent == null) || (! isFlaggedAsSpent) ) { return isFlaggedAsSpent; }
+
+        final java.util.List<Row> rows = _databaseConnection.query(
+            new Query("SELECT transactions.block_id FROM transaction_inputs INNER JOIN transactions ON transactions.id = transaction_inputs.transaction_id WHERE transaction_inputs.previous_transaction_output_id = ?")
+                .setParameter(transactionOutputId)
+        );
+
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(_databaseConnection);
+        for (final Row row : rows) {
+            final Long blockId = row.getLong("block_id");
+            if (blockId == null) { continue; }
+
+            if (blockDatabaseManager.isBlockConnectedToChain(BlockId.wrap(blockId), blockChainSegmentId)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public void markTransactionOutputAsSpent(final TransactionOutputId transactionOutputId) throws DatabaseException {
         _databaseConnection.executeSql(
             new Query("UPDATE transaction_outputs SET is_spent = 1 WHERE id = ?")
@@ -239,4 +323,57 @@ public class TransactionOutputDatabaseManager {
 
         _databaseConnection.executeSql(batchedUpdateQuery);
     }
+
+    /**
+     * Rebuilds the UnspentTransactionOutput cache from the unspent outputs within the database.
+     *  The most recent outputs are loaded first, until either all unspent outputs are loaded or the cache is full.
+     *  Returns the number of outputs loaded.
+     */
+    public Integer loadUnspentTransactionOutputCache() throws DatabaseException {
+        UNSPENT_TRANSACTION_OUTPUT_CACHE.clear();
+        if (! UNSPENT_TRANSACTION_OUTPUT_CACHE.isEnabled()) { return 0; }
+
+        final Long maxTransactionId;
+        {
+            final java.util.List<Row> rows = _databaseConnection.query(
+                new Query("SELECT MAX(id) AS max_id FROM transactions")
+            );
+            if (rows.isEmpty()) { return 0; }
+
+            final Row row = rows.get(0);
+            maxTransactionId = row.getLong("max_id");
+            if (maxTransactionId == null) { return 0; }
+        }
+
+        final Integer maxItemCount = UNSPENT_TRANSACTION_OUTPUT_CACHE.getMaxItemCount();
+
+        long upperTransactionId = (maxTransactionId + 1L);
+        while ( (upperTransactionId > 0L) && (UNSPENT_TRANSACTION_OUTPUT_CACHE.getSize() < maxItemCount) ) {
+            final long lowerTransactionId = Math.max(0L, (upperTransactionId - UNSPENT_TRANSACTION_OUTPUT_CACHE_LOAD_BATCH_SIZE));
+
+            final java.util.List<Row> rows = _databaseConnection.query(
+                new Query("SELECT transaction_outputs.id, transaction_outputs.`index`, transaction_outputs.amount, transactions.hash, transactions.block_id, blocks.block_chain_segment_id FROM transaction_outputs INNER JOIN transactions ON transactions.id = transaction_outputs.transaction_id INNER JOIN blocks ON blocks.id = transactions.block_id WHERE transaction_outputs.is_spent = 0 AND transaction_outputs.transaction_id >= ? AND transaction_outputs.transaction_id < ?")
+                    .setParameter(lowerTransactionId)
+                    .setParameter(upperTransactionId)
+            );
+
+            for (final Row row : rows) {
+                final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(row.getLong("id"));
+                final Integer transactionOutputIndex = row.getInteger("index");
+                final Long amount = row.getLong("amount");
+                final Sha256Hash transactionHash = MutableSha256Hash.wrap(row.getBytes("hash"));
+                final BlockId blockId = BlockId.wrap(row.getLong("block_id"));
+                final BlockChainSegmentId blockChainSegmentId = BlockChainSegmentId.wrap(row.getLong("block_chain_segment_id"));
+
+                UNSPENT_TRANSACTION_OUTPUT_CACHE.cacheUnspentTransactionOutput(transactionHash, transactionOutputIndex, transactionOutputId, blockId, blockChainSegmentId, amount);
+            }
+
+            UNSPENT_TRANSACTION_OUTPUT_CACHE.commit();
+            upperTransactionId = lowerTransactionId;
+        }
+
+        UNSPENT_TRANSACTION_OUTPUT_CACHE.clearDebug();
+
+        return UNSPENT_TRANSACTION_OUTPUT_CACHE.getSize();
+    }
 }
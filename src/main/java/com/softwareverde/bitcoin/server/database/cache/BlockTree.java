@@ -0,0 +1,386 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of every block's parent and height, so that ancestry checks do not need to walk the blocks and
+ *  block_chain_segments tables.
+ *
+ *  Since BlockIds are sequential, the tree's nodes are stored within parallel arrays indexed by BlockId.  Each node also
+ *  records a "skip" ancestor (selected as described by Bitcoin Core's CBlockIndex::pskip), so that the ancestor of a block at
+ *  any height is found in O(log n) steps.
+ *
+ *  A block is only added once its parent has been added (or if it has no parent), so a block that is within the tree has
+ *  its complete ancestry within the tree.  Queries for blocks that are not within the tree return null, and the caller
+ *  must fall back to the database.
+ *
+ *  Blocks added since the last commit() are removed by rollback(), so that the tree may be kept in sync with a database
+ *  transaction.  The tree is disabled (and all operations are no-ops) until initialize() is invoked.
+ */
+public class BlockTree {
+    protected static final int NO_BLOCK = 0;
+    protected static final int INITIAL_CAPACITY = 1024;
+
+    protected static int _invertLowestOne(final int value) {
+        return (value & (value - 1));
+    }
+
+    protected static int _getSkipHeight(final int blockHeight) {
+        if (blockHeight < 2) { return 0; }
+
+        // Skip pointers of odd heights are chosen to be reachable from the skip pointers of the even heights beneath them...
+        return ( ((blockHeight & 1) != 0) ? (_invertLowestOne(_invertLowestOne(blockHeight - 1)) + 1) : _invertLowestOne(blockHeight) );
+    }
+
+    protected final ReentrantReadWriteLock.ReadLock _readLock;
+    protected final ReentrantReadWriteLock.WriteLock _writeLock;
+
+    protected final ArrayList<Integer> _uncommittedBlockIds = new ArrayList<Integer>();
+
+    protected boolean _isEnabled = false;
+    protected int _blockCount = 0;
+    protected int[] _blockHeights; // -1 if the block is not within the tree...
+    protected int[] _parentBlockIds;
+    protected int[] _skipBlockIds;
+    protected int[] _firstChildBlockIds;
+    protected int[] _nextSiblingBlockIds;
+
+    protected void _allocate(final int capacity) {
+        _blockHeights = new int[capacity];
+        Arrays.fill(_blockHeights, -1);
+        _parentBlockIds = new int[capacity];
+        _skipBlockIds = new int[capacity];
+        _firstChildBlockIds = new int[capacity];
+        _nextSiblingBlockIds = new int[capacity];
+        _blockCount = 0;
+        _uncommittedBlockIds.clear();
+    }
+
+    protected void _ensureCapacity(final int minimumCapacity) {
+        final int currentCapacity = _blockHeights.length;
+        if (minimumCapacity <= currentCapacity) { return; }
+
+        int newCapacity = currentCapacity;
+        while (newCapacity < minimumCapacity) {
+            newCapacity = (newCapacity * 2);
+        }
+
+        _blockHeights = Arrays.copyOf(_blockHeights, newCapacity);
+        Arrays.fill(_blockHeights, currentCapacity, newCapacity, -1);
+        _parentBlockIds = Arrays.copyOf(_parentBlockIds, newCapacity);
+        _skipBlockIds = Arrays.copyOf(_skipBlockIds, newCapacity);
+        _firstChildBlockIds = Arrays.copyOf(_firstChildBlockIds, newCapacity);
+        _nextSiblingBlockIds = Arrays.copyOf(_nextSiblingBlockIds, newCapacity);
+    }
+
+    /**
+     * Returns the BlockId as an array index, or NO_BLOCK if the block is not within the tree.
+     */
+    protected int _toIndex(final BlockId blockId) {
+        if (blockId == null) { return NO_BLOCK; }
+
+        final long value = blockId.longValue();
+        if ( (value <= 0L) || (value >= _blockHeights.length) ) { return NO_BLOCK; }
+
+        final int index = (int) value;
+        if (_blockHeights[index] < 0) { return NO_BLOCK; }
+        return index;
+    }
+
+    protected int _getAncestor(final int blockIndex, final int blockHeight) {
+        int walkIndex = blockIndex;
+        int walkHeight = _blockHeights[blockIndex];
+        if ( (blockHeight < 0) || (blockHeight > walkHeight) ) { return NO_BLOCK; }
+
+        while (walkHeight > blockHeight) {
+            final int skipHeight = _getSkipHeight(walkHeight);
+            final int previousSkipHeight = _getSkipHeight(walkHeight - 1);
+            final int skipIndex = _skipBlockIds[walkIndex];
+
+            final boolean shouldSkip = ( (skipIndex != NO_BLOCK) && ( (skipHeight == blockHeight) || ( (skipHeight > blockHeight) && (! ( (previousSkipHeight < (skipHeight - 2)) && (previousSkipHeight >= blockHeight) )) ) ) );
+            if (shouldSkip) {
+                walkIndex = skipIndex;
+                walkHeight = skipHeight;
+            }
+            else {
+                walkIndex = _parentBlockIds[walkIndex];
+                if (walkIndex == NO_BLOCK) { return NO_BLOCK; }
+                walkHeight -= 1;
+            }
+        }
+
+        return walkIndex;
+    }
+
+    protected void _removeBlock(final int blockIndex) {
+        final int parentIndex = _parentBlockIds[blockIndex];
+        if (parentIndex != NO_BLOCK) {
+            if (_firstChildBlockIds[parentIndex] == blockIndex) {
+                _firstChildBlockIds[parentIndex] = _nextSiblingBlockIds[blockIndex];
+            }
+            else {
+                int siblingIndex = _firstChildBlockIds[parentIndex];
+                while (siblingIndex != NO_BLOCK) {
+                    if (_nextSiblingBlockIds[siblingIndex] == blockIndex) {
+                        _nextSiblingBlockIds[siblingIndex] = _nextSiblingBlockIds[blockIndex];
+                        break;
+                    }
+                    siblingIndex = _nextSiblingBlockIds[siblingIndex];
+                }
+            }
+        }
+
+        _blockHeights[blockIndex] = -1;
+        _parentBlockIds[blockIndex] = NO_BLOCK;
+        _skipBlockIds[blockIndex] = NO_BLOCK;
+        _firstChildBlockIds[blockIndex] = NO_BLOCK;
+        _nextSiblingBlockIds[blockIndex] = NO_BLOCK;
+        _blockCount -= 1;
+    }
+
+    public BlockTree() {
+        final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        _readLock = readWriteLock.readLock();
+        _writeLock = readWriteLock.writeLock();
+    }
+
+    /**
+     * Enables the tree.  Any previously added blocks are discarded.
+     */
+    public void initialize() {
+        try {
+            _writeLock.lock();
+            _allocate(INITIAL_CAPACITY);
+            _isEnabled = true;
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    public Boolean isEnabled() {
+        return _isEnabled;
+    }
+
+    /**
+     * Adds the block to the tree.  If parentBlockId is not null, then the parent must already be within the tree.
+     *  The block is removed if rollback() is invoked before commit().
+     *  Returns true if the block was added.
+     */
+    public Boolean addBlock(final BlockId blockId, final BlockId parentBlockId, final Long blockHeight) {
+        if (! _isEnabled) { return false; }
+        if ( (blockId == null) || (blockHeight == null) ) { return false; }
+
+        final long blockIdValue = blockId.longValue();
+        if ( (blockIdValue <= 0L) || (blockIdValue >= Integer.MAX_VALUE) ) { return false; }
+        final int blockIndex = (int) blockIdValue;
+
+        try {
+            _writeLock.lock();
+
+            _ensureCapacity(blockIndex + 1);
+            if (_blockHeights[blockIndex] >= 0) { return false; }
+
+            final int parentIndex;
+            if (parentBlockId != null) {
+                parentIndex = _toIndex(parentBlockId);
+                if (parentIndex == NO_BLOCK) { return false; }
+                if (_blockHeights[parentIndex] != (blockHeight - 1L)) { return false; }
+            }
+            else {
+                parentIndex = NO_BLOCK;
+            }
+
+            final int height = blockHeight.intValue();
+            _blockHeights[blockIndex] = height;
+            _parentBlockIds[blockIndex] = parentIndex;
+            _skipBlockIds[blockIndex] = ( (parentIndex != NO_BLOCK) ? _getAncestor(parentIndex, _getSkipHeight(height)) : NO_BLOCK );
+            _firstChildBlockIds[blockIndex] = NO_BLOCK;
+            _nextSiblingBlockIds[blockIndex] = NO_BLOCK;
+
+            if (parentIndex != NO_BLOCK) { // Append the block to the end of its parent's children, so that children are ordered by their arrival...
+                if (_firstChildBlockIds[parentIndex] == NO_BLOCK) {
+                    _firstChildBlockIds[parentIndex] = blockIndex;
+                }
+                else {
+                    int siblingIndex = _firstChildBlockIds[parentIndex];
+                    while (_nextSiblingBlockIds[siblingIndex] != NO_BLOCK) {
+                        siblingIndex = _nextSiblingBlockIds[siblingIndex];
+                    }
+                    _nextSiblingBlockIds[siblingIndex] = blockIndex;
+                }
+            }
+
+            _blockCount += 1;
+            _uncommittedBlockIds.add(blockIndex);
+            return true;
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    public Boolean containsBlock(final BlockId blockId) {
+        if (! _isEnabled) { return false; }
+
+        try {
+            _readLock.lock();
+            return (_toIndex(blockId) != NO_BLOCK);
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the block's height, or null if the block is not within the tree.
+     */
+    public Long getBlockHeight(final BlockId blockId) {
+        if (! _isEnabled) { return null; }
+
+        try {
+            _readLock.lock();
+
+            final int blockIndex = _toIndex(blockId);
+            if (blockIndex == NO_BLOCK) { return null; }
+            return (long) _blockHeights[blockIndex];
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the BlockId of blockId's ancestor (or blockId itself) at blockHeight.
+     *  Returns null if the block is not within the tree, or if the block does not have an ancestor at blockHeight.
+     */
+    public BlockId getAncestorBlockId(final BlockId blockId, final Long blockHeight) {
+        if (! _isEnabled) { return null; }
+        if ( (blockHeight == null) || (blockHeight < 0L) || (blockHeight > Integer.MAX_VALUE) ) { return null; }
+
+        try {
+            _readLock.lock();
+
+            final int blockIndex = _toIndex(blockId);
+            if (blockIndex == NO_BLOCK) { return null; }
+
+            final int ancestorIndex = _getAncestor(blockIndex, blockHeight.intValue());
+            if (ancestorIndex == NO_BLOCK) { return null; }
+            return BlockId.wrap((long) ancestorIndex);
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if either block is an ancestor of (or is the same as) the other block.
+     *  Returns null if either block is not within the tree.
+     */
+    public Boolean areBlocksConnected(final BlockId blockId0, final BlockId blockId1) {
+        if (! _isEnabled) { return null; }
+
+        try {
+            _readLock.lock();
+
+            final int blockIndex0 = _toIndex(blockId0);
+            final int blockIndex1 = _toIndex(blockId1);
+            if ( (blockIndex0 == NO_BLOCK) || (blockIndex1 == NO_BLOCK) ) { return null; }
+
+            final int blockHeight0 = _blockHeights[blockIndex0];
+            final int blockHeight1 = _blockHeights[blockIndex1];
+            if (blockHeight0 <= blockHeight1) {
+                return (_getAncestor(blockIndex1, blockHeight0) == blockIndex0);
+            }
+            else {
+                return (_getAncestor(blockIndex0, blockHeight1) == blockIndex1);
+            }
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the BlockIds of the block's children, in the order they were added.
+     *  Returns null if the block is not within the tree.
+     */
+    public List<BlockId> getChildBlockIds(final BlockId blockId) {
+        if (! _isEnabled) { return null; }
+
+        try {
+            _readLock.lock();
+
+            final int blockIndex = _toIndex(blockId);
+            if (blockIndex == NO_BLOCK) { return null; }
+
+            final MutableList<BlockId> childBlockIds = new MutableList<BlockId>();
+            int childIndex = _firstChildBlockIds[blockIndex];
+            while (childIndex != NO_BLOCK) {
+                childBlockIds.add(BlockId.wrap((long) childIndex));
+                childIndex = _nextSiblingBlockIds[childIndex];
+            }
+            return childBlockIds;
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Finalizes the blocks added since the last commit.
+     */
+    public void commit() {
+        if (! _isEnabled) { return; }
+
+        try {
+            _writeLock.lock();
+            _uncommittedBlockIds.clear();
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the blocks added since the last commit.
+     */
+    public void rollback() {
+        if (! _isEnabled) { return; }
+
+        try {
+            _writeLock.lock();
+
+            for (int i = (_uncommittedBlockIds.size() - 1); i >= 0; --i) {
+                final int blockIndex = _uncommittedBlockIds.get(i);
+                _removeBlock(blockIndex);
+            }
+            _uncommittedBlockIds.clear();
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    public Integer getSize() {
+        return _blockCount;
+    }
+
+    public void clear() {
+        if (! _isEnabled) { return; }
+
+        try {
+            _writeLock.lock();
+            _allocate(INITIAL_CAPACITY);
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+}
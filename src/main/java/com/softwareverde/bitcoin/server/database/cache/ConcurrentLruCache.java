@@ -0,0 +1,262 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import com.softwareverde.io.Logger;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe, least-recently-used cache.
+ *  The cache is divided into independently-locked segments (selected by the key's hash) so that concurrent readers and
+ *  writers of different keys rarely contend.  Each segment is an access-ordered LinkedHashMap, so lookups, insertions,
+ *  and evictions are all O(1).  Recency is tracked per-segment; the evicted item is the least-recently used item of its
+ *  segment, which approximates the least-recently used item of the whole cache.
+ *
+ *  The cache may be bounded by either an item count or a byte count (via an estimated per-item byte count).
+ */
+public class ConcurrentLruCache<KEY, VALUE> {
+    public static final Integer DEFAULT_SEGMENT_COUNT = 16;
+
+    public interface UpdateCallback<KEY, VALUE> {
+        /**
+         * Returns the new value for the key, or null if the key should be removed.
+         *  existingValue is null if the key is not cached.
+         */
+        VALUE run(KEY key, VALUE existingValue);
+    }
+
+    protected static class Segment<KEY, VALUE> extends LinkedHashMap<KEY, VALUE> {
+        protected final AtomicLong _evictionCount;
+        protected int _maxItemCount;
+
+        public Segment(final int maxItemCount, final AtomicLong evictionCount) {
+            super(16, 0.75F, true);
+            _maxItemCount = maxItemCount;
+            _evictionCount = evictionCount;
+        }
+
+        /**
+         * Evicts the least-recently used items until the segment is within its maximum size.
+         */
+        public void trim() {
+            final Iterator<Map.Entry<KEY, VALUE>> iterator = this.entrySet().iterator();
+            while ( (this.size() > _maxItemCount) && (iterator.hasNext()) ) {
+                iterator.next();
+                iterator.remove();
+                _evictionCount.incrementAndGet();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<KEY, VALUE> eldestEntry) {
+            if (this.size() <= _maxItemCount) { return false; }
+
+            _evictionCount.incrementAndGet();
+            return true;
+        }
+    }
+
+    protected final String _name;
+    protected final Integer _estimatedItemByteCount;
+    protected final Segment<KEY, VALUE>[] _segments;
+    protected final int _segmentMask;
+    protected volatile Integer _maxItemCount;
+
+    protected final AtomicLong _hitCount = new AtomicLong(0L);
+    protected final AtomicLong _missCount = new AtomicLong(0L);
+    protected final AtomicLong _evictionCount = new AtomicLong(0L);
+
+    protected static int _calculateSegmentMaxItemCount(final int maxItemCount, final int segmentCount) {
+        return Math.max(1, ((maxItemCount + segmentCount - 1) / segmentCount));
+    }
+
+    protected Segment<KEY, VALUE> _getSegment(final Object key) {
+        final int hashCode = key.hashCode();
+        final int spreadHashCode = (hashCode ^ (hashCode >>> 16));
+        return _segments[spreadHashCode & _segmentMask];
+    }
+
+    /**
+     * Creates a cache that retains up to maxItemCount items.
+     *  estimatedItemByteCount is the approximate memory used by a single cached entry, and is used to convert a byte budget
+     *  into an item count via ConcurrentLruCache::setMaxByteCount.
+     */
+    public ConcurrentLruCache(final String name, final Integer maxItemCount, final Integer estimatedItemByteCount) {
+        this(name, maxItemCount, estimatedItemByteCount, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * segmentCount is rounded down to the nearest power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLruCache(final String name, final Integer maxItemCount, final Integer estimatedItemByteCount, final Integer segmentCount) {
+        _name = name;
+        _estimatedItemByteCount = Math.max(1, estimatedItemByteCount);
+        _maxItemCount = maxItemCount;
+
+        final int actualSegmentCount = Integer.highestOneBit(Math.max(1, segmentCount));
+        _segmentMask = (actualSegmentCount - 1);
+        _segments = (Segment<KEY, VALUE>[]) new Segment[actualSegmentCount];
+
+        final int segmentMaxItemCount = _calculateSegmentMaxItemCount(maxItemCount, actualSegmentCount);
+        for (int i = 0; i < actualSegmentCount; ++i) {
+            _segments[i] = new Segment<KEY, VALUE>(segmentMaxItemCount, _evictionCount);
+        }
+    }
+
+    /**
+     * Returns the cached value for the key, or null if the key is not cached.
+     *  The key is marked as the most-recently used item of its segment.
+     */
+    public VALUE get(final KEY key) {
+        final Segment<KEY, VALUE> segment = _getSegment(key);
+
+        final VALUE value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+
+        if (value == null) {
+            _missCount.incrementAndGet();
+        }
+        else {
+            _hitCount.incrementAndGet();
+        }
+
+        return value;
+    }
+
+    /**
+     * Caches the value for the key, evicting the segment's least-recently used item if the segment is full.
+     */
+    public void put(final KEY key, final VALUE value) {
+        final Segment<KEY, VALUE> segment = _getSegment(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Caches the value for the key only if the key is not already cached.
+     *  Returns the previously cached value, or null if the value was cached.
+     */
+    public VALUE putIfAbsent(final KEY key, final VALUE value) {
+        final Segment<KEY, VALUE> segment = _getSegment(key);
+        synchronized (segment) {
+            final VALUE existingValue = segment.get(key);
+            if (existingValue != null) { return existingValue; }
+
+            segment.put(key, value);
+            return null;
+        }
+    }
+
+    /**
+     * Atomically replaces the key's cached value with the value returned by updateCallback.
+     *  The callback is invoked while the key's segment is locked, so concurrent updates of the same key are never lost;
+     *  the callback should therefore be fast and must not access the cache.  Returns the new value.
+     */
+    public VALUE update(final KEY key, final UpdateCallback<KEY, VALUE> updateCallback) {
+        final Segment<KEY, VALUE> segment = _getSegment(key);
+        synchronized (segment) {
+            final VALUE existingValue = segment.get(key);
+            final VALUE newValue = updateCallback.run(key, existingValue);
+
+            if (newValue == null) {
+                if (existingValue != null) {
+                    segment.remove(key);
+                }
+            }
+            else if (newValue != existingValue) {
+                segment.put(key, newValue);
+            }
+
+            return newValue;
+        }
+    }
+
+    public VALUE remove(final KEY key) {
+        final Segment<KEY, VALUE> segment = _getSegment(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    /**
+     * Changes the maximum number of cached items.
+     *  If the cache is shrunk, the least-recently used items are evicted immediately.
+     */
+    public void setMaxItemCount(final Integer maxItemCount) {
+        _maxItemCount = maxItemCount;
+
+        final int segmentMaxItemCount = _calculateSegmentMaxItemCount(maxItemCount, _segments.length);
+        for (final Segment<KEY, VALUE> segment : _segments) {
+            synchronized (segment) {
+                segment._maxItemCount = segmentMaxItemCount;
+                segment.trim();
+            }
+        }
+    }
+
+    /**
+     * Changes the maximum number of cached items so that the cache uses approximately maxByteCount bytes.
+     */
+    public void setMaxByteCount(final Long maxByteCount) {
+        final long maxItemCount = Math.max(1L, (maxByteCount / _estimatedItemByteCount));
+        setMaxItemCount((int) Math.min(Integer.MAX_VALUE, maxItemCount));
+    }
+
+    public Integer getMaxItemCount() {
+        return _maxItemCount;
+    }
+
+    public Integer getSize() {
+        int size = 0;
+        for (final Segment<KEY, VALUE> segment : _segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (final Segment<KEY, VALUE> segment : _segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+
+        _clearDebug();
+    }
+
+    public void clearDebug() {
+        _clearDebug();
+    }
+
+    protected void _clearDebug() {
+        _hitCount.set(0L);
+        _missCount.set(0L);
+        _evictionCount.set(0L);
+    }
+
+    public Long getHitCount() {
+        return _hitCount.get();
+    }
+
+    public Long getMissCount() {
+        return _missCount.get();
+    }
+
+    public Long getEvictionCount() {
+        return _evictionCount.get();
+    }
+
+    public void debug() {
+        final long missCount = _missCount.get();
+        final long queryCount = (_hitCount.get() + missCount);
+        Logger.log(_name + " Miss/Queries: " + missCount + "/" + queryCount + " ("+ (((float) missCount) / ((float) queryCount) * 100) +"% Miss) | Evictions: " + _evictionCount.get() + " | Cache Size: " + getSize() + "/" + _maxItemCount);
+    }
+}
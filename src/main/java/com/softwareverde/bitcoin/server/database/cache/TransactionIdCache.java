@@ -1,114 +1,68 @@
 package com.softwareverde.bitcoin.server.database.cache;
 
 import com.softwareverde.bitcoin.block.BlockId;
-import com.softwareverde.bitcoin.server.database.cache.recency.RecentItemTracker;
 import com.softwareverde.bitcoin.transaction.TransactionId;
 import com.softwareverde.bitcoin.type.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
-import com.softwareverde.io.Logger;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class TransactionIdCache {
     public static final Integer DEFAULT_CACHE_SIZE = 65536;
+    public static final Integer ESTIMATED_ITEM_BYTE_COUNT = 256; // Sha256Hash, a single-entry Map of BlockId to TransactionId, and map entry overhead...
 
-    public final Object MUTEX = new Object();
-
-    protected final Integer _cacheMaxSize = DEFAULT_CACHE_SIZE;
-    protected final HashMap<Sha256Hash, Map<BlockId, TransactionId>> _cache = new HashMap<Sha256Hash, Map<BlockId, TransactionId>>(_cacheMaxSize);
-    protected final RecentItemTracker<Sha256Hash> _recentHashes = new RecentItemTracker<Sha256Hash>(_cacheMaxSize);
-    protected int _cacheSize = 0;
-
-    protected int _cacheQueryCount = 0;
-    protected int _cacheMissCount = 0;
+    // NOTE: The cached Maps are never modified once cached; adding a TransactionId for a hash replaces its Map with a copy.
+    protected final ConcurrentLruCache<Sha256Hash, Map<BlockId, TransactionId>> _cache = new ConcurrentLruCache<Sha256Hash, Map<BlockId, TransactionId>>("TransactionCache", DEFAULT_CACHE_SIZE, ESTIMATED_ITEM_BYTE_COUNT);
 
     public void clear() {
         _cache.clear();
-        _cacheSize = 0;
-        _recentHashes.clear();
-
-        _clearDebug();
     }
 
     public void clearDebug() {
-        _clearDebug();
+        _cache.clearDebug();
     }
 
-    protected void _clearDebug() {
-        _cacheQueryCount = 0;
-        _cacheMissCount = 0;
-
-        _recentHashes.clearDebug();
+    public void setMaxByteCount(final Long maxByteCount) {
+        _cache.setMaxByteCount(maxByteCount);
     }
 
     public void cacheTransactionId(final BlockId blockId, final TransactionId transactionId, final Sha256Hash sha256Hash) {
         final ImmutableSha256Hash transactionHash = sha256Hash.asConst();
 
-        synchronized (MUTEX) {
-            _recentHashes.markRecent(transactionHash);
-
-            if (_cache.containsKey(transactionHash)) {
-                return;
-            }
-
-            if (_cacheSize >= _cacheMaxSize) {
-                final Sha256Hash oldestHash = _recentHashes.getOldestItem();
-                _cache.remove(oldestHash);
-                _cacheSize -= 1;
-            }
+        // NOTE: The copy and replacement is performed atomically so that concurrent writers of the same hash do not lose each other's entries...
+        _cache.update(transactionHash, new ConcurrentLruCache.UpdateCallback<Sha256Hash, Map<BlockId, TransactionId>>() {
+            @Override
+            public Map<BlockId, TransactionId> run(final Sha256Hash key, final Map<BlockId, TransactionId> existingMap) {
+                if ( (existingMap != null) && (existingMap.containsKey(blockId)) ) { return existingMap; }
 
-            final Map<BlockId, TransactionId> subMap;
-            {
-                final Map<BlockId, TransactionId> map = _cache.get(transactionHash);
-                subMap = (map != null ? map : new HashMap<BlockId, TransactionId>());
+                final HashMap<BlockId, TransactionId> subMap = (existingMap != null ? new HashMap<BlockId, TransactionId>(existingMap) : new HashMap<BlockId, TransactionId>(1));
+                subMap.put(blockId, transactionId);
+                return Collections.unmodifiableMap(subMap);
             }
-
-            subMap.put(blockId, transactionId);
-
-            _cache.put(transactionHash, subMap);
-            _cacheSize += 1;
-        }
+        });
     }
 
     public TransactionId getCachedTransactionId(final BlockId blockId, final Sha256Hash transactionHash) {
-        synchronized (MUTEX) {
-            _cacheQueryCount += 1;
-
-            if (! _cache.containsKey(transactionHash)) {
-                _cacheMissCount += 1;
-                return null;
-            }
+        final Map<BlockId, TransactionId> subMap = _cache.get(transactionHash);
+        if (subMap == null) { return null; }
 
-            _recentHashes.markRecent(transactionHash);
-            final Map<BlockId, TransactionId> subMap = _cache.get(transactionHash);
-            final TransactionId transactionId = subMap.get(blockId);
-
-            return transactionId;
-        }
+        return subMap.get(blockId);
     }
 
     public Map<BlockId, TransactionId> getCachedTransactionIds(final Sha256Hash transactionHash) {
-        synchronized (MUTEX) {
-            _cacheQueryCount += 1;
-
-            if (! _cache.containsKey(transactionHash)) {
-                _cacheMissCount += 1;
-                return null;
-            }
-
-            _recentHashes.markRecent(transactionHash);
-            final Map<BlockId, TransactionId> subMap = new HashMap<BlockId, TransactionId>(_cache.get(transactionHash));
+        final Map<BlockId, TransactionId> subMap = _cache.get(transactionHash);
+        if (subMap == null) { return null; }
 
-            return subMap;
-        }
+        return new HashMap<BlockId, TransactionId>(subMap);
     }
 
     public Integer getSize() {
-        return _cache.size();
+        return _cache.getSize();
     }
 
     public void debug() {
-        Logger.log("TransactionCache Miss/Queries: " + _cacheMissCount + "/" + _cacheQueryCount + " ("+ (((float) _cacheMissCount) / ((float) _cacheQueryCount) * 100) +"% Miss) | Cache Size: " + _cache.size() + " | Time Spent Searching: " + _recentHashes.getMsSpentSearching());
+        _cache.debug();
     }
 }
@@ -0,0 +1,40 @@
+package com.softwareverde.bitcoin.server.database.cache.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.constable.Const;
+
+public class CachedUnspentTransactionOutput implements Const {
+    protected final TransactionOutputId _transactionOutputId;
+    protected final BlockId _blockId;
+    protected final BlockChainSegmentId _blockChainSegmentId;
+    protected final Long _amount;
+
+    public CachedUnspentTransactionOutput(final TransactionOutputId transactionOutputId, final BlockId blockId, final BlockChainSegmentId blockChainSegmentId, final Long amount) {
+        _transactionOutputId = transactionOutputId;
+        _blockId = blockId;
+        _blockChainSegmentId = blockChainSegmentId;
+        _amount = amount;
+    }
+
+    public TransactionOutputId getTransactionOutputId() {
+        return _transactionOutputId;
+    }
+
+    public BlockId getBlockId() {
+        return _blockId;
+    }
+
+    /**
+     * Returns the BlockChainSegmentId the output's block belonged to when it was cached, or null if the
+     *  BlockChainSegments have been refactored since then (in which case the BlockChainSegmentId must be re-resolved from the BlockId).
+     */
+    public BlockChainSegmentId getBlockChainSegmentId() {
+        return _blockChainSegmentId;
+    }
+
+    public Long getAmount() {
+        return _amount;
+    }
+}
@@ -0,0 +1,259 @@
+package com.softwareverde.bitcoin.server.database.cache.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.io.Logger;
+import com.softwareverde.util.ByteUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory (off-heap) index of unspent TransactionOutputs, keyed by (transactionHash, outputIndex).
+ *  The database remains the source of truth; a cache miss (or an ambiguous entry) must fall back to the database.
+ *
+ *  Changes made while a block is being stored are journaled so that they may be undone if the block is invalid:
+ *      - New outputs are visible immediately (so that the block being validated may resolve them), and are removed upon rollback().
+ *      - Spent outputs remain visible until commit(), since block validation occurs after the block's inputs have been stored.
+ *
+ *  The cache is disabled (and all operations are no-ops) until initialize() is invoked.
+ */
+public class UnspentTransactionOutputCache {
+    public static final Long DEFAULT_MAX_BYTE_COUNT = (256L * ByteUtil.Unit.MEGABYTES);
+
+    protected static final int BLOCK_CHAIN_SEGMENT_VERSION_MASK = 0x00FFFFFF;
+
+    protected static class UncommittedOutput {
+        public final long[] hashLongs;
+        public final int outputIndex;
+        public final Long transactionOutputId;
+
+        public UncommittedOutput(final long[] hashLongs, final int outputIndex, final Long transactionOutputId) {
+            this.hashLongs = hashLongs;
+            this.outputIndex = outputIndex;
+            this.transactionOutputId = transactionOutputId;
+        }
+    }
+
+    protected final ReentrantReadWriteLock.ReadLock _readLock;
+    protected final ReentrantReadWriteLock.WriteLock _writeLock;
+
+    protected final List<UncommittedOutput> _uncommittedNewOutputs = new ArrayList<UncommittedOutput>();
+    protected final List<UncommittedOutput> _uncommittedSpentOutputs = new ArrayList<UncommittedOutput>();
+
+    protected UnspentTransactionOutputMap _map = null;
+    protected int _blockChainSegmentVersion = 0;
+
+    protected final AtomicLong _cacheQueryCount = new AtomicLong(0L);
+    protected final AtomicLong _cacheMissCount = new AtomicLong(0L);
+    protected long _cacheRejectCount = 0L;
+
+    public UnspentTransactionOutputCache() {
+        final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        _readLock = readWriteLock.readLock();
+        _writeLock = readWriteLock.writeLock();
+    }
+
+    /**
+     * Allocates the off-heap storage for the cache.  The number of cacheable outputs is derived from maxByteCount.
+     *  Any previously cached outputs are discarded.
+     */
+    public void initialize(final Long maxByteCount) {
+        try {
+            _writeLock.lock();
+
+            final int capacity = UnspentTransactionOutputMap.calculateCapacity(maxByteCount);
+            _map = ( (capacity > 0) ? new UnspentTransactionOutputMap(capacity) : null );
+            _uncommittedNewOutputs.clear();
+            _uncommittedSpentOutputs.clear();
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    public Boolean isEnabled() {
+        return (_map != null);
+    }
+
+    /**
+     * Caches a newly stored TransactionOutput.  The output is visible immediately, but is removed if rollback() is invoked before commit().
+     */
+    public void cacheUnspentTransactionOutput(final Sha256Hash transactionHash, final Integer outputIndex, final TransactionOutputId transactionOutputId, final BlockId blockId, final BlockChainSegmentId blockChainSegmentId, final Long amount) {
+        if (_map == null) { return; }
+        if (blockChainSegmentId == null) { return; }
+
+        final long[] hashLongs = UnspentTransactionOutputMap.toHashLongs(transactionHash.getBytes());
+
+        try {
+            _writeLock.lock();
+
+            final Boolean wasCached = _map.put(hashLongs, outputIndex, amount, transactionOutputId.longValue(), blockId.longValue(), blockChainSegmentId.longValue(), _blockChainSegmentVersion);
+            if (wasCached) {
+                _uncommittedNewOutputs.add(new UncommittedOutput(hashLongs, outputIndex, transactionOutputId.longValue()));
+            }
+            else {
+                _cacheRejectCount += 1L;
+            }
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the output as spent.  The output remains cached until commit() is invoked.
+     */
+    public void markTransactionOutputAsSpent(final Sha256Hash transactionHash, final Integer outputIndex) {
+        if (_map == null) { return; }
+
+        final long[] hashLongs = UnspentTransactionOutputMap.toHashLongs(transactionHash.getBytes());
+
+        try {
+            _writeLock.lock();
+            _uncommittedSpentOutputs.add(new UncommittedOutput(hashLongs, outputIndex, null));
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached output, or null if the output is not cached (or is ambiguous).
+     *  The caller is responsible for ensuring the returned output's block is connected to the desired BlockChainSegment.
+     */
+    public CachedUnspentTransactionOutput getCachedUnspentTransactionOutput(final Sha256Hash transactionHash, final Integer outputIndex) {
+        if (_map == null) { return null; }
+
+        final long[] hashLongs = UnspentTransactionOutputMap.toHashLongs(transactionHash.getBytes());
+
+        try {
+            _readLock.lock();
+
+            _cacheQueryCount.incrementAndGet();
+
+            final int slot = _map.get(hashLongs, outputIndex);
+            if (slot < 0) {
+                _cacheMissCount.incrementAndGet();
+                return null;
+            }
+
+            final TransactionOutputId transactionOutputId = TransactionOutputId.wrap(_map.getTransactionOutputId(slot));
+            final BlockId blockId = BlockId.wrap(_map.getBlockId(slot));
+            final Long amount = _map.getAmount(slot);
+
+            final Boolean blockChainSegmentIdIsCurrent = (_map.getBlockChainSegmentVersion(slot) == _blockChainSegmentVersion);
+            final BlockChainSegmentId blockChainSegmentId = (blockChainSegmentIdIsCurrent ? BlockChainSegmentId.wrap(_map.getBlockChainSegmentId(slot)) : null);
+
+            return new CachedUnspentTransactionOutput(transactionOutputId, blockId, blockChainSegmentId, amount);
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Invalidates the BlockChainSegmentIds of all cached outputs.
+     *  Should be invoked whenever BlockChainSegments are refactored (i.e. when a fork is encountered).
+     */
+    public void invalidateBlockChainSegmentIds() {
+        try {
+            _writeLock.lock();
+            _blockChainSegmentVersion = ((_blockChainSegmentVersion + 1) & BLOCK_CHAIN_SEGMENT_VERSION_MASK);
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the journaled changes; should be invoked after the database transaction storing the block has been committed.
+     */
+    public void commit() {
+        if (_map == null) { return; }
+
+        try {
+            _writeLock.lock();
+
+            for (final UncommittedOutput spentOutput : _uncommittedSpentOutputs) {
+                _map.remove(spentOutput.hashLongs, spentOutput.outputIndex, null);
+            }
+
+            _uncommittedSpentOutputs.clear();
+            _uncommittedNewOutputs.clear();
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    /**
+     * Discards the journaled changes; should be invoked after the database transaction storing the block has been rolled back.
+     */
+    public void rollback() {
+        if (_map == null) { return; }
+
+        try {
+            _writeLock.lock();
+
+            for (final UncommittedOutput newOutput : _uncommittedNewOutputs) {
+                _map.remove(newOutput.hashLongs, newOutput.outputIndex, newOutput.transactionOutputId);
+            }
+
+            _uncommittedSpentOutputs.clear();
+            _uncommittedNewOutputs.clear();
+        }
+        finally {
+            _writeLock.unlock();
+        }
+    }
+
+    public void clear() {
+        try {
+            _writeLock.lock();
+
+            if (_map != null) {
+                _map.clear();
+            }
+            _uncommittedNewOutputs.clear();
+            _uncommittedSpentOutputs.clear();
+            _blockChainSegmentVersion = 0;
+        }
+        finally {
+            _writeLock.unlock();
+        }
+
+        _clearDebug();
+    }
+
+    public void clearDebug() {
+        _clearDebug();
+    }
+
+    protected void _clearDebug() {
+        _cacheQueryCount.set(0L);
+        _cacheMissCount.set(0L);
+        _cacheRejectCount = 0L;
+    }
+
+    public Integer getSize() {
+        if (_map == null) { return 0; }
+        return _map.getItemCount();
+    }
+
+    public Integer getMaxItemCount() {
+        if (_map == null) { return 0; }
+        return _map.getMaxItemCount();
+    }
+
+    public void debug() {
+        if (_map == null) { return; }
+        final long cacheMissCount = _cacheMissCount.get();
+        final long cacheQueryCount = _cacheQueryCount.get();
+        Logger.log("UnspentTransactionOutputCache Miss/Queries: " + cacheMissCount + "/" + cacheQueryCount + " ("+ (((float) cacheMissCount) / ((float) cacheQueryCount) * 100) +"% Miss) | Cache Size: " + _map.getItemCount() + "/" + _map.getMaxItemCount() + " | Rejected: " + _cacheRejectCount);
+    }
+}
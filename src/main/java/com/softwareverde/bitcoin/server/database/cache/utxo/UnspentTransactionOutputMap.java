@@ -0,0 +1,263 @@
+package com.softwareverde.bitcoin.server.database.cache.utxo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An open-addressed (linear-probing) hash table stored within a single direct ByteBuffer.
+ *  Entries are keyed by (transactionHash, outputIndex) and are a fixed ENTRY_BYTE_COUNT wide, so the table never
+ *  allocates per-item objects on the heap and does not contribute to garbage collection pressure.
+ *  Removals use backward-shift deletion, so the table never accumulates tombstones.
+ *
+ *  Entry Layout:
+ *      [0, 32)     Transaction Hash
+ *      [32, 36)    Output Index
+ *      [36, 40)    Flags (state in the lowest byte, BlockChainSegment version in the upper 24 bits)
+ *      [40, 48)    Amount
+ *      [48, 52)    TransactionOutputId (unsigned)
+ *      [52, 56)    BlockId (unsigned)
+ *      [56, 60)    BlockChainSegmentId (unsigned)
+ *      [60, 64)    Reserved
+ *
+ *  Ids are stored as unsigned 32-bit values; entries with larger ids are rejected (and resolved via the database) rather than truncated.
+ *
+ *  This class is not thread-safe; synchronization is the responsibility of UnspentTransactionOutputCache.
+ */
+class UnspentTransactionOutputMap {
+    public static final int ENTRY_BYTE_COUNT = 64;
+    public static final int MAX_CAPACITY = (1 << 24); // 1GB
+
+    protected static final int HASH_OFFSET = 0;
+    protected static final int OUTPUT_INDEX_OFFSET = 32;
+    protected static final int FLAGS_OFFSET = 36;
+    protected static final int AMOUNT_OFFSET = 40;
+    protected static final int TRANSACTION_OUTPUT_ID_OFFSET = 48;
+    protected static final int BLOCK_ID_OFFSET = 52;
+    protected static final int BLOCK_CHAIN_SEGMENT_ID_OFFSET = 56;
+
+    protected static final int STATE_EMPTY = 0;
+    protected static final int STATE_OCCUPIED = 1;
+    protected static final int STATE_AMBIGUOUS = 2;
+
+    protected static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
+    public static int calculateCapacity(final long maxByteCount) {
+        final long maxEntryCount = Math.min(MAX_CAPACITY, (maxByteCount / ENTRY_BYTE_COUNT));
+        if (maxEntryCount < 1L) { return 0; }
+        return Integer.highestOneBit((int) maxEntryCount);
+    }
+
+    protected static int _mix(final long hashPrefix, final int outputIndex) {
+        // NOTE: Transaction hashes are uniformly distributed, so only a cheap mix of the index is necessary...
+        final long value = (hashPrefix ^ (outputIndex * 0x9E3779B97F4A7C15L));
+        return (int) (value ^ (value >>> 32));
+    }
+
+    protected final ByteBuffer _buffer;
+    protected final int _capacity;
+    protected final int _mask;
+    protected final int _maxItemCount;
+    protected int _itemCount = 0;
+
+    protected int _getState(final int slot) {
+        return (_buffer.getInt((slot * ENTRY_BYTE_COUNT) + FLAGS_OFFSET) & 0xFF);
+    }
+
+    protected int _getHomeSlot(final int slot) {
+        final int offset = (slot * ENTRY_BYTE_COUNT);
+        return (_mix(_buffer.getLong(offset + HASH_OFFSET), _buffer.getInt(offset + OUTPUT_INDEX_OFFSET)) & _mask);
+    }
+
+    protected boolean _isMatch(final int slot, final long[] hashLongs, final int outputIndex) {
+        final int offset = (slot * ENTRY_BYTE_COUNT);
+        if (_buffer.getInt(offset + OUTPUT_INDEX_OFFSET) != outputIndex) { return false; }
+        for (int i = 0; i < hashLongs.length; ++i) {
+            if (_buffer.getLong(offset + HASH_OFFSET + (i * 8)) != hashLongs[i]) { return false; }
+        }
+        return true;
+    }
+
+    protected int _findSlot(final long[] hashLongs, final int outputIndex) {
+        int slot = (_mix(hashLongs[0], outputIndex) & _mask);
+        for (int i = 0; i < _capacity; ++i) {
+            if (_getState(slot) == STATE_EMPTY) { return -1; }
+            if (_isMatch(slot, hashLongs, outputIndex)) { return slot; }
+            slot = ((slot + 1) & _mask);
+        }
+        return -1;
+    }
+
+    protected void _copySlot(final int fromSlot, final int toSlot) {
+        final int fromOffset = (fromSlot * ENTRY_BYTE_COUNT);
+        final int toOffset = (toSlot * ENTRY_BYTE_COUNT);
+        for (int i = 0; i < ENTRY_BYTE_COUNT; i += 8) {
+            _buffer.putLong(toOffset + i, _buffer.getLong(fromOffset + i));
+        }
+    }
+
+    protected void _clearSlot(final int slot) {
+        final int offset = (slot * ENTRY_BYTE_COUNT);
+        for (int i = 0; i < ENTRY_BYTE_COUNT; i += 8) {
+            _buffer.putLong(offset + i, 0L);
+        }
+    }
+
+    public static long[] toHashLongs(final byte[] hashBytes) {
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(hashBytes);
+        final long[] hashLongs = new long[hashBytes.length / 8];
+        for (int i = 0; i < hashLongs.length; ++i) {
+            hashLongs[i] = byteBuffer.getLong(i * 8);
+        }
+        return hashLongs;
+    }
+
+    public UnspentTransactionOutputMap(final int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("UnspentTransactionOutputMap capacity must be a power of two: " + capacity);
+        }
+
+        _capacity = capacity;
+        _mask = (capacity - 1);
+        _maxItemCount = (int) (capacity * 0.75D);
+        _buffer = ByteBuffer.allocateDirect(capacity * ENTRY_BYTE_COUNT);
+    }
+
+    /**
+     * Returns true if the id fits within an entry's unsigned 32-bit id field.
+     */
+    public static boolean isStorableId(final long id) {
+        return ( (id >= 0L) && (id <= UNSIGNED_INT_MASK) );
+    }
+
+    /**
+     * Stores the entry.  Returns false if the map is full, or if any of the ids are not storable, and the entry could not be stored.
+     *  If the key already exists with a different TransactionOutputId (i.e. the same transaction was included within
+     *  multiple blocks), then the entry is marked as ambiguous and will no longer be returned by get().
+     *  An existing key is also marked as ambiguous if the new entry's ids are not storable, since its TransactionOutputId cannot be compared.
+     */
+    public boolean put(final long[] hashLongs, final int outputIndex, final long amount, final long transactionOutputId, final long blockId, final long blockChainSegmentId, final int blockChainSegmentVersion) {
+        final boolean idsAreStorable = ( isStorableId(transactionOutputId) && isStorableId(blockId) && isStorableId(blockChainSegmentId) );
+
+        final int existingSlot = _findSlot(hashLongs, outputIndex);
+        if (existingSlot >= 0) {
+            final int offset = (existingSlot * ENTRY_BYTE_COUNT);
+            if (_getState(existingSlot) == STATE_AMBIGUOUS) { return true; }
+
+            final long existingTransactionOutputId = (_buffer.getInt(offset + TRANSACTION_OUTPUT_ID_OFFSET) & UNSIGNED_INT_MASK);
+            if ( (! idsAreStorable) || (existingTransactionOutputId != transactionOutputId) ) {
+                _buffer.putInt(offset + FLAGS_OFFSET, STATE_AMBIGUOUS);
+                return true;
+            }
+        }
+        else if ( (! idsAreStorable) || (_itemCount >= _maxItemCount) ) {
+            return false;
+        }
+
+        int slot = existingSlot;
+        if (slot < 0) {
+            slot = (_mix(hashLongs[0], outputIndex) & _mask);
+            while (_getState(slot) != STATE_EMPTY) {
+                slot = ((slot + 1) & _mask);
+            }
+            _itemCount += 1;
+        }
+
+        final int offset = (slot * ENTRY_BYTE_COUNT);
+        for (int i = 0; i < hashLongs.length; ++i) {
+            _buffer.putLong(offset + HASH_OFFSET + (i * 8), hashLongs[i]);
+        }
+        _buffer.putInt(offset + OUTPUT_INDEX_OFFSET, outputIndex);
+        _buffer.putInt(offset + FLAGS_OFFSET, ((blockChainSegmentVersion << 8) | STATE_OCCUPIED));
+        _buffer.putLong(offset + AMOUNT_OFFSET, amount);
+        _buffer.putInt(offset + TRANSACTION_OUTPUT_ID_OFFSET, (int) transactionOutputId);
+        _buffer.putInt(offset + BLOCK_ID_OFFSET, (int) blockId);
+        _buffer.putInt(offset + BLOCK_CHAIN_SEGMENT_ID_OFFSET, (int) blockChainSegmentId);
+        return true;
+    }
+
+    /**
+     * Returns the slot of the matching entry, or -1 if the entry does not exist or is ambiguous.
+     */
+    public int get(final long[] hashLongs, final int outputIndex) {
+        final int slot = _findSlot(hashLongs, outputIndex);
+        if (slot < 0) { return -1; }
+        if (_getState(slot) != STATE_OCCUPIED) { return -1; }
+        return slot;
+    }
+
+    /**
+     * Removes the entry if it exists and, when transactionOutputId is not null, only if the entry's TransactionOutputId matches.
+     *  Ambiguous entries are never removed.
+     */
+    public boolean remove(final long[] hashLongs, final int outputIndex, final Long transactionOutputId) {
+        int slot = _findSlot(hashLongs, outputIndex);
+        if (slot < 0) { return false; }
+        if (_getState(slot) != STATE_OCCUPIED) { return false; }
+        if (transactionOutputId != null) {
+            if (getTransactionOutputId(slot) != transactionOutputId) { return false; }
+        }
+
+        // Backward-shift deletion; moves any displaced entries within the probe sequence into the vacated slot...
+        int nextSlot = slot;
+        while (true) {
+            nextSlot = ((nextSlot + 1) & _mask);
+            if (_getState(nextSlot) == STATE_EMPTY) { break; }
+
+            final int homeSlot = _getHomeSlot(nextSlot);
+            final boolean isDisplaced;
+            if (nextSlot > slot) {
+                isDisplaced = ( (homeSlot <= slot) || (homeSlot > nextSlot) );
+            }
+            else {
+                isDisplaced = ( (homeSlot <= slot) && (homeSlot > nextSlot) );
+            }
+
+            if (isDisplaced) {
+                _copySlot(nextSlot, slot);
+                slot = nextSlot;
+            }
+        }
+
+        _clearSlot(slot);
+        _itemCount -= 1;
+        return true;
+    }
+
+    public long getAmount(final int slot) {
+        return _buffer.getLong((slot * ENTRY_BYTE_COUNT) + AMOUNT_OFFSET);
+    }
+
+    public long getTransactionOutputId(final int slot) {
+        return (_buffer.getInt((slot * ENTRY_BYTE_COUNT) + TRANSACTION_OUTPUT_ID_OFFSET) & UNSIGNED_INT_MASK);
+    }
+
+    public long getBlockId(final int slot) {
+        return (_buffer.getInt((slot * ENTRY_BYTE_COUNT) + BLOCK_ID_OFFSET) & UNSIGNED_INT_MASK);
+    }
+
+    public long getBlockChainSegmentId(final int slot) {
+        return (_buffer.getInt((slot * ENTRY_BYTE_COUNT) + BLOCK_CHAIN_SEGMENT_ID_OFFSET) & UNSIGNED_INT_MASK);
+    }
+
+    public int getBlockChainSegmentVersion(final int slot) {
+        return (_buffer.getInt((slot * ENTRY_BYTE_COUNT) + FLAGS_OFFSET) >>> 8);
+    }
+
+    public void clear() {
+        for (int i = 0; i < _capacity; ++i) {
+            _clearSlot(i);
+        }
+        _itemCount = 0;
+    }
+
+    public int getItemCount() {
+        return _itemCount;
+    }
+
+    public int getMaxItemCount() {
+        return _maxItemCount;
+    }
+
+    public int getCapacity() {
+        return _capacity;
+    }
+}
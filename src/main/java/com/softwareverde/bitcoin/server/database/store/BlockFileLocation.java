@@ -0,0 +1,21 @@
+package com.softwareverde.bitcoin.server.database.store;
+
+/**
+ * Identifies the position of a serialized Block within the BlockStore.
+ *  fileOffset is the position of the first byte of the Block (after its record header) within the file.
+ */
+public class BlockFileLocation {
+    protected final Integer _fileIndex;
+    protected final Long _fileOffset;
+    protected final Integer _byteCount;
+
+    public BlockFileLocation(final Integer fileIndex, final Long fileOffset, final Integer byteCount) {
+        _fileIndex = fileIndex;
+        _fileOffset = fileOffset;
+        _byteCount = byteCount;
+    }
+
+    public Integer getFileIndex() { return _fileIndex; }
+    public Long getFileOffset() { return _fileOffset; }
+    public Integer getByteCount() { return _byteCount; }
+}
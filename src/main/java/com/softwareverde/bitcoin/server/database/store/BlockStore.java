@@ -0,0 +1,190 @@
+package com.softwareverde.bitcoin.server.database.store;
+
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.io.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only storage of serialized Blocks, so that Blocks may be served to peers without being re-inflated from the database.
+ *  Blocks are appended to sequentially-numbered files (blk00000.dat, blk00001.dat, ...) within the block directory; a new file
+ *  is started once the current file would exceed MAX_FILE_BYTE_COUNT.  Each Block is preceded by a record header containing
+ *  the network magic-number and the Block's byte count, so that the files may be re-indexed if necessary.
+ *
+ *  The BlockStore does not index the Blocks it stores; the BlockFileLocation returned by BlockStore::storeBlock should be
+ *  recorded via BlockDatabaseManager::setBlockFileLocation.  Bytes written for a Block whose index was never committed are
+ *  never referenced, and are harmless.
+ *
+ *  Reads are thread-safe and may occur concurrently with writes.
+ */
+public class BlockStore {
+    public static final Long MAX_FILE_BYTE_COUNT = (128L * ByteUtil.Unit.MEGABYTES);
+    protected static final Integer RECORD_HEADER_BYTE_COUNT = 8;
+
+    protected static String _getFileName(final Integer fileIndex) {
+        return String.format("blk%05d.dat", fileIndex);
+    }
+
+    protected final File _blockDirectory;
+    protected final Map<Integer, FileChannel> _readChannels = new HashMap<Integer, FileChannel>();
+    protected final byte[] _magicNumber;
+
+    protected Integer _currentFileIndex = null;
+    protected FileChannel _writeChannel = null;
+
+    protected File _getFile(final Integer fileIndex) {
+        return new File(_blockDirectory, _getFileName(fileIndex));
+    }
+
+    protected Integer _findLatestFileIndex() {
+        int fileIndex = 0;
+        while (_getFile(fileIndex + 1).exists()) {
+            fileIndex += 1;
+        }
+        return fileIndex;
+    }
+
+    protected void _openWriteChannel(final Integer fileIndex) throws IOException {
+        if (_writeChannel != null) {
+            _writeChannel.close();
+        }
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(_getFile(fileIndex), "rw");
+        _writeChannel = randomAccessFile.getChannel();
+        _writeChannel.position(_writeChannel.size());
+        _currentFileIndex = fileIndex;
+    }
+
+    protected FileChannel _getReadChannel(final Integer fileIndex) throws IOException {
+        synchronized (_readChannels) {
+            final FileChannel cachedFileChannel = _readChannels.get(fileIndex);
+            if (cachedFileChannel != null) { return cachedFileChannel; }
+
+            final File file = _getFile(fileIndex);
+            if (! file.exists()) { return null; }
+
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            final FileChannel fileChannel = randomAccessFile.getChannel();
+            _readChannels.put(fileIndex, fileChannel);
+            return fileChannel;
+        }
+    }
+
+    protected static void _readFully(final FileChannel fileChannel, final ByteBuffer byteBuffer, final long position) throws IOException {
+        long readPosition = position;
+        while (byteBuffer.hasRemaining()) {
+            final int byteCount = fileChannel.read(byteBuffer, readPosition);
+            if (byteCount < 0) { break; }
+            readPosition += byteCount;
+        }
+    }
+
+    public BlockStore(final String blockDirectory) {
+        _blockDirectory = new File(blockDirectory);
+        _magicNumber = BitcoinProtocolMessage.MAIN_NET_MAGIC_NUMBER.getBytes();
+    }
+
+    /**
+     * Appends the serialized Block to the current block file and returns its location, or null if the write failed.
+     */
+    public synchronized BlockFileLocation storeBlock(final ByteArray blockBytes) {
+        try {
+            if (_writeChannel == null) {
+                if (! _blockDirectory.exists()) {
+                    _blockDirectory.mkdirs();
+                }
+                _openWriteChannel(_findLatestFileIndex());
+            }
+
+            final int byteCount = blockBytes.getByteCount();
+            final long recordByteCount = (RECORD_HEADER_BYTE_COUNT + byteCount);
+            if ( (_writeChannel.position() > 0L) && ((_writeChannel.position() + recordByteCount) > MAX_FILE_BYTE_COUNT) ) {
+                _openWriteChannel(_currentFileIndex + 1);
+            }
+
+            final ByteBuffer byteBuffer = ByteBuffer.allocate((int) recordByteCount);
+            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            byteBuffer.put(_magicNumber);
+            byteBuffer.putInt(byteCount);
+            byteBuffer.put(blockBytes.getBytes());
+            byteBuffer.flip();
+
+            final long recordOffset = _writeChannel.position();
+            while (byteBuffer.hasRemaining()) {
+                _writeChannel.write(byteBuffer);
+            }
+
+            return new BlockFileLocation(_currentFileIndex, (recordOffset + RECORD_HEADER_BYTE_COUNT), byteCount);
+        }
+        catch (final IOException exception) {
+            Logger.log(exception);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the serialized Block stored at blockFileLocation, or null if the Block could not be read.
+     *  The record header is checked against the blockFileLocation so that a partially-written record (i.e. after a crash)
+     *  is not returned.
+     */
+    public ByteArray readBlock(final BlockFileLocation blockFileLocation) {
+        try {
+            final FileChannel fileChannel = _getReadChannel(blockFileLocation.getFileIndex());
+            if (fileChannel == null) { return null; }
+
+            final int byteCount = blockFileLocation.getByteCount();
+            final long recordOffset = (blockFileLocation.getFileOffset() - RECORD_HEADER_BYTE_COUNT);
+            if ( (recordOffset < 0L) || ((recordOffset + RECORD_HEADER_BYTE_COUNT + byteCount) > fileChannel.size()) ) { return null; }
+
+            final ByteBuffer byteBuffer = ByteBuffer.allocate(RECORD_HEADER_BYTE_COUNT + byteCount);
+            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            _readFully(fileChannel, byteBuffer, recordOffset);
+            if (byteBuffer.hasRemaining()) { return null; }
+            byteBuffer.flip();
+
+            for (int i = 0; i < _magicNumber.length; ++i) {
+                if (byteBuffer.get() != _magicNumber[i]) { return null; }
+            }
+            if (byteBuffer.getInt() != byteCount) { return null; }
+
+            final byte[] blockBytes = new byte[byteCount];
+            byteBuffer.get(blockBytes);
+            return MutableByteArray.wrap(blockBytes);
+        }
+        catch (final IOException exception) {
+            Logger.log(exception);
+            return null;
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            try {
+                if (_writeChannel != null) {
+                    _writeChannel.close();
+                    _writeChannel = null;
+                }
+            }
+            catch (final IOException exception) {
+                Logger.log(exception);
+            }
+        }
+
+        synchronized (_readChannels) {
+            for (final FileChannel fileChannel : _readChannels.values()) {
+                try { fileChannel.close(); } catch (final IOException exception) { }
+            }
+            _readChannels.clear();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.softwareverde.bitcoin.server.memorypool;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.io.Logger;
+import com.softwareverde.util.ByteUtil;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory pool of validated, unconfirmed Transactions.
+ *  The MemoryPool does not validate Transactions itself; see TransactionProcessor.
+ *
+ *  Each transaction is linked to the MemoryPool transactions it spends (its parents) and that spend it (its children), and
+ *  each spent output is indexed so that conflicting spends may be detected without scanning the pool.  Transactions are
+ *  also indexed by fee rate, so that a block template of k transactions may be assembled by reading the first k entries.
+ *
+ *  Once the pool exceeds its maximum byte count, the transaction with the lowest fee rate is evicted, along with each of its
+ *  descendants (since they can no longer be mined without it).
+ *
+ *  MemoryPool is thread-safe.
+ */
+public class MemoryPool {
+    public static final Long DEFAULT_MAX_BYTE_COUNT = (64L * ByteUtil.Unit.MEGABYTES);
+
+    protected static final Comparator<MemoryPoolTransaction> FEE_RATE_COMPARATOR = new Comparator<MemoryPoolTransaction>() {
+        @Override
+        public int compare(final MemoryPoolTransaction memoryPoolTransaction0, final MemoryPoolTransaction memoryPoolTransaction1) {
+            final int feeRateComparison = memoryPoolTransaction1._feeRate.compareTo(memoryPoolTransaction0._feeRate); // Highest fee rate first...
+            if (feeRateComparison != 0) { return feeRateComparison; }
+
+            return memoryPoolTransaction0._sequenceNumber.compareTo(memoryPoolTransaction1._sequenceNumber); // Oldest first...
+        }
+    };
+
+    protected static TransactionOutputIdentifier _getSpentOutputIdentifier(final TransactionInput transactionInput) {
+        return new TransactionOutputIdentifier(null, transactionInput.getPreviousOutputTransactionHash(), transactionInput.getPreviousOutputIndex());
+    }
+
+    protected final Long _maxByteCount;
+
+    protected final Map<Sha256Hash, MemoryPoolTransaction> _transactions = new HashMap<Sha256Hash, MemoryPoolTransaction>();
+    protected final Map<TransactionOutputIdentifier, Sha256Hash> _spentOutputs = new HashMap<TransactionOutputIdentifier, Sha256Hash>();
+    protected final TreeSet<MemoryPoolTransaction> _feeRateIndex = new TreeSet<MemoryPoolTransaction>(FEE_RATE_COMPARATOR);
+
+    protected Long _byteCount = 0L;
+    protected Long _nextSequenceNumber = 0L;
+
+    /**
+     * Removes the transaction from the pool, and unlinks it from its parents and children.
+     *  The transaction's children remain within the pool; see _removeTransactionAndDescendants.
+     */
+    protected void _removeTransaction(final MemoryPoolTransaction memoryPoolTransaction) {
+        final Sha256Hash transactionHash = memoryPoolTransaction._hash;
+
+        _transactions.remove(transactionHash);
+        _feeRateIndex.remove(memoryPoolTransaction);
+        _byteCount -= memoryPoolTransaction._byteCount;
+
+        for (final TransactionInput transactionInput : memoryPoolTransaction._transaction.getTransactionInputs()) {
+            _spentOutputs.remove(_getSpentOutputIdentifier(transactionInput));
+        }
+
+        for (final Sha256Hash parentTransactionHash : memoryPoolTransaction._parentTransactionHashes) {
+            final MemoryPoolTransaction parentTransaction = _transactions.get(parentTransactionHash);
+            if (parentTransaction != null) {
+                parentTransaction._childTransactionHashes.remove(transactionHash);
+            }
+        }
+
+        for (final Sha256Hash childTransactionHash : memoryPoolTransaction._childTransactionHashes) {
+            final MemoryPoolTransaction childTransaction = _transactions.get(childTransactionHash);
+            if (childTransaction != null) {
+                childTransaction._parentTransactionHashes.remove(transactionHash);
+            }
+        }
+    }
+
+    protected void _removeTransactionAndDescendants(final MemoryPoolTransaction memoryPoolTransaction) {
+        final Set<Sha256Hash> childTransactionHashes = new HashSet<Sha256Hash>(memoryPoolTransaction._childTransactionHashes);
+        _removeTransaction(memoryPoolTransaction);
+
+        for (final Sha256Hash childTransactionHash : childTransactionHashes) {
+            final MemoryPoolTransaction childTransaction = _transactions.get(childTransactionHash);
+            if (childTransaction != null) {
+                _removeTransactionAndDescendants(childTransaction);
+            }
+        }
+    }
+
+    protected void _evictTransactions() {
+        while (_byteCount > _maxByteCount) {
+            final MemoryPoolTransaction lowestFeeRateTransaction = _feeRateIndex.last();
+            _removeTransactionAndDescendants(lowestFeeRateTransaction);
+        }
+    }
+
+    public MemoryPool() {
+        this(DEFAULT_MAX_BYTE_COUNT);
+    }
+
+    public MemoryPool(final Long maxByteCount) {
+        _maxByteCount = maxByteCount;
+    }
+
+    /**
+     * Adds the validated transaction to the pool.  The fee is the transaction's total input amount less its total output amount.
+     *  Returns false if the transaction is already within the pool, if it spends an output already spent by another
+     *  transaction within the pool, or if its fee rate is too low for it to remain within the full pool.
+     */
+    public synchronized Boolean addTransaction(final Transaction transaction, final Long fee) {
+        final MemoryPoolTransaction memoryPoolTransaction = new MemoryPoolTransaction(transaction, fee, _nextSequenceNumber);
+        final Sha256Hash transactionHash = memoryPoolTransaction._hash;
+
+        if (_transactions.containsKey(transactionHash)) { return false; }
+
+        final List<TransactionInput> transactionInputs = memoryPoolTransaction._transaction.getTransactionInputs();
+        for (final TransactionInput transactionInput : transactionInputs) {
+            if (_spentOutputs.containsKey(_getSpentOutputIdentifier(transactionInput))) { return false; }
+        }
+
+        _nextSequenceNumber += 1L;
+
+        for (final TransactionInput transactionInput : transactionInputs) {
+            _spentOutputs.put(_getSpentOutputIdentifier(transactionInput), transactionHash);
+
+            final Sha256Hash previousTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+            final MemoryPoolTransaction parentTransaction = _transactions.get(previousTransactionHash);
+            if (parentTransaction != null) {
+                memoryPoolTransaction._parentTransactionHashes.add(previousTransactionHash);
+                parentTransaction._childTransactionHashes.add(transactionHash);
+            }
+        }
+
+        { // Link the transactions already within the pool that spend this transaction (i.e. when a transaction from a disconnected block is restored)...
+            final Integer outputCount = memoryPoolTransaction._transaction.getTransactionOutputs().getSize();
+            for (int outputIndex = 0; outputIndex < outputCount; ++outputIndex) {
+                final Sha256Hash childTransactionHash = _spentOutputs.get(new TransactionOutputIdentifier(null, transactionHash, outputIndex));
+                if (childTransactionHash == null) { continue; }
+
+                final MemoryPoolTransaction childTransaction = _transactions.get(childTransactionHash);
+                if (childTransaction != null) {
+                    childTransaction._parentTransactionHashes.add(transactionHash);
+                    memoryPoolTransaction._childTransactionHashes.add(childTransactionHash);
+                }
+            }
+        }
+
+        _transactions.put(transactionHash, memoryPoolTransaction);
+        _feeRateIndex.add(memoryPoolTransaction);
+        _byteCount += memoryPoolTransaction._byteCount;
+
+        _evictTransactions();
+
+        return _transactions.containsKey(transactionHash);
+    }
+
+    /**
+     * Removes the block's transactions from the pool, since they are now confirmed.
+     *  Transactions within the pool that spend an output also spent by the block are no longer valid, and are removed
+     *  along with their descendants.
+     */
+    public synchronized void removeConfirmedTransactions(final Block block) {
+        Integer removedTransactionCount = 0;
+
+        for (final Transaction transaction : block.getTransactions()) {
+            final MemoryPoolTransaction memoryPoolTransaction = _transactions.get(transaction.getHash());
+            if (memoryPoolTransaction != null) {
+                _removeTransaction(memoryPoolTransaction);
+                removedTransactionCount += 1;
+            }
+        }
+
+        for (final Transaction transaction : block.getTransactions()) {
+            for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+                final Sha256Hash conflictingTransactionHash = _spentOutputs.get(_getSpentOutputIdentifier(transactionInput));
+                if (conflictingTransactionHash == null) { continue; }
+
+                final MemoryPoolTransaction conflictingTransaction = _transactions.get(conflictingTransactionHash);
+                if (conflictingTransaction != null) {
+                    Logger.log("NOTICE: Removing MemoryPool transaction " + conflictingTransactionHash + " double-spent by block " + block.getHash() + ".");
+                    _removeTransactionAndDescendants(conflictingTransaction);
+                }
+            }
+        }
+
+        if (removedTransactionCount > 0) {
+            Logger.log("Removed " + removedTransactionCount + " confirmed transactions from the MemoryPool.");
+        }
+    }
+
+    /**
+     * Removes the transactions within the pool that spend the outputs of the transaction, along with their descendants.
+     *  Used when a transaction from a disconnected block is no longer valid, since the pool transactions that spent it
+     *  can no longer be mined.
+     */
+    public synchronized void removeSpendingTransactions(final Transaction transaction) {
+        final Sha256Hash transactionHash = transaction.getHash();
+        final Integer outputCount = transaction.getTransactionOutputs().getSize();
+        for (int outputIndex = 0; outputIndex < outputCount; ++outputIndex) {
+            final Sha256Hash spendingTransactionHash = _spentOutputs.get(new TransactionOutputIdentifier(null, transactionHash, outputIndex));
+            if (spendingTransactionHash == null) { continue; }
+
+            final MemoryPoolTransaction spendingTransaction = _transactions.get(spendingTransactionHash);
+            if (spendingTransaction != null) {
+                Logger.log("NOTICE: Removing MemoryPool transaction " + spendingTransactionHash + " that spends invalidated transaction " + transactionHash + ".");
+                _removeTransactionAndDescendants(spendingTransaction);
+            }
+        }
+    }
+
+    public synchronized Boolean containsTransaction(final Sha256Hash transactionHash) {
+        return _transactions.containsKey(transactionHash);
+    }
+
+    public synchronized MemoryPoolTransaction getTransaction(final Sha256Hash transactionHash) {
+        return _transactions.get(transactionHash);
+    }
+
+    /**
+     * Returns the output of a transaction within the pool, or null if the transaction is not within the pool.
+     */
+    public synchronized TransactionOutput getTransactionOutput(final Sha256Hash transactionHash, final Integer outputIndex) {
+        final MemoryPoolTransaction memoryPoolTransaction = _transactions.get(transactionHash);
+        if (memoryPoolTransaction == null) { return null; }
+
+        final List<TransactionOutput> transactionOutputs = memoryPoolTransaction._transaction.getTransactionOutputs();
+        if ( (outputIndex < 0) || (outputIndex >= transactionOutputs.getSize()) ) { return null; }
+
+        return transactionOutputs.get(outputIndex);
+    }
+
+    /**
+     * Returns the hash of the transaction within the pool that spends the output, or null if the output is not spent by the pool.
+     */
+    public synchronized Sha256Hash getSpendingTransactionHash(final Sha256Hash transactionHash, final Integer outputIndex) {
+        return _spentOutputs.get(new TransactionOutputIdentifier(null, transactionHash, outputIndex));
+    }
+
+    /**
+     * Returns the pool's transactions in descending fee-rate order, totaling at most maxByteCount bytes.
+     *  A transaction is only included after each of its MemoryPool parents has been included, so the returned order is a
+     *  valid order for the transactions within a block.  A transaction whose parents have not yet been included is deferred
+     *  until its last parent is included; transactions whose parents are never included (because they did not fit) are skipped.
+     */
+    public synchronized List<MemoryPoolTransaction> getTransactionsByFeeRate(final Long maxByteCount) {
+        final MutableList<MemoryPoolTransaction> transactions = new MutableList<MemoryPoolTransaction>();
+        final Set<Sha256Hash> includedTransactionHashes = new HashSet<Sha256Hash>();
+        final Map<Sha256Hash, java.util.List<MemoryPoolTransaction>> deferredTransactions = new HashMap<Sha256Hash, java.util.List<MemoryPoolTransaction>>();
+
+        long byteCount = 0L;
+        for (final MemoryPoolTransaction feeRateTransaction : _feeRateIndex) {
+            final LinkedList<MemoryPoolTransaction> candidates = new LinkedList<MemoryPoolTransaction>();
+            candidates.add(feeRateTransaction);
+
+            while (! candidates.isEmpty()) {
+                final MemoryPoolTransaction memoryPoolTransaction = candidates.removeFirst();
+                if (includedTransactionHashes.contains(memoryPoolTransaction._hash)) { continue; }
+                if ((byteCount + memoryPoolTransaction._byteCount) > maxByteCount) { continue; }
+
+                boolean parentsAreIncluded = true;
+                for (final Sha256Hash parentTransactionHash : memoryPoolTransaction._parentTransactionHashes) {
+                    if (includedTransactionHashes.contains(parentTransactionHash)) { continue; }
+
+                    parentsAreIncluded = false;
+                    if (! deferredTransactions.containsKey(parentTransactionHash)) {
+                        deferredTransactions.put(parentTransactionHash, new ArrayList<MemoryPoolTransaction>());
+                    }
+                    deferredTransactions.get(parentTransactionHash).add(memoryPoolTransaction);
+                }
+                if (! parentsAreIncluded) { continue; }
+
+                transactions.add(memoryPoolTransaction);
+                includedTransactionHashes.add(memoryPoolTransaction._hash);
+                byteCount += memoryPoolTransaction._byteCount;
+
+                final java.util.List<MemoryPoolTransaction> deferredChildren = deferredTransactions.remove(memoryPoolTransaction._hash);
+                if (deferredChildren != null) {
+                    candidates.addAll(deferredChildren);
+                }
+            }
+        }
+
+        return transactions;
+    }
+
+    public synchronized List<Sha256Hash> getTransactionHashes() {
+        final MutableList<Sha256Hash> transactionHashes = new MutableList<Sha256Hash>(_transactions.size());
+        for (final MemoryPoolTransaction memoryPoolTransaction : _feeRateIndex) {
+            transactionHashes.add(memoryPoolTransaction._hash);
+        }
+        return transactionHashes;
+    }
+
+    public synchronized Integer getTransactionCount() {
+        return _transactions.size();
+    }
+
+    public synchronized Long getByteCount() {
+        return _byteCount;
+    }
+
+    public Long getMaxByteCount() {
+        return _maxByteCount;
+    }
+}
@@ -0,0 +1,48 @@
+package com.softwareverde.bitcoin.server.memorypool;
+
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A Transaction accepted into the MemoryPool, along with its fee and its dependencies on other MemoryPool transactions.
+ *  The fee rate is expressed in satoshis per kilobyte, so that it may be compared without overflowing.
+ */
+public class MemoryPoolTransaction {
+    protected final Transaction _transaction;
+    protected final Sha256Hash _hash;
+    protected final Long _fee;
+    protected final Integer _byteCount;
+    protected final Long _feeRate;
+    protected final Long _sequenceNumber;
+
+    protected final Set<Sha256Hash> _parentTransactionHashes = new HashSet<Sha256Hash>();
+    protected final Set<Sha256Hash> _childTransactionHashes = new HashSet<Sha256Hash>();
+
+    protected MemoryPoolTransaction(final Transaction transaction, final Long fee, final Long sequenceNumber) {
+        _transaction = transaction.asConst();
+        _hash = _transaction.getHash();
+        _fee = fee;
+        _byteCount = _transaction.getByteCount();
+        _feeRate = ((fee * 1000L) / Math.max(1, _byteCount));
+        _sequenceNumber = sequenceNumber;
+    }
+
+    public Transaction getTransaction() { return _transaction; }
+    public Sha256Hash getHash() { return _hash; }
+    public Long getFee() { return _fee; }
+    public Integer getByteCount() { return _byteCount; }
+
+    /**
+     * Returns the transaction's fee, in satoshis per 1000 bytes.
+     */
+    public Long getFeeRate() { return _feeRate; }
+
+    /**
+     * Returns true if the transaction spends the output of another transaction within the MemoryPool.
+     *  Such a transaction may only be mined within (or after) the block that mines its parents.
+     */
+    public Boolean hasUnconfirmedParents() { return (! _parentTransactionHashes.isEmpty()); }
+}
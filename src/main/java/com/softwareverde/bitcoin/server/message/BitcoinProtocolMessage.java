@@ -26,11 +26,11 @@ public abstract class BitcoinProtocolMessage implements ProtocolMessage {
     protected static final Integer CHECKSUM_BYTE_COUNT = 4;
 
     public static ByteArray calculateChecksum(final ByteArray payload) {
-        final ByteArray fullChecksum = BitcoinUtil.sha256(BitcoinUtil.sha256(payload));
+        final byte[] fullChecksum = BitcoinUtil.doubleSha256(payload.getBytes());
         final MutableByteArray checksum = new MutableByteArray(4);
 
         for (int i = 0; i< CHECKSUM_BYTE_COUNT; ++i) {
-            checksum.set(i, fullChecksum.getByte(i));
+            checksum.set(i, fullChecksum[i]);
         }
 
         return checksum;
@@ -9,16 +9,20 @@ import com.softwareverde.bitcoin.server.message.type.node.feature.NewBlocksViaHe
 import com.softwareverde.bitcoin.server.message.type.node.ping.BitcoinPingMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.node.pong.BitcoinPongMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.query.block.QueryBlocksMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.query.mempool.QueryMemoryPoolMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.query.response.QueryResponseMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.BlockMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.header.BlockHeadersMessageInflater;
+import com.softwareverde.bitcoin.server.message.type.query.response.transaction.TransactionMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.request.RequestDataMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.request.header.RequestBlockHeadersMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.version.acknowledge.BitcoinAcknowledgeVersionMessageInflater;
 import com.softwareverde.bitcoin.server.message.type.version.synchronize.BitcoinSynchronizeVersionMessageInflater;
 import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.io.Logger;
+import com.softwareverde.network.p2p.message.IncrementalProtocolMessageInflater;
 import com.softwareverde.network.p2p.message.ProtocolMessageFactory;
+import com.softwareverde.network.p2p.message.ProtocolMessageHeader;
 import com.softwareverde.util.HexUtil;
 
 import java.util.HashMap;
@@ -42,6 +46,8 @@ public class BitcoinProtocolMessageFactory implements ProtocolMessageFactory {
         _commandInflaterMap.put(MessageType.BLOCK, new BlockMessageInflater());
         _commandInflaterMap.put(MessageType.ENABLE_NEW_BLOCKS_VIA_HEADERS, new NewBlocksViaHeadersMessageInflater());
         _commandInflaterMap.put(MessageType.REQUEST_DATA, new RequestDataMessageInflater());
+        _commandInflaterMap.put(MessageType.TRANSACTION, new TransactionMessageInflater());
+        _commandInflaterMap.put(MessageType.QUERY_MEMORY_POOL, new QueryMemoryPoolMessageInflater());
     }
 
     @Override
@@ -57,4 +63,14 @@ public class BitcoinProtocolMessageFactory implements ProtocolMessageFactory {
 
         return protocolMessageInflater.fromBytes(bytes);
     }
+
+    @Override
+    public IncrementalProtocolMessageInflater createIncrementalInflater(final ProtocolMessageHeader protocolMessageHeader) {
+        final BitcoinProtocolMessageHeader bitcoinProtocolMessageHeader = (BitcoinProtocolMessageHeader) protocolMessageHeader;
+
+        final BitcoinProtocolMessageInflater protocolMessageInflater = _commandInflaterMap.get(bitcoinProtocolMessageHeader.command);
+        if (protocolMessageInflater == null) { return null; }
+
+        return protocolMessageInflater.createIncrementalInflater(bitcoinProtocolMessageHeader);
+    }
 }
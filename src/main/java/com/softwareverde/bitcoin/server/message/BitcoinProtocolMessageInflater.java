@@ -7,12 +7,21 @@ import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.io.Logger;
+import com.softwareverde.network.p2p.message.IncrementalProtocolMessageInflater;
 import com.softwareverde.util.bytearray.ByteArrayReader;
 import com.softwareverde.util.bytearray.Endian;
 
 public abstract class BitcoinProtocolMessageInflater {
     public abstract BitcoinProtocolMessage fromBytes(byte[] bytes);
 
+    /**
+     * Returns an IncrementalProtocolMessageInflater for a packet of this inflater's message type, or null if the message
+     *  can only be inflated once its packet has been fully received (the default).
+     */
+    public IncrementalProtocolMessageInflater createIncrementalInflater(final BitcoinProtocolMessageHeader protocolMessageHeader) {
+        return null;
+    }
+
     protected BitcoinProtocolMessageHeader _parseHeader(final ByteArrayReader byteArrayReader, final MessageType command) {
         final BitcoinProtocolMessageHeaderInflater protocolMessageHeaderParser = new BitcoinProtocolMessageHeaderInflater();
         final BitcoinProtocolMessageHeader protocolMessageHeader = protocolMessageHeaderParser.fromBytes(byteArrayReader);
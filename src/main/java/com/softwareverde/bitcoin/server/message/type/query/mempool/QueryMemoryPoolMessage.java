@@ -0,0 +1,20 @@
+package com.softwareverde.bitcoin.server.message.type.query.mempool;
+
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+
+public class QueryMemoryPoolMessage extends BitcoinProtocolMessage {
+
+    public QueryMemoryPoolMessage() {
+        super(MessageType.QUERY_MEMORY_POOL);
+    }
+
+    @Override
+    protected ByteArray _getPayload() {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        return MutableByteArray.wrap(byteArrayBuilder.build());
+    }
+}
@@ -0,0 +1,22 @@
+package com.softwareverde.bitcoin.server.message.type.query.mempool;
+
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.util.bytearray.ByteArrayReader;
+
+public class QueryMemoryPoolMessageInflater extends BitcoinProtocolMessageInflater {
+
+    @Override
+    public QueryMemoryPoolMessage fromBytes(final byte[] bytes) {
+        final QueryMemoryPoolMessage queryMemoryPoolMessage = new QueryMemoryPoolMessage();
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final BitcoinProtocolMessageHeader protocolMessageHeader = _parseHeader(byteArrayReader, MessageType.QUERY_MEMORY_POOL);
+        if (protocolMessageHeader == null) { return null; }
+
+        if (byteArrayReader.didOverflow()) { return null; }
+
+        return queryMemoryPoolMessage;
+    }
+}
@@ -9,6 +9,7 @@ import com.softwareverde.constable.bytearray.ByteArray;
 public class BlockMessage extends BitcoinProtocolMessage {
 
     protected Block _block;
+    protected ByteArray _blockBytes;
 
     public BlockMessage() {
         super(MessageType.BLOCK);
@@ -20,10 +21,23 @@ public class BlockMessage extends BitcoinProtocolMessage {
 
     public void setBlock(final Block block) {
         _block = block;
+        _blockBytes = null;
+    }
+
+    /**
+     * Sets the message's payload to the already-serialized Block, so that the Block does not need to be inflated to be sent.
+     */
+    public void setBlockBytes(final ByteArray blockBytes) {
+        _blockBytes = blockBytes;
+        _block = null;
     }
 
     @Override
     protected ByteArray _getPayload() {
+        if (_blockBytes != null) {
+            return _blockBytes;
+        }
+
         final BlockDeflater blockDeflater = new BlockDeflater();
         return blockDeflater.toBytes(_block);
     }
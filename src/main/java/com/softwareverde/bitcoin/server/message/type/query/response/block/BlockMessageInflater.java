@@ -5,6 +5,7 @@ import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
 import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
 import com.softwareverde.bitcoin.server.message.type.MessageType;
 import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
+import com.softwareverde.network.p2p.message.IncrementalProtocolMessageInflater;
 
 public class BlockMessageInflater extends BitcoinProtocolMessageInflater {
     @Override
@@ -20,4 +21,9 @@ public class BlockMessageInflater extends BitcoinProtocolMessageInflater {
 
         return blockMessage;
     }
+
+    @Override
+    public IncrementalProtocolMessageInflater createIncrementalInflater(final BitcoinProtocolMessageHeader protocolMessageHeader) {
+        return new StreamingBlockMessageInflater(protocolMessageHeader);
+    }
 }
@@ -0,0 +1,65 @@
+package com.softwareverde.bitcoin.server.message.type.query.response.block;
+
+import com.softwareverde.bitcoin.block.StreamingBlockInflater;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeaderInflater;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.io.Logger;
+import com.softwareverde.network.p2p.message.IncrementalProtocolMessageInflater;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Inflates a BlockMessage while its packet is being received.
+ *  The block is inflated by a StreamingBlockInflater, and the payload's checksum is calculated incrementally, so neither
+ *  requires another pass over (or a copy of) the payload once the packet has been fully received.
+ */
+public class StreamingBlockMessageInflater implements IncrementalProtocolMessageInflater {
+    protected final BitcoinProtocolMessageHeader _protocolMessageHeader;
+    protected final StreamingBlockInflater _streamingBlockInflater;
+    protected final MessageDigest _payloadMessageDigest;
+    protected int _digestedByteCount;
+
+    public StreamingBlockMessageInflater(final BitcoinProtocolMessageHeader protocolMessageHeader) {
+        final int headerByteCount = BitcoinProtocolMessageHeaderInflater.HEADER_BYTE_COUNT;
+
+        _protocolMessageHeader = protocolMessageHeader;
+        _streamingBlockInflater = new StreamingBlockInflater(headerByteCount, protocolMessageHeader.payloadByteCount);
+        _digestedByteCount = headerByteCount;
+
+        try {
+            _payloadMessageDigest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    public Boolean onBytesReceived(final byte[] packet, final Integer receivedByteCount) {
+        if (receivedByteCount > _digestedByteCount) {
+            _payloadMessageDigest.update(packet, _digestedByteCount, (receivedByteCount - _digestedByteCount));
+            _digestedByteCount = receivedByteCount;
+        }
+
+        return _streamingBlockInflater.onBytesReceived(packet, receivedByteCount);
+    }
+
+    @Override
+    public BlockMessage getMessage() {
+        { // Validate Checksum
+            final byte[] calculatedChecksum = BitcoinUtil.sha256(_payloadMessageDigest.digest());
+            for (int i = 0; i < _protocolMessageHeader.payloadChecksum.length; ++i) {
+                if (calculatedChecksum[i] != _protocolMessageHeader.payloadChecksum[i]) {
+                    Logger.log("ProtocolMessage: Bad message checksum.");
+                    return null;
+                }
+            }
+        }
+
+        final BlockMessage blockMessage = new BlockMessage();
+        blockMessage._block = _streamingBlockInflater.getBlock(); // null if the block was invalid, as with BlockMessageInflater::fromBytes...
+        return blockMessage;
+    }
+}
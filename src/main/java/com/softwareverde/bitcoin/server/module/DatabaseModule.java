@@ -46,7 +46,10 @@ public class DatabaseModule {
             try {
                 final DatabaseInitializer databaseInitializer = new DatabaseInitializer("queries/init.sql", Constants.DATABASE_VERSION, new DatabaseInitializer.DatabaseUpgradeHandler() {
                     @Override
-                    public Boolean onUpgrade(final int currentVersion, final int requiredVersion) { return false; }
+                    public Boolean onUpgrade(final int currentVersion, final int requiredVersion) {
+                        Logger.log("Database v" + currentVersion + " must be upgraded to v" + requiredVersion + ".  Run the MIGRATION module before continuing.");
+                        return false;
+                    }
                 });
 
                 final DatabaseCommandLineArguments commandLineArguments = new DatabaseCommandLineArguments();
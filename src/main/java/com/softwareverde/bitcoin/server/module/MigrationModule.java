@@ -0,0 +1,186 @@
+package com.softwareverde.bitcoin.server.module;
+
+import com.softwareverde.bitcoin.address.AddressDatabaseManager;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.server.Configuration;
+import com.softwareverde.bitcoin.server.Constants;
+import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.Query;
+import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.database.mysql.embedded.DatabaseCommandLineArguments;
+import com.softwareverde.database.mysql.embedded.DatabaseInitializer;
+import com.softwareverde.database.mysql.embedded.EmbeddedMysqlDatabase;
+import com.softwareverde.database.mysql.embedded.properties.DatabaseProperties;
+import com.softwareverde.database.util.TransactionUtil;
+import com.softwareverde.io.Logger;
+import com.softwareverde.util.Container;
+import com.softwareverde.util.IoUtil;
+import com.softwareverde.util.Util;
+
+import java.io.File;
+
+/**
+ * Upgrades an existing data directory to the current database version.
+ *  Each version's migration is stored as queries/migrations/v<version>.sql, and is applied in order.
+ *  The migration is a one-time operation and should be run while the node is not running.
+ */
+public class MigrationModule {
+    protected static final Long ADDRESS_INDEX_BATCH_BLOCK_COUNT = 100L;
+
+    protected final Configuration _configuration;
+
+    protected void _printError(final String errorMessage) {
+        System.err.println(errorMessage);
+    }
+
+    protected Configuration _loadConfigurationFile(final String configurationFilename) {
+        final File configurationFile =  new File(configurationFilename);
+        if (! configurationFile.isFile()) {
+            _printError("Invalid configuration file.");
+            BitcoinUtil.exitFailure();
+        }
+
+        return new Configuration(configurationFile);
+    }
+
+    protected void _executeMigration(final MysqlDatabaseConnection databaseConnection, final Integer version) throws DatabaseException {
+        final String migrationSql = IoUtil.getResource("/queries/migrations/v" + version + ".sql");
+        if (migrationSql == null) {
+            throw new DatabaseException("Unable to find migration for database version: " + version);
+        }
+
+        for (final String statement : migrationSql.split(";")) {
+            final String trimmedStatement = statement.trim();
+            if (trimmedStatement.isEmpty()) { continue; }
+
+            Logger.log("[Migration v" + version + "] " + trimmedStatement);
+            databaseConnection.executeSql(new Query(trimmedStatement));
+        }
+    }
+
+    /**
+     * Moves the address index to the head block, committing after every ADDRESS_INDEX_BATCH_BLOCK_COUNT blocks so that the
+     *  undo log of each transaction stays small.  Since the address index's head is persisted with each batch, an interrupted
+     *  backfill resumes from the last committed batch the next time the MigrationModule is run.
+     */
+    protected void _backfillAddressIndex(final MysqlDatabaseConnection databaseConnection) throws DatabaseException {
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+        final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+
+        final BlockId headBlockId = blockDatabaseManager.getHeadBlockId();
+        if (headBlockId == null) { return; }
+
+        final Long headBlockHeight = blockDatabaseManager.getBlockHeightForBlockId(headBlockId);
+        final BlockChainSegmentId headBlockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(headBlockId);
+
+        while (true) {
+            final BlockId addressIndexHeadBlockId = addressDatabaseManager.getAddressIndexHeadBlockId();
+            if (Util.areEqual(headBlockId, addressIndexHeadBlockId)) { break; }
+
+            final Long addressIndexHeadBlockHeight = (addressIndexHeadBlockId != null ? blockDatabaseManager.getBlockHeightForBlockId(addressIndexHeadBlockId) : -1L);
+            final Long nextBlockHeight = Math.min((addressIndexHeadBlockHeight + ADDRESS_INDEX_BATCH_BLOCK_COUNT), headBlockHeight);
+
+            final BlockId nextBlockId;
+            if (nextBlockHeight < headBlockHeight) {
+                final BlockHeader blockHeader = blockDatabaseManager.findBlockAtBlockHeight(headBlockChainSegmentId, nextBlockHeight);
+                if (blockHeader == null) {
+                    throw new DatabaseException("Unable to find head chain block at height: " + nextBlockHeight);
+                }
+                nextBlockId = blockDatabaseManager.getBlockIdFromHash(blockHeader.getHash());
+            }
+            else {
+                nextBlockId = headBlockId;
+            }
+
+            Logger.log("[Address Index] Indexing addresses through block " + nextBlockHeight + " of " + headBlockHeight + ".");
+
+            TransactionUtil.startTransaction(databaseConnection);
+            addressDatabaseManager.updateAddressIndex(nextBlockId);
+            TransactionUtil.commitTransaction(databaseConnection);
+        }
+    }
+
+    /**
+     * Populates any data that a migration's schema cannot derive by itself; invoked after the version's migration has been applied.
+     */
+    protected void _executePostMigration(final MysqlDatabaseConnection databaseConnection, final Integer version) throws DatabaseException {
+        if (version == 4) { // Backfill the address index with the head block chain...
+            _backfillAddressIndex(databaseConnection);
+        }
+    }
+
+    public MigrationModule(final String configurationFilename) {
+        _configuration = _loadConfigurationFile(configurationFilename);
+    }
+
+    public void run() {
+        final Configuration.ServerProperties serverProperties = _configuration.getServerProperties();
+        final DatabaseProperties databaseProperties = _configuration.getDatabaseProperties();
+
+        final Container<Integer> previousDatabaseVersion = new Container<Integer>(Constants.DATABASE_VERSION);
+
+        Logger.log("[Starting Database]");
+        final EmbeddedMysqlDatabase database;
+        {
+            EmbeddedMysqlDatabase databaseInstance = null;
+            try {
+                final DatabaseInitializer databaseInitializer = new DatabaseInitializer("queries/init.sql", Constants.DATABASE_VERSION, new DatabaseInitializer.DatabaseUpgradeHandler() {
+                    @Override
+                    public Boolean onUpgrade(final int currentVersion, final int requiredVersion) {
+                        previousDatabaseVersion.value = currentVersion; // The migrations are applied once the database is online...
+                        return true;
+                    }
+                });
+
+                final DatabaseCommandLineArguments commandLineArguments = new DatabaseCommandLineArguments();
+                {
+                    commandLineArguments.setInnoDbBufferPoolByteCount(serverProperties.getMaxMemoryByteCount());
+                    commandLineArguments.setInnoDbBufferPoolInstanceCount(1);
+                    commandLineArguments.setInnoDbLogFileByteCount(64 * ByteUtil.Unit.MEGABYTES);
+                    commandLineArguments.setInnoDbLogBufferByteCount(8 * ByteUtil.Unit.MEGABYTES);
+                    commandLineArguments.setQueryCacheByteCount(0L);
+                }
+
+                databaseInstance = new EmbeddedMysqlDatabase(databaseProperties, databaseInitializer, commandLineArguments);
+            }
+            catch (final DatabaseException exception) {
+                Logger.log(exception);
+                BitcoinUtil.exitFailure();
+            }
+            database = databaseInstance;
+            Logger.log("[Database Online]");
+        }
+
+        try (final MysqlDatabaseConnection databaseConnection = database.getDatabaseConnectionFactory().newConnection()) {
+            if (previousDatabaseVersion.value >= Constants.DATABASE_VERSION) {
+                Logger.log("[Database v" + Constants.DATABASE_VERSION + " is up to date]");
+
+                // The version is recorded by the migration's schema, before its backfill completes; resume an interrupted backfill...
+                _backfillAddressIndex(databaseConnection);
+                return;
+            }
+
+            for (int version = (previousDatabaseVersion.value + 1); version <= Constants.DATABASE_VERSION; ++version) {
+                Logger.log("[Migrating Database to v" + version + "]");
+                _executeMigration(databaseConnection, version);
+                _executePostMigration(databaseConnection, version);
+            }
+        }
+        catch (final DatabaseException exception) {
+            Logger.log(exception);
+            BitcoinUtil.exitFailure();
+        }
+
+        Logger.log("[Migration Complete]");
+    }
+
+    public static void execute(final String configurationFileName) {
+        final MigrationModule migrationModule = new MigrationModule(configurationFileName);
+        migrationModule.run();
+    }
+}
@@ -1,52 +1,67 @@
 package com.softwareverde.bitcoin.server.module;
 
+import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bitcoin.address.AddressInflater;
 import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockDeflater;
-import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.BlockHeaderDeflater;
+import com.softwareverde.bitcoin.block.header.ImmutableBlockHeader;
 import com.softwareverde.bitcoin.server.Configuration;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.server.module.node.BlockProcessor;
 import com.softwareverde.bitcoin.server.stratum.StratumMineBlockTask;
+import com.softwareverde.bitcoin.server.stratum.StratumMineBlockTaskBuilder;
 import com.softwareverde.bitcoin.server.stratum.message.RequestMessage;
 import com.softwareverde.bitcoin.server.stratum.message.ResponseMessage;
 import com.softwareverde.bitcoin.server.stratum.message.server.MinerSubmitBlockResult;
 import com.softwareverde.bitcoin.server.stratum.socket.StratumServerSocket;
-import com.softwareverde.bitcoin.transaction.MutableTransaction;
-import com.softwareverde.bitcoin.transaction.Transaction;
-import com.softwareverde.bitcoin.transaction.input.TransactionInput;
-import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
-import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
-import com.softwareverde.database.mysql.embedded.properties.DatabaseProperties;
+import com.softwareverde.database.mysql.MysqlDatabaseConnectionFactory;
 import com.softwareverde.io.Logger;
 import com.softwareverde.json.Json;
 import com.softwareverde.socket.SocketConnection;
 import com.softwareverde.util.ByteUtil;
 import com.softwareverde.util.HexUtil;
-import com.softwareverde.util.StringUtil;
-
-import java.io.File;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves block templates built from the node's head block and MemoryPool to stratum miners.
+ *  The StratumModule is hosted by the NodeModule; when the node accepts a new head block, a new template is built and pushed
+ *  (via mining.notify) to every authorized miner, and previous templates are abandoned.  Between head blocks, the template
+ *  is rebuilt every TEMPLATE_REFRESH_INTERVAL_MS so that it includes the MemoryPool's newest transactions.
+ *
+ *  Blocks mined by the pool's miners are submitted to the node's BlockProcessor.
+ */
 public class StratumModule {
+    public static final Long TEMPLATE_REFRESH_INTERVAL_MS = 30000L;
+
+    protected static final Integer EXTRA_NONCE_BYTE_COUNT = 4;
+    protected static final Integer EXTRA_NONCE_2_BYTE_COUNT = 4;
 
-    protected final Configuration _configuration;
     protected final StratumServerSocket _stratumServerSocket;
+    protected final StratumMineBlockTaskBuilder _stratumMineBlockTaskBuilder;
+    protected final BlockProcessor _blockProcessor;
+    protected final ByteArray _extraNonce;
 
-    protected void _printError(final String errorMessage) {
-        System.err.println(errorMessage);
-    }
+    protected final java.util.List<SocketConnection> _authorizedConnections = new ArrayList<SocketConnection>();
 
-    protected Configuration _loadConfigurationFile(final String configurationFilename) {
-        final File configurationFile =  new File(configurationFilename);
-        if (! configurationFile.isFile()) {
-            _printError("Invalid configuration file.");
-            BitcoinUtil.exitFailure();
-        }
+    protected final Object _mineBlockTaskMutex = new Object();
+    protected final Map<String, StratumMineBlockTask> _mineBlockTasks = new HashMap<String, StratumMineBlockTask>(); // The tasks (by job id) that extend the current head block...
+    protected String _mineBlockTaskRequest = null;
 
-        return new Configuration(configurationFile);
-    }
+    protected final ConcurrentLinkedQueue<BlockHeader> _newHeadBlockHeaders = new ConcurrentLinkedQueue<BlockHeader>();
+    protected final Object _templateThreadMutex = new Object();
+    protected final Thread _templateThread;
+    protected volatile Boolean _shouldContinue = true;
+    protected Boolean _hasNewHeadBlock = true;
 
     protected ByteArray _createRandomBytes(final int byteCount) {
         int i=0;
@@ -62,47 +77,161 @@ public class StratumModule {
         return mutableByteArray;
     }
 
-    public StratumModule(final String configurationFilename) {
-        _configuration = _loadConfigurationFile(configurationFilename);
+    /**
+     * Builds a new task and pushes it to every authorized miner.
+     *  If the task extends a new head block, the miners are instructed to abandon their previous tasks.
+     */
+    protected void _updateMineBlockTask(final Boolean isNewHeadBlock) {
+        while (true) {
+            final BlockHeader blockHeader = _newHeadBlockHeaders.poll();
+            if (blockHeader == null) { break; }
 
-        final Configuration.ServerProperties serverProperties = _configuration.getServerProperties();
-        final DatabaseProperties databaseProperties = _configuration.getDatabaseProperties();
+            _stratumMineBlockTaskBuilder.onNewHeadBlock(blockHeader);
+        }
 
-        final StratumMineBlockTask stratumMineBlockTask = new StratumMineBlockTask();
+        final StratumMineBlockTask stratumMineBlockTask = _stratumMineBlockTaskBuilder.buildMineBlockTask();
+        if (stratumMineBlockTask == null) { return; }
 
-        // final PrivateKey privateKey = PrivateKey.createNewKey();
-        final Integer extraNonceByteCount = 4;
-        final Integer extraNonce2ByteCount = 4;
+        final Long timestamp;
+        {
+            final Long currentTimestamp = (System.currentTimeMillis() / 1000L);
+            final Long minimumTimestamp = _stratumMineBlockTaskBuilder.getMinimumTimestamp();
+            timestamp = (minimumTimestamp != null ? Math.max(currentTimestamp, minimumTimestamp) : currentTimestamp);
+        }
+
+        final String mineBlockTaskRequest = stratumMineBlockTask.createRequest(timestamp, isNewHeadBlock).toString();
+
+        synchronized (_mineBlockTaskMutex) {
+            if (isNewHeadBlock) {
+                _mineBlockTasks.clear();
+            }
+
+            _mineBlockTasks.put(HexUtil.toHexString(stratumMineBlockTask.getId().getBytes()).toUpperCase(), stratumMineBlockTask);
+            _mineBlockTaskRequest = mineBlockTaskRequest;
+        }
+
+        // The request is serialized once and written to each miner...
+        final Integer connectionCount;
+        synchronized (_authorizedConnections) {
+            final Iterator<SocketConnection> iterator = _authorizedConnections.iterator();
+            while (iterator.hasNext()) {
+                final SocketConnection socketConnection = iterator.next();
+                if (! socketConnection.isConnected()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                socketConnection.write(mineBlockTaskRequest);
+            }
+            connectionCount = _authorizedConnections.size();
+        }
 
-        final ByteArray extraNonce = _createRandomBytes(extraNonceByteCount);
+        Logger.log("Sent mining task " + HexUtil.toHexString(stratumMineBlockTask.getId().getBytes()) + " to " + connectionCount + " miners.");
+    }
+
+    protected void _runTemplateThread() {
+        while (_shouldContinue) {
+            final Boolean isNewHeadBlock;
+            synchronized (_templateThreadMutex) {
+                if (! _hasNewHeadBlock) {
+                    try { _templateThreadMutex.wait(TEMPLATE_REFRESH_INTERVAL_MS); }
+                    catch (final InterruptedException exception) { break; }
+                }
+
+                isNewHeadBlock = _hasNewHeadBlock;
+                _hasNewHeadBlock = false;
+            }
+
+            if (! _shouldContinue) { break; }
+
+            try {
+                _updateMineBlockTask(isNewHeadBlock);
+            }
+            catch (final Exception exception) {
+                Logger.log(exception);
+            }
+        }
+
+        Logger.log("Stratum Template Thread exiting...");
+    }
+
+    protected void _submitMinedBlock(final StratumMineBlockTask stratumMineBlockTask, final StratumMineBlockTask.ShareValidationContext shareValidationContext, final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
+        final BlockDeflater blockDeflater = new BlockDeflater();
+        final Block block = stratumMineBlockTask.assembleBlock(shareValidationContext, stratumNonce, stratumExtraNonce2, stratumTimestamp);
+        Logger.log("Mined Block: " + block.getHash());
+        Logger.log(blockDeflater.toBytes(block));
+
+        final Boolean blockWasAccepted = _blockProcessor.processBlock(block);
+        if (! blockWasAccepted) {
+            Logger.log("NOTICE: Mined block " + block.getHash() + " was not accepted by the node.");
+        }
+    }
+
+    /**
+     * Validates the share submitted by the miner within its connection's ShareValidationContext, so that shares from
+     *  different miners are validated concurrently.
+     */
+    protected void _handleSubmitMessage(final RequestMessage requestMessage, final SocketConnection socketConnection, final StratumMineBlockTask.ShareValidationContext shareValidationContext) {
+        // mining.submit("username", "job id", "ExtraNonce2", "nTime", "nOnce")
+
+        final Json messageParameters = requestMessage.getParameters();
+        final String workerName = messageParameters.getString(0);
+        final String taskId = messageParameters.getString(1);
+        final String stratumNonce = messageParameters.getString(4);
+        final String stratumExtraNonce2 = messageParameters.getString(2);
+        final String stratumTimestamp = messageParameters.getString(3);
+
+        final StratumMineBlockTask stratumMineBlockTask;
+        synchronized (_mineBlockTaskMutex) {
+            stratumMineBlockTask = _mineBlockTasks.get(taskId.toUpperCase());
+        }
 
-        stratumMineBlockTask.setExtraNonce(extraNonce);
+        final Boolean isValidBlock;
+        if (stratumMineBlockTask != null) {
+            isValidBlock = stratumMineBlockTask.isValidBlock(shareValidationContext, stratumNonce, stratumExtraNonce2, stratumTimestamp);
+            if (isValidBlock) {
+                final BlockHeader blockHeader = stratumMineBlockTask.assembleBlockHeader(shareValidationContext, stratumNonce, stratumExtraNonce2, stratumTimestamp);
+                final BlockHeaderDeflater blockHeaderDeflater = new BlockHeaderDeflater();
+                Logger.log(workerName + " found a valid block: " + blockHeader.getHash() + " " + blockHeaderDeflater.toBytes(blockHeader));
 
+                _submitMinedBlock(stratumMineBlockTask, shareValidationContext, stratumNonce, stratumExtraNonce2, stratumTimestamp);
+            }
+        }
+        else {
+            Logger.log("NOTICE: " + workerName + " submitted a share for a stale or unknown task: " + taskId);
+            isValidBlock = false;
+        }
+
+        final ResponseMessage blockAcceptedMessage = new MinerSubmitBlockResult(requestMessage.getId(), isValidBlock);
+
+        Logger.log("Sent: "+ blockAcceptedMessage.toString());
+        socketConnection.write(blockAcceptedMessage.toString());
+    }
+
+    public StratumModule(final Configuration.ServerProperties serverProperties, final MysqlDatabaseConnectionFactory databaseConnectionFactory, final MemoryPool memoryPool, final BlockProcessor blockProcessor) {
+        _blockProcessor = blockProcessor;
+        _extraNonce = _createRandomBytes(EXTRA_NONCE_BYTE_COUNT);
+
+        final Address coinbaseAddress;
         {
-            final String blockData = "010000004B0360D834A330EC7833E30E1F523EE05A0793361E29A73421964F980000000027B64A020AF294E903FEED93768705336A20090612A043F47AF462A2F5E5B564F8EE3A4B6AD8001DD3A437070101000000010000000000000000000000000000000000000000000000000000000000000000FFFFFFFF07046AD8001D0104FFFFFFFF0100F2052A0100000043410428F88CA471C9718C4E52DF12B756BABEDF6A970082C3CC2BDC9F7E0C53479B7F0D9201FD4B0C3EB3E82C48EF6C011B51994EBC18177C85B20FFE8FC844ECA755AC00000000";
-            final BlockInflater blockInflater = new BlockInflater();
-            final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
-
-            stratumMineBlockTask.setBlockVersion(block.getVersion());
-            stratumMineBlockTask.setPreviousBlockHash(MutableSha256Hash.fromHexString("F6B44766062D3179A7806C551A662B971CBE531B86CE00B1E0320BA9725C07D7"));
-            stratumMineBlockTask.setDifficulty(block.getDifficulty());
-
-            final Transaction coinbaseTransaction;
-            {
-                final Long blockHeight = 1L;
-                final MutableTransaction mutableTransaction = new MutableTransaction(block.getCoinbaseTransaction());
-                final TransactionInput transactionInput = mutableTransaction.getTransactionInputs().get(0);
-                final ByteArray unlockingScriptBytes = transactionInput.getUnlockingScript().getBytes();
-                final TransactionInput newTransactionInput = TransactionInput.createCoinbaseTransactionInputWithExtraNonce(blockHeight, StringUtil.bytesToString(unlockingScriptBytes.getBytes()), extraNonceByteCount);
-                mutableTransaction.setTransactionInput(0, newTransactionInput);
-                coinbaseTransaction = mutableTransaction;
+            final AddressInflater addressInflater = new AddressInflater();
+            coinbaseAddress = addressInflater.fromBase58Check(serverProperties.getStratumCoinbaseAddress());
+            if (coinbaseAddress == null) {
+                Logger.error("Invalid stratum coinbase address: " + serverProperties.getStratumCoinbaseAddress());
+                BitcoinUtil.exitFailure();
             }
-            final Integer totalExtraNonceByteCount = (extraNonceByteCount + extraNonce2ByteCount);
-            stratumMineBlockTask.setCoinbaseTransaction(coinbaseTransaction, totalExtraNonceByteCount);
         }
 
-        // Logger.log("Private Key: " + privateKey);
-        // Logger.log("Address:     " + Address.fromPrivateKey(privateKey).toBase58CheckEncoded());
+        final Integer totalExtraNonceByteCount = (EXTRA_NONCE_BYTE_COUNT + EXTRA_NONCE_2_BYTE_COUNT);
+        _stratumMineBlockTaskBuilder = new StratumMineBlockTaskBuilder(databaseConnectionFactory, memoryPool, coinbaseAddress, serverProperties.getStratumCoinbaseMessage(), _extraNonce, totalExtraNonceByteCount);
+
+        _templateThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _runTemplateThread();
+            }
+        });
+        _templateThread.setName("Stratum Template Thread");
 
         _stratumServerSocket = new StratumServerSocket(serverProperties.getStratumPort());
 
@@ -112,6 +241,7 @@ public class StratumModule {
             public void onConnect(final SocketConnection socketConnection) {
                 Logger.log("Node connected.");
 
+                final StratumMineBlockTask.ShareValidationContext shareValidationContext = new StratumMineBlockTask.ShareValidationContext();
                 socketConnection.setMessageReceivedCallback(new Runnable() {
                     @Override
                     public void run() {
@@ -142,8 +272,8 @@ public class StratumModule {
                                         }
 
                                         resultJson.add(subscriptions);
-                                        resultJson.add(extraNonce);
-                                        resultJson.add(extraNonce2ByteCount);
+                                        resultJson.add(_extraNonce);
+                                        resultJson.add(EXTRA_NONCE_2_BYTE_COUNT);
                                     }
 
                                     final ResponseMessage responseMessage = new ResponseMessage(requestMessage.getId());
@@ -161,43 +291,24 @@ public class StratumModule {
                                         socketConnection.write(responseMessage.toString());
                                     }
 
+                                    synchronized (_authorizedConnections) {
+                                        _authorizedConnections.add(socketConnection);
+                                    }
+
                                     { // Submit work request...
-                                        final RequestMessage mineBlockRequest = stratumMineBlockTask.createRequest();
+                                        final String mineBlockTaskRequest;
+                                        synchronized (_mineBlockTaskMutex) {
+                                            mineBlockTaskRequest = _mineBlockTaskRequest;
+                                        }
 
-                                        Logger.log("Sent: "+ mineBlockRequest.toString());
-                                        socketConnection.write(mineBlockRequest.toString());
+                                        if (mineBlockTaskRequest != null) {
+                                            Logger.log("Sent: "+ mineBlockTaskRequest);
+                                            socketConnection.write(mineBlockTaskRequest);
+                                        }
                                     }
                                 }
                                 else if (requestMessage.isCommand(RequestMessage.ClientCommand.SUBMIT)) {
-                                    // mining.submit("username", "job id", "ExtraNonce2", "nTime", "nOnce")
-
-                                    final Json messageParameters = requestMessage.getParameters();
-                                    final String workerName = messageParameters.getString(0);
-                                    final ByteArray taskId = MutableByteArray.wrap(HexUtil.hexStringToByteArray(messageParameters.getString(1)));
-                                    final String stratumNonce = messageParameters.getString(4);
-                                    final String stratumExtraNonce2 = messageParameters.getString(2);
-                                    final String stratumTimestamp = messageParameters.getString(3);
-
-                                    final BlockHeader blockHeader = stratumMineBlockTask.assembleBlockHeader(stratumNonce, stratumExtraNonce2, stratumTimestamp);
-                                    final Sha256Hash hash = blockHeader.getHash();
-                                    Logger.log(hash);
-
-                                    final ResponseMessage blockAcceptedMessage = new MinerSubmitBlockResult(requestMessage.getId(), blockHeader.isValid());
-
-                                    if (blockHeader.isValid()) {
-                                        final BlockHeaderDeflater blockHeaderDeflater = new BlockHeaderDeflater();
-                                        Logger.log("Valid Block: "+ blockHeaderDeflater.toBytes(blockHeader));
-
-                                        final BlockDeflater blockDeflater = new BlockDeflater();
-                                        final Block block = stratumMineBlockTask.assembleBlock(stratumNonce, stratumExtraNonce2, stratumTimestamp);
-                                        Logger.log(blockDeflater.toBytes(block));
-
-                                        socketConnection.close();
-                                        _stratumServerSocket.stop();
-                                    }
-
-                                    Logger.log("Sent: "+ blockAcceptedMessage.toString());
-                                    socketConnection.write(blockAcceptedMessage.toString());
+                                    _handleSubmitMessage(requestMessage, socketConnection, shareValidationContext);
                                 }
                             }
                         }
@@ -213,23 +324,42 @@ public class StratumModule {
             @Override
             public void onDisconnect(final SocketConnection socketConnection) {
                 Logger.log("Node disconnected.");
+
+                synchronized (_authorizedConnections) {
+                    _authorizedConnections.remove(socketConnection);
+                }
             }
         });
     }
 
-    public void loop() {
+    /**
+     * Notifies the StratumModule that blockHeader is the node's new head block.
+     *  The header is applied, and a new task is built (and sent to the miners), by the template thread, so this function
+     *  returns immediately.
+     */
+    public void onNewHeadBlock(final BlockHeader blockHeader) {
+        _newHeadBlockHeaders.add(new ImmutableBlockHeader(blockHeader));
+
+        synchronized (_templateThreadMutex) {
+            _hasNewHeadBlock = true;
+            _templateThreadMutex.notifyAll();
+        }
+    }
 
+    public void start() {
+        _shouldContinue = true;
+        _templateThread.start();
         _stratumServerSocket.start();
+    }
 
-        Logger.log("[Server Online]");
-
-        while (true) {
-            try { Thread.sleep(5000); } catch (final Exception e) { }
+    public void stop() {
+        _shouldContinue = false;
+        synchronized (_templateThreadMutex) {
+            _templateThreadMutex.notifyAll();
         }
-    }
 
-    public static void execute(final String configurationFileName) {
-        final StratumModule stratumModule = new StratumModule(configurationFileName);
-        stratumModule.loop();
+        try { _templateThread.join(); } catch (final Exception exception) { }
+
+        _stratumServerSocket.stop();
     }
-}
\ No newline at end of file
+}
@@ -149,6 +149,52 @@ public class BitcoinNodeManager extends NodeManager<BitcoinNode> {
         });
     }
 
+    /**
+     * Requests the block from the provided bitcoinNode.
+     *  If the request times out, it is not replayed on another node; instead, the callback receives null, just as it would
+     *  if the bitcoinNode had sent an invalid block.
+     */
+    public void requestBlock(final BitcoinNode bitcoinNode, final Sha256Hash blockHash, final BitcoinNode.DownloadBlockCallback callback) {
+        this.executeRequest(bitcoinNode, new NodeApiInvocation<BitcoinNode>() {
+            @Override
+            public void run(final BitcoinNode bitcoinNode, final NodeApiInvocationCallback nodeApiInvocationCallback) {
+                bitcoinNode.requestBlock(blockHash, new BitcoinNode.DownloadBlockCallback() {
+                    @Override
+                    public void onResult(final Block result) {
+                        final Boolean requestTimedOut = nodeApiInvocationCallback.didTimeout();
+                        if (requestTimedOut) { return; }
+
+                        if (callback != null) {
+                            callback.onResult(result);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure() {
+                Logger.log("Request failed: BitcoinNodeManager.requestBlock("+ bitcoinNode.getConnectionString() +", "+ blockHash +")");
+
+                if (callback != null) {
+                    callback.onResult(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Announces the transactions to each connected node, except for the node the transactions were received from (which may be null).
+     */
+    public void broadcastTransactionHashes(final List<Sha256Hash> transactionHashes, final BitcoinNode sourceNode) {
+        synchronized (_mutex) {
+            for (final BitcoinNode bitcoinNode : _getActiveNodes()) {
+                if (bitcoinNode == sourceNode) { continue; }
+
+                bitcoinNode.announceTransactions(transactionHashes);
+            }
+        }
+    }
+
     public void requestBlockHeadersAfter(final Sha256Hash blockHash, final BitcoinNode.DownloadBlockHeadersCallback callback) {
         final MutableList<Sha256Hash> blockHashes = new MutableList<Sha256Hash>(1);
         blockHashes.add(blockHash);
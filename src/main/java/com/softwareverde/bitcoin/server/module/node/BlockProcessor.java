@@ -2,6 +2,7 @@ package com.softwareverde.bitcoin.server.module.node;
 
 import com.softwareverde.bitcoin.address.AddressDatabaseManager;
 import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockDeflater;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.validator.BlockValidator;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
@@ -9,6 +10,16 @@ import com.softwareverde.bitcoin.chain.time.MutableMedianBlockTime;
 import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.database.TransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.database.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.server.database.store.BlockFileLocation;
+import com.softwareverde.bitcoin.server.database.store.BlockStore;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.script.runner.ScriptRunner;
+import com.softwareverde.bitcoin.transaction.signer.TransactionSigner;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.database.mysql.MysqlDatabaseConnectionFactory;
 import com.softwareverde.database.mysql.debug.LoggingConnectionWrapper;
@@ -17,9 +28,16 @@ import com.softwareverde.io.Logger;
 import com.softwareverde.network.time.NetworkTime;
 import com.softwareverde.util.Container;
 import com.softwareverde.util.RotatingQueue;
+import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.Timer;
 
+import java.util.HashSet;
+
 public class BlockProcessor {
+    public interface NewHeadBlockCallback {
+        void run(Block block, Long blockHeight);
+    }
+
     protected final Object _statisticsMutex = new Object();
     protected final RotatingQueue<Long> _blocksPerSecond = new RotatingQueue<Long>(100);
     protected final RotatingQueue<Integer> _transactionsPerBlock = new RotatingQueue<Integer>(100);
@@ -33,6 +51,10 @@ public class BlockProcessor {
 
     protected Integer _maxThreadCount = 4;
     protected Integer _trustedBlockHeight = 0;
+    protected BlockStore _blockStore = null;
+    protected MemoryPool _memoryPool = null;
+    protected TransactionProcessor _transactionProcessor = null;
+    protected NewHeadBlockCallback _newHeadBlockCallback = null;
 
     public BlockProcessor(final MysqlDatabaseConnectionFactory databaseConnectionFactory, final BitcoinNodeManager nodeManager, final MutableMedianBlockTime medianBlockTime, final ReadUncommittedDatabaseConnectionPool readUncommittedDatabaseConnectionPool) {
         _databaseConnectionFactory = databaseConnectionFactory;
@@ -50,7 +72,75 @@ public class BlockProcessor {
         _trustedBlockHeight = trustedBlockHeight;
     }
 
-    public Boolean processBlock(final Block block) {
+    /**
+     * Sets the BlockStore that valid blocks' serialized bytes are appended to, so that they may be served to peers without
+     *  being inflated from the database.  If null, blocks are only stored within the database.
+     */
+    public void setBlockStore(final BlockStore blockStore) {
+        _blockStore = blockStore;
+    }
+
+    /**
+     * Sets the MemoryPool that transactions are removed from once they are mined within the head block chain.
+     *  The MemoryPool is moved along the same blocks as the address index: the transactions of each connected block (and
+     *  the MemoryPool transactions that conflict with them) are removed, and the transactions of each disconnected block
+     *  are returned to the MemoryPool via the TransactionProcessor (see setTransactionProcessor).
+     */
+    public void setMemoryPool(final MemoryPool memoryPool) {
+        _memoryPool = memoryPool;
+    }
+
+    /**
+     * Sets the TransactionProcessor used to re-validate the transactions of blocks disconnected by a reorganization, so
+     *  that they may be returned to the MemoryPool.  If null, the transactions of disconnected blocks are discarded.
+     */
+    public void setTransactionProcessor(final TransactionProcessor transactionProcessor) {
+        _transactionProcessor = transactionProcessor;
+    }
+
+    /**
+     * Returns the non-coinbase transactions of the disconnected blocks (oldest block first), excluding those confirmed
+     *  within the connected blocks.
+     */
+    protected List<Transaction> _getDisconnectedTransactions(final List<Block> disconnectedBlocks, final List<Block> connectedBlocks) {
+        final HashSet<Sha256Hash> confirmedTransactionHashes = new HashSet<Sha256Hash>();
+        for (final Block connectedBlock : connectedBlocks) {
+            for (final Transaction transaction : connectedBlock.getTransactions()) {
+                confirmedTransactionHashes.add(transaction.getHash());
+            }
+        }
+
+        final MutableList<Transaction> disconnectedTransactions = new MutableList<Transaction>();
+        for (int i = (disconnectedBlocks.getSize() - 1); i >= 0; --i) {
+            final Block disconnectedBlock = disconnectedBlocks.get(i);
+
+            boolean isCoinbase = true;
+            for (final Transaction transaction : disconnectedBlock.getTransactions()) {
+                if (isCoinbase) {
+                    isCoinbase = false;
+                    continue;
+                }
+
+                if (confirmedTransactionHashes.contains(transaction.getHash())) { continue; }
+                disconnectedTransactions.add(transaction);
+            }
+        }
+        return disconnectedTransactions;
+    }
+
+    /**
+     * Sets the callback invoked after a valid block becomes the new head block, once the block has been committed.
+     *  The callback is invoked while BlockDatabaseManager.MUTEX is held, so it should not perform any long-running work.
+     */
+    public void setNewHeadBlockCallback(final NewHeadBlockCallback newHeadBlockCallback) {
+        _newHeadBlockCallback = newHeadBlockCallback;
+    }
+
+    /**
+     * Stores, validates, and (if valid) connects the block.  The non-coinbase transactions of any blocks disconnected by a
+     *  reorganization are appended to disconnectedTransactions, so that they may be re-validated once the MUTEX is released.
+     */
+    protected Boolean _processBlock(final Block block, final MutableList<Transaction> disconnectedTransactions) {
         final NetworkTime networkTime = _nodeManager.getNetworkTime();
 
         try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
@@ -98,11 +188,87 @@ public class BlockProcessor {
 
                     AddressDatabaseManager.ADDRESS_CACHE.debug();
                     AddressDatabaseManager.ADDRESS_CACHE.clearDebug();
+
+                    TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.debug();
+                    TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.clearDebug();
+
+                    TransactionSigner.SIGNATURE_CACHE.debug();
+                    TransactionSigner.SIGNATURE_CACHE.clearDebug();
+
+                    ScriptRunner.COMPILED_SCRIPT_CACHE.debug();
+                    ScriptRunner.COMPILED_SCRIPT_CACHE.clearDebug();
                 }
 
                 if (blockIsValid) {
+                    final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+
+                    final Long blockHeight = blockDatabaseManager.getBlockHeightForBlockId(blockId);
+                    final MutableList<Block> disconnectedBlocks = new MutableList<Block>();
+                    final MutableList<Block> connectedBlocks = new MutableList<Block>();
+                    final Boolean isNewHeadBlock;
+                    { // The address index's head is the block the node last connected; comparing against it (rather than the tallest stored block) is unambiguous when sibling blocks share a height...
+                        final BlockId previousHeadBlockId = addressDatabaseManager.getAddressIndexHeadBlockId();
+                        final Long previousHeadBlockHeight = (previousHeadBlockId != null ? blockDatabaseManager.getBlockHeightForBlockId(previousHeadBlockId) : -1L);
+                        isNewHeadBlock = (blockHeight > previousHeadBlockHeight);
+                    }
+
+                    if (isNewHeadBlock) { // Move the address index to the new head block, since the block extends (or reorganizes to) the tallest chain...
+                        final AddressDatabaseManager.HeadBlockChange headBlockChange = addressDatabaseManager.updateAddressIndex(blockId);
+
+                        if (_memoryPool != null) { // Load the blocks the address index moved across, so that the MemoryPool may follow the same path...
+                            for (final BlockId disconnectedBlockId : headBlockChange.getDisconnectedBlockIds()) {
+                                final Block disconnectedBlock = blockDatabaseManager.getBlock(disconnectedBlockId);
+                                if (disconnectedBlock != null) {
+                                    disconnectedBlocks.add(disconnectedBlock);
+                                }
+                            }
+
+                            for (final BlockId connectedBlockId : headBlockChange.getConnectedBlockIds()) {
+                                final Block connectedBlock = (Util.areEqual(blockId, connectedBlockId) ? block : blockDatabaseManager.getBlock(connectedBlockId));
+                                if (connectedBlock != null) {
+                                    connectedBlocks.add(connectedBlock);
+                                }
+                            }
+                        }
+                    }
+
+                    if (_blockStore != null) {
+                        if (blockDatabaseManager.getBlockFileLocation(blockId) == null) {
+                            final BlockDeflater blockDeflater = new BlockDeflater();
+                            final BlockFileLocation blockFileLocation = _blockStore.storeBlock(blockDeflater.toBytes(block));
+                            if (blockFileLocation != null) {
+                                blockDatabaseManager.setBlockFileLocation(blockId, blockFileLocation);
+                            }
+                        }
+                    }
+
                     _medianBlockTime.addBlock(block);
                     TransactionUtil.commitTransaction(databaseConnection);
+                    TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.commit();
+                    BlockDatabaseManager.BLOCK_TREE.commit();
+
+                    if (_memoryPool != null) {
+                        for (final Block connectedBlock : connectedBlocks) {
+                            _memoryPool.removeConfirmedTransactions(connectedBlock);
+                        }
+
+                        if (! disconnectedBlocks.isEmpty()) {
+                            Logger.log("Reorganized the head block chain: disconnected " + disconnectedBlocks.getSize() + " blocks and connected " + connectedBlocks.getSize() + " blocks.");
+                            for (final Transaction transaction : _getDisconnectedTransactions(disconnectedBlocks, connectedBlocks)) {
+                                disconnectedTransactions.add(transaction);
+                            }
+                        }
+                    }
+
+                    final TransactionProcessor transactionProcessor = _transactionProcessor;
+                    if ( (transactionProcessor != null) && isNewHeadBlock ) { // The new head block may confirm the parents of recently rejected orphans...
+                        transactionProcessor.clearRecentlyRejectedTransactions();
+                    }
+
+                    final NewHeadBlockCallback newHeadBlockCallback = _newHeadBlockCallback;
+                    if ( (newHeadBlockCallback != null) && isNewHeadBlock ) {
+                        newHeadBlockCallback.run(block, blockHeight);
+                    }
 
                     final Integer blockTransactionCount = block.getTransactions().getSize();
 
@@ -142,17 +308,36 @@ public class BlockProcessor {
                 }
                 else {
                     TransactionUtil.rollbackTransaction(databaseConnection);
+                    TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.rollback();
+                    BlockDatabaseManager.BLOCK_TREE.rollback();
                 }
             }
         }
         catch (final Exception exception) {
             exception.printStackTrace();
+
+            synchronized (BlockDatabaseManager.MUTEX) {
+                TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.rollback();
+                BlockDatabaseManager.BLOCK_TREE.rollback();
+            }
         }
 
         Logger.log("Invalid block: "+ block.getHash());
         return false;
     }
 
+    public Boolean processBlock(final Block block) {
+        final MutableList<Transaction> disconnectedTransactions = new MutableList<Transaction>();
+        final Boolean blockIsValid = _processBlock(block, disconnectedTransactions);
+
+        final TransactionProcessor transactionProcessor = _transactionProcessor;
+        if ( (transactionProcessor != null) && (! disconnectedTransactions.isEmpty()) ) { // Re-validated after the MUTEX is released, since their scripts must be run again...
+            transactionProcessor.restoreTransactions(disconnectedTransactions);
+        }
+
+        return blockIsValid;
+    }
+
     public JsonRpcSocketServerHandler.StatisticsContainer getStatisticsContainer() {
         final JsonRpcSocketServerHandler.StatisticsContainer statisticsContainer = new JsonRpcSocketServerHandler.StatisticsContainer();
         statisticsContainer.averageBlocksPerSecond = _averageBlocksPerSecond;
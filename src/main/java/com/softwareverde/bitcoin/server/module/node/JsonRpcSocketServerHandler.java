@@ -84,9 +84,7 @@ public class JsonRpcSocketServerHandler implements JsonSocketServer.SocketConnec
         final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(databaseConnection);
         final ScriptPatternMatcher scriptPatternMatcher = new ScriptPatternMatcher();
 
-        final TransactionDeflater transactionDeflater = new TransactionDeflater();
-        final ByteArray transactionData = transactionDeflater.toBytes(transaction);
-        transactionJson.put("byteCount", transactionData.getByteCount());
+        transactionJson.put("byteCount", transaction.getByteCount());
 
         Long transactionFee = 0L;
 
@@ -8,25 +8,43 @@ public class NodeInitializer {
     protected final BitcoinNode.QueryBlockHeadersCallback _queryBlockHeadersCallback;
     protected final BitcoinNode.RequestDataCallback _requestDataCallback;
 
+    protected BitcoinNode.TransactionsAnnouncementCallback _transactionsAnnouncementCallback = null;
+    protected BitcoinNode.TransactionCallback _transactionCallback = null;
+    protected BitcoinNode.QueryMemoryPoolCallback _queryMemoryPoolCallback = null;
+
+    protected void _initializeNode(final BitcoinNode node) {
+        node.setQueryBlocksCallback(_queryBlocksCallback);
+        node.setQueryBlockHeadersCallback(_queryBlockHeadersCallback);
+        node.setRequestDataCallback(_requestDataCallback);
+        node.setTransactionsAnnouncementCallback(_transactionsAnnouncementCallback);
+        node.setTransactionCallback(_transactionCallback);
+        node.setQueryMemoryPoolCallback(_queryMemoryPoolCallback);
+    }
+
     public NodeInitializer(final BitcoinNode.QueryBlocksCallback queryBlocksCallback, final BitcoinNode.QueryBlockHeadersCallback queryBlockHeadersCallback, final BitcoinNode.RequestDataCallback requestDataCallback) {
         _queryBlocksCallback = queryBlocksCallback;
         _queryBlockHeadersCallback = queryBlockHeadersCallback;
         _requestDataCallback = requestDataCallback;
     }
 
+    /**
+     * Sets the callbacks used to relay unconfirmed transactions.  If unset, transaction messages are disregarded.
+     */
+    public void setTransactionCallbacks(final BitcoinNode.TransactionsAnnouncementCallback transactionsAnnouncementCallback, final BitcoinNode.TransactionCallback transactionCallback, final BitcoinNode.QueryMemoryPoolCallback queryMemoryPoolCallback) {
+        _transactionsAnnouncementCallback = transactionsAnnouncementCallback;
+        _transactionCallback = transactionCallback;
+        _queryMemoryPoolCallback = queryMemoryPoolCallback;
+    }
+
     public BitcoinNode initializeNode(final String host, final Integer port) {
         final BitcoinNode node = new BitcoinNode(host, port);
-        node.setQueryBlocksCallback(_queryBlocksCallback);
-        node.setQueryBlockHeadersCallback(_queryBlockHeadersCallback);
-        node.setRequestDataCallback(_requestDataCallback);
+        _initializeNode(node);
         return node;
     }
 
     public BitcoinNode initializeNode(final BinarySocket binarySocket) {
         final BitcoinNode node = new BitcoinNode(binarySocket);
-        node.setQueryBlocksCallback(_queryBlocksCallback);
-        node.setQueryBlockHeadersCallback(_queryBlockHeadersCallback);
-        node.setRequestDataCallback(_requestDataCallback);
+        _initializeNode(node);
         return node;
     }
 }
@@ -2,6 +2,7 @@ package com.softwareverde.bitcoin.server.module.node;
 
 import com.softwareverde.bitcoin.address.AddressDatabaseManager;
 import com.softwareverde.bitcoin.address.AddressId;
+import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.chain.time.MutableMedianBlockTime;
 import com.softwareverde.bitcoin.server.Configuration;
@@ -9,12 +10,19 @@ import com.softwareverde.bitcoin.server.Constants;
 import com.softwareverde.bitcoin.server.Environment;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.database.TransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.database.TransactionOutputDatabaseManager;
 import com.softwareverde.bitcoin.server.database.cache.AddressIdCache;
 import com.softwareverde.bitcoin.server.database.cache.TransactionIdCache;
+import com.softwareverde.bitcoin.server.database.store.BlockStore;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
 import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.module.StratumModule;
 import com.softwareverde.bitcoin.server.module.node.handler.QueryBlockHeadersHandler;
 import com.softwareverde.bitcoin.server.module.node.handler.QueryBlocksHandler;
+import com.softwareverde.bitcoin.server.module.node.handler.QueryMemoryPoolHandler;
 import com.softwareverde.bitcoin.server.module.node.handler.RequestDataHandler;
+import com.softwareverde.bitcoin.server.module.node.handler.TransactionAnnouncementHandler;
+import com.softwareverde.bitcoin.server.module.node.handler.TransactionHandler;
 import com.softwareverde.bitcoin.server.module.node.rpc.NodeHandler;
 import com.softwareverde.bitcoin.server.module.node.rpc.QueryBalanceHandler;
 import com.softwareverde.bitcoin.server.module.node.rpc.ShutdownHandler;
@@ -45,7 +53,14 @@ import java.io.File;
 
 public class NodeModule {
     public static void execute(final String configurationFileName) {
-        final NodeModule nodeModule = new NodeModule(configurationFileName);
+        execute(configurationFileName, false);
+    }
+
+    /**
+     * Runs the node.  If isStratumEnabled is true, the node also serves block templates to stratum miners.
+     */
+    public static void execute(final String configurationFileName, final Boolean isStratumEnabled) {
+        final NodeModule nodeModule = new NodeModule(configurationFileName, isStratumEnabled);
         nodeModule.loop();
     }
 
@@ -60,6 +75,9 @@ public class NodeModule {
     protected final JsonSocketServer _jsonRpcSocketServer;
     protected final BlockDownloader _blockDownloader;
     protected final BlockHeaderDownloader _blockHeaderDownloader;
+    protected final BlockStore _blockStore;
+    protected final MemoryPool _memoryPool;
+    protected final StratumModule _stratumModule;
 
     protected final NodeInitializer _nodeInitializer;
 
@@ -73,7 +91,7 @@ public class NodeModule {
         return new Configuration(configurationFile);
     }
 
-    protected NodeModule(final String configurationFilename) {
+    protected NodeModule(final String configurationFilename, final Boolean isStratumEnabled) {
         final Thread mainThread = Thread.currentThread();
 
         _configuration = _loadConfigurationFile(configurationFilename);
@@ -87,7 +105,10 @@ public class NodeModule {
             try {
                 final DatabaseInitializer databaseInitializer = new DatabaseInitializer("queries/init.sql", Constants.DATABASE_VERSION, new DatabaseInitializer.DatabaseUpgradeHandler() {
                     @Override
-                    public Boolean onUpgrade(final int currentVersion, final int requiredVersion) { return false; }
+                    public Boolean onUpgrade(final int currentVersion, final int requiredVersion) {
+                        Logger.log("Database v" + currentVersion + " must be upgraded to v" + requiredVersion + ".  Run the MIGRATION module before continuing.");
+                        return false;
+                    }
                 });
 
                 final DatabaseCommandLineArguments commandLineArguments = new DatabaseCommandLineArguments();
@@ -128,10 +149,14 @@ public class NodeModule {
         final Integer maxPeerCount = serverProperties.getMaxPeerCount();
         _nodeManager = new BitcoinNodeManager(maxPeerCount, databaseConnectionFactory);
 
+        _blockStore = new BlockStore(serverProperties.getBlockDataDirectory());
+        _memoryPool = new MemoryPool(serverProperties.getMaxMemoryPoolByteCount());
+
         {
             final QueryBlocksHandler queryBlocksHandler = new QueryBlocksHandler(databaseConnectionFactory);
             final QueryBlockHeadersHandler queryBlockHeadersHandler = new QueryBlockHeadersHandler(databaseConnectionFactory);
-            final RequestDataHandler requestDataHandler = new RequestDataHandler(databaseConnectionFactory);
+            final RequestDataHandler requestDataHandler = new RequestDataHandler(databaseConnectionFactory, _blockStore);
+            requestDataHandler.setMemoryPool(_memoryPool);
             _nodeInitializer = new NodeInitializer(queryBlocksHandler, queryBlockHeadersHandler, requestDataHandler);
         }
 
@@ -160,12 +185,43 @@ public class NodeModule {
                 medianBlockTime = newMedianBlockTime;
             }
 
+            TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.initialize(serverProperties.getMaxUtxoCacheByteCount());
+            BlockDatabaseManager.BLOCK_TREE.initialize();
+
+            { // Size the identifier caches relative to the configured memory budget; 1/16th of the budget is split between the Transaction and Address caches...
+                final Long identifierCacheByteCount = (serverProperties.getMaxMemoryByteCount() / 16L);
+                TransactionDatabaseManager.TRANSACTION_CACHE.setMaxByteCount(identifierCacheByteCount / 2L);
+                AddressDatabaseManager.ADDRESS_CACHE.setMaxByteCount(identifierCacheByteCount / 2L);
+            }
+
             final Integer maxQueueSize = serverProperties.getMaxBlockQueueSize();
             final BlockProcessor blockProcessor = new BlockProcessor(databaseConnectionFactory, _nodeManager, medianBlockTime, _readUncommittedDatabaseConnectionPool);
             blockProcessor.setMaxThreadCount(serverProperties.getMaxThreadCount());
             blockProcessor.setTrustedBlockHeight(serverProperties.getTrustedBlockHeight());
+            blockProcessor.setBlockStore(_blockStore);
+            blockProcessor.setMemoryPool(_memoryPool);
             _blockDownloader = new BlockDownloader(databaseConnectionFactory, _nodeManager, blockProcessor);
             _blockDownloader.setMaxQueueSize(maxQueueSize);
+            _blockDownloader.setDownloadWindowSize(serverProperties.getBlockDownloadWindowSize());
+            _blockDownloader.setPreValidationThreadCount(serverProperties.getBlockPreValidationThreadCount());
+
+            if (isStratumEnabled) {
+                final StratumModule stratumModule = new StratumModule(serverProperties, databaseConnectionFactory, _memoryPool, blockProcessor);
+                blockProcessor.setNewHeadBlockCallback(new BlockProcessor.NewHeadBlockCallback() {
+                    @Override
+                    public void run(final Block block, final Long blockHeight) {
+                        stratumModule.onNewHeadBlock(block);
+                    }
+                });
+                _stratumModule = stratumModule;
+            }
+            else {
+                _stratumModule = null;
+            }
+
+            final TransactionProcessor transactionProcessor = new TransactionProcessor(databaseConnectionFactory, _nodeManager, medianBlockTime, _memoryPool);
+            blockProcessor.setTransactionProcessor(transactionProcessor);
+            _nodeInitializer.setTransactionCallbacks(new TransactionAnnouncementHandler(_memoryPool, transactionProcessor), new TransactionHandler(transactionProcessor), new QueryMemoryPoolHandler(_memoryPool));
         }
 
         { // Initialize BlockHeaderDownloader...
@@ -236,7 +292,7 @@ public class NodeModule {
                     for (final Row row : rows) {
                         final TransactionId transactionId = TransactionId.wrap(row.getLong("id"));
                         final BlockId blockId = BlockId.wrap(row.getLong("block_id"));
-                        final Sha256Hash transactionHash = MutableSha256Hash.fromHexString(row.getString("hash"));
+                        final Sha256Hash transactionHash = MutableSha256Hash.wrap(row.getBytes("hash"));
                         transactionDatabaseManager.getTransactionIdFromHash(blockId, transactionHash);
                     }
 
@@ -249,6 +305,32 @@ public class NodeModule {
             }
         }
 
+        if (BlockDatabaseManager.BLOCK_TREE.isEnabled()) {
+            Logger.log("[Loading Block Tree]");
+            try (final MysqlDatabaseConnection databaseConnection = _environment.getDatabase().newConnection()) {
+                final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+                final Integer blockCount = blockDatabaseManager.loadBlockTree();
+                Logger.log("Loaded " + blockCount + " blocks into the Block Tree.");
+            }
+            catch (final DatabaseException exception) {
+                Logger.log(exception);
+                BitcoinUtil.exitFailure();
+            }
+        }
+
+        if (TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.isEnabled()) {
+            Logger.log("[Loading UTXO Cache]");
+            try (final MysqlDatabaseConnection databaseConnection = _environment.getDatabase().newConnection()) {
+                final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(databaseConnection);
+                final Integer cachedOutputCount = transactionOutputDatabaseManager.loadUnspentTransactionOutputCache();
+                Logger.log("Cached " + cachedOutputCount + " unspent TransactionOutputs.");
+            }
+            catch (final DatabaseException exception) {
+                Logger.log(exception);
+                BitcoinUtil.exitFailure();
+            }
+        }
+
         _nodeManager.startNodeMaintenanceThread();
 
         Logger.log("[Server Online]");
@@ -279,10 +361,19 @@ public class NodeModule {
         _blockHeaderDownloader.start();
         Logger.log("[Started Syncing Headers]");
 
+        if (_stratumModule != null) {
+            _stratumModule.start();
+            Logger.log("[Stratum Server Online]");
+        }
+
         while (! Thread.currentThread().isInterrupted()) {
             try { Thread.sleep(5000); } catch (final Exception e) { break; }
         }
 
+        if (_stratumModule != null) {
+            _stratumModule.stop();
+        }
+
         _blockHeaderDownloader.stop();
         _blockDownloader.stop();
         _nodeManager.stopNodeMaintenanceThread();
@@ -293,6 +384,8 @@ public class NodeModule {
             _jsonRpcSocketServer.stop();
         }
 
+        _blockStore.close();
+
         System.exit(0);
     }
 }
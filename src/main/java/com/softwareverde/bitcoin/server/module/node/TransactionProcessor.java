@@ -0,0 +1,357 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.address.AddressDatabaseManager;
+import com.softwareverde.bitcoin.bip.Bip68;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
+import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.server.database.TransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.database.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.server.database.cache.ConcurrentLruCache;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionId;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.transaction.validator.TransactionValidator;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.database.mysql.MysqlDatabaseConnectionFactory;
+import com.softwareverde.io.Logger;
+import com.softwareverde.network.time.NetworkTime;
+import com.softwareverde.util.Util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Validates unconfirmed Transactions against the head block chain (and the MemoryPool), adds the valid ones to the
+ *  MemoryPool, and announces them to the other connected nodes.
+ *
+ *  Each of a Transaction's inputs must spend an output that is either unspent within the head block chain or belongs to a
+ *  Transaction within the MemoryPool, and that is not already spent by another MemoryPool Transaction.  Transactions that
+ *  spend unknown outputs (i.e. orphans) are rejected rather than retained.
+ *
+ *  Verifying the Transaction's signatures populates TransactionSigner's signature cache, so the Transaction's signatures
+ *  do not need to be re-verified once the Transaction is mined.
+ *
+ *  BlockDatabaseManager.MUTEX is only held while the head block chain is read and while the Transaction is added to the
+ *  MemoryPool; the Transaction's scripts are validated without the lock, so that relayed transactions do not stall
+ *  block processing.
+ *
+ *  The hashes of recently rejected Transactions (including orphans) are retained, so that their announcements are not
+ *  re-requested and re-validated; the set is bounded, and is cleared whenever the head block changes, since a new block
+ *  may confirm an orphan's parents.
+ */
+public class TransactionProcessor {
+    protected static final Integer MAX_VALIDATION_ATTEMPT_COUNT = 2;
+    protected static final Integer MAX_RECENTLY_REJECTED_TRANSACTION_COUNT = 65536;
+    protected static final Integer ESTIMATED_REJECTED_TRANSACTION_BYTE_COUNT = 96; // Sha256Hash and map entry overhead...
+
+    /**
+     * The head-chain state a transaction was validated against: the head block (and its median block time), the outputs
+     *  spent by the transaction (keyed without a BlockChainSegmentId), and the resulting fee.
+     */
+    protected static class SpentTransactionOutputs {
+        protected final BlockId _headBlockId;
+        protected final BlockChainSegmentId _headBlockChainSegmentId;
+        protected final Long _blockHeight;
+        protected final MedianBlockTime _medianBlockTime;
+        protected final Map<TransactionOutputIdentifier, TransactionOutput> _transactionOutputs = new HashMap<TransactionOutputIdentifier, TransactionOutput>();
+        protected Long _fee;
+
+        public SpentTransactionOutputs(final BlockId headBlockId, final BlockChainSegmentId headBlockChainSegmentId, final Long blockHeight, final MedianBlockTime medianBlockTime) {
+            _headBlockId = headBlockId;
+            _headBlockChainSegmentId = headBlockChainSegmentId;
+            _blockHeight = blockHeight;
+            _medianBlockTime = medianBlockTime;
+        }
+    }
+
+    protected final MysqlDatabaseConnectionFactory _databaseConnectionFactory;
+    protected final BitcoinNodeManager _nodeManager;
+    protected final MedianBlockTime _medianBlockTime;
+    protected final MemoryPool _memoryPool;
+    protected final ConcurrentLruCache<Sha256Hash, Boolean> _recentlyRejectedTransactionHashes = new ConcurrentLruCache<Sha256Hash, Boolean>("RecentlyRejectedTransactions", MAX_RECENTLY_REJECTED_TRANSACTION_COUNT, ESTIMATED_REJECTED_TRANSACTION_BYTE_COUNT);
+
+    /**
+     * Returns the output spent by the transactionInput from the MemoryPool or the head block chain, or null if the output
+     *  does not exist or has already been spent.
+     */
+    protected TransactionOutput _getUnspentTransactionOutput(final BlockChainSegmentId headBlockChainSegmentId, final TransactionInput transactionInput, final TransactionOutputDatabaseManager transactionOutputDatabaseManager) throws DatabaseException {
+        final Sha256Hash previousTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+        final Integer previousOutputIndex = transactionInput.getPreviousOutputIndex();
+
+        if (_memoryPool.getSpendingTransactionHash(previousTransactionHash, previousOutputIndex) != null) { return null; }
+
+        final TransactionOutput memoryPoolTransactionOutput = _memoryPool.getTransactionOutput(previousTransactionHash, previousOutputIndex);
+        if (memoryPoolTransactionOutput != null) { return memoryPoolTransactionOutput; }
+
+        final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(headBlockChainSegmentId, previousTransactionHash, previousOutputIndex);
+        final TransactionOutputId transactionOutputId = transactionOutputDatabaseManager.findTransactionOutput(transactionOutputIdentifier);
+        if (transactionOutputId == null) { return null; }
+
+        final Boolean transactionOutputIsSpent = transactionOutputDatabaseManager.isTransactionOutputSpentWithinChain(headBlockChainSegmentId, transactionOutputId); // NOTE: Outputs spent by disconnected (or stale) blocks are spendable again...
+        if ( (transactionOutputIsSpent == null) || transactionOutputIsSpent ) { return null; }
+
+        return transactionOutputDatabaseManager.getTransactionOutput(transactionOutputId);
+    }
+
+    /**
+     * Returns true if the transaction uses relative lock-times (BIP68) and spends an output of a MemoryPool transaction.
+     *  The relative lock-time of an unconfirmed output cannot be evaluated, so these transactions are not accepted.
+     */
+    protected Boolean _hasUnconfirmedRelativeLockTime(final Transaction transaction, final Long blockHeight) {
+        if (! Bip68.isEnabled(blockHeight)) { return false; }
+        if (transaction.getVersion() < 2L) { return false; }
+
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            if (transactionInput.getSequenceNumber().isDisabled()) { continue; }
+
+            if (_memoryPool.containsTransaction(transactionInput.getPreviousOutputTransactionHash())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the transaction's fee and the outputs it spends, as read from the head block chain and the MemoryPool while
+     *  BlockDatabaseManager.MUTEX is held, so that its scripts may be validated after the lock is released.  Returns null if
+     *  the transaction is rejected.
+     */
+    protected SpentTransactionOutputs _getSpentTransactionOutputs(final Transaction transaction, final MysqlDatabaseConnection databaseConnection) throws DatabaseException {
+        final Sha256Hash transactionHash = transaction.getHash();
+
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+        final TransactionDatabaseManager transactionDatabaseManager = new TransactionDatabaseManager(databaseConnection);
+        final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(databaseConnection);
+
+        final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+
+        final BlockId headBlockId = addressDatabaseManager.getAddressIndexHeadBlockId(); // The MemoryPool follows the same head block as the address index...
+        if (headBlockId == null) { return null; }
+
+        final BlockChainSegmentId headBlockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(headBlockId);
+        final Long blockHeight = (blockDatabaseManager.getBlockHeightForBlockId(headBlockId) + 1L); // The transaction is validated as if it were mined within the next block...
+
+        { // Disregard transactions that have already been mined...
+            final TransactionId transactionId = transactionDatabaseManager.getTransactionIdFromHash(headBlockChainSegmentId, transactionHash);
+            if (transactionId != null) { return null; }
+        }
+
+        final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
+        if (transactionInputs.isEmpty()) { return null; }
+
+        final SpentTransactionOutputs spentTransactionOutputs = new SpentTransactionOutputs(headBlockId, headBlockChainSegmentId, blockHeight, _medianBlockTime.asConst()); // The MedianBlockTime is updated by the BlockProcessor while the MUTEX is held...
+
+        long totalInputAmount = 0L;
+        for (final TransactionInput transactionInput : transactionInputs) {
+            final TransactionOutput transactionOutput = _getUnspentTransactionOutput(headBlockChainSegmentId, transactionInput, transactionOutputDatabaseManager);
+            if (transactionOutput == null) {
+                Logger.log("NOTICE: Rejecting transaction " + transactionHash + ": Unable to find unspent output " + transactionInput.getPreviousOutputTransactionHash() + ":" + transactionInput.getPreviousOutputIndex());
+                return null;
+            }
+
+            spentTransactionOutputs._transactionOutputs.put(new TransactionOutputIdentifier(null, transactionInput.getPreviousOutputTransactionHash(), transactionInput.getPreviousOutputIndex()), transactionOutput);
+            totalInputAmount += transactionOutput.getAmount();
+        }
+
+        long totalOutputAmount = 0L;
+        for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
+            totalOutputAmount += transactionOutput.getAmount();
+        }
+
+        final Long fee = (totalInputAmount - totalOutputAmount);
+        if (fee < 0L) {
+            Logger.log("NOTICE: Rejecting transaction " + transactionHash + ": Outputs exceed inputs by " + (-fee) + ".");
+            return null;
+        }
+
+        if (_hasUnconfirmedRelativeLockTime(transaction, blockHeight)) {
+            Logger.log("NOTICE: Rejecting transaction " + transactionHash + ": Relative lock-time depends upon an unconfirmed transaction.");
+            return null;
+        }
+
+        spentTransactionOutputs._fee = fee;
+        return spentTransactionOutputs;
+    }
+
+    /**
+     * Runs the transaction's scripts against the outputs read by _getSpentTransactionOutputs.
+     *  This is invoked without BlockDatabaseManager.MUTEX; the lock is only acquired for the relative lock-time (BIP68)
+     *  lookups, which read the blocks containing the spent outputs.
+     */
+    protected Boolean _validateTransactionScripts(final Transaction transaction, final SpentTransactionOutputs spentTransactionOutputs, final MysqlDatabaseConnection databaseConnection) {
+        final TransactionValidator transactionValidator = new TransactionValidator(databaseConnection, _nodeManager.getNetworkTime(), spentTransactionOutputs._medianBlockTime) {
+            @Override
+            protected TransactionOutput _findTransactionOutput(final TransactionOutputIdentifier transactionOutputIdentifier) {
+                return spentTransactionOutputs._transactionOutputs.get(new TransactionOutputIdentifier(null, transactionOutputIdentifier.getTransactionHash(), transactionOutputIdentifier.getOutputIndex()));
+            }
+
+            @Override
+            protected Boolean _validateSequenceNumbers(final BlockChainSegmentId blockChainSegmentId, final Transaction transaction, final Long blockHeight) throws DatabaseException {
+                synchronized (BlockDatabaseManager.MUTEX) {
+                    return super._validateSequenceNumbers(blockChainSegmentId, transaction, blockHeight);
+                }
+            }
+        };
+
+        return transactionValidator.validateTransactionInputsAreUnlocked(spentTransactionOutputs._headBlockChainSegmentId, spentTransactionOutputs._blockHeight, transaction);
+    }
+
+    /**
+     * Adds the validated transaction to the MemoryPool, provided that the head block, and the outputs the transaction spends,
+     *  have not changed since _getSpentTransactionOutputs.  Must be invoked while BlockDatabaseManager.MUTEX is held.
+     *  Returns null if the head block changed, in which case the transaction should be re-validated.
+     */
+    protected Boolean _addValidatedTransaction(final Transaction transaction, final SpentTransactionOutputs spentTransactionOutputs, final MysqlDatabaseConnection databaseConnection) throws DatabaseException {
+        final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+        final TransactionOutputDatabaseManager transactionOutputDatabaseManager = new TransactionOutputDatabaseManager(databaseConnection);
+
+        final BlockId headBlockId = addressDatabaseManager.getAddressIndexHeadBlockId();
+        if (! Util.areEqual(spentTransactionOutputs._headBlockId, headBlockId)) { return null; }
+
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) { // The spent outputs' MemoryPool transactions may have been evicted (or double-spent) during validation...
+            final TransactionOutput transactionOutput = _getUnspentTransactionOutput(spentTransactionOutputs._headBlockChainSegmentId, transactionInput, transactionOutputDatabaseManager);
+            if (transactionOutput == null) {
+                Logger.log("NOTICE: Rejecting transaction " + transaction.getHash() + ": Output " + transactionInput.getPreviousOutputTransactionHash() + ":" + transactionInput.getPreviousOutputIndex() + " was spent during validation.");
+                return false;
+            }
+        }
+
+        return _memoryPool.addTransaction(transaction, spentTransactionOutputs._fee);
+    }
+
+    /**
+     * Validates the transaction and adds it to the MemoryPool, holding BlockDatabaseManager.MUTEX only while reading and
+     *  writing head-chain state.  If the head block changes while the transaction's scripts are validated, the transaction
+     *  is re-validated against the new head block; the second validation is inexpensive since its signatures are cached.
+     */
+    protected Boolean _processTransaction(final Transaction transaction, final MysqlDatabaseConnection databaseConnection) throws DatabaseException {
+        for (int i = 0; i < MAX_VALIDATION_ATTEMPT_COUNT; ++i) {
+            final SpentTransactionOutputs spentTransactionOutputs;
+            synchronized (BlockDatabaseManager.MUTEX) {
+                spentTransactionOutputs = _getSpentTransactionOutputs(transaction, databaseConnection);
+            }
+            if (spentTransactionOutputs == null) {
+                _markTransactionRejected(transaction);
+                return false;
+            }
+
+            final Boolean inputsAreUnlocked = _validateTransactionScripts(transaction, spentTransactionOutputs, databaseConnection);
+            if (! inputsAreUnlocked) {
+                _markTransactionRejected(transaction);
+                return false;
+            }
+
+            synchronized (BlockDatabaseManager.MUTEX) {
+                final Boolean transactionWasAdded = _addValidatedTransaction(transaction, spentTransactionOutputs, databaseConnection);
+                if (transactionWasAdded != null) {
+                    if (! transactionWasAdded) {
+                        _markTransactionRejected(transaction);
+                    }
+                    return transactionWasAdded;
+                }
+            }
+        }
+
+        Logger.log("NOTICE: Rejecting transaction " + transaction.getHash() + ": Head block changed during validation.");
+        return false;
+    }
+
+    /**
+     * Records the rejected transaction, unless it is within the MemoryPool (i.e. it was only rejected as a duplicate).
+     *  Transactions rejected because the head block changed during validation are not recorded.
+     */
+    protected void _markTransactionRejected(final Transaction transaction) {
+        final Sha256Hash transactionHash = transaction.getHash();
+        if (_memoryPool.containsTransaction(transactionHash)) { return; }
+
+        _recentlyRejectedTransactionHashes.put(transactionHash, true);
+    }
+
+    protected Boolean _processTransaction(final Transaction transaction) {
+        if (_memoryPool.containsTransaction(transaction.getHash())) { return false; }
+
+        try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
+            return _processTransaction(transaction, databaseConnection);
+        }
+        catch (final DatabaseException exception) {
+            Logger.log(exception);
+            return false;
+        }
+    }
+
+    public TransactionProcessor(final MysqlDatabaseConnectionFactory databaseConnectionFactory, final BitcoinNodeManager nodeManager, final MedianBlockTime medianBlockTime, final MemoryPool memoryPool) {
+        _databaseConnectionFactory = databaseConnectionFactory;
+        _nodeManager = nodeManager;
+        _medianBlockTime = medianBlockTime;
+        _memoryPool = memoryPool;
+    }
+
+    /**
+     * Validates the transaction and adds it to the MemoryPool.  If the transaction is accepted, it is announced to each
+     *  connected node other than sourceNode (which may be null).  Returns true if the transaction was accepted.
+     */
+    public Boolean processTransaction(final Transaction transaction, final BitcoinNode sourceNode) {
+        final Boolean transactionWasAccepted = _processTransaction(transaction);
+
+        if (transactionWasAccepted) {
+            final MutableList<Sha256Hash> transactionHashes = new MutableList<Sha256Hash>(1);
+            transactionHashes.add(transaction.getHash());
+            _nodeManager.broadcastTransactionHashes(transactionHashes, sourceNode);
+        }
+
+        return transactionWasAccepted;
+    }
+
+    /**
+     * Re-validates the transactions of blocks disconnected from the head block chain, and returns them to the MemoryPool.
+     *  The transactions must be ordered as they would be within a block (i.e. parents before children), and must not include
+     *  coinbase transactions or transactions confirmed within the new head block chain.  A transaction that is no longer valid
+     *  is discarded along with the MemoryPool transactions that spend it.  Restored transactions are not re-announced.
+     *  Must not be invoked while BlockDatabaseManager.MUTEX is held, so that the scripts are validated without the lock.
+     */
+    public void restoreTransactions(final List<Transaction> transactions) {
+        int restoredTransactionCount = 0;
+        for (final Transaction transaction : transactions) {
+            final Boolean transactionWasRestored = _processTransaction(transaction);
+            if (transactionWasRestored) {
+                restoredTransactionCount += 1;
+            }
+            else if (! _memoryPool.containsTransaction(transaction.getHash())) {
+                _memoryPool.removeSpendingTransactions(transaction);
+            }
+        }
+
+        Logger.log("Restored " + restoredTransactionCount + " of " + transactions.getSize() + " transactions from disconnected blocks to the MemoryPool.");
+    }
+
+    /**
+     * Returns true if the transaction was rejected since the head block last changed.
+     */
+    public Boolean wasRecentlyRejected(final Sha256Hash transactionHash) {
+        return (_recentlyRejectedTransactionHashes.get(transactionHash) != null);
+    }
+
+    /**
+     * Forgets the recently rejected transactions; invoked when the head block changes, since a transaction rejected as an
+     *  orphan may now be valid.
+     */
+    public void clearRecentlyRejectedTransactions() {
+        _recentlyRejectedTransactionHashes.clear();
+    }
+
+    public MemoryPool getMemoryPool() {
+        return _memoryPool;
+    }
+}
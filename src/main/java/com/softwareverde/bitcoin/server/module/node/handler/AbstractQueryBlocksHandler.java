@@ -64,7 +64,7 @@ public abstract class AbstractQueryBlocksHandler implements BitcoinNode.QueryBlo
             for (final Sha256Hash blockHash : blockHashes) {
                 final java.util.List<Row> rows = databaseConnection.query(
                     new Query("SELECT id FROM blocks WHERE hash = ?")
-                        .setParameter(blockHash)
+                        .setParameter(blockHash.getBytes())
                 );
                 if (rows.isEmpty()) {
                     continue;
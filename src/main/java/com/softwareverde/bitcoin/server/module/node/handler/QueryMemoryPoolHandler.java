@@ -0,0 +1,42 @@
+package com.softwareverde.bitcoin.server.module.node.handler;
+
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.server.message.type.query.response.QueryResponseMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.DataHash;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.DataHashType;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.network.p2p.node.NodeConnection;
+
+/**
+ * Announces each transaction within the MemoryPool, in descending fee-rate order.
+ */
+public class QueryMemoryPoolHandler implements BitcoinNode.QueryMemoryPoolCallback {
+    protected static final Integer MAX_INVENTORY_ITEM_COUNT = 50000;
+
+    protected final MemoryPool _memoryPool;
+
+    public QueryMemoryPoolHandler(final MemoryPool memoryPool) {
+        _memoryPool = memoryPool;
+    }
+
+    @Override
+    public void run(final NodeConnection nodeConnection) {
+        final List<Sha256Hash> transactionHashes = _memoryPool.getTransactionHashes();
+
+        QueryResponseMessage queryResponseMessage = new QueryResponseMessage();
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            if (queryResponseMessage.getDataHashes().getSize() >= MAX_INVENTORY_ITEM_COUNT) {
+                nodeConnection.queueMessage(queryResponseMessage);
+                queryResponseMessage = new QueryResponseMessage();
+            }
+
+            queryResponseMessage.addInventoryItem(new DataHash(DataHashType.TRANSACTION, transactionHash));
+        }
+
+        if (! queryResponseMessage.getDataHashes().isEmpty()) {
+            nodeConnection.queueMessage(queryResponseMessage);
+        }
+    }
+}
@@ -3,11 +3,17 @@ package com.softwareverde.bitcoin.server.module.node.handler;
 import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.server.database.store.BlockFileLocation;
+import com.softwareverde.bitcoin.server.database.store.BlockStore;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPoolTransaction;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.BlockMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.DataHash;
+import com.softwareverde.bitcoin.server.message.type.query.response.transaction.TransactionMessage;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
@@ -18,9 +24,38 @@ import com.softwareverde.network.p2p.node.NodeConnection;
 
 public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
     protected final MysqlDatabaseConnectionFactory _connectionFactory;
+    protected final BlockStore _blockStore;
+    protected MemoryPool _memoryPool = null;
+
+    /**
+     * Returns the serialized block from the BlockStore, or null if the block has not been stored (or could not be read).
+     */
+    protected ByteArray _getStoredBlockBytes(final BlockDatabaseManager blockDatabaseManager, final BlockId blockId) throws DatabaseException {
+        if (_blockStore == null) { return null; }
+
+        final BlockFileLocation blockFileLocation = blockDatabaseManager.getBlockFileLocation(blockId);
+        if (blockFileLocation == null) { return null; }
+
+        return _blockStore.readBlock(blockFileLocation);
+    }
 
     public RequestDataHandler(final MysqlDatabaseConnectionFactory connectionFactory) {
+        this(connectionFactory, null);
+    }
+
+    /**
+     * Blocks found within the BlockStore are sent without being inflated; blocks not within the BlockStore are inflated from the database.
+     */
+    public RequestDataHandler(final MysqlDatabaseConnectionFactory connectionFactory, final BlockStore blockStore) {
         _connectionFactory = connectionFactory;
+        _blockStore = blockStore;
+    }
+
+    /**
+     * Sets the MemoryPool that requested transactions are served from.  If null, requested transactions are not found.
+     */
+    public void setMemoryPool(final MemoryPool memoryPool) {
+        _memoryPool = memoryPool;
     }
 
     @Override
@@ -40,16 +75,33 @@ public class RequestDataHandler implements BitcoinNode.RequestDataCallback {
                             notFoundDataHashes.add(dataHash);
                         }
                         else {
-                            final Block block = blockDatabaseManager.getBlock(blockId);
                             final BlockMessage blockMessage = new BlockMessage();
-                            blockMessage.setBlock(block);
+
+                            final ByteArray storedBlockBytes = _getStoredBlockBytes(blockDatabaseManager, blockId);
+                            if (storedBlockBytes != null) {
+                                blockMessage.setBlockBytes(storedBlockBytes);
+                            }
+                            else {
+                                final Block block = blockDatabaseManager.getBlock(blockId);
+                                blockMessage.setBlock(block);
+                            }
+
                             nodeConnection.queueMessage(blockMessage);
                         }
                     } break;
 
                     case TRANSACTION: {
                         final Sha256Hash transactionHash = dataHash.getObjectHash();
-                        Logger.log("Unsupported RequestDataMessage Type: " + dataHash.getDataHashType() + " : " + transactionHash);
+                        final MemoryPoolTransaction memoryPoolTransaction = (_memoryPool != null ? _memoryPool.getTransaction(transactionHash) : null);
+
+                        if (memoryPoolTransaction == null) {
+                            notFoundDataHashes.add(dataHash);
+                        }
+                        else {
+                            final TransactionMessage transactionMessage = new TransactionMessage();
+                            transactionMessage.setTransaction(memoryPoolTransaction.getTransaction());
+                            nodeConnection.queueMessage(transactionMessage);
+                        }
                     } break;
 
                     default: {
@@ -0,0 +1,35 @@
+package com.softwareverde.bitcoin.server.module.node.handler;
+
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.server.module.node.TransactionProcessor;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+
+/**
+ * Requests the announced transactions that are not already within the MemoryPool and that were not recently rejected
+ *  by the TransactionProcessor.
+ */
+public class TransactionAnnouncementHandler implements BitcoinNode.TransactionsAnnouncementCallback {
+    protected final MemoryPool _memoryPool;
+    protected final TransactionProcessor _transactionProcessor;
+
+    public TransactionAnnouncementHandler(final MemoryPool memoryPool, final TransactionProcessor transactionProcessor) {
+        _memoryPool = memoryPool;
+        _transactionProcessor = transactionProcessor;
+    }
+
+    @Override
+    public void run(final List<Sha256Hash> transactionHashes, final BitcoinNode bitcoinNode) {
+        final MutableList<Sha256Hash> unknownTransactionHashes = new MutableList<Sha256Hash>(transactionHashes.getSize());
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            if (_memoryPool.containsTransaction(transactionHash)) { continue; }
+            if (_transactionProcessor.wasRecentlyRejected(transactionHash)) { continue; }
+
+            unknownTransactionHashes.add(transactionHash);
+        }
+
+        bitcoinNode.requestTransactions(unknownTransactionHashes);
+    }
+}
@@ -0,0 +1,18 @@
+package com.softwareverde.bitcoin.server.module.node.handler;
+
+import com.softwareverde.bitcoin.server.module.node.TransactionProcessor;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.transaction.Transaction;
+
+public class TransactionHandler implements BitcoinNode.TransactionCallback {
+    protected final TransactionProcessor _transactionProcessor;
+
+    public TransactionHandler(final TransactionProcessor transactionProcessor) {
+        _transactionProcessor = transactionProcessor;
+    }
+
+    @Override
+    public void run(final Transaction transaction, final BitcoinNode bitcoinNode) {
+        _transactionProcessor.processTransaction(transaction, bitcoinNode);
+    }
+}
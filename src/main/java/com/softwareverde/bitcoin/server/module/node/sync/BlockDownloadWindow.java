@@ -0,0 +1,232 @@
+package com.softwareverde.bitcoin.server.module.node.sync;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.network.p2p.node.NodeId;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Tracks the state of each block being downloaded by the BlockDownloader.
+ *  Block hashes are added in chain order (i.e. as received from a getblocks query), and each is assigned a sequence number.
+ *  Blocks may be requested from, and arrive from, any number of nodes in any order; downloaded blocks are buffered until
+ *  every block before them has also been downloaded, and are then released in sequence (i.e. height) order.
+ *
+ *  Only blocks within windowSize of the next block to be released may be requested, so that a single slow block cannot
+ *  cause an unbounded number of downloaded blocks to be buffered.  If the window is full and the next block to be released
+ *  has been in-flight for longer than the stall timeout, it is considered stalled and may be requested from another node.
+ *
+ *  BlockDownloadWindow is not thread-safe.
+ */
+public class BlockDownloadWindow {
+    protected static class BlockRequest {
+        public final Long sequenceNumber;
+        public final Set<NodeId> requestedNodeIds = new HashSet<NodeId>();
+        public final Set<NodeId> failedNodeIds = new HashSet<NodeId>();
+        public Long requestTimestamp = null;
+
+        public BlockRequest(final Long sequenceNumber) {
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    protected final Integer _windowSize;
+    protected final Long _stallTimeoutInMilliseconds;
+
+    protected final Map<Sha256Hash, BlockRequest> _blockRequests = new HashMap<Sha256Hash, BlockRequest>(); // All blocks not yet released, including pending and downloaded blocks...
+    protected final TreeMap<Long, Sha256Hash> _pendingBlockHashes = new TreeMap<Long, Sha256Hash>();
+    protected final TreeMap<Long, Block> _downloadedBlocks = new TreeMap<Long, Block>();
+    protected final Map<NodeId, Integer> _nodeRequestCounts = new HashMap<NodeId, Integer>();
+    protected final Map<Long, Sha256Hash> _inFlightBlockHashes = new HashMap<Long, Sha256Hash>();
+
+    protected Sha256Hash _lastBlockHash;
+    protected Long _nextSequenceNumber = 0L;
+    protected Long _nextReleasedSequenceNumber = 0L;
+
+    protected void _decrementNodeRequestCount(final NodeId nodeId) {
+        final Integer requestCount = _nodeRequestCounts.get(nodeId);
+        if (requestCount == null) { return; }
+
+        if (requestCount <= 1) {
+            _nodeRequestCounts.remove(nodeId);
+        }
+        else {
+            _nodeRequestCounts.put(nodeId, (requestCount - 1));
+        }
+    }
+
+    protected Boolean _isWithinWindow(final Long sequenceNumber) {
+        return (sequenceNumber < (_nextReleasedSequenceNumber + _windowSize));
+    }
+
+    /**
+     * lastBlockHash is the hash of the block that the first added block hash should follow.
+     */
+    public BlockDownloadWindow(final Sha256Hash lastBlockHash, final Integer windowSize, final Long stallTimeoutInMilliseconds) {
+        _lastBlockHash = lastBlockHash;
+        _windowSize = windowSize;
+        _stallTimeoutInMilliseconds = stallTimeoutInMilliseconds;
+    }
+
+    /**
+     * Appends the blockHashes, which must be in chain order, to the end of the window.
+     *  Block hashes already within the window are ignored.
+     */
+    public void addBlockHashes(final List<Sha256Hash> blockHashes) {
+        for (final Sha256Hash blockHash : blockHashes) {
+            if (_blockRequests.containsKey(blockHash)) { continue; }
+
+            final Long sequenceNumber = _nextSequenceNumber;
+            _nextSequenceNumber += 1L;
+
+            _blockRequests.put(blockHash, new BlockRequest(sequenceNumber));
+            _pendingBlockHashes.put(sequenceNumber, blockHash);
+            _lastBlockHash = blockHash;
+        }
+    }
+
+    /**
+     * Returns the hash of the last block added to the window; new block hashes should be queried after this hash.
+     */
+    public Sha256Hash getLastBlockHash() {
+        return _lastBlockHash;
+    }
+
+    /**
+     * Returns the lowest pending block hash that is within the window, or null if there is none.
+     */
+    public Sha256Hash getNextRequestableBlockHash() {
+        if (_pendingBlockHashes.isEmpty()) { return null; }
+
+        final Long sequenceNumber = _pendingBlockHashes.firstKey();
+        if (! _isWithinWindow(sequenceNumber)) { return null; }
+
+        return _pendingBlockHashes.get(sequenceNumber);
+    }
+
+    /**
+     * Returns the hash of the next block to be released if no other block may be requested (i.e. the window is full) and that
+     *  block has been in-flight for longer than the stall timeout, otherwise null.
+     *  The block remains stalled until it is requested again, which resets its request timestamp.
+     */
+    public Sha256Hash getStalledBlockHash(final Long nowInMilliseconds) {
+        if (getNextRequestableBlockHash() != null) { return null; }
+
+        final Sha256Hash blockHash = _inFlightBlockHashes.get(_nextReleasedSequenceNumber);
+        if (blockHash == null) { return null; }
+
+        final BlockRequest blockRequest = _blockRequests.get(blockHash);
+        final Long requestDuration = (nowInMilliseconds - blockRequest.requestTimestamp);
+        if (requestDuration < _stallTimeoutInMilliseconds) { return null; }
+
+        return blockHash;
+    }
+
+    /**
+     * Returns true if the block may be requested from the node; a block is not requested from the same node twice
+     *  concurrently, and is not requested again from a node that failed to provide it, unless every known node has failed.
+     */
+    public Boolean canRequestBlockFrom(final Sha256Hash blockHash, final NodeId nodeId, final Integer nodeCount) {
+        final BlockRequest blockRequest = _blockRequests.get(blockHash);
+        if (blockRequest == null) { return false; }
+
+        if (blockRequest.requestedNodeIds.contains(nodeId)) { return false; }
+        if (blockRequest.failedNodeIds.contains(nodeId)) {
+            return (blockRequest.failedNodeIds.size() >= nodeCount);
+        }
+        return true;
+    }
+
+    public void onBlockRequested(final Sha256Hash blockHash, final NodeId nodeId, final Long nowInMilliseconds) {
+        final BlockRequest blockRequest = _blockRequests.get(blockHash);
+        if (blockRequest == null) { return; }
+
+        _pendingBlockHashes.remove(blockRequest.sequenceNumber);
+        _inFlightBlockHashes.put(blockRequest.sequenceNumber, blockHash);
+
+        blockRequest.requestedNodeIds.add(nodeId);
+        blockRequest.requestTimestamp = nowInMilliseconds;
+
+        final Integer requestCount = _nodeRequestCounts.get(nodeId);
+        _nodeRequestCounts.put(nodeId, (requestCount != null ? (requestCount + 1) : 1));
+    }
+
+    /**
+     * Records that the node failed to provide the block.
+     *  If no other node is currently providing the block, the block is returned to the pending blocks so that it is requested again.
+     */
+    public void onBlockRequestFailed(final Sha256Hash blockHash, final NodeId nodeId) {
+        _decrementNodeRequestCount(nodeId);
+
+        final BlockRequest blockRequest = _blockRequests.get(blockHash);
+        if (blockRequest == null) { return; }
+        if (! blockRequest.requestedNodeIds.remove(nodeId)) { return; }
+
+        blockRequest.failedNodeIds.add(nodeId);
+
+        if (blockRequest.requestedNodeIds.isEmpty()) {
+            _inFlightBlockHashes.remove(blockRequest.sequenceNumber);
+            _pendingBlockHashes.put(blockRequest.sequenceNumber, blockHash);
+        }
+    }
+
+    /**
+     * Buffers the block downloaded from the node until it can be released.
+     *  Returns false if the block was not in-flight (i.e. it was unrequested, or is a duplicate of a stalled block's re-request).
+     */
+    public Boolean onBlockDownloaded(final Block block, final NodeId nodeId) {
+        _decrementNodeRequestCount(nodeId);
+
+        final BlockRequest blockRequest = _blockRequests.get(block.getHash());
+        if (blockRequest == null) { return false; }
+        if (blockRequest.requestedNodeIds.isEmpty()) { return false; }
+
+        blockRequest.requestedNodeIds.clear();
+        _inFlightBlockHashes.remove(blockRequest.sequenceNumber);
+        _pendingBlockHashes.remove(blockRequest.sequenceNumber);
+        _downloadedBlocks.put(blockRequest.sequenceNumber, block);
+        return true;
+    }
+
+    /**
+     * Removes and returns, in order, up to maxBlockCount downloaded blocks that directly follow the last released block.
+     */
+    public List<Block> releaseBlocks(final Integer maxBlockCount) {
+        final MutableList<Block> blocks = new MutableList<Block>();
+        while (blocks.getSize() < maxBlockCount) {
+            final Block block = _downloadedBlocks.remove(_nextReleasedSequenceNumber);
+            if (block == null) { break; }
+
+            _blockRequests.remove(block.getHash());
+            _nextReleasedSequenceNumber += 1L;
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the number of blocks currently requested from the node.
+     */
+    public Integer getRequestCount(final NodeId nodeId) {
+        final Integer requestCount = _nodeRequestCounts.get(nodeId);
+        return (requestCount != null ? requestCount : 0);
+    }
+
+    public Integer getPendingBlockCount() {
+        return _pendingBlockHashes.size();
+    }
+
+    public Integer getInFlightBlockCount() {
+        return _inFlightBlockHashes.size();
+    }
+
+    public Integer getDownloadedBlockCount() {
+        return _downloadedBlocks.size();
+    }
+}
@@ -13,21 +13,54 @@ import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.database.mysql.MysqlDatabaseConnectionFactory;
 import com.softwareverde.io.Logger;
-import com.softwareverde.util.Container;
+import com.softwareverde.network.p2p.node.NodeId;
 import com.softwareverde.util.Util;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class BlockDownloader {
+    public static final Integer MAX_IN_FLIGHT_BLOCK_COUNT_PER_NODE = 16;
+    public static final Long STALLED_BLOCK_TIMEOUT = 5_000L;
+    public static final Long BLOCK_HASHES_QUERY_TIMEOUT = 30_000L;
+
+    protected class BlockDownloadSchedulerThread extends Thread {
+        public BlockDownloadSchedulerThread() {
+            this.setName("Block Downloader - Scheduler Thread - " + this.getId());
+        }
+
+        @Override
+        public void run() {
+            while (_shouldContinue) {
+                _queryBlockHashes();
+                _requestBlocks();
+
+                synchronized (_mutex) {
+                    _releaseBlocks();
+
+                    try { _mutex.wait(250L); }
+                    catch (final InterruptedException exception) { break; }
+                }
+            }
+
+            Logger.log("Block Downloader Scheduler Thread exiting...");
+        }
+    }
+
     protected final MysqlDatabaseConnectionFactory _databaseConnectionFactory;
     protected final BitcoinNodeManager _nodeManager;
 
     protected Integer _maxQueueSize = 1;
+    protected Integer _downloadWindowSize = 128;
     protected final ConcurrentLinkedQueue<Block> _queuedBlocks = new ConcurrentLinkedQueue<Block>();
     protected final BlockProcessor _blockProcessor;
     protected final BlockValidatorThread _blockValidatorThread;
     protected volatile Boolean _shouldContinue = true;
 
+    protected final Object _mutex = new Object();
+    protected BlockDownloadWindow _blockDownloadWindow = null;
+    protected Long _blockHashesQueryTimestamp = null; // null if there is no block hashes query in-flight...
+    protected Thread _schedulerThread = null;
+
     protected Boolean _hasGenesisBlock() {
         try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
             final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
@@ -40,6 +73,148 @@ public class BlockDownloader {
         }
     }
 
+    // NOTE: Requires Mutex lock...
+    protected void _releaseBlocks() {
+        // Blocks taken by the BlockValidatorThread for pre-validation remain in memory until processed, so they count against the queue's size...
+        final Integer queuedBlockCount = (_queuedBlocks.size() + _blockValidatorThread.getPendingBlockCount());
+        final Integer availableQueueSize = (_maxQueueSize - queuedBlockCount);
+        if (availableQueueSize <= 0) { return; }
+
+        final List<Block> releasedBlocks = _blockDownloadWindow.releaseBlocks(availableQueueSize);
+        if (releasedBlocks.isEmpty()) { return; }
+
+        for (final Block block : releasedBlocks) {
+            _queuedBlocks.add(block);
+        }
+
+        Logger.log("Block Queue Size: "+ (_queuedBlocks.size() + _blockValidatorThread.getPendingBlockCount()) + " / " + _maxQueueSize + " - Download Window: " + _blockDownloadWindow.getInFlightBlockCount() + " in-flight, " + _blockDownloadWindow.getDownloadedBlockCount() + " buffered");
+    }
+
+    /**
+     * Returns the node that the block should be requested from, or null if no node is available.
+     *  The node with the fewest in-flight blocks is selected; ties are won by the healthier node, and a node is not assigned more
+     *  than MAX_IN_FLIGHT_BLOCK_COUNT_PER_NODE blocks.  Since a fast node completes its requests sooner, it has capacity more often,
+     *  and is therefore assigned more of the window.
+     */
+    // NOTE: Requires Mutex lock...
+    protected BitcoinNode _selectNode(final Sha256Hash blockHash, final List<BitcoinNode> nodesByHealth) {
+        final Integer nodeCount = nodesByHealth.getSize();
+
+        BitcoinNode selectedNode = null;
+        Integer selectedNodeRequestCount = MAX_IN_FLIGHT_BLOCK_COUNT_PER_NODE;
+        for (final BitcoinNode bitcoinNode : nodesByHealth) {
+            final NodeId nodeId = bitcoinNode.getId();
+
+            final Integer requestCount = _blockDownloadWindow.getRequestCount(nodeId);
+            if (requestCount >= selectedNodeRequestCount) { continue; }
+            if (! _blockDownloadWindow.canRequestBlockFrom(blockHash, nodeId, nodeCount)) { continue; }
+
+            selectedNode = bitcoinNode;
+            selectedNodeRequestCount = requestCount;
+        }
+        return selectedNode;
+    }
+
+    protected BitcoinNode.DownloadBlockCallback _createDownloadBlockCallback(final Sha256Hash blockHash, final BitcoinNode bitcoinNode) {
+        final NodeId nodeId = bitcoinNode.getId();
+
+        return new BitcoinNode.DownloadBlockCallback() {
+            @Override
+            public void onResult(final Block block) {
+                synchronized (_mutex) {
+                    if (block == null) {
+                        Logger.log("Block download failed: " + blockHash + " from " + bitcoinNode.getConnectionString());
+                        _blockDownloadWindow.onBlockRequestFailed(blockHash, nodeId);
+                    }
+                    else {
+                        final Boolean wasRequested = _blockDownloadWindow.onBlockDownloaded(block, nodeId);
+                        if (wasRequested) {
+                            Logger.log("DOWNLOADED BLOCK: "+ blockHash);
+                        }
+                    }
+
+                    _releaseBlocks();
+                    _mutex.notifyAll();
+                }
+            }
+        };
+    }
+
+    /**
+     * Assigns the stalled block (if any) and every requestable block within the download window to the active nodes, then sends the requests.
+     */
+    protected void _requestBlocks() {
+        final List<BitcoinNode> nodesByHealth = _nodeManager.getActiveNodesByHealth();
+        if (nodesByHealth.isEmpty()) { return; }
+
+        final MutableList<Sha256Hash> requestedBlockHashes = new MutableList<Sha256Hash>();
+        final MutableList<BitcoinNode> requestedNodes = new MutableList<BitcoinNode>();
+
+        synchronized (_mutex) {
+            final Long now = System.currentTimeMillis();
+
+            final Sha256Hash stalledBlockHash = _blockDownloadWindow.getStalledBlockHash(now);
+            if (stalledBlockHash != null) {
+                final BitcoinNode bitcoinNode = _selectNode(stalledBlockHash, nodesByHealth);
+                if (bitcoinNode != null) {
+                    Logger.log("Block download stalled: " + stalledBlockHash + ". Requesting from " + bitcoinNode.getConnectionString());
+                    _blockDownloadWindow.onBlockRequested(stalledBlockHash, bitcoinNode.getId(), now);
+                    requestedBlockHashes.add(stalledBlockHash);
+                    requestedNodes.add(bitcoinNode);
+                }
+            }
+
+            while (true) {
+                final Sha256Hash blockHash = _blockDownloadWindow.getNextRequestableBlockHash();
+                if (blockHash == null) { break; }
+
+                final BitcoinNode bitcoinNode = _selectNode(blockHash, nodesByHealth);
+                if (bitcoinNode == null) { break; }
+
+                _blockDownloadWindow.onBlockRequested(blockHash, bitcoinNode.getId(), now);
+                requestedBlockHashes.add(blockHash);
+                requestedNodes.add(bitcoinNode);
+            }
+        }
+
+        for (int i = 0; i < requestedBlockHashes.getSize(); ++i) {
+            final Sha256Hash blockHash = requestedBlockHashes.get(i);
+            final BitcoinNode bitcoinNode = requestedNodes.get(i);
+            _nodeManager.requestBlock(bitcoinNode, blockHash, _createDownloadBlockCallback(blockHash, bitcoinNode));
+        }
+    }
+
+    /**
+     * Queries for the block hashes following the download window once fewer than a window's worth of blocks remain pending.
+     *  If the query returns no new block hashes (i.e. the node is synced), the query is not repeated until BLOCK_HASHES_QUERY_TIMEOUT has elapsed.
+     */
+    protected void _queryBlockHashes() {
+        final Sha256Hash lastBlockHash;
+        synchronized (_mutex) {
+            if (_blockDownloadWindow.getPendingBlockCount() >= _downloadWindowSize) { return; }
+
+            final Long now = System.currentTimeMillis();
+            if ( (_blockHashesQueryTimestamp != null) && ((now - _blockHashesQueryTimestamp) < BLOCK_HASHES_QUERY_TIMEOUT) ) { return; }
+
+            _blockHashesQueryTimestamp = now;
+            lastBlockHash = _blockDownloadWindow.getLastBlockHash();
+        }
+
+        _nodeManager.requestBlockHashesAfter(lastBlockHash, new BitcoinNode.QueryCallback() {
+            @Override
+            public void onResult(final List<Sha256Hash> blockHashes) {
+                if (! _shouldContinue) { return; }
+                if (blockHashes.isEmpty()) { return; }
+
+                synchronized (_mutex) {
+                    _blockDownloadWindow.addBlockHashes(blockHashes);
+                    _blockHashesQueryTimestamp = null;
+                    _mutex.notifyAll();
+                }
+            }
+        });
+    }
+
     public BlockDownloader(final MysqlDatabaseConnectionFactory databaseConnectionFactory, final BitcoinNodeManager nodeManager, final BlockProcessor blockProcessor) {
         _databaseConnectionFactory = databaseConnectionFactory;
         _nodeManager = nodeManager;
@@ -52,6 +227,17 @@ public class BlockDownloader {
         _maxQueueSize = maxQueueSize;
     }
 
+    /**
+     * Sets the maximum number of blocks, beyond the last block queued for processing, that may be in-flight or buffered at once.
+     */
+    public void setDownloadWindowSize(final Integer downloadWindowSize) {
+        _downloadWindowSize = downloadWindowSize;
+    }
+
+    public void setPreValidationThreadCount(final Integer preValidationThreadCount) {
+        _blockValidatorThread.setPreValidationThreadCount(preValidationThreadCount);
+    }
+
     protected void _downloadAllBlocks() {
         final Sha256Hash resumeAfterHash;
         {
@@ -65,53 +251,15 @@ public class BlockDownloader {
             resumeAfterHash = Util.coalesce(lastKnownHash, Block.GENESIS_BLOCK_HASH);
         }
 
-        final Container<Sha256Hash> lastBlockHash = new Container<Sha256Hash>(resumeAfterHash);
-        final Container<BitcoinNode.QueryCallback> getBlocksHashesAfterCallback = new Container<BitcoinNode.QueryCallback>();
-
-        final MutableList<Sha256Hash> availableBlockHashes = new MutableList<Sha256Hash>();
-
-        final BitcoinNode.DownloadBlockCallback downloadBlockCallback = new BitcoinNode.DownloadBlockCallback() {
-            @Override
-            public void onResult(final Block block) {
-                if (! _shouldContinue) { return; }
-
-                Logger.log("DOWNLOADED BLOCK: "+ block.getHash());
+        synchronized (_mutex) {
+            if (! _shouldContinue) { return; }
 
-                if (! lastBlockHash.value.equals(block.getPreviousBlockHash())) { return; } // Ignore blocks sent out of order...
+            _blockDownloadWindow = new BlockDownloadWindow(resumeAfterHash, _downloadWindowSize, STALLED_BLOCK_TIMEOUT);
+            _blockHashesQueryTimestamp = null;
 
-                _queuedBlocks.add(block);
-                Logger.log("Block Queue Size: "+ _queuedBlocks.size() + " / " + _maxQueueSize);
-
-                lastBlockHash.value = block.getHash();
-
-                while (_queuedBlocks.size() >= _maxQueueSize) {
-                    if (! _shouldContinue) { return; }
-                    try { Thread.sleep(500L); } catch (final Exception exception) { return; }
-                }
-
-                if (! availableBlockHashes.isEmpty()) {
-                    _nodeManager.requestBlock(availableBlockHashes.remove(0), this);
-                }
-                else {
-                    _nodeManager.requestBlockHashesAfter(lastBlockHash.value, getBlocksHashesAfterCallback.value);
-                }
-            }
-        };
-
-        getBlocksHashesAfterCallback.value = new BitcoinNode.QueryCallback() {
-            @Override
-            public void onResult(final List<Sha256Hash> blockHashes) {
-                if (! _shouldContinue) { return; }
-
-                availableBlockHashes.addAll(blockHashes);
-
-                if (! availableBlockHashes.isEmpty()) {
-                    _nodeManager.requestBlock(availableBlockHashes.remove(0), downloadBlockCallback);
-                }
-            }
-        };
-
-        _nodeManager.requestBlockHashesAfter(lastBlockHash.value, getBlocksHashesAfterCallback.value);
+            _schedulerThread = new BlockDownloadSchedulerThread();
+            _schedulerThread.start();
+        }
     }
 
     public void start() {
@@ -142,6 +290,18 @@ public class BlockDownloader {
 
     public void stop() {
         _shouldContinue = false;
+
+        final Thread schedulerThread;
+        synchronized (_mutex) {
+            schedulerThread = _schedulerThread;
+            _schedulerThread = null;
+        }
+
+        if (schedulerThread != null) {
+            schedulerThread.interrupt();
+            try { schedulerThread.join(); } catch (final Exception exception) { }
+        }
+
         _blockValidatorThread.stop();
 //        _blockValidatorThread.interrupt();
 //        try { _blockValidatorThread.join(); } catch (final Exception exception) { }
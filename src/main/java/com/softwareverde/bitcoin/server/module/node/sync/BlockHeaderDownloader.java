@@ -5,6 +5,7 @@ import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.BlockHeaderWithTransactionCount;
 import com.softwareverde.bitcoin.block.validator.BlockHeaderValidator;
+import com.softwareverde.bitcoin.block.validator.difficulty.BlockHeaderWindow;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.chain.time.MutableMedianBlockTime;
 import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
@@ -13,6 +14,7 @@ import com.softwareverde.bitcoin.server.module.node.BitcoinNodeManager;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
 import com.softwareverde.database.mysql.MysqlDatabaseConnectionFactory;
@@ -32,6 +34,22 @@ public class BlockHeaderDownloader {
 
     protected volatile boolean _shouldStop = false;
 
+    protected BlockHeaderWindow _blockHeaderWindow = null; // Synchronized via BlockDatabaseManager.MUTEX...
+
+    /**
+     * Returns a BlockHeaderWindow whose head is previousBlockHash.
+     *  The current window is rewound if it contains previousBlockHash, otherwise the window is reloaded from the database.
+     *  The window is also reloaded if rewinding left it without enough history to calculate the next retarget.
+     *  The returned window is empty if previousBlockHash is not stored.
+     *  Must be invoked while holding BlockDatabaseManager.MUTEX.
+     */
+    protected BlockHeaderWindow _getBlockHeaderWindow(final BlockDatabaseManager blockDatabaseManager, final Sha256Hash previousBlockHash) throws DatabaseException {
+        if ( (_blockHeaderWindow == null) || (! _blockHeaderWindow.rewindTo(previousBlockHash)) || (! _blockHeaderWindow.hasCompleteHistory()) ) {
+            _blockHeaderWindow = blockDatabaseManager.initializeBlockHeaderWindow(previousBlockHash);
+        }
+        return _blockHeaderWindow;
+    }
+
     protected Boolean _hasGenesisBlockHeader() {
         try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
             final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
@@ -44,6 +62,92 @@ public class BlockHeaderDownloader {
         }
     }
 
+    /**
+     * Validates the BlockHeaders in memory and stores the valid BlockHeaders within a single transaction.
+     *  Validation stops at the first invalid BlockHeader; the BlockHeaders preceding it are still stored.
+     *  If the first BlockHeader's parent is not stored, its difficulty cannot be calculated, so (as before the BlockHeaderWindow)
+     *  only the BlockHeaders themselves are validated.
+     *  If the BlockHeaders are new and extend the head of a BlockChainSegment (i.e. during initial sync), they are inserted
+     *  with a single query and the BlockChainSegment is updated once; otherwise each BlockHeader is stored individually.
+     *  Returns the BlockHeaders that were stored.
+     */
+    protected List<BlockHeader> _storeBlockHeaders(final MysqlDatabaseConnection databaseConnection, final List<? extends BlockHeader> blockHeaders) throws DatabaseException {
+        final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+        final BlockHeaderValidator blockHeaderValidator = new BlockHeaderValidator(databaseConnection, _nodeManager.getNetworkTime(), _medianBlockTime);
+
+        final MutableList<BlockHeader> validBlockHeaders = new MutableList<BlockHeader>(blockHeaders.getSize());
+        if (blockHeaders.isEmpty()) { return validBlockHeaders; }
+
+        synchronized (BlockDatabaseManager.MUTEX) {
+            final Sha256Hash previousBlockHash = blockHeaders.get(0).getPreviousBlockHash();
+            final BlockHeaderWindow blockHeaderWindow = _getBlockHeaderWindow(blockDatabaseManager, previousBlockHash);
+            final Boolean previousBlockHeaderIsKnown = (blockHeaderWindow.getHeadBlockHash() != null);
+            if (! previousBlockHeaderIsKnown) {
+                Logger.log("NOTICE: Unknown parent for BlockHeaders: " + previousBlockHash + "; difficulty not validated.");
+            }
+
+            for (final BlockHeader blockHeader : blockHeaders) {
+                final Boolean blockHeaderIsValid;
+                if (previousBlockHeaderIsKnown) {
+                    blockHeaderIsValid = blockHeaderValidator.validateBlockHeader(blockHeaderWindow, blockHeader);
+                }
+                else {
+                    blockHeaderIsValid = blockHeader.isValid();
+                }
+
+                if (! blockHeaderIsValid) {
+                    Logger.log("Invalid BlockHeader received: " + blockHeader.getHash());
+                    break;
+                }
+
+                if (previousBlockHeaderIsKnown) {
+                    blockHeaderWindow.addBlockHeader(blockHeader);
+                }
+                validBlockHeaders.add(blockHeader);
+            }
+
+            if (validBlockHeaders.isEmpty()) { return validBlockHeaders; }
+
+            try {
+                TransactionUtil.startTransaction(databaseConnection);
+
+                final BlockId previousBlockId = blockDatabaseManager.getBlockIdFromHash(previousBlockHash);
+                final Boolean blockHeadersAreNew = (blockDatabaseManager.getBlockIdFromHash(validBlockHeaders.get(0).getHash()) == null);
+                if ( blockHeadersAreNew && (previousBlockId != null) && blockChainDatabaseManager.canExtendBlockChainSegment(previousBlockId) ) {
+                    final List<BlockId> blockIds = blockDatabaseManager.insertBlockHeaders(validBlockHeaders);
+                    if (blockIds == null) {
+                        throw new DatabaseException("Error storing BlockHeaders after: " + previousBlockHash);
+                    }
+
+                    blockChainDatabaseManager.updateBlockChainsForNewBlocks(previousBlockId, blockIds);
+                }
+                else {
+                    for (final BlockHeader blockHeader : validBlockHeaders) {
+                        final BlockId blockId = blockDatabaseManager.storeBlockHeader(blockHeader);
+                        if (blockId == null) {
+                            throw new DatabaseException("Error storing BlockHeader: " + blockHeader.getHash());
+                        }
+
+                        blockChainDatabaseManager.updateBlockChainsForNewBlock(blockHeader);
+                    }
+                }
+
+                TransactionUtil.commitTransaction(databaseConnection);
+                BlockDatabaseManager.BLOCK_TREE.commit();
+            }
+            catch (final DatabaseException exception) {
+                BlockDatabaseManager.BLOCK_TREE.rollback();
+                if (! blockHeaderWindow.rewindTo(previousBlockHash)) {
+                    _blockHeaderWindow = null;
+                }
+                throw exception;
+            }
+        }
+
+        return validBlockHeaders;
+    }
+
     protected void _downloadAllBlockHeaders() {
         final Sha256Hash resumeAfterHash;
         {
@@ -67,39 +171,9 @@ public class BlockHeaderDownloader {
                 final BlockHeader firstBlockHeader = blockHeaders.get(0);
                 Logger.log("DOWNLOADED BLOCK HEADERS: "+ firstBlockHeader.getHash() + " + " + blockHeaders.getSize());
 
+                final List<BlockHeader> storedBlockHeaders;
                 try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
-                    final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
-                    final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
-
-                    for (final BlockHeader blockHeader : blockHeaders) {
-                        final Sha256Hash blockHash = blockHeader.getHash();
-
-                        if (! blockHeader.isValid()) {
-                            Logger.log("Invalid BlockHeader received: " + blockHash);
-                            break;
-                        }
-
-                        final BlockId blockId;
-                        synchronized (BlockDatabaseManager.MUTEX) {
-                            TransactionUtil.startTransaction(databaseConnection);
-                            blockId = blockDatabaseManager.storeBlockHeader(blockHeader);
-                            blockChainDatabaseManager.updateBlockChainsForNewBlock(blockHeader);
-                            TransactionUtil.commitTransaction(databaseConnection);
-                        }
-
-                        if (blockId == null) {
-                            Logger.log("Error storing BlockHeader: " + blockHash);
-                            break;
-                        }
-                        else {
-                            _blockHeaderCount += 1L;
-                            final Long now = System.currentTimeMillis();
-                            final Long millisecondsElapsed = (now - _startTime);
-                            _averageBlockHeadersPerSecond.value = ( (_blockHeaderCount.floatValue() / millisecondsElapsed) * 1000L );
-                        }
-
-                        lastBlockHash.value = blockHash;
-                    }
+                    storedBlockHeaders = _storeBlockHeaders(databaseConnection, blockHeaders);
                 }
                 catch (final DatabaseException exception) {
                     Logger.log(exception);
@@ -107,6 +181,16 @@ public class BlockHeaderDownloader {
                     return;
                 }
 
+                if (! storedBlockHeaders.isEmpty()) {
+                    _blockHeaderCount += storedBlockHeaders.getSize();
+                    final Long now = System.currentTimeMillis();
+                    final Long millisecondsElapsed = (now - _startTime);
+                    _averageBlockHeadersPerSecond.value = ( (_blockHeaderCount.floatValue() / millisecondsElapsed) * 1000L );
+
+                    final BlockHeader lastBlockHeader = storedBlockHeaders.get(storedBlockHeaders.getSize() - 1);
+                    lastBlockHash.value = lastBlockHeader.getHash();
+                }
+
                 Logger.log("Stored Block Headers: " + firstBlockHeader.getHash() + " - " + lastBlockHash.value);
 
                 _nodeManager.requestBlockHeadersAfter(lastBlockHash.value, this);
@@ -153,10 +237,12 @@ public class BlockHeaderDownloader {
                         if (! blockHeaderIsValid) {
                             Logger.log("Invalid BlockHeader: " + blockHeader.getHash());
                             TransactionUtil.rollbackTransaction(databaseConnection);
+                            BlockDatabaseManager.BLOCK_TREE.rollback();
                             return;
                         }
 
                         TransactionUtil.commitTransaction(databaseConnection);
+                        BlockDatabaseManager.BLOCK_TREE.commit();
 
                         if (blockId == null) {
                             Logger.log("Error storing genesis block header.");
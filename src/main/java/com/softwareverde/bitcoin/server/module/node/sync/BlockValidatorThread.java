@@ -1,44 +1,102 @@
 package com.softwareverde.bitcoin.server.module.node.sync;
 
 import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.ImmutableBlock;
 import com.softwareverde.bitcoin.server.module.node.BlockProcessor;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
 import com.softwareverde.io.Logger;
 import com.softwareverde.util.timer.Timer;
 
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Processes queued blocks as a two-stage pipeline:
+ *  1. Context-free validation (transaction hashing, merkle root, and proof-of-work) is performed concurrently on a pool of
+ *      preValidationThreadCount threads, for up to (preValidationThreadCount * 2) blocks ahead of the block currently being processed.
+ *  2. Storage, contextual validation, and commit are performed by BlockProcessor, one block at a time, in the order the blocks were queued.
+ *
+ *  Stage 2 is inherently serial; each block's inputs are resolved against the outputs committed by its predecessor.
+ */
 public class BlockValidatorThread {
+    protected static class PendingBlock {
+        public final Block block;
+        public final Future<ImmutableBlock> preValidatedBlock;
+
+        public PendingBlock(final Block block, final Future<ImmutableBlock> preValidatedBlock) {
+            this.block = block;
+            this.preValidatedBlock = preValidatedBlock;
+        }
+    }
+
+    /**
+     * Converts the block to its const form (which calculates and retains each transaction's hash) and validates its
+     *  proof-of-work and merkle root.  Returns null if the block is invalid.
+     */
+    protected static ImmutableBlock _preValidateBlock(final Block block) {
+        final ImmutableBlock constBlock = block.asConst();
+        if (! constBlock.isValid()) { return null; }
+        return constBlock;
+    }
+
     protected final ConcurrentLinkedQueue<Block> _queuedBlocks;
+    protected final LinkedList<PendingBlock> _pendingBlocks = new LinkedList<PendingBlock>();
+    protected volatile Integer _pendingBlockCount = 0; // The size of _pendingBlocks, readable from other threads...
     protected final BlockProcessor _blockProcessor;
     protected final Thread _thread;
     protected volatile Boolean _shouldContinue = true;
 
-    public BlockValidatorThread(final ConcurrentLinkedQueue<Block> queuedBlocks, final BlockProcessor blockProcessor) {
-        _queuedBlocks = queuedBlocks;
-        _blockProcessor = blockProcessor;
+    protected Integer _preValidationThreadCount = 2;
+    protected ExecutorService _preValidationThreadPool;
 
-        _thread = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                _execute();
-            }
-        });
-        _thread.setPriority(Thread.MAX_PRIORITY);
+    protected void _queuePreValidation() {
+        final int maxPendingBlockCount = (_preValidationThreadCount * 2);
+        while (_pendingBlocks.size() < maxPendingBlockCount) {
+            final Block block = _queuedBlocks.poll();
+            if (block == null) { break; }
+
+            final Future<ImmutableBlock> preValidatedBlock = _preValidationThreadPool.submit(new Callable<ImmutableBlock>() {
+                @Override
+                public ImmutableBlock call() {
+                    return _preValidateBlock(block);
+                }
+            });
+
+            _pendingBlocks.addLast(new PendingBlock(block, preValidatedBlock));
+            _pendingBlockCount = _pendingBlocks.size();
+        }
+    }
+
+    protected ImmutableBlock _waitForPreValidation(final PendingBlock pendingBlock) {
+        try {
+            return pendingBlock.preValidatedBlock.get();
+        }
+        catch (final Exception exception) {
+            Logger.log(exception);
+            return null;
+        }
     }
 
     protected void _execute() {
         while (_shouldContinue) {
-            final Block block = _queuedBlocks.poll();
-            if (block != null) {
+            _queuePreValidation();
+
+            final PendingBlock pendingBlock = _pendingBlocks.pollFirst();
+            _pendingBlockCount = _pendingBlocks.size();
+            if (pendingBlock != null) {
                 final Timer timer = new Timer();
                 timer.start();
-                final Boolean isValidBlock = _blockProcessor.processBlock(block);
+                final ImmutableBlock preValidatedBlock = _waitForPreValidation(pendingBlock);
+                final Boolean isValidBlock = ( (preValidatedBlock != null) && _blockProcessor.processBlock(preValidatedBlock) );
                 timer.stop();
                 Logger.log("Process Block Duration: " + String.format("%.2f", timer.getMillisecondsElapsed()));
 
                 if (! isValidBlock) {
-                    Logger.log("Invalid block: " + block.getHash());
+                    Logger.log("Invalid block: " + pendingBlock.block.getHash());
                     BitcoinUtil.exitFailure();
                 }
             }
@@ -50,12 +108,45 @@ public class BlockValidatorThread {
         Logger.log("Block Validator Thread exiting...");
     }
 
+    public BlockValidatorThread(final ConcurrentLinkedQueue<Block> queuedBlocks, final BlockProcessor blockProcessor) {
+        _queuedBlocks = queuedBlocks;
+        _blockProcessor = blockProcessor;
+
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _execute();
+            }
+        });
+        _thread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * Sets the number of threads used to validate blocks before they are stored.  Must be set before start() is invoked.
+     */
+    public void setPreValidationThreadCount(final Integer preValidationThreadCount) {
+        _preValidationThreadCount = Math.max(1, preValidationThreadCount);
+    }
+
+    /**
+     * Returns the number of blocks that have been taken from the queue for pre-validation but have not yet been processed.
+     *  These blocks are still held in memory, so they should be counted against the queue's size.
+     */
+    public Integer getPendingBlockCount() {
+        return _pendingBlockCount;
+    }
+
     public void start() {
+        _preValidationThreadPool = Executors.newFixedThreadPool(_preValidationThreadCount);
         _thread.start();
     }
 
     public void stop() {
         _shouldContinue = false;
         try { _thread.join(); } catch (final Exception exception) { }
+
+        if (_preValidationThreadPool != null) {
+            _preValidationThreadPool.shutdownNow();
+        }
     }
-}
\ No newline at end of file
+}
@@ -11,15 +11,18 @@ import com.softwareverde.bitcoin.server.message.type.node.feature.NodeFeatures;
 import com.softwareverde.bitcoin.server.message.type.node.ping.BitcoinPingMessage;
 import com.softwareverde.bitcoin.server.message.type.node.pong.BitcoinPongMessage;
 import com.softwareverde.bitcoin.server.message.type.query.block.QueryBlocksMessage;
+import com.softwareverde.bitcoin.server.message.type.query.mempool.QueryMemoryPoolMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.QueryResponseMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.BlockMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.block.header.BlockHeadersMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.DataHash;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.DataHashType;
+import com.softwareverde.bitcoin.server.message.type.query.response.transaction.TransactionMessage;
 import com.softwareverde.bitcoin.server.message.type.request.RequestDataMessage;
 import com.softwareverde.bitcoin.server.message.type.request.header.RequestBlockHeadersMessage;
 import com.softwareverde.bitcoin.server.message.type.version.acknowledge.BitcoinAcknowledgeVersionMessage;
 import com.softwareverde.bitcoin.server.message.type.version.synchronize.BitcoinSynchronizeVersionMessage;
+import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.type.callback.Callback;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
 import com.softwareverde.constable.list.List;
@@ -58,6 +61,18 @@ public class BitcoinNode extends Node {
         void run(List<DataHash> dataHashes, NodeConnection nodeConnection);
     }
 
+    public interface TransactionsAnnouncementCallback {
+        void run(List<Sha256Hash> transactionHashes, BitcoinNode bitcoinNode);
+    }
+
+    public interface TransactionCallback {
+        void run(Transaction transaction, BitcoinNode bitcoinNode);
+    }
+
+    public interface QueryMemoryPoolCallback {
+        void run(NodeConnection nodeConnection);
+    }
+
     protected static class BlockHashQueryCallback implements Callback<List<Sha256Hash>> {
         public Sha256Hash afterBlockHash;
         public QueryCallback callback;
@@ -85,6 +100,9 @@ public class BitcoinNode extends Node {
     protected QueryBlocksCallback _queryBlocksCallback = null;
     protected QueryBlockHeadersCallback _queryBlockHeadersCallback = null;
     protected RequestDataCallback _requestDataMessageCallback = null;
+    protected TransactionsAnnouncementCallback _transactionsAnnouncementCallback = null;
+    protected TransactionCallback _transactionCallback = null;
+    protected QueryMemoryPoolCallback _queryMemoryPoolCallback = null;
 
     protected final Map<DataHashType, Set<BlockHashQueryCallback>> _queryRequests = new HashMap<DataHashType, Set<BlockHashQueryCallback>>();
     protected final Map<Sha256Hash, Set<DownloadBlockCallback>> _downloadBlockRequests = new HashMap<Sha256Hash, Set<DownloadBlockCallback>>();
@@ -190,6 +208,14 @@ public class BitcoinNode extends Node {
                         _onBlockHeadersMessageReceived((BlockHeadersMessage) message);
                     } break;
 
+                    case TRANSACTION: {
+                        _onTransactionMessageReceived((TransactionMessage) message);
+                    } break;
+
+                    case QUERY_MEMORY_POOL: {
+                        _onQueryMemoryPoolMessageReceived((QueryMemoryPoolMessage) message, _connection);
+                    } break;
+
                     case QUERY_BLOCKS: {
                         _onQueryBlocksMessageReceived((QueryBlocksMessage) message, _connection);
                     } break;
@@ -277,6 +303,14 @@ public class BitcoinNode extends Node {
             final List<Sha256Hash> objectHashes = dataHashesMap.get(dataHashType);
             if (objectHashes.isEmpty()) { continue; }
 
+            if (dataHashType == DataHashType.TRANSACTION) { // Transactions are announced unsolicited, and are never the response to a query...
+                final TransactionsAnnouncementCallback transactionsAnnouncementCallback = _transactionsAnnouncementCallback;
+                if (transactionsAnnouncementCallback != null) {
+                    transactionsAnnouncementCallback.run(objectHashes, this);
+                }
+                continue;
+            }
+
             {   // NOTE: Since the QueryResponseMessage is not tied to the QueryRequest for Blocks,
                 //  in order to tie the callback to the response, the first block within the response is requested.
                 //  If the downloaded Block's previousBlockHash matchesByte the requestAfter BlockHash, then the response is
@@ -310,12 +344,41 @@ public class BitcoinNode extends Node {
 
     protected void _onBlockMessageReceived(final BlockMessage blockMessage) {
         final Block block = blockMessage.getBlock();
+        if (block == null) {
+            Logger.log("NOTICE: Received invalid block from node: " + getConnectionString());
+            return;
+        }
+
         final Boolean blockHeaderIsValid = block.isValid();
 
         final Sha256Hash blockHash = block.getHash();
         _executeAndClearCallbacks(_downloadBlockRequests, blockHash, (blockHeaderIsValid ? block : null));
     }
 
+    protected void _onTransactionMessageReceived(final TransactionMessage transactionMessage) {
+        final Transaction transaction = transactionMessage.getTransaction();
+        if (transaction == null) {
+            Logger.log("NOTICE: Received invalid transaction from node: " + getConnectionString());
+            return;
+        }
+
+        final TransactionCallback transactionCallback = _transactionCallback;
+        if (transactionCallback != null) {
+            transactionCallback.run(transaction, this);
+        }
+    }
+
+    protected void _onQueryMemoryPoolMessageReceived(final QueryMemoryPoolMessage queryMemoryPoolMessage, final NodeConnection nodeConnection) {
+        final QueryMemoryPoolCallback queryMemoryPoolCallback = _queryMemoryPoolCallback;
+
+        if (queryMemoryPoolCallback != null) {
+            queryMemoryPoolCallback.run(nodeConnection);
+        }
+        else {
+            Logger.log("NOTICE: No handler set for QueryMemoryPool message.");
+        }
+    }
+
     protected void _onBlockHeadersMessageReceived(final BlockHeadersMessage blockHeadersMessage) {
         final List<BlockHeaderWithTransactionCount> blockHeaders = blockHeadersMessage.getBlockHeaders();
 
@@ -393,6 +456,29 @@ public class BitcoinNode extends Node {
         _requestBlock(blockHash);
     }
 
+    /**
+     * Requests the transactions from the node; each transaction is provided to the TransactionCallback as it is received.
+     */
+    public void requestTransactions(final List<Sha256Hash> transactionHashes) {
+        if (transactionHashes.isEmpty()) { return; }
+
+        final RequestDataMessage requestDataMessage = new RequestDataMessage();
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            requestDataMessage.addInventoryItem(new DataHash(DataHashType.TRANSACTION, transactionHash));
+        }
+        _queueMessage(requestDataMessage);
+    }
+
+    public void announceTransactions(final List<Sha256Hash> transactionHashes) {
+        if (transactionHashes.isEmpty()) { return; }
+
+        final QueryResponseMessage queryResponseMessage = new QueryResponseMessage();
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            queryResponseMessage.addInventoryItem(new DataHash(DataHashType.TRANSACTION, transactionHash));
+        }
+        _queueMessage(queryResponseMessage);
+    }
+
     public void requestBlockHeaders(final List<Sha256Hash> blockHashes, final DownloadBlockHeadersCallback downloadBlockHeaderCallback) {
         if (blockHashes.isEmpty()) { return; }
 
@@ -413,6 +499,18 @@ public class BitcoinNode extends Node {
         _requestDataMessageCallback = requestDataCallback;
     }
 
+    public void setTransactionsAnnouncementCallback(final TransactionsAnnouncementCallback transactionsAnnouncementCallback) {
+        _transactionsAnnouncementCallback = transactionsAnnouncementCallback;
+    }
+
+    public void setTransactionCallback(final TransactionCallback transactionCallback) {
+        _transactionCallback = transactionCallback;
+    }
+
+    public void setQueryMemoryPoolCallback(final QueryMemoryPoolCallback queryMemoryPoolCallback) {
+        _queryMemoryPoolCallback = queryMemoryPoolCallback;
+    }
+
     public Boolean newBlocksViaHeadersIsEnabled() {
         return _announceNewBlocksViaHeadersIsEnabled;
     }
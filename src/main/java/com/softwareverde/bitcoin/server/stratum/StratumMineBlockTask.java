@@ -4,6 +4,8 @@ import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.ImmutableBlock;
 import com.softwareverde.bitcoin.block.MutableBlock;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderDeflater;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
 import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
 import com.softwareverde.bitcoin.block.header.difficulty.ImmutableDifficulty;
@@ -15,8 +17,6 @@ import com.softwareverde.bitcoin.transaction.TransactionInflater;
 import com.softwareverde.bitcoin.type.bytearray.FragmentedBytes;
 import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
-import com.softwareverde.bitcoin.type.merkleroot.MerkleRoot;
-import com.softwareverde.bitcoin.type.merkleroot.MutableMerkleRoot;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
 import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.constable.bytearray.ByteArray;
@@ -27,9 +27,27 @@ import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.io.Logger;
 import com.softwareverde.json.Json;
 import com.softwareverde.util.HexUtil;
-import com.softwareverde.util.bytearray.ByteArrayBuilder;
 
+/**
+ * A block template that is sent to stratum miners via mining.notify, and the validation of the shares submitted for it.
+ *
+ *  Shares are validated against the template's pre-serialized binary form (a ShareTemplate): the coinbase's head (with
+ *  extraNonce1) and tail bytes, the merkle branch as a flat byte[] of hashes, and an 80-byte header.  The ShareTemplate is
+ *  immutable once built, and is shared by every miner of the task.
+ *
+ *  Each miner's connection owns a ShareValidationContext, which holds the mutable buffers a share is decoded into: the
+ *  complete coinbase, the header, and the hashing scratch space.  A share's extraNonce2, timestamp, and nonce are decoded
+ *  from hex directly into these buffers, so validating a share does not allocate.  The merkle root is only recalculated if
+ *  the share's extraNonce2 differs from the connection's previous share; otherwise, the share is validated with a single
+ *  double-sha256 of the header.  Since the buffers are per-connection, shares from different miners are validated
+ *  concurrently.
+ */
 public class StratumMineBlockTask {
+    protected static final int HASH_BYTE_COUNT = Sha256Hash.BYTE_COUNT;
+    protected static final int MERKLE_ROOT_OFFSET = 36;
+    protected static final int TIMESTAMP_OFFSET = 68;
+    protected static final int NONCE_OFFSET = 76;
+
     final static Object _mutex = new Object();
     private static Long _nextId = 1L;
     protected static Long getNextId() {
@@ -43,31 +61,47 @@ public class StratumMineBlockTask {
     final ByteArray _id;
 
     protected final MutableBlock _prototypeBlock = new MutableBlock();
-    protected List<String> _merkleTreeBranches; // Little-endian merkle tree (intermediary) branch hashes...
+    protected List<String> _merkleTreeBranches = null; // Little-endian merkle tree (intermediary) branch hashes; calculated once per set of transactions...
     protected String _extraNonce1;
     protected String _coinbaseTransactionHead;
     protected String _coinbaseTransactionTail;
 
-    protected static MerkleRoot _calculateMerkleRoot(final Transaction coinbaseTransaction, final List<String> merkleTreeBranches) {
-        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
-
-        byte[] merkleRoot = coinbaseTransaction.getHash().toReversedEndian().getBytes();
-
-        for (final String merkleBranch : merkleTreeBranches) {
-            final byte[] concatenatedHashes;
-            {
-                byteArrayBuilder.appendBytes(merkleRoot);
-                byteArrayBuilder.appendBytes(HexUtil.hexStringToByteArray(merkleBranch));
-                concatenatedHashes = byteArrayBuilder.build();
-                byteArrayBuilder.clear();
-            }
-
-            merkleRoot = BitcoinUtil.sha256(BitcoinUtil.sha256(concatenatedHashes));
+    /**
+     * The immutable, binary form of the task's template; rebuilt when first required after the template changes.
+     */
+    protected static class ShareTemplate {
+        public final byte[] coinbaseTransactionHeadBytes; // The coinbase's head and extraNonce1...
+        public final byte[] coinbaseTransactionTailBytes;
+        public final byte[] merkleTreeBranchBytes; // The merkle branch's hashes, in the byte order they are hashed in...
+        public final byte[] blockHeaderBytes; // The header, without its merkle root, timestamp, or nonce...
+        public final byte[] difficultyBytes;
+
+        public ShareTemplate(final byte[] coinbaseTransactionHeadBytes, final byte[] coinbaseTransactionTailBytes, final byte[] merkleTreeBranchBytes, final byte[] blockHeaderBytes, final byte[] difficultyBytes) {
+            this.coinbaseTransactionHeadBytes = coinbaseTransactionHeadBytes;
+            this.coinbaseTransactionTailBytes = coinbaseTransactionTailBytes;
+            this.merkleTreeBranchBytes = merkleTreeBranchBytes;
+            this.blockHeaderBytes = blockHeaderBytes;
+            this.difficultyBytes = difficultyBytes;
         }
+    }
 
-        return MutableMerkleRoot.wrap(ByteUtil.reverseEndian(merkleRoot));
+    /**
+     * The mutable buffers a share is validated within.  Each miner's connection should own one context, and reuse it for
+     *  each share it submits (to any task); a context must not be used by multiple threads at once, so its use is synchronized.
+     */
+    public static class ShareValidationContext {
+        protected ShareTemplate _shareTemplate = null; // The template the buffers were built from...
+        protected byte[] _coinbaseTransactionBytes = null; // The coinbase's head, extraNonce1, extraNonce2, and tail...
+        protected int _extraNonce2Offset = 0;
+        protected int _extraNonce2ByteCount = 0;
+        protected byte[] _blockHeaderBytes = null;
+        protected Boolean _merkleRootIsCalculated = false;
+        protected final byte[] _merkleRootScratchSpace = new byte[HASH_BYTE_COUNT * 2];
+        protected final byte[] _blockHashBytes = new byte[HASH_BYTE_COUNT];
     }
 
+    protected volatile ShareTemplate _shareTemplate = null;
+
     protected static String _createByteString(final char a, final char b) {
         return String.valueOf(a) + b;
     }
@@ -105,36 +139,199 @@ public class StratumMineBlockTask {
         return stringBuilder.toString();
     }
 
-    protected Transaction _assembleCoinbaseTransaction(final String stratumExtraNonce2) {
-        final TransactionInflater transactionInflater = new TransactionInflater();
-        return transactionInflater.fromBytes(HexUtil.hexStringToByteArray(
-            _coinbaseTransactionHead +
-            _extraNonce1 +
-            stratumExtraNonce2 +
-            _coinbaseTransactionTail
-        ));
+    /**
+     * Returns true if the hex string encodes byteCount bytes, without decoding it.
+     */
+    protected static Boolean _isHexOfByteCount(final String hexString, final int byteCount) {
+        if (hexString.length() != (byteCount * 2)) { return false; }
+
+        for (int i = 0; i < hexString.length(); ++i) {
+            if (Character.digit(hexString.charAt(i), 16) < 0) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the hex string into output[offset, offset + hexString.length() / 2).
+     *  If shouldReverseBytes is true, the bytes are written in reverse order (i.e. a big-endian stratum integer is written as little-endian).
+     *  The hex string must have been checked via _isHexOfByteCount.
+     */
+    protected static void _decodeHex(final String hexString, final byte[] output, final int offset, final Boolean shouldReverseBytes) {
+        final int byteCount = (hexString.length() / 2);
+        for (int i = 0; i < byteCount; ++i) {
+            final int highNibble = Character.digit(hexString.charAt(i * 2), 16);
+            final int lowNibble = Character.digit(hexString.charAt((i * 2) + 1), 16);
+            final int outputIndex = (shouldReverseBytes ? (offset + byteCount - i - 1) : (offset + i));
+            output[outputIndex] = (byte) ((highNibble << 4) | lowNibble);
+        }
+    }
+
+    /**
+     * Returns true if the hex string encodes the same bytes as bytes[offset, offset + hexString.length() / 2).
+     */
+    protected static Boolean _hexEquals(final String hexString, final byte[] bytes, final int offset) {
+        final int byteCount = (hexString.length() / 2);
+        for (int i = 0; i < byteCount; ++i) {
+            final int highNibble = Character.digit(hexString.charAt(i * 2), 16);
+            final int lowNibble = Character.digit(hexString.charAt((i * 2) + 1), 16);
+            if (bytes[offset + i] != (byte) ((highNibble << 4) | lowNibble)) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the little-endian merkle branch of the coinbase transaction.
+     *  The branch does not depend upon the coinbase itself, so it is only recalculated after the block's other transactions change.
+     */
+    protected List<String> _getMerkleTreeBranches() {
+        if (_merkleTreeBranches == null) {
+            final ImmutableListBuilder<String> listBuilder = new ImmutableListBuilder<String>();
+            final List<Sha256Hash> partialMerkleTree = _prototypeBlock.getPartialMerkleTree(0);
+            for (final Sha256Hash hash : partialMerkleTree) {
+                listBuilder.add(_reverseEndian(hash.toString()));
+            }
+            _merkleTreeBranches = listBuilder.build();
+        }
+
+        return _merkleTreeBranches;
+    }
+
+    /**
+     * Discards the ShareTemplate; it is rebuilt once the next share is validated.
+     */
+    protected void _invalidateShareTemplate() {
+        _shareTemplate = null;
+    }
+
+    /**
+     * Returns the task's ShareTemplate, building it if the template has changed since it was last built.
+     *  Once built, the ShareTemplate is read without acquiring the task's lock.
+     */
+    protected ShareTemplate _getShareTemplate() {
+        final ShareTemplate cachedShareTemplate = _shareTemplate;
+        if (cachedShareTemplate != null) { return cachedShareTemplate; }
+
+        synchronized (this) {
+            if (_shareTemplate != null) { return _shareTemplate; }
+
+            final byte[] headBytes = HexUtil.hexStringToByteArray(_coinbaseTransactionHead);
+            final byte[] extraNonce1Bytes = HexUtil.hexStringToByteArray(_extraNonce1);
+            final byte[] coinbaseTransactionHeadBytes = new byte[headBytes.length + extraNonce1Bytes.length];
+            System.arraycopy(headBytes, 0, coinbaseTransactionHeadBytes, 0, headBytes.length);
+            System.arraycopy(extraNonce1Bytes, 0, coinbaseTransactionHeadBytes, headBytes.length, extraNonce1Bytes.length);
+
+            final byte[] coinbaseTransactionTailBytes = HexUtil.hexStringToByteArray(_coinbaseTransactionTail);
+
+            final List<String> merkleTreeBranches = _getMerkleTreeBranches();
+            final byte[] merkleTreeBranchBytes = new byte[merkleTreeBranches.getSize() * HASH_BYTE_COUNT];
+            for (int i = 0; i < merkleTreeBranches.getSize(); ++i) {
+                _decodeHex(merkleTreeBranches.get(i), merkleTreeBranchBytes, (i * HASH_BYTE_COUNT), false);
+            }
+
+            final MutableBlockHeader blockHeader = new MutableBlockHeader();
+            blockHeader.setVersion(_prototypeBlock.getVersion());
+            blockHeader.setPreviousBlockHash(_prototypeBlock.getPreviousBlockHash());
+            blockHeader.setDifficulty(_prototypeBlock.getDifficulty());
+            blockHeader.setTimestamp(0L);
+            blockHeader.setNonce(0L);
+
+            final BlockHeaderDeflater blockHeaderDeflater = new BlockHeaderDeflater();
+            final byte[] blockHeaderBytes = blockHeaderDeflater.toBytes(blockHeader).getBytes();
+            final byte[] difficultyBytes = _prototypeBlock.getDifficulty().getBytes().getBytes();
+
+            _shareTemplate = new ShareTemplate(coinbaseTransactionHeadBytes, coinbaseTransactionTailBytes, merkleTreeBranchBytes, blockHeaderBytes, difficultyBytes);
+            return _shareTemplate;
+        }
+    }
+
+    /**
+     * Builds the context's buffers from the ShareTemplate, if they were built from a different template.
+     *  The coinbase buffer is sized for extraNonce2ByteCount bytes of extraNonce2, and is rebuilt if a share's extraNonce2 is a different size.
+     */
+    protected static void _requireShareValidationBuffers(final ShareValidationContext context, final ShareTemplate shareTemplate, final int extraNonce2ByteCount) {
+        if ( (context._shareTemplate != shareTemplate) || (context._extraNonce2ByteCount != extraNonce2ByteCount) ) {
+            final byte[] headBytes = shareTemplate.coinbaseTransactionHeadBytes;
+            final byte[] tailBytes = shareTemplate.coinbaseTransactionTailBytes;
+
+            final byte[] coinbaseTransactionBytes = new byte[headBytes.length + extraNonce2ByteCount + tailBytes.length];
+            System.arraycopy(headBytes, 0, coinbaseTransactionBytes, 0, headBytes.length);
+            System.arraycopy(tailBytes, 0, coinbaseTransactionBytes, (coinbaseTransactionBytes.length - tailBytes.length), tailBytes.length);
+
+            context._coinbaseTransactionBytes = coinbaseTransactionBytes;
+            context._extraNonce2Offset = headBytes.length;
+            context._extraNonce2ByteCount = extraNonce2ByteCount;
+            context._blockHeaderBytes = ByteUtil.copyBytes(shareTemplate.blockHeaderBytes);
+            context._shareTemplate = shareTemplate;
+            context._merkleRootIsCalculated = false;
+        }
     }
 
-    protected BlockHeader _assembleBlockHeader(final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
-        final Transaction coinbaseTransaction = _assembleCoinbaseTransaction(stratumExtraNonce2);
-        return _assembleBlockHeader(stratumNonce, coinbaseTransaction, stratumTimestamp);
+    /**
+     * Calculates the merkle root of the context's coinbase buffer and the template's merkle branch, and writes it into the
+     *  context's header buffer.
+     */
+    protected static void _calculateMerkleRoot(final ShareValidationContext context) {
+        final byte[] coinbaseTransactionBytes = context._coinbaseTransactionBytes;
+        final byte[] merkleTreeBranchBytes = context._shareTemplate.merkleTreeBranchBytes;
+        final byte[] scratchSpace = context._merkleRootScratchSpace;
+        BitcoinUtil.doubleSha256(coinbaseTransactionBytes, 0, coinbaseTransactionBytes.length, scratchSpace, 0);
+
+        final int branchCount = (merkleTreeBranchBytes.length / HASH_BYTE_COUNT);
+        for (int i = 0; i < branchCount; ++i) {
+            System.arraycopy(merkleTreeBranchBytes, (i * HASH_BYTE_COUNT), scratchSpace, HASH_BYTE_COUNT, HASH_BYTE_COUNT);
+            BitcoinUtil.doubleSha256(scratchSpace, 0, (HASH_BYTE_COUNT * 2), scratchSpace, 0);
+        }
+
+        System.arraycopy(scratchSpace, 0, context._blockHeaderBytes, MERKLE_ROOT_OFFSET, HASH_BYTE_COUNT);
+        context._merkleRootIsCalculated = true;
     }
 
-    protected BlockHeader _assembleBlockHeader(final String stratumNonce, final Transaction coinbaseTransaction, final String stratumTimestamp) {
-        final MutableBlockHeader blockHeader = new MutableBlockHeader(_prototypeBlock);
+    /**
+     * Writes the share's extraNonce2, timestamp, and nonce into the context's buffers.
+     *  Returns false if any of the share's values are malformed.
+     */
+    protected Boolean _applyShare(final ShareValidationContext context, final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
+        if ( (stratumNonce == null) || (stratumExtraNonce2 == null) || (stratumTimestamp == null) ) { return false; }
+        if ( (stratumExtraNonce2.length() % 2) != 0 ) { return false; }
 
-        final MerkleRoot merkleRoot = _calculateMerkleRoot(coinbaseTransaction, _merkleTreeBranches);
-        blockHeader.setMerkleRoot(merkleRoot);
+        final int extraNonce2ByteCount = (stratumExtraNonce2.length() / 2);
+        if (! _isHexOfByteCount(stratumExtraNonce2, extraNonce2ByteCount)) { return false; }
+        if (! _isHexOfByteCount(stratumTimestamp, 4)) { return false; }
+        if (! _isHexOfByteCount(stratumNonce, 4)) { return false; }
 
-        blockHeader.setNonce(ByteUtil.bytesToLong(HexUtil.hexStringToByteArray(stratumNonce)));
+        _requireShareValidationBuffers(context, _getShareTemplate(), extraNonce2ByteCount);
 
-        final Long timestamp = ByteUtil.bytesToLong(HexUtil.hexStringToByteArray(stratumTimestamp));
-        blockHeader.setTimestamp(timestamp);
+        if ( (! context._merkleRootIsCalculated) || (! _hexEquals(stratumExtraNonce2, context._coinbaseTransactionBytes, context._extraNonce2Offset)) ) {
+            _decodeHex(stratumExtraNonce2, context._coinbaseTransactionBytes, context._extraNonce2Offset, false);
+            _calculateMerkleRoot(context);
+        }
 
-        return blockHeader;
+        // The stratum timestamp and nonce are big-endian, and are serialized as little-endian within the header...
+        _decodeHex(stratumTimestamp, context._blockHeaderBytes, TIMESTAMP_OFFSET, true);
+        _decodeHex(stratumNonce, context._blockHeaderBytes, NONCE_OFFSET, true);
+        return true;
     }
 
-    protected RequestMessage _createRequest(final Long timestamp) {
+    /**
+     * Returns true if the hash of the context's header buffer satisfies the template's difficulty.
+     */
+    protected static Boolean _blockHeaderSatisfiesDifficulty(final ShareValidationContext context) {
+        final byte[] blockHashBytes = context._blockHashBytes;
+        final byte[] difficultyBytes = context._shareTemplate.difficultyBytes;
+        BitcoinUtil.doubleSha256(context._blockHeaderBytes, 0, context._blockHeaderBytes.length, blockHashBytes, 0);
+
+        // The hash is compared as a big-endian integer, which is the reverse of the order it is hashed in...
+        for (int i = 0; i < HASH_BYTE_COUNT; ++i) {
+            final int difficultyByte = ByteUtil.byteToInteger(difficultyBytes[i]);
+            final int hashByte = ByteUtil.byteToInteger(blockHashBytes[HASH_BYTE_COUNT - i - 1]);
+            if (hashByte == difficultyByte) { continue; }
+            return (hashByte < difficultyByte);
+        }
+
+        return true;
+    }
+
+    protected RequestMessage _createRequest(final Long timestamp, final Boolean shouldAbandonOldJobs) {
         final RequestMessage mineBlockMessage = new RequestMessage(RequestMessage.ServerCommand.NOTIFY.getValue());
 
         final Json parametersJson = new Json(true);
@@ -144,22 +341,15 @@ public class StratumMineBlockTask {
         parametersJson.add(_coinbaseTransactionTail);
 
         final Json partialMerkleTreeJson = new Json(true);
-        { // Create the partialMerkleTree Json as little-endian hashes...
-            final ImmutableListBuilder<String> listBuilder = new ImmutableListBuilder<String>();
-            final List<Sha256Hash> partialMerkleTree = _prototypeBlock.getPartialMerkleTree(0);
-            for (final Sha256Hash hash : partialMerkleTree) {
-                final String hashString = hash.toString();
-                partialMerkleTreeJson.add(_reverseEndian(hashString));
-                listBuilder.add(_reverseEndian(hashString));
-            }
-            _merkleTreeBranches = listBuilder.build();
+        for (final String merkleTreeBranch : _getMerkleTreeBranches()) { // The partialMerkleTree Json contains little-endian hashes...
+            partialMerkleTreeJson.add(merkleTreeBranch);
         }
         parametersJson.add(partialMerkleTreeJson);
 
         parametersJson.add(HexUtil.toHexString(ByteUtil.integerToBytes(_prototypeBlock.getVersion())));
         parametersJson.add(_prototypeBlock.getDifficulty().encode());
         parametersJson.add(HexUtil.toHexString(ByteUtil.integerToBytes(timestamp)));
-        parametersJson.add(true);
+        parametersJson.add(shouldAbandonOldJobs);
 
         mineBlockMessage.setParameters(parametersJson);
 
@@ -171,62 +361,80 @@ public class StratumMineBlockTask {
         _prototypeBlock.addTransaction(new MutableTransaction());
     }
 
-    public void setBlockVersion(final String stratumBlockVersion) {
+    public ByteArray getId() {
+        return _id;
+    }
+
+    public synchronized void setBlockVersion(final String stratumBlockVersion) {
         final Long blockVersion = ByteUtil.bytesToLong(HexUtil.hexStringToByteArray(stratumBlockVersion));
         _prototypeBlock.setVersion(blockVersion);
+        _invalidateShareTemplate();
     }
 
-    public void setBlockVersion(final Long blockVersion) {
+    public synchronized void setBlockVersion(final Long blockVersion) {
         _prototypeBlock.setVersion(blockVersion);
+        _invalidateShareTemplate();
     }
 
-    public void setPreviousBlockHash(final String stratumPreviousBlockHash) {
+    public synchronized void setPreviousBlockHash(final String stratumPreviousBlockHash) {
         final Sha256Hash previousBlockHash = MutableSha256Hash.fromHexString(_reverseEndian(_swabBytes(stratumPreviousBlockHash)));
         _prototypeBlock.setPreviousBlockHash(previousBlockHash);
+        _invalidateShareTemplate();
     }
 
-    public void setPreviousBlockHash(final Sha256Hash previousBlockHash) {
+    public synchronized void setPreviousBlockHash(final Sha256Hash previousBlockHash) {
         _prototypeBlock.setPreviousBlockHash(previousBlockHash);
+        _invalidateShareTemplate();
     }
 
-    public void setExtraNonce(final String stratumExtraNonce) {
+    public synchronized void setExtraNonce(final String stratumExtraNonce) {
         _extraNonce1 = stratumExtraNonce;
+        _invalidateShareTemplate();
     }
 
-    public void setExtraNonce(final ByteArray extraNonce) {
+    public synchronized void setExtraNonce(final ByteArray extraNonce) {
         _extraNonce1 = HexUtil.toHexString(extraNonce.getBytes());
+        _invalidateShareTemplate();
     }
 
-    public void setDifficulty(final String stratumDifficulty) {
+    public synchronized void setDifficulty(final String stratumDifficulty) {
         final Difficulty difficulty = ImmutableDifficulty.decode(HexUtil.hexStringToByteArray(stratumDifficulty));
         _prototypeBlock.setDifficulty(difficulty);
+        _invalidateShareTemplate();
     }
 
-    public void setDifficulty(final Difficulty difficulty) {
+    public synchronized void setDifficulty(final Difficulty difficulty) {
         _prototypeBlock.setDifficulty(difficulty);
+        _invalidateShareTemplate();
     }
 
     // ViaBTC provides the merkleTreeBranches as little-endian byte strings.
-    public void setMerkleTreeBranches(final List<String> merkleTreeBranches) {
+    public synchronized void setMerkleTreeBranches(final List<String> merkleTreeBranches) {
         _merkleTreeBranches = merkleTreeBranches.asConst();
+        _invalidateShareTemplate();
     }
 
-    public void addTransaction(final Transaction transaction) {
+    public synchronized void addTransaction(final Transaction transaction) {
         _prototypeBlock.addTransaction(transaction.asConst());
+        _merkleTreeBranches = null;
+        _invalidateShareTemplate();
     }
 
-    public void clearTransactions() {
+    public synchronized void clearTransactions() {
         final Transaction coinbaseTransaction = _prototypeBlock.getCoinbaseTransaction();
         _prototypeBlock.clearTransactions();
         _prototypeBlock.addTransaction(coinbaseTransaction);
+        _merkleTreeBranches = null;
+        _invalidateShareTemplate();
     }
 
-    public void setCoinbaseTransaction(final String stratumCoinbaseTransactionHead, final String stratumCoinbaseTransactionTail) {
+    public synchronized void setCoinbaseTransaction(final String stratumCoinbaseTransactionHead, final String stratumCoinbaseTransactionTail) {
         _coinbaseTransactionHead = stratumCoinbaseTransactionHead;
         _coinbaseTransactionTail = stratumCoinbaseTransactionTail;
+        _invalidateShareTemplate();
     }
 
-    public void setCoinbaseTransaction(final Transaction coinbaseTransaction, final Integer totalExtraNonceByteCount) {
+    public synchronized void setCoinbaseTransaction(final Transaction coinbaseTransaction, final Integer totalExtraNonceByteCount) {
         final TransactionDeflater transactionDeflater = new TransactionDeflater();
         final FragmentedBytes coinbaseTransactionParts;
         coinbaseTransactionParts = transactionDeflater.fragmentTransaction(coinbaseTransaction);
@@ -257,39 +465,62 @@ public class StratumMineBlockTask {
         _coinbaseTransactionTail = HexUtil.toHexString(coinbaseTransactionParts.tailBytes);
 
         _prototypeBlock.replaceTransaction(0, coinbaseTransaction);
+        _invalidateShareTemplate();
     }
 
-    public BlockHeader assembleBlockHeader(final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
-        final MutableBlockHeader blockHeader = new MutableBlockHeader(_prototypeBlock);
+    /**
+     * Calculates the task's merkle branch and ShareTemplate, so that they are not calculated while the task's first request
+     *  or share is processed.  Must be invoked after the task's template has been set and its transactions have been added.
+     */
+    public synchronized void precalculate() {
+        _getMerkleTreeBranches();
 
-        final TransactionInflater transactionInflater = new TransactionInflater();
+        if ( (_coinbaseTransactionHead != null) && (_extraNonce1 != null) && (_prototypeBlock.getDifficulty() != null) ) {
+            _getShareTemplate();
+        }
+    }
 
-        final MerkleRoot merkleRoot;
-        {
-            final Transaction coinbaseTransaction = transactionInflater.fromBytes(HexUtil.hexStringToByteArray(
-                _coinbaseTransactionHead +
-                _extraNonce1 +
-                stratumExtraNonce2 +
-                _coinbaseTransactionTail
-            ));
+    /**
+     * Returns true if the share's block hash satisfies the task's difficulty (i.e. the share is a valid block).
+     *  Returns false if the share is malformed.  The share is decoded into the context's buffers.
+     */
+    public Boolean isValidBlock(final ShareValidationContext context, final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
+        synchronized (context) {
+            if (! _applyShare(context, stratumNonce, stratumExtraNonce2, stratumTimestamp)) { return false; }
+            return _blockHeaderSatisfiesDifficulty(context);
+        }
+    }
+
+    /**
+     * Returns the block header for the share, or null if the share is malformed.
+     */
+    public BlockHeader assembleBlockHeader(final ShareValidationContext context, final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
+        synchronized (context) {
+            if (! _applyShare(context, stratumNonce, stratumExtraNonce2, stratumTimestamp)) { return null; }
 
-            merkleRoot = _calculateMerkleRoot(coinbaseTransaction, _merkleTreeBranches);
+            final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+            return blockHeaderInflater.fromBytes(context._blockHeaderBytes);
         }
-        blockHeader.setMerkleRoot(merkleRoot);
+    }
 
-        blockHeader.setNonce(ByteUtil.bytesToLong(HexUtil.hexStringToByteArray(stratumNonce)));
+    /**
+     * Returns the block for the share, or null if the share is malformed.
+     */
+    public Block assembleBlock(final ShareValidationContext context, final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
+        final BlockHeader blockHeader;
+        final Transaction coinbaseTransaction;
+        synchronized (context) {
+            if (! _applyShare(context, stratumNonce, stratumExtraNonce2, stratumTimestamp)) { return null; }
 
-        final Long timestamp = ByteUtil.bytesToLong(HexUtil.hexStringToByteArray(stratumTimestamp));
-        blockHeader.setTimestamp(timestamp);
+            final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+            blockHeader = blockHeaderInflater.fromBytes(context._blockHeaderBytes);
 
-        return blockHeader;
-    }
+            final TransactionInflater transactionInflater = new TransactionInflater();
+            coinbaseTransaction = transactionInflater.fromBytes(context._coinbaseTransactionBytes);
+        }
 
-    public Block assembleBlock(final String stratumNonce, final String stratumExtraNonce2, final String stratumTimestamp) {
-        final Transaction coinbaseTransaction = _assembleCoinbaseTransaction(stratumExtraNonce2);
-        final BlockHeader blockHeader = _assembleBlockHeader(stratumNonce, coinbaseTransaction, stratumTimestamp);
         final List<Transaction> transactions;
-        {
+        synchronized (this) {
             final List<Transaction> prototypeBlockTransaction = _prototypeBlock.getTransactions();
             final MutableList<Transaction> mutableList = new MutableList<Transaction>(prototypeBlockTransaction);
             mutableList.set(0, coinbaseTransaction);
@@ -298,12 +529,21 @@ public class StratumMineBlockTask {
         return new ImmutableBlock(blockHeader, transactions);
     }
 
-    public RequestMessage createRequest() {
+    public synchronized RequestMessage createRequest() {
         final Long timestamp = (System.currentTimeMillis() / 1000L);
-        return _createRequest(timestamp);
+        return _createRequest(timestamp, true);
+    }
+
+    public synchronized RequestMessage createRequest(final Long timestamp) {
+        return _createRequest(timestamp, true);
     }
 
-    public RequestMessage createRequest(final Long timestamp) {
-        return _createRequest(timestamp);
+    /**
+     * Creates the mining.notify request for the task.
+     *  If shouldAbandonOldJobs is true, miners are instructed to stop working on previous tasks (i.e. because the task builds
+     *  upon a new head block); otherwise, shares for previous tasks may still be submitted.
+     */
+    public synchronized RequestMessage createRequest(final Long timestamp, final Boolean shouldAbandonOldJobs) {
+        return _createRequest(timestamp, shouldAbandonOldJobs);
     }
 }
@@ -0,0 +1,148 @@
+package com.softwareverde.bitcoin.server.stratum;
+
+import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
+import com.softwareverde.bitcoin.block.validator.difficulty.BlockHeaderWindow;
+import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPoolTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.database.DatabaseException;
+import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.database.mysql.MysqlDatabaseConnectionFactory;
+import com.softwareverde.io.Logger;
+import com.softwareverde.util.ByteUtil;
+
+/**
+ * Builds StratumMineBlockTasks (i.e. block templates) that extend the node's head block.
+ *  The head block's ancestry is tracked by a BlockHeaderWindow, so the required difficulty and the minimum timestamp of the
+ *  next block are calculated without accessing the database; the window is only reloaded from the database if a new head
+ *  block does not extend it (i.e. a reorganization deeper than the window).  Transactions are selected from the MemoryPool
+ *  in descending fee-rate order.
+ *
+ *  Each task's coinbase is split around its extraNonce, and its merkle branch is calculated, once when the task is built;
+ *  notifying any number of stratum clients of the task does not re-serialize or re-hash the template.
+ *
+ *  StratumMineBlockTaskBuilder is thread-safe.
+ */
+public class StratumMineBlockTaskBuilder {
+    public static final Long MAX_BLOCK_BYTE_COUNT = (32L * ByteUtil.Unit.MEGABYTES);
+    protected static final Long RESERVED_BYTE_COUNT = 1000L; // The bytes reserved for the block header, transaction count, and coinbase...
+
+    protected final MysqlDatabaseConnectionFactory _databaseConnectionFactory;
+    protected final MemoryPool _memoryPool;
+    protected final Address _coinbaseAddress;
+    protected final String _coinbaseMessage;
+    protected final ByteArray _extraNonce;
+    protected final Integer _totalExtraNonceByteCount;
+
+    protected BlockHeaderWindow _blockHeaderWindow = null;
+
+    protected void _loadBlockHeaderWindow() throws DatabaseException {
+        try (final MysqlDatabaseConnection databaseConnection = _databaseConnectionFactory.newConnection()) {
+            final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+            final Sha256Hash headBlockHash = blockDatabaseManager.getHeadBlockHash();
+            if (headBlockHash == null) { return; }
+
+            _blockHeaderWindow = blockDatabaseManager.initializeBlockHeaderWindow(headBlockHash);
+        }
+    }
+
+    /**
+     * extraNonce is the pool-defined extraNonce1; totalExtraNonceByteCount is the byte count of both extraNonce1 and extraNonce2.
+     */
+    public StratumMineBlockTaskBuilder(final MysqlDatabaseConnectionFactory databaseConnectionFactory, final MemoryPool memoryPool, final Address coinbaseAddress, final String coinbaseMessage, final ByteArray extraNonce, final Integer totalExtraNonceByteCount) {
+        _databaseConnectionFactory = databaseConnectionFactory;
+        _memoryPool = memoryPool;
+        _coinbaseAddress = coinbaseAddress;
+        _coinbaseMessage = coinbaseMessage;
+        _extraNonce = extraNonce;
+        _totalExtraNonceByteCount = totalExtraNonceByteCount;
+    }
+
+    /**
+     * Advances the template's head to blockHeader, which must be the node's new head block.
+     *  If blockHeader does not extend the tracked chain, the chain is reloaded from the database when the next task is built.
+     */
+    public synchronized void onNewHeadBlock(final BlockHeader blockHeader) {
+        if (_blockHeaderWindow == null) { return; }
+
+        if ( (! _blockHeaderWindow.addBlockHeader(blockHeader)) || (! _blockHeaderWindow.hasCompleteHistory()) ) {
+            _blockHeaderWindow = null;
+        }
+    }
+
+    /**
+     * Returns the hash of the block that built tasks extend, or null if it is not yet known.
+     */
+    public synchronized Sha256Hash getHeadBlockHash() {
+        if (_blockHeaderWindow == null) { return null; }
+        return _blockHeaderWindow.getHeadBlockHash();
+    }
+
+    /**
+     * Returns the minimum timestamp for a block extending the head block (i.e. one second after its median-time-past), or null.
+     */
+    public synchronized Long getMinimumTimestamp() {
+        if (_blockHeaderWindow == null) { return null; }
+
+        final Long medianBlockTime = _blockHeaderWindow.getMedianBlockTime();
+        if (medianBlockTime == null) { return null; }
+
+        return (medianBlockTime + 1L);
+    }
+
+    /**
+     * Builds a new task extending the head block, containing the MemoryPool's highest fee-rate transactions.
+     *  Returns null if the head block or its required difficulty cannot be determined.
+     */
+    public synchronized StratumMineBlockTask buildMineBlockTask() {
+        if (_blockHeaderWindow == null) {
+            try {
+                _loadBlockHeaderWindow();
+            }
+            catch (final DatabaseException exception) {
+                Logger.log(exception);
+                return null;
+            }
+
+            if (_blockHeaderWindow == null) { return null; }
+        }
+
+        final Sha256Hash headBlockHash = _blockHeaderWindow.getHeadBlockHash();
+        final Difficulty difficulty = _blockHeaderWindow.calculateRequiredDifficulty();
+        if ( (headBlockHash == null) || (difficulty == null) ) { return null; }
+
+        final Long blockHeight = (_blockHeaderWindow.getHeadBlockHeight() + 1L);
+
+        final List<MemoryPoolTransaction> memoryPoolTransactions = _memoryPool.getTransactionsByFeeRate(MAX_BLOCK_BYTE_COUNT - RESERVED_BYTE_COUNT);
+
+        long totalFees = 0L;
+        for (final MemoryPoolTransaction memoryPoolTransaction : memoryPoolTransactions) {
+            totalFees += memoryPoolTransaction.getFee();
+        }
+
+        final StratumMineBlockTask stratumMineBlockTask = new StratumMineBlockTask();
+        stratumMineBlockTask.setBlockVersion(BlockHeader.VERSION);
+        stratumMineBlockTask.setPreviousBlockHash(headBlockHash);
+        stratumMineBlockTask.setDifficulty(difficulty);
+        stratumMineBlockTask.setExtraNonce(_extraNonce);
+
+        final Long blockReward = (BlockHeader.calculateBlockReward(blockHeight) + totalFees);
+        final Transaction coinbaseTransaction = Transaction.createCoinbaseTransactionWithExtraNonce(blockHeight, _coinbaseMessage, _totalExtraNonceByteCount, _coinbaseAddress, blockReward);
+        stratumMineBlockTask.setCoinbaseTransaction(coinbaseTransaction, _totalExtraNonceByteCount);
+
+        for (final MemoryPoolTransaction memoryPoolTransaction : memoryPoolTransactions) {
+            stratumMineBlockTask.addTransaction(memoryPoolTransaction.getTransaction());
+        }
+
+        stratumMineBlockTask.precalculate();
+
+        Logger.log("Built block template for height " + blockHeight + " with " + memoryPoolTransactions.getSize() + " transactions and " + totalFees + " satoshis in fees.");
+        return stratumMineBlockTask;
+    }
+}
@@ -19,6 +19,7 @@ public class ImmutableTransaction implements Transaction, Const {
     protected final List<ImmutableTransactionInput> _transactionInputs;
     protected final List<ImmutableTransactionOutput> _transactionOutputs;
     protected final ImmutableLockTime _lockTime;
+    protected final Integer _byteCount;
 
     public ImmutableTransaction(final Transaction transaction) {
         _hash = transaction.getHash().asConst();
@@ -27,6 +28,8 @@ public class ImmutableTransaction implements Transaction, Const {
 
         _transactionInputs = ImmutableListBuilder.newConstListOfConstItems(transaction.getTransactionInputs());
         _transactionOutputs = ImmutableListBuilder.newConstListOfConstItems(transaction.getTransactionOutputs());
+
+        _byteCount = transaction.getByteCount(); // NOTE: Calculating the hash caches the byteCount of a MutableTransaction, so this does not re-serialize the Transaction...
     }
 
     @Override
@@ -61,6 +64,11 @@ public class ImmutableTransaction implements Transaction, Const {
         return totalValue;
     }
 
+    @Override
+    public Integer getByteCount() {
+        return _byteCount;
+    }
+
     @Override
     public ImmutableTransaction asConst() {
         return this;
@@ -6,6 +6,7 @@ import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
 import com.softwareverde.bitcoin.transaction.locktime.LockTime;
 import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.type.hash.sha256.ImmutableSha256Hash;
 import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
@@ -22,12 +23,37 @@ public class MutableTransaction implements Transaction {
     protected final MutableList<MutableTransactionOutput> _transactionOutputs = new MutableList<MutableTransactionOutput>();
     protected LockTime _lockTime = new ImmutableLockTime();
 
+    protected ImmutableSha256Hash _cachedHash = null;
+    protected Integer _cachedByteCount = null;
+
+    /**
+     * NOTE: Cached Properties
+     *  The Transaction's hash and byteCount are cached once calculated (or when provided by the TransactionInflater),
+     *  and are invalidated by each of MutableTransaction's setters.  The inputs and outputs returned by
+     *  getTransactionInputs and getTransactionOutputs must not be modified directly; use the setters instead.
+     */
+
     /**
      * NOTE: Math with Satoshis
      *  The maximum number of satoshis is 210,000,000,000,000, which is less than the value a Java Long can hold.
      *  Therefore, using BigInteger is not be necessary any non-multiplicative transaction calculation.
      */
 
+    protected void _invalidateCachedProperties() {
+        _cachedHash = null;
+        _cachedByteCount = null;
+    }
+
+    protected void _calculateCachedProperties() {
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+        final ByteArrayBuilder byteArrayBuilder = transactionDeflater.toByteArrayBuilder(this);
+        final byte[] transactionBytes = byteArrayBuilder.build();
+        final byte[] doubleSha256 = BitcoinUtil.doubleSha256(transactionBytes);
+
+        _cachedHash = MutableSha256Hash.wrap(ByteUtil.reverseEndian(doubleSha256)).asConst();
+        _cachedByteCount = transactionBytes.length;
+    }
+
     public MutableTransaction() { }
 
     public MutableTransaction(final Transaction transaction) {
@@ -42,19 +68,38 @@ public class MutableTransaction implements Transaction {
         }
 
         _lockTime = transaction.getLockTime().asConst();
+
+        if (transaction instanceof ImmutableTransaction) { // The copy is identical to an ImmutableTransaction, so its properties need not be recalculated...
+            _cachedHash = transaction.getHash().asConst();
+            _cachedByteCount = transaction.getByteCount();
+        }
     }
 
     @Override
     public Sha256Hash getHash() {
-        final TransactionDeflater transactionDeflater = new TransactionDeflater();
-        final ByteArrayBuilder byteArrayBuilder = transactionDeflater.toByteArrayBuilder(this);
-        final byte[] doubleSha256 = BitcoinUtil.sha256(BitcoinUtil.sha256(byteArrayBuilder.build()));
-        return MutableSha256Hash.wrap(ByteUtil.reverseEndian(doubleSha256));
+        if (_cachedHash == null) {
+            _calculateCachedProperties();
+        }
+
+        return _cachedHash;
+    }
+
+    @Override
+    public Integer getByteCount() {
+        if (_cachedByteCount == null) {
+            final TransactionDeflater transactionDeflater = new TransactionDeflater();
+            _cachedByteCount = transactionDeflater.getByteCount(this);
+        }
+
+        return _cachedByteCount;
     }
 
     @Override
     public Long getVersion() { return _version; }
-    public void setVersion(final Long version) { _version = version; }
+    public void setVersion(final Long version) {
+        _version = version;
+        _invalidateCachedProperties();
+    }
 
     @Override
     public final List<TransactionInput> getTransactionInputs() {
@@ -62,11 +107,16 @@ public class MutableTransaction implements Transaction {
     }
     public void addTransactionInput(final TransactionInput transactionInput) {
         _transactionInputs.add(new MutableTransactionInput(transactionInput));
+        _invalidateCachedProperties();
+    }
+    public void clearTransactionInputs() {
+        _transactionInputs.clear();
+        _invalidateCachedProperties();
     }
-    public void clearTransactionInputs() { _transactionInputs.clear(); }
 
     public void setTransactionInput(final Integer index, final TransactionInput transactionInput) {
         _transactionInputs.set(index, new MutableTransactionInput(transactionInput));
+        _invalidateCachedProperties();
     }
 
     @Override
@@ -75,16 +125,24 @@ public class MutableTransaction implements Transaction {
     }
     public void addTransactionOutput(final TransactionOutput transactionOutput) {
         _transactionOutputs.add(new MutableTransactionOutput(transactionOutput));
+        _invalidateCachedProperties();
+    }
+    public void clearTransactionOutputs() {
+        _transactionOutputs.clear();
+        _invalidateCachedProperties();
     }
-    public void clearTransactionOutputs() { _transactionOutputs.clear(); }
 
     public void setTransactionOutput(final Integer index, final TransactionOutput transactionOutput) {
         _transactionOutputs.set(index, new MutableTransactionOutput(transactionOutput));
+        _invalidateCachedProperties();
     }
 
     @Override
     public LockTime getLockTime() { return _lockTime; }
-    public void setLockTime(final LockTime lockTime) { _lockTime = lockTime; }
+    public void setLockTime(final LockTime lockTime) {
+        _lockTime = lockTime;
+        _invalidateCachedProperties();
+    }
 
     @Override
     public Long getTotalOutputValue() {
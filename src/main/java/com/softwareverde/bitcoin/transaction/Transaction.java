@@ -33,6 +33,11 @@ public interface Transaction extends Hashable, Constable<ImmutableTransaction>,
     LockTime getLockTime();
     Long getTotalOutputValue();
 
+    /**
+     * Returns the number of bytes of the serialized Transaction.
+     */
+    Integer getByteCount();
+
     @Override
     ImmutableTransaction asConst();
 }
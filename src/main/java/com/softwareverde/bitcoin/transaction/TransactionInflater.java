@@ -5,6 +5,9 @@ import com.softwareverde.bitcoin.transaction.input.TransactionInputInflater;
 import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
 import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutputInflater;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
 import com.softwareverde.io.Logger;
 import com.softwareverde.util.HexUtil;
@@ -43,6 +46,34 @@ public class TransactionInflater {
         return transaction;
     }
 
+    /**
+     * Caches the hash and byteCount of the transaction inflated from the bytes of byteArrayReader starting at startIndex
+     *  and ending at its current position.  Hashing the received bytes directly avoids re-serializing the transaction
+     *  via the TransactionDeflater when its hash is later requested.
+     */
+    protected void _cacheProperties(final MutableTransaction transaction, final ByteArrayReader byteArrayReader, final Integer startIndex) {
+        final Integer endIndex = byteArrayReader.getPosition();
+        final Integer byteCount = (endIndex - startIndex);
+
+        byteArrayReader.setPosition(startIndex);
+        final byte[] transactionBytes = byteArrayReader.readBytes(byteCount, Endian.BIG);
+
+        final byte[] doubleSha256 = BitcoinUtil.doubleSha256(transactionBytes);
+        transaction._cachedHash = MutableSha256Hash.wrap(ByteUtil.reverseEndian(doubleSha256)).asConst();
+        transaction._cachedByteCount = byteCount;
+    }
+
+    protected MutableTransaction _fromByteArrayReader(final ByteArrayReader byteArrayReader, final Integer maxEndIndex) {
+        final Integer startIndex = byteArrayReader.getPosition();
+
+        final MutableTransaction transaction = _fromByteArrayReader(byteArrayReader);
+        if (transaction == null) { return null; }
+        if ( (maxEndIndex != null) && (byteArrayReader.getPosition() > maxEndIndex) ) { return null; }
+
+        _cacheProperties(transaction, byteArrayReader, startIndex);
+        return transaction;
+    }
+
     public void _debugBytes(final ByteArrayReader byteArrayReader) {
         Logger.log("Version: " + HexUtil.toHexString(byteArrayReader.readBytes(4)));
 
@@ -69,11 +100,20 @@ public class TransactionInflater {
     }
 
     public MutableTransaction fromBytes(final ByteArrayReader byteArrayReader) {
-        return _fromByteArrayReader(byteArrayReader);
+        return _fromByteArrayReader(byteArrayReader, null);
+    }
+
+    /**
+     * Inflates the transaction only if it ends at or before maxEndIndex; otherwise null is returned and the transaction is not hashed.
+     *  The position of byteArrayReader is left at the end of the transaction in either case.
+     *  This is useful when the bytes of byteArrayReader after maxEndIndex have not been received yet.
+     */
+    public MutableTransaction fromBytes(final ByteArrayReader byteArrayReader, final Integer maxEndIndex) {
+        return _fromByteArrayReader(byteArrayReader, maxEndIndex);
     }
 
     public MutableTransaction fromBytes(final byte[] bytes) {
         final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
-        return _fromByteArrayReader(byteArrayReader);
+        return _fromByteArrayReader(byteArrayReader, null);
     }
 }
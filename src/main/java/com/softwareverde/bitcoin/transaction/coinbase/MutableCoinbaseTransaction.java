@@ -23,6 +23,7 @@ public class MutableCoinbaseTransaction extends MutableTransaction implements Co
 
         final MutableTransactionInput transactionInput = _transactionInputs.get(0);
         transactionInput.setUnlockingScript(unlockingScript.asConst());
+        _invalidateCachedProperties();
     }
 
     @Override
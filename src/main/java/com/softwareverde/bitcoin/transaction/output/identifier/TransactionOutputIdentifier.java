@@ -50,4 +50,9 @@ public class TransactionOutputIdentifier implements Const {
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        return (_transactionHash.hashCode() + (_outputIndex != null ? _outputIndex.hashCode() : 0));
+    }
 }
@@ -52,7 +52,7 @@ public class ImmutableScript implements Script, Const {
     public Ripemd160Hash getHash() {
         final ScriptDeflater scriptDeflater = new ScriptDeflater();
         final ByteArray bytes = scriptDeflater.toBytes(this);
-        final byte[] hashBytes = BitcoinUtil.ripemd160(BitcoinUtil.sha256(bytes.getBytes()));
+        final byte[] hashBytes = BitcoinUtil.hash160(bytes.getBytes());
         return MutableRipemd160Hash.wrap(hashBytes);
     }
 
@@ -1,6 +1,7 @@
 package com.softwareverde.bitcoin.transaction.script.opcode;
 
 import com.softwareverde.bitcoin.bip.Bip55;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.script.Script;
@@ -41,32 +42,63 @@ public class CryptographicOperation extends SubTypedOperation {
         super(value, TYPE, opcode);
     }
 
-    protected static Boolean checkSignature(final Context context, final PublicKey publicKey, final ScriptSignature scriptSignature, final List<ByteArray> bytesToExcludeFromScript) {
+    protected static SignatureContext _createSignatureContext(final Context context, final HashType hashType, final List<ByteArray> bytesToExcludeFromScript) {
         final Transaction transaction = context.getTransaction();
         final Integer transactionInputIndexBeingSigned = context.getTransactionInputIndex();
         final TransactionOutput transactionOutputBeingSpent = context.getTransactionOutput();
         final Integer codeSeparatorIndex = context.getScriptLastCodeSeparatorIndex();
         final Script currentScript = context.getCurrentScript();
+        final Long blockHeight = context.getBlockHeight();
 
-        final HashType hashType = scriptSignature.getHashType();
+        final SignatureContext signatureContext = new SignatureContext(transaction, hashType, blockHeight);
+        signatureContext.setInputIndexBeingSigned(transactionInputIndexBeingSigned);
+        signatureContext.setShouldSignInputScript(transactionInputIndexBeingSigned, true, transactionOutputBeingSpent);
+        signatureContext.setLastCodeSeparatorIndex(transactionInputIndexBeingSigned, codeSeparatorIndex);
+        signatureContext.setCurrentScript(currentScript);
+        signatureContext.setBytesToExcludeFromScript(bytesToExcludeFromScript);
+        signatureContext.setPrecomputedSignatureHashes(context.getPrecomputedSignatureHashes());
+        return signatureContext;
+    }
 
+    protected static Boolean _isHashTypeValid(final Context context, final HashType hashType) {
         final Long blockHeight = context.getBlockHeight();
         if (Bip55.isEnabled(blockHeight)) {
             if (! hashType.isBitcoinCashType()) {
                 return false;
             }
         }
+        return true;
+    }
+
+    protected static Boolean checkSignature(final Context context, final PublicKey publicKey, final ScriptSignature scriptSignature, final List<ByteArray> bytesToExcludeFromScript) {
+        final HashType hashType = scriptSignature.getHashType();
+        if (! _isHashTypeValid(context, hashType)) { return false; }
 
         final TransactionSigner transactionSigner = new TransactionSigner();
-        final SignatureContext signatureContext = new SignatureContext(transaction, hashType, blockHeight);
-        signatureContext.setInputIndexBeingSigned(transactionInputIndexBeingSigned);
-        signatureContext.setShouldSignInputScript(transactionInputIndexBeingSigned, true, transactionOutputBeingSpent);
-        signatureContext.setLastCodeSeparatorIndex(transactionInputIndexBeingSigned, codeSeparatorIndex);
-        signatureContext.setCurrentScript(currentScript);
-        signatureContext.setBytesToExcludeFromScript(bytesToExcludeFromScript);
+        final SignatureContext signatureContext = _createSignatureContext(context, hashType, bytesToExcludeFromScript);
         return transactionSigner.isSignatureValid(signatureContext, publicKey, scriptSignature);
     }
 
+    /**
+     * Checks the signature immediately if the Context does not provide a SignatureVerificationBatch.
+     *  Otherwise, the signature is queued within the batch and is assumed to be valid; the invoker of the ScriptRunner is
+     *  then responsible for verifying the batch, and for re-validating the script without a batch if the batch is invalid.
+     */
+    protected static Boolean checkOrDeferSignature(final Context context, final PublicKey publicKey, final ScriptSignature scriptSignature, final List<ByteArray> bytesToExcludeFromScript) {
+        final SignatureVerificationBatch signatureVerificationBatch = context.getSignatureVerificationBatch();
+        if (signatureVerificationBatch == null) {
+            return checkSignature(context, publicKey, scriptSignature, bytesToExcludeFromScript);
+        }
+
+        final HashType hashType = scriptSignature.getHashType();
+        if (! _isHashTypeValid(context, hashType)) { return false; }
+
+        final TransactionSigner transactionSigner = new TransactionSigner();
+        final SignatureContext signatureContext = _createSignatureContext(context, hashType, bytesToExcludeFromScript);
+        transactionSigner.queueSignatureVerification(signatureContext, publicKey, scriptSignature, signatureVerificationBatch);
+        return true;
+    }
+
     @Override
     public Boolean applyTo(final Stack stack, final ControlState controlState, final MutableContext context) {
         switch (_opcode) {
@@ -96,7 +128,7 @@ public class CryptographicOperation extends SubTypedOperation {
 
             case SHA_256_THEN_RIPEMD_160: {
                 final Value input = stack.pop();
-                final byte[] bytes = BitcoinUtil.ripemd160(BitcoinUtil.sha256(input.getBytes()));
+                final byte[] bytes = BitcoinUtil.hash160(input.getBytes());
                 stack.push(Value.fromBytes(bytes));
 
                 return (! stack.didOverflow());
@@ -104,7 +136,7 @@ public class CryptographicOperation extends SubTypedOperation {
 
             case DOUBLE_SHA_256: {
                 final Value input = stack.pop();
-                final byte[] bytes = BitcoinUtil.sha256(BitcoinUtil.sha256(input.getBytes()));
+                final byte[] bytes = BitcoinUtil.doubleSha256(input.getBytes());
                 stack.push(Value.fromBytes(bytes));
 
                 return (! stack.didOverflow());
@@ -135,7 +167,7 @@ public class CryptographicOperation extends SubTypedOperation {
                     final ScriptSignature scriptSignature = signatureValue.asScriptSignature();
                     if (scriptSignature != null) {
                         final PublicKey publicKey = publicKeyValue.asPublicKey();
-                        signatureIsValid = checkSignature(context, publicKey, scriptSignature, bytesToRemoveFromScript);
+                        signatureIsValid = checkOrDeferSignature(context, publicKey, scriptSignature, bytesToRemoveFromScript);
                     }
                     else {
                         // NOTE: An invalid scriptSignature is permitted, and just simply fails...
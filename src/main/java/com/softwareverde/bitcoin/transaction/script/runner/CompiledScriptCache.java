@@ -0,0 +1,124 @@
+package com.softwareverde.bitcoin.transaction.script.runner;
+
+import com.softwareverde.bitcoin.transaction.script.MutableScript;
+import com.softwareverde.bitcoin.transaction.script.Script;
+import com.softwareverde.bitcoin.transaction.script.ScriptInflater;
+import com.softwareverde.bitcoin.transaction.script.opcode.Operation;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.io.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Retains the inflated Operations of recently executed scripts, keyed by the script's bytes, so that scripts that are
+ *  executed repeatedly (i.e. commonly-spent locking scripts and P2SH redeem scripts) are only parsed once.
+ *  Operations are immutable, so the cached lists are shared between threads.
+ *
+ *  The least-recently used script is evicted once the cache exceeds its maximum size.  Scripts larger than
+ *  MAX_CACHED_SCRIPT_BYTE_COUNT are never cached.
+ */
+public class CompiledScriptCache {
+    public static final Integer DEFAULT_CACHE_SIZE = 65536;
+    public static final Integer MAX_CACHED_SCRIPT_BYTE_COUNT = 1024;
+
+    protected final Integer _maxCacheSize;
+    protected final LinkedHashMap<ByteArray, List<Operation>> _cache;
+
+    protected int _cacheQueryCount = 0;
+    protected int _cacheMissCount = 0;
+
+    protected List<Operation> _inflateOperations(final ByteArray bytes) {
+        final ScriptInflater scriptInflater = new ScriptInflater();
+        final MutableList<Operation> operations = scriptInflater.getOperationList(bytes);
+        if (operations == null) { return null; }
+        return operations.asConst();
+    }
+
+    public CompiledScriptCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public CompiledScriptCache(final Integer maxCacheSize) {
+        _maxCacheSize = maxCacheSize;
+        _cache = new LinkedHashMap<ByteArray, List<Operation>>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ByteArray, List<Operation>> eldestEntry) {
+                return (this.size() > _maxCacheSize);
+            }
+        };
+    }
+
+    /**
+     * Returns the script's Operations, inflating and caching them if the script has not been executed recently.
+     *  Returns null if the script could not be inflated.
+     *  MutableScripts are not cached since their contents may change.
+     */
+    public List<Operation> getOperations(final Script script) {
+        if (script instanceof MutableScript) {
+            return script.getOperations();
+        }
+
+        final ByteArray bytes = script.getBytes().asConst();
+        if (bytes.getByteCount() > MAX_CACHED_SCRIPT_BYTE_COUNT) {
+            return script.getOperations();
+        }
+
+        synchronized (_cache) {
+            _cacheQueryCount += 1;
+
+            final List<Operation> cachedOperations = _cache.get(bytes);
+            if (cachedOperations != null) { return cachedOperations; }
+
+            _cacheMissCount += 1;
+        }
+
+        final List<Operation> operations = _inflateOperations(bytes);
+        if (operations == null) { return null; }
+
+        synchronized (_cache) {
+            _cache.put(bytes, operations);
+        }
+
+        return operations;
+    }
+
+    public void clear() {
+        synchronized (_cache) {
+            _cache.clear();
+            _clearDebug();
+        }
+    }
+
+    public void clearDebug() {
+        synchronized (_cache) {
+            _clearDebug();
+        }
+    }
+
+    protected void _clearDebug() {
+        _cacheQueryCount = 0;
+        _cacheMissCount = 0;
+    }
+
+    public Integer getSize() {
+        synchronized (_cache) {
+            return _cache.size();
+        }
+    }
+
+    public void debug() {
+        final int cacheMissCount;
+        final int cacheQueryCount;
+        final int cacheSize;
+        synchronized (_cache) {
+            cacheMissCount = _cacheMissCount;
+            cacheQueryCount = _cacheQueryCount;
+            cacheSize = _cache.size();
+        }
+
+        Logger.log("CompiledScriptCache Miss/Queries: " + cacheMissCount + "/" + cacheQueryCount + " ("+ (((float) cacheMissCount) / ((float) cacheQueryCount) * 100) +"% Miss) | Cached Scripts: " + cacheSize + "/" + _maxCacheSize);
+    }
+}
@@ -22,6 +22,8 @@ import com.softwareverde.io.Logger;
  * NOTE: All Operation Math and Values appear to be injected into the script as 4-byte integers.
  */
 public class ScriptRunner {
+    public static final CompiledScriptCache COMPILED_SCRIPT_CACHE = new CompiledScriptCache();
+
     public Boolean runScript(final LockingScript lockingScript, final UnlockingScript unlockingScript, final Context context) {
         final MutableContext mutableContext = new MutableContext(context);
 
@@ -47,7 +49,7 @@ public class ScriptRunner {
 
                 payToScriptHashStack = new Stack(stack);
 
-                final List<Operation> lockingScriptOperations = lockingScript.getOperations();
+                final List<Operation> lockingScriptOperations = COMPILED_SCRIPT_CACHE.getOperations(lockingScript);
                 if (lockingScriptOperations == null) { return false; }
 
                 mutableContext.setCurrentScript(lockingScript);
@@ -87,7 +89,7 @@ public class ScriptRunner {
                     final Script redeemScript = new ImmutableScript(redeemScriptValue.getBytes());
 
                     mutableContext.setCurrentScript(redeemScript);
-                    final List<Operation> redeemScriptOperations = redeemScript.getOperations();
+                    final List<Operation> redeemScriptOperations = COMPILED_SCRIPT_CACHE.getOperations(redeemScript);
                     if (redeemScriptOperations == null) { return false; }
 
                     for (final Operation operation : redeemScriptOperations) {
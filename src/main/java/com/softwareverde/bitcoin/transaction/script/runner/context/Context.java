@@ -1,9 +1,11 @@
 package com.softwareverde.bitcoin.transaction.script.runner.context;
 
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.script.Script;
+import com.softwareverde.bitcoin.transaction.signer.PrecomputedSignatureHashes;
 import com.softwareverde.constable.Constable;
 import com.softwareverde.json.Jsonable;
 
@@ -45,4 +47,14 @@ public interface Context extends Constable<ImmutableContext>, Jsonable {
      *  Context.getScriptLastCodeSeparatorIndex() will return: 3
      */
     Integer getScriptLastCodeSeparatorIndex();
+
+    /**
+     * Returns the batch that signature verifications should be deferred to, or null if signatures should be verified immediately.
+     */
+    SignatureVerificationBatch getSignatureVerificationBatch();
+
+    /**
+     * Returns the signature hashes shared by every input of the current Transaction, or null if no Transaction is set.
+     */
+    PrecomputedSignatureHashes getPrecomputedSignatureHashes();
 }
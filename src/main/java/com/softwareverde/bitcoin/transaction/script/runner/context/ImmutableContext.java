@@ -1,9 +1,11 @@
 package com.softwareverde.bitcoin.transaction.script.runner.context;
 
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.script.Script;
+import com.softwareverde.bitcoin.transaction.signer.PrecomputedSignatureHashes;
 import com.softwareverde.constable.Const;
 import com.softwareverde.json.Json;
 
@@ -19,6 +21,8 @@ public class ImmutableContext implements Context, Const {
     protected Integer _currentScriptIndex;
     protected Integer _scriptLastCodeSeparatorIndex;
 
+    protected PrecomputedSignatureHashes _precomputedSignatureHashes;
+
     public ImmutableContext(final Context context) {
         _blockHeight = context.getBlockHeight();
         _transaction = context.getTransaction().asConst();
@@ -30,6 +34,7 @@ public class ImmutableContext implements Context, Const {
         _currentScript = (currentScript != null ? currentScript.asConst() : null);
         _currentScriptIndex = context.getScriptIndex();
         _scriptLastCodeSeparatorIndex = context.getScriptLastCodeSeparatorIndex();
+        _precomputedSignatureHashes = context.getPrecomputedSignatureHashes();
     }
 
     @Override
@@ -72,6 +77,16 @@ public class ImmutableContext implements Context, Const {
         return _scriptLastCodeSeparatorIndex;
     }
 
+    @Override
+    public SignatureVerificationBatch getSignatureVerificationBatch() {
+        return null; // NOTE: Signature verification is never deferred for an ImmutableContext...
+    }
+
+    @Override
+    public PrecomputedSignatureHashes getPrecomputedSignatureHashes() {
+        return _precomputedSignatureHashes;
+    }
+
     @Override
     public ImmutableContext asConst() {
         return this;
@@ -1,10 +1,12 @@
 package com.softwareverde.bitcoin.transaction.script.runner.context;
 
 import com.softwareverde.bitcoin.constable.util.ConstUtil;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.script.Script;
+import com.softwareverde.bitcoin.transaction.signer.PrecomputedSignatureHashes;
 import com.softwareverde.constable.Const;
 import com.softwareverde.json.Json;
 
@@ -20,6 +22,9 @@ public class MutableContext implements Context, Const {
     protected Integer _currentScriptIndex = 0;
     protected Integer _scriptLastCodeSeparatorIndex = 0;
 
+    protected SignatureVerificationBatch _signatureVerificationBatch = null;
+    protected PrecomputedSignatureHashes _precomputedSignatureHashes = null;
+
     public MutableContext() { }
 
     public MutableContext(final Context context) {
@@ -33,6 +38,8 @@ public class MutableContext implements Context, Const {
         _currentScript = ConstUtil.asConstOrNull(currentScript);
         _currentScriptIndex = context.getScriptIndex();
         _scriptLastCodeSeparatorIndex = context.getScriptLastCodeSeparatorIndex();
+        _signatureVerificationBatch = context.getSignatureVerificationBatch();
+        _precomputedSignatureHashes = context.getPrecomputedSignatureHashes();
     }
 
     public void setBlockHeight(final Long blockHeight) {
@@ -44,6 +51,7 @@ public class MutableContext implements Context, Const {
      */
     public void setTransaction(final Transaction transaction) {
         _transaction = transaction;
+        _precomputedSignatureHashes = null;
     }
 
     public void setTransactionInputIndex(final Integer transactionInputIndex) {
@@ -64,6 +72,13 @@ public class MutableContext implements Context, Const {
         _scriptLastCodeSeparatorIndex = 0;
     }
 
+    /**
+     * Sets the batch that signature verifications are deferred to; if null, signatures are verified immediately.
+     */
+    public void setSignatureVerificationBatch(final SignatureVerificationBatch signatureVerificationBatch) {
+        _signatureVerificationBatch = signatureVerificationBatch;
+    }
+
     public void incrementCurrentScriptIndex() {
         _currentScriptIndex += 1;
     }
@@ -112,6 +127,19 @@ public class MutableContext implements Context, Const {
         return _scriptLastCodeSeparatorIndex;
     }
 
+    @Override
+    public SignatureVerificationBatch getSignatureVerificationBatch() {
+        return _signatureVerificationBatch;
+    }
+
+    @Override
+    public PrecomputedSignatureHashes getPrecomputedSignatureHashes() {
+        if ( (_precomputedSignatureHashes == null) && (_transaction != null) ) {
+            _precomputedSignatureHashes = new PrecomputedSignatureHashes(_transaction);
+        }
+        return _precomputedSignatureHashes;
+    }
+
     @Override
     public ImmutableContext asConst() {
         return new ImmutableContext(this);
@@ -50,14 +50,37 @@ public class Value extends ImmutableByteArray implements Const {
         return bytes;
     }
 
-    public static Value fromInteger(final Long longValue) {
+    protected static Value _fromInteger(final Long longValue) {
         final byte[] bytes = _longToBytes(longValue);
         return new Value(ByteUtil.reverseEndian(bytes));
     }
 
+    // NOTE: Values are immutable, so the commonly-used values are shared rather than re-allocated each time they are pushed.
+    protected static final Long MIN_CACHED_INTEGER = -127L;
+    protected static final Long MAX_CACHED_INTEGER = 127L;
+    protected static final Value[] CACHED_INTEGERS;
+    protected static final Value TRUE;
+    protected static final Value FALSE;
+    static {
+        CACHED_INTEGERS = new Value[(int) (MAX_CACHED_INTEGER - MIN_CACHED_INTEGER + 1)];
+        for (int i = 0; i < CACHED_INTEGERS.length; ++i) {
+            CACHED_INTEGERS[i] = _fromInteger(MIN_CACHED_INTEGER + i);
+        }
+
+        TRUE = new Value(_longToBytes(1L));
+        FALSE = new Value(_longToBytes(0L));
+    }
+
+    public static Value fromInteger(final Long longValue) {
+        if ( (longValue >= MIN_CACHED_INTEGER) && (longValue <= MAX_CACHED_INTEGER) ) {
+            return CACHED_INTEGERS[(int) (longValue - MIN_CACHED_INTEGER)];
+        }
+
+        return _fromInteger(longValue);
+    }
+
     public static Value fromBoolean(final Boolean booleanValue) {
-        final byte[] bytes = _longToBytes(booleanValue ? 1L : 0L);
-        return new Value(bytes);
+        return (booleanValue ? TRUE : FALSE);
     }
 
     public static Value fromBytes(final byte[] bytes) {
@@ -83,6 +106,15 @@ public class Value extends ImmutableByteArray implements Const {
 
         final boolean isNegative = _isNegativeNumber(_bytes);
 
+        if (_bytes.length <= 4) { // Decode the little-endian bytes directly, avoiding the reversed copy...
+            int value = 0;
+            for (int i = 0; i < _bytes.length; ++i) {
+                value |= ((_bytes[i] & 0xFF) << (8 * i));
+            }
+            value &= ~(0x80 << (8 * (_bytes.length - 1))); // Remove the sign bit...
+            return (isNegative ? -value : value);
+        }
+
         final byte[] bigEndianBytes = ByteUtil.reverseEndian(_bytes);
         { // Remove the sign bit... (only matters when _bytes.length is less than the byteCount of an integer)
             bigEndianBytes[0] &= (byte) 0x7F;
@@ -97,6 +129,15 @@ public class Value extends ImmutableByteArray implements Const {
 
         final boolean isNegative = _isNegativeNumber(_bytes);
 
+        if (_bytes.length <= 8) { // Decode the little-endian bytes directly, avoiding the reversed copy...
+            long value = 0L;
+            for (int i = 0; i < _bytes.length; ++i) {
+                value |= ((_bytes[i] & 0xFFL) << (8 * i));
+            }
+            value &= ~(0x80L << (8 * (_bytes.length - 1))); // Remove the sign bit...
+            return (isNegative ? -value : value);
+        }
+
         final byte[] bigEndianBytes = ByteUtil.reverseEndian(_bytes);
         { // Remove the sign bit... (only matters when _bytes.length is less than the byteCount of a long)
             bigEndianBytes[0] &= (byte) 0x7F;
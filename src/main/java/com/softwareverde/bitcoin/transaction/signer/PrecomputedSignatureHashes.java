@@ -0,0 +1,153 @@
+package com.softwareverde.bitcoin.transaction.signer;
+
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.input.TransactionInputDeflater;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputDeflater;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
+
+/**
+ * Caches the portions of a Transaction's signature-hash preimages that are identical for each of its inputs, so that
+ *  signing (or verifying) every input of a Transaction does not re-serialize and re-hash the whole Transaction per input.
+ *
+ *  For the Bitcoin Cash (BIP143-style) algorithm, the hashes of the Transaction's previous outputs, sequence numbers, and
+ *  outputs are cached.  For the original algorithm, the serialized inputs (with empty unlocking scripts) and the serialized
+ *  outputs are cached, since these are reused verbatim when every input and output is signed (i.e. SIGHASH_ALL).
+ *
+ *  Each value is calculated upon first use.  Concurrent use is safe, although a value may be calculated more than once.
+ *  The Transaction must not be modified after the PrecomputedSignatureHashes has been created.
+ */
+public class PrecomputedSignatureHashes {
+    protected final Transaction _transaction;
+
+    protected volatile byte[] _previousOutputsHash = null;
+    protected volatile byte[] _sequenceNumbersHash = null;
+    protected volatile byte[] _transactionOutputsHash = null;
+
+    protected volatile byte[][] _unsignedTransactionInputsBytes = null;
+    protected volatile byte[] _transactionOutputsBytes = null;
+
+    protected byte[] _calculatePreviousOutputsHash() {
+        final ByteArrayBuilder serializedTransactionInput = new ByteArrayBuilder();
+        for (final TransactionInput transactionInput : _transaction.getTransactionInputs()) {
+            serializedTransactionInput.appendBytes(transactionInput.getPreviousOutputTransactionHash(), Endian.LITTLE);
+            serializedTransactionInput.appendBytes(ByteUtil.integerToBytes(transactionInput.getPreviousOutputIndex()), Endian.LITTLE);
+        }
+        return BitcoinUtil.doubleSha256(serializedTransactionInput.build());
+    }
+
+    protected byte[] _calculateSequenceNumbersHash() {
+        final ByteArrayBuilder serializedSequenceNumbers = new ByteArrayBuilder();
+        for (final TransactionInput transactionInput : _transaction.getTransactionInputs()) {
+            serializedSequenceNumbers.appendBytes(transactionInput.getSequenceNumber().getBytes(), Endian.LITTLE);
+        }
+        return BitcoinUtil.doubleSha256(serializedSequenceNumbers.build());
+    }
+
+    protected byte[] _calculateTransactionOutputsHash() {
+        final ByteArrayBuilder serializedTransactionOutput = new ByteArrayBuilder();
+        for (final TransactionOutput transactionOutput : _transaction.getTransactionOutputs()) {
+            final LockingScript transactionOutputScript = transactionOutput.getLockingScript();
+
+            serializedTransactionOutput.appendBytes(ByteUtil.longToBytes(transactionOutput.getAmount()), Endian.LITTLE);
+            serializedTransactionOutput.appendBytes(ByteUtil.variableLengthIntegerToBytes(transactionOutputScript.getByteCount()));
+            serializedTransactionOutput.appendBytes(transactionOutputScript.getBytes());
+        }
+        return BitcoinUtil.doubleSha256(serializedTransactionOutput.build());
+    }
+
+    protected byte[][] _calculateUnsignedTransactionInputsBytes() {
+        final TransactionInputDeflater transactionInputDeflater = new TransactionInputDeflater();
+        final List<TransactionInput> transactionInputs = _transaction.getTransactionInputs();
+
+        final byte[][] unsignedTransactionInputsBytes = new byte[transactionInputs.getSize()][];
+        for (int i = 0; i < transactionInputs.getSize(); ++i) {
+            final TransactionInput transactionInput = transactionInputs.get(i);
+
+            final MutableTransactionInput mutableTransactionInput = new MutableTransactionInput();
+            mutableTransactionInput.setPreviousOutputIndex(transactionInput.getPreviousOutputIndex());
+            mutableTransactionInput.setPreviousOutputTransactionHash(transactionInput.getPreviousOutputTransactionHash());
+            mutableTransactionInput.setUnlockingScript(UnlockingScript.EMPTY_SCRIPT);
+            mutableTransactionInput.setSequenceNumber(transactionInput.getSequenceNumber());
+
+            unsignedTransactionInputsBytes[i] = transactionInputDeflater.toBytes(mutableTransactionInput);
+        }
+        return unsignedTransactionInputsBytes;
+    }
+
+    protected byte[] _calculateTransactionOutputsBytes() {
+        final TransactionOutputDeflater transactionOutputDeflater = new TransactionOutputDeflater();
+        final List<TransactionOutput> transactionOutputs = _transaction.getTransactionOutputs();
+
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(transactionOutputs.getSize()), Endian.BIG);
+        for (final TransactionOutput transactionOutput : transactionOutputs) {
+            byteArrayBuilder.appendBytes(transactionOutputDeflater.toBytes(transactionOutput), Endian.BIG);
+        }
+        return byteArrayBuilder.build();
+    }
+
+    public PrecomputedSignatureHashes(final Transaction transaction) {
+        _transaction = transaction;
+    }
+
+    /**
+     * Returns the double-sha256 of every input's previous output (aka hashPrevouts).
+     */
+    public byte[] getPreviousOutputsHash() {
+        if (_previousOutputsHash == null) {
+            _previousOutputsHash = _calculatePreviousOutputsHash();
+        }
+        return _previousOutputsHash;
+    }
+
+    /**
+     * Returns the double-sha256 of every input's sequence number (aka hashSequence).
+     */
+    public byte[] getSequenceNumbersHash() {
+        if (_sequenceNumbersHash == null) {
+            _sequenceNumbersHash = _calculateSequenceNumbersHash();
+        }
+        return _sequenceNumbersHash;
+    }
+
+    /**
+     * Returns the double-sha256 of every serialized output (aka hashOutputs).
+     */
+    public byte[] getTransactionOutputsHash() {
+        if (_transactionOutputsHash == null) {
+            _transactionOutputsHash = _calculateTransactionOutputsHash();
+        }
+        return _transactionOutputsHash;
+    }
+
+    /**
+     * Returns the serialized input at inputIndex, with its unlocking script replaced by an empty script.
+     *  The returned array must not be modified.
+     */
+    public byte[] getUnsignedTransactionInputBytes(final Integer inputIndex) {
+        if (_unsignedTransactionInputsBytes == null) {
+            _unsignedTransactionInputsBytes = _calculateUnsignedTransactionInputsBytes();
+        }
+        return _unsignedTransactionInputsBytes[inputIndex];
+    }
+
+    /**
+     * Returns the serialized output count followed by every serialized output.
+     *  The returned array must not be modified.
+     */
+    public byte[] getTransactionOutputsBytes() {
+        if (_transactionOutputsBytes == null) {
+            _transactionOutputsBytes = _calculateTransactionOutputsBytes();
+        }
+        return _transactionOutputsBytes;
+    }
+}
@@ -24,6 +24,7 @@ public class SignatureContext {
     private Integer _inputIndexBeingSigned = null;
     private Script _currentScript;
     private List<ByteArray> _bytesToExcludeFromScript = new MutableList<ByteArray>();
+    private PrecomputedSignatureHashes _precomputedSignatureHashes = null;
 
     public SignatureContext(final Transaction transaction, final HashType hashType, final Long blockHeight) {
         _transaction = transaction;
@@ -60,6 +61,14 @@ public class SignatureContext {
         _bytesToExcludeFromScript = Util.coalesce(bytesToExcludeFromScript, _bytesToExcludeFromScript).asConst(); // NOTE: Ensure _bytesToExcludeFromScript is never null...
     }
 
+    /**
+     * Sets the PrecomputedSignatureHashes for this SignatureContext's Transaction, so that the hashes may be shared across
+     *  the SignatureContexts of each of the Transaction's inputs.
+     */
+    public void setPrecomputedSignatureHashes(final PrecomputedSignatureHashes precomputedSignatureHashes) {
+        _precomputedSignatureHashes = precomputedSignatureHashes;
+    }
+
     public Transaction getTransaction() {
         return _transaction;
     }
@@ -147,6 +156,17 @@ public class SignatureContext {
         return _bytesToExcludeFromScript;
     }
 
+    /**
+     * Returns the PrecomputedSignatureHashes for this SignatureContext's Transaction.
+     *  If none was provided, then one is created that is only used by this SignatureContext.
+     */
+    public PrecomputedSignatureHashes getPrecomputedSignatureHashes() {
+        if (_precomputedSignatureHashes == null) {
+            _precomputedSignatureHashes = new PrecomputedSignatureHashes(_transaction);
+        }
+        return _precomputedSignatureHashes;
+    }
+
     public Boolean shouldUseBitcoinCashSigningAlgorithm() {
         if (! Bip55.isEnabled(_blockHeight)) { return false; }
 
@@ -1,12 +1,15 @@
 package com.softwareverde.bitcoin.transaction.signer;
 
 import com.softwareverde.bitcoin.secp256k1.Secp256k1;
+import com.softwareverde.bitcoin.secp256k1.SignatureCache;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.secp256k1.signature.Signature;
 import com.softwareverde.bitcoin.transaction.MutableTransaction;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionDeflater;
 import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.input.TransactionInputDeflater;
 import com.softwareverde.bitcoin.transaction.locktime.LockTime;
 import com.softwareverde.bitcoin.transaction.locktime.SequenceNumber;
 import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
@@ -33,6 +36,8 @@ import com.softwareverde.util.bytearray.ByteArrayBuilder;
 import com.softwareverde.util.bytearray.Endian;
 
 public class TransactionSigner {
+    public static final SignatureCache SIGNATURE_CACHE = new SignatureCache();
+
     private static final byte[] INVALID_SIGNATURE_HASH_SINGLE_VALUE = HexUtil.hexStringToByteArray("0100000000000000000000000000000000000000000000000000000000000000");
 
     protected byte[] _getBytesForSigning(final SignatureContext signatureContext) {
@@ -43,6 +48,87 @@ public class TransactionSigner {
         return _getBitcoinCashBytesForSigning(signatureContext);
     }
 
+    protected UnlockingScript _getUnlockingScriptForSigning(final SignatureContext signatureContext, final Integer inputIndex) {
+        final Script unlockingScriptForSigning;
+        final Boolean shouldSignScript = signatureContext.shouldInputScriptBeSigned(inputIndex);
+        if (shouldSignScript) {
+            final Script currentScript = signatureContext.getCurrentScript();
+            final TransactionOutput transactionOutputBeingSpent = signatureContext.getTransactionOutputBeingSpent(inputIndex);
+            final LockingScript outputBeingSpentLockingScript = transactionOutputBeingSpent.getLockingScript();
+
+            { // Handle Code-Separators...
+                final MutableScript mutableScript = new MutableScript(Util.coalesce(currentScript, outputBeingSpentLockingScript));
+
+                final Integer subscriptIndex = signatureContext.getLastCodeSeparatorIndex(inputIndex);
+                if (subscriptIndex > 0) {
+                    mutableScript.subScript(subscriptIndex);
+                }
+
+                mutableScript.removeOperations(Opcode.CODE_SEPARATOR);
+                unlockingScriptForSigning = mutableScript;
+            }
+        }
+        else {
+            unlockingScriptForSigning = UnlockingScript.EMPTY_SCRIPT;
+        }
+
+        { // Remove any ByteArrays that should be excluded from the script signing (aka signatures)...
+            final MutableScript modifiedScript = new MutableScript(unlockingScriptForSigning);
+            final List<ByteArray> bytesToExcludeFromScript = signatureContext.getBytesToExcludeFromScript();
+            for (final ByteArray byteArray : bytesToExcludeFromScript) {
+                modifiedScript.removePushOperations(byteArray);
+            }
+            return UnlockingScript.castFrom(modifiedScript);
+        }
+    }
+
+    /**
+     * Calculates the same bytes as _getBitcoinCoreBytesForSigning for SIGHASH_ALL, but reuses the serialized inputs and
+     *  outputs cached by the SignatureContext's PrecomputedSignatureHashes; only the inputs whose scripts are signed are
+     *  re-serialized.
+     */
+    protected byte[] _getBitcoinCoreBytesForSigningAll(final SignatureContext signatureContext) {
+        final TransactionInputDeflater transactionInputDeflater = new TransactionInputDeflater();
+        final PrecomputedSignatureHashes precomputedSignatureHashes = signatureContext.getPrecomputedSignatureHashes();
+
+        final Transaction transaction = signatureContext.getTransaction();
+        final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
+        final HashType hashType = signatureContext.getHashType();
+
+        final byte[] versionBytes = new byte[4];
+        ByteUtil.setBytes(versionBytes, ByteUtil.integerToBytes(transaction.getVersion()));
+
+        final byte[] lockTimeBytes = new byte[4];
+        ByteUtil.setBytes(lockTimeBytes, transaction.getLockTime().getBytes().getBytes());
+
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(versionBytes, Endian.LITTLE);
+
+        byteArrayBuilder.appendBytes(ByteUtil.variableLengthIntegerToBytes(transactionInputs.getSize()), Endian.BIG);
+        for (int inputIndex = 0; inputIndex < transactionInputs.getSize(); ++inputIndex) {
+            if (! signatureContext.shouldInputScriptBeSigned(inputIndex)) {
+                byteArrayBuilder.appendBytes(precomputedSignatureHashes.getUnsignedTransactionInputBytes(inputIndex), Endian.BIG);
+                continue;
+            }
+
+            final UnlockingScript unlockingScriptForSigning = _getUnlockingScriptForSigning(signatureContext, inputIndex);
+            final TransactionInput transactionInput = transactionInputs.get(inputIndex);
+            final MutableTransactionInput mutableTransactionInput = new MutableTransactionInput();
+            mutableTransactionInput.setPreviousOutputIndex(transactionInput.getPreviousOutputIndex());
+            mutableTransactionInput.setPreviousOutputTransactionHash(transactionInput.getPreviousOutputTransactionHash());
+            mutableTransactionInput.setUnlockingScript(unlockingScriptForSigning);
+            mutableTransactionInput.setSequenceNumber(transactionInput.getSequenceNumber());
+            byteArrayBuilder.appendBytes(transactionInputDeflater.toBytes(mutableTransactionInput), Endian.BIG);
+        }
+
+        byteArrayBuilder.appendBytes(precomputedSignatureHashes.getTransactionOutputsBytes(), Endian.BIG);
+        byteArrayBuilder.appendBytes(lockTimeBytes, Endian.LITTLE);
+
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(ByteUtil.byteToInteger(hashType.toByte())), Endian.LITTLE);
+        final byte[] bytes = byteArrayBuilder.build();
+        return BitcoinUtil.doubleSha256(bytes);
+    }
+
     // Steps:
     // 1. Set all input-scripts to empty scripts.
     // 2. Set the input's (associated with the inputIndexToBeSigned) unlocking-script to the value of its corresponding output-script from the previous transaction.
@@ -72,6 +158,10 @@ public class TransactionSigner {
             }
         }
 
+        if ( (hashType.getMode() == Mode.SIGNATURE_HASH_ALL) && (hashType.shouldSignOtherInputs()) ) {
+            return _getBitcoinCoreBytesForSigningAll(signatureContext);
+        }
+
         final MutableTransaction mutableTransaction = new MutableTransaction();
         mutableTransaction.setVersion(transaction.getVersion());
         mutableTransaction.setLockTime(transaction.getLockTime());
@@ -85,39 +175,7 @@ public class TransactionSigner {
             mutableTransactionInput.setPreviousOutputIndex(transactionInput.getPreviousOutputIndex());
             mutableTransactionInput.setPreviousOutputTransactionHash(transactionInput.getPreviousOutputTransactionHash());
 
-            { // Handle Input-Script Signing...
-                final Script unlockingScriptForSigning;
-                final Boolean shouldSignScript = signatureContext.shouldInputScriptBeSigned(inputIndex);
-                if (shouldSignScript) {
-                    final Script currentScript = signatureContext.getCurrentScript();
-                    final TransactionOutput transactionOutputBeingSpent = signatureContext.getTransactionOutputBeingSpent(inputIndex);
-                    final LockingScript outputBeingSpentLockingScript = transactionOutputBeingSpent.getLockingScript();
-
-                    { // Handle Code-Separators...
-                        final MutableScript mutableScript = new MutableScript(Util.coalesce(currentScript, outputBeingSpentLockingScript));
-
-                        final Integer subscriptIndex = signatureContext.getLastCodeSeparatorIndex(inputIndex);
-                        if (subscriptIndex > 0) {
-                            mutableScript.subScript(subscriptIndex);
-                        }
-
-                        mutableScript.removeOperations(Opcode.CODE_SEPARATOR);
-                        unlockingScriptForSigning = mutableScript;
-                    }
-                }
-                else {
-                    unlockingScriptForSigning = UnlockingScript.EMPTY_SCRIPT;
-                }
-
-                { // Remove any ByteArrays that should be excluded from the script signing (aka signatures)...
-                    final MutableScript modifiedScript = new MutableScript(unlockingScriptForSigning);
-                    final List<ByteArray> bytesToExcludeFromScript = signatureContext.getBytesToExcludeFromScript();
-                    for (final ByteArray byteArray : bytesToExcludeFromScript) {
-                        modifiedScript.removePushOperations(byteArray);
-                    }
-                    mutableTransactionInput.setUnlockingScript(UnlockingScript.castFrom(modifiedScript));
-                }
-            }
+            mutableTransactionInput.setUnlockingScript(_getUnlockingScriptForSigning(signatureContext, inputIndex));
 
             { // Handle Input-Sequence-Number Signing...
                 if (signatureContext.shouldInputSequenceNumberBeSigned(inputIndex)) {
@@ -162,7 +220,7 @@ public class TransactionSigner {
         final ByteArrayBuilder byteArrayBuilder = transactionDeflater.toByteArrayBuilder(mutableTransaction);
         byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(ByteUtil.byteToInteger(hashType.toByte())), Endian.LITTLE);
         final byte[] bytes = byteArrayBuilder.build();
-        return BitcoinUtil.sha256(BitcoinUtil.sha256(bytes));
+        return BitcoinUtil.doubleSha256(bytes);
     }
 
     protected byte[] _getBitcoinCashBytesForSigning(final SignatureContext signatureContext) {
@@ -172,6 +230,8 @@ public class TransactionSigner {
         final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
         final HashType hashType = signatureContext.getHashType();
 
+        final PrecomputedSignatureHashes precomputedSignatureHashes = signatureContext.getPrecomputedSignatureHashes();
+
         final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
 
         { // 1. Serialize this Transaction's version...
@@ -180,14 +240,7 @@ public class TransactionSigner {
 
         { // 2. Serialize this Transaction's PreviousTransactionOutputs...
             if (hashType.shouldSignOtherInputs()) {
-                final ByteArrayBuilder serializedTransactionInput = new ByteArrayBuilder();
-                for (final TransactionInput transactionInput : transactionInputs) {
-                    serializedTransactionInput.appendBytes(transactionInput.getPreviousOutputTransactionHash(), Endian.LITTLE);
-                    serializedTransactionInput.appendBytes(ByteUtil.integerToBytes(transactionInput.getPreviousOutputIndex()), Endian.LITTLE);
-                }
-
-                final byte[] bytes = BitcoinUtil.sha256(BitcoinUtil.sha256(serializedTransactionInput.build()));
-                byteArrayBuilder.appendBytes(bytes);
+                byteArrayBuilder.appendBytes(precomputedSignatureHashes.getPreviousOutputsHash());
             }
             else {
                 byteArrayBuilder.appendBytes(Sha256Hash.EMPTY_HASH);
@@ -199,12 +252,7 @@ public class TransactionSigner {
                 byteArrayBuilder.appendBytes(Sha256Hash.EMPTY_HASH);
             }
             else {
-                final ByteArrayBuilder serializedSequenceNumbers = new ByteArrayBuilder();
-                for (final TransactionInput transactionInput : transactionInputs) {
-                    serializedSequenceNumbers.appendBytes(transactionInput.getSequenceNumber().getBytes(), Endian.LITTLE);
-                }
-                final byte[] bytes = BitcoinUtil.sha256(BitcoinUtil.sha256(serializedSequenceNumbers.build()));
-                byteArrayBuilder.appendBytes(bytes);
+                byteArrayBuilder.appendBytes(precomputedSignatureHashes.getSequenceNumbersHash());
             }
         }
 
@@ -267,7 +315,7 @@ public class TransactionSigner {
                     serializedTransactionOutput.appendBytes(ByteUtil.variableLengthIntegerToBytes(transactionOutputScript.getByteCount()));
                     serializedTransactionOutput.appendBytes(transactionOutputScript.getBytes());
 
-                    final byte[] bytes = BitcoinUtil.sha256(BitcoinUtil.sha256(serializedTransactionOutput.build()));
+                    final byte[] bytes = BitcoinUtil.doubleSha256(serializedTransactionOutput.build());
                     byteArrayBuilder.appendBytes(bytes);
                 }
             }
@@ -275,18 +323,7 @@ public class TransactionSigner {
                 byteArrayBuilder.appendBytes(Sha256Hash.EMPTY_HASH);
             }
             else {
-                final ByteArrayBuilder serializedTransactionOutput = new ByteArrayBuilder();
-
-                for (final TransactionOutput transactionOutput : transactionOutputs) {
-                    final LockingScript transactionOutputScript = transactionOutput.getLockingScript();
-
-                    serializedTransactionOutput.appendBytes(ByteUtil.longToBytes(transactionOutput.getAmount()), Endian.LITTLE);
-                    serializedTransactionOutput.appendBytes(ByteUtil.variableLengthIntegerToBytes(transactionOutputScript.getByteCount()));
-                    serializedTransactionOutput.appendBytes(transactionOutputScript.getBytes());
-                }
-
-                final byte[] bytes = BitcoinUtil.sha256(BitcoinUtil.sha256(serializedTransactionOutput.build()));
-                byteArrayBuilder.appendBytes(bytes);
+                byteArrayBuilder.appendBytes(precomputedSignatureHashes.getTransactionOutputsHash());
             }
         }
 
@@ -300,12 +337,24 @@ public class TransactionSigner {
             byteArrayBuilder.appendBytes(ByteUtil.integerToBytes((FORK_ID << 8) | hashType.toByte()), Endian.LITTLE);
         }
 
-        return BitcoinUtil.sha256(BitcoinUtil.sha256(byteArrayBuilder.build()));
+        return BitcoinUtil.doubleSha256(byteArrayBuilder.build());
     }
 
     public boolean isSignatureValid(final SignatureContext signatureContext, final PublicKey publicKey, final ScriptSignature scriptSignature) {
         final byte[] bytesForSigning = _getBytesForSigning(signatureContext);
-        return Secp256k1.verifySignature(scriptSignature.getSignature(), publicKey, bytesForSigning);
+        return SIGNATURE_CACHE.verifySignature(bytesForSigning, publicKey, scriptSignature.getSignature());
+    }
+
+    /**
+     * Adds the signature to signatureVerificationBatch, unless it has already been verified as valid.
+     *  The signature should be considered valid only once the batch has been verified.
+     */
+    public void queueSignatureVerification(final SignatureContext signatureContext, final PublicKey publicKey, final ScriptSignature scriptSignature, final SignatureVerificationBatch signatureVerificationBatch) {
+        final byte[] bytesForSigning = _getBytesForSigning(signatureContext);
+        final Signature signature = scriptSignature.getSignature();
+        if (signatureVerificationBatch.isSignatureCached(bytesForSigning, publicKey, signature)) { return; }
+
+        signatureVerificationBatch.addSignature(bytesForSigning, publicKey, signature);
     }
 
     public Transaction signTransaction(final SignatureContext signatureContext, final PrivateKey privateKey) {
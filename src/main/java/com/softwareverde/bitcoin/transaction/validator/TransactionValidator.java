@@ -5,6 +5,7 @@ import com.softwareverde.bitcoin.bip.Bip68;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
+import com.softwareverde.bitcoin.secp256k1.SignatureVerificationBatch;
 import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.database.TransactionDatabaseManager;
@@ -88,11 +89,7 @@ public class TransactionValidator {
     }
 
     protected TransactionOutput _findTransactionOutput(final TransactionOutputIdentifier transactionOutputIdentifier) throws DatabaseException {
-        final Integer transactionOutputIndex = transactionOutputIdentifier.getOutputIndex();
-        final TransactionId transactionId = _transactionDatabaseManager.getTransactionIdFromHash(transactionOutputIdentifier.getBlockChainSegmentId(), transactionOutputIdentifier.getTransactionHash());
-        if (transactionId == null) { return null; }
-
-        final TransactionOutputId transactionOutputId = _transactionOutputDatabaseManager.findTransactionOutput(transactionId, transactionOutputIndex);
+        final TransactionOutputId transactionOutputId = _transactionOutputDatabaseManager.findTransactionOutput(transactionOutputIdentifier);
         if (transactionOutputId == null) { return null; }
 
         return _transactionOutputDatabaseManager.getTransactionOutput(transactionOutputId);
@@ -174,10 +171,21 @@ public class TransactionValidator {
     }
 
     public Boolean validateTransactionInputsAreUnlocked(final BlockChainSegmentId blockChainSegmentId, final Long blockHeight, final Transaction transaction) {
+        return validateTransactionInputsAreUnlocked(blockChainSegmentId, blockHeight, transaction, null);
+    }
+
+    /**
+     * Validates the transaction's inputs, deferring the verification of single-signature checks to signatureVerificationBatch.
+     *  The deferred signatures are assumed valid, so a result of true is only meaningful once the batch has been verified;
+     *  if the batch is invalid, then the transaction must be re-validated without a batch.  If signatureVerificationBatch is
+     *  null, then all signatures are verified immediately.
+     */
+    public Boolean validateTransactionInputsAreUnlocked(final BlockChainSegmentId blockChainSegmentId, final Long blockHeight, final Transaction transaction, final SignatureVerificationBatch signatureVerificationBatch) {
         final ScriptRunner scriptRunner = new ScriptRunner();
 
         final MutableContext context = new MutableContext();
         context.setBlockHeight(blockHeight);
+        context.setSignatureVerificationBatch(signatureVerificationBatch);
 
         context.setTransaction(transaction);
 
@@ -241,8 +249,10 @@ public class TransactionValidator {
 
             final Boolean inputIsUnlocked = scriptRunner.runScript(lockingScript, unlockingScript, context);
             if (! inputIsUnlocked) {
-                Logger.log("Transaction failed to verify.");
-                _logInvalidTransaction(transaction, context);
+                if (signatureVerificationBatch == null) { // NOTE: Failures while signatures are deferred are re-validated by the caller, so they are not logged...
+                    Logger.log("Transaction failed to verify.");
+                    _logInvalidTransaction(transaction, context);
+                }
                 return false;
             }
         }
@@ -7,39 +7,156 @@ import com.softwareverde.io.Logger;
 import com.softwareverde.util.Base58Util;
 import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 
+import java.nio.ByteBuffer;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+/**
+ * NOTE: Hash Functions
+ *  Each thread reuses its own MessageDigest/RIPEMD160Digest instances rather than looking up (or allocating) an instance per hash.
+ *  The digests are always reset before the function returns, so the functions are safe to call from any thread, but a function
+ *  must not be invoked from within another hash function on the same thread while its digest is in use.
+ *
+ *  The into-buffer variants write the hash into the provided output buffer at outputOffset instead of allocating a new byte[];
+ *  the output buffer may overlap the input.
+ */
 public class BitcoinUtil {
+    public static final Integer SHA_256_BYTE_COUNT = 32;
+    public static final Integer RIPEMD_160_BYTE_COUNT = 20;
+
+    protected static ThreadLocal<MessageDigest> _createThreadLocalMessageDigest(final String algorithm) {
+        return new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                try {
+                    return MessageDigest.getInstance(algorithm);
+                }
+                catch (final NoSuchAlgorithmException exception) {
+                    throw new RuntimeException(exception);
+                }
+            }
+        };
+    }
 
-    public static byte[] sha1(final byte[] data) {
+    protected static final ThreadLocal<MessageDigest> _threadLocalSha1MessageDigest = _createThreadLocalMessageDigest("SHA-1");
+    protected static final ThreadLocal<MessageDigest> _threadLocalSha256MessageDigest = _createThreadLocalMessageDigest("SHA-256");
+
+    protected static final ThreadLocal<RIPEMD160Digest> _threadLocalRipemd160Digest = new ThreadLocal<RIPEMD160Digest>() {
+        @Override
+        protected RIPEMD160Digest initialValue() {
+            return new RIPEMD160Digest();
+        }
+    };
+
+    protected static final ThreadLocal<byte[]> _threadLocalScratchSpace = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SHA_256_BYTE_COUNT];
+        }
+    };
+
+    /**
+     * Hashes the first sha256 of a double-sha256 into the thread's scratch space, and returns the scratch space.
+     *  The MessageDigest is reset afterwards.
+     */
+    protected static byte[] _sha256IntoScratchSpace(final MessageDigest messageDigest, final byte[] data, final int offset, final int byteCount) {
+        final byte[] scratchSpace = _threadLocalScratchSpace.get();
+        try {
+            messageDigest.update(data, offset, byteCount);
+            messageDigest.digest(scratchSpace, 0, SHA_256_BYTE_COUNT);
+        }
+        catch (final DigestException exception) {
+            messageDigest.reset();
+            throw new RuntimeException(exception);
+        }
+        return scratchSpace;
+    }
+
+    protected static void _digestInto(final MessageDigest messageDigest, final byte[] output, final int outputOffset) {
         try {
-            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
-            return messageDigest.digest(data);
+            messageDigest.digest(output, outputOffset, messageDigest.getDigestLength());
         }
-        catch (final NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+        catch (final DigestException exception) {
+            messageDigest.reset();
+            throw new RuntimeException(exception);
         }
     }
 
+    public static byte[] sha1(final byte[] data) {
+        final MessageDigest messageDigest = _threadLocalSha1MessageDigest.get();
+        return messageDigest.digest(data);
+    }
+
     public static Sha256Hash sha256(final ByteArray data) {
         return MutableSha256Hash.wrap(sha256(data.getBytes()));
     }
 
     public static byte[] sha256(final byte[] data) {
-        try {
-            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-            return messageDigest.digest(data);
-        }
-        catch (final NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        final MessageDigest messageDigest = _threadLocalSha256MessageDigest.get();
+        return messageDigest.digest(data);
+    }
+
+    /**
+     * Writes the sha256 of data[offset, offset + byteCount) into output[outputOffset, outputOffset + SHA_256_BYTE_COUNT).
+     */
+    public static void sha256(final byte[] data, final int offset, final int byteCount, final byte[] output, final int outputOffset) {
+        final MessageDigest messageDigest = _threadLocalSha256MessageDigest.get();
+        messageDigest.update(data, offset, byteCount);
+        _digestInto(messageDigest, output, outputOffset);
+    }
+
+    /**
+     * Returns sha256(sha256(data)).  The result is not endian-reversed.
+     */
+    public static byte[] doubleSha256(final byte[] data) {
+        final byte[] output = new byte[SHA_256_BYTE_COUNT];
+        doubleSha256(data, 0, data.length, output, 0);
+        return output;
+    }
+
+    /**
+     * Writes sha256(sha256(data[offset, offset + byteCount))) into output[outputOffset, outputOffset + SHA_256_BYTE_COUNT).
+     */
+    public static void doubleSha256(final byte[] data, final int offset, final int byteCount, final byte[] output, final int outputOffset) {
+        final MessageDigest messageDigest = _threadLocalSha256MessageDigest.get();
+        final byte[] scratchSpace = _sha256IntoScratchSpace(messageDigest, data, offset, byteCount);
+        messageDigest.update(scratchSpace, 0, SHA_256_BYTE_COUNT);
+        _digestInto(messageDigest, output, outputOffset);
+    }
+
+    /**
+     * Writes sha256(sha256(data)) into output[outputOffset, outputOffset + SHA_256_BYTE_COUNT).
+     *  The remaining bytes of data are consumed.
+     */
+    public static void doubleSha256(final ByteBuffer data, final byte[] output, final int outputOffset) {
+        final MessageDigest messageDigest = _threadLocalSha256MessageDigest.get();
+        final byte[] scratchSpace = _threadLocalScratchSpace.get();
+
+        messageDigest.update(data);
+        _digestInto(messageDigest, scratchSpace, 0);
+        messageDigest.update(scratchSpace, 0, SHA_256_BYTE_COUNT);
+        _digestInto(messageDigest, output, outputOffset);
     }
 
     public static byte[] ripemd160(final byte[] data) {
-        final RIPEMD160Digest ripemd160Digest = new RIPEMD160Digest();
+        final byte[] output = new byte[RIPEMD_160_BYTE_COUNT];
+        final RIPEMD160Digest ripemd160Digest = _threadLocalRipemd160Digest.get();
         ripemd160Digest.update(data, 0, data.length);
-        final byte[] output = new byte[ripemd160Digest.getDigestSize()];
+        ripemd160Digest.doFinal(output, 0); // NOTE: RIPEMD160Digest::doFinal resets the digest...
+        return output;
+    }
+
+    /**
+     * Returns ripemd160(sha256(data)), as used by addresses and OP_HASH160, without allocating the intermediary sha256.
+     */
+    public static byte[] hash160(final byte[] data) {
+        final MessageDigest messageDigest = _threadLocalSha256MessageDigest.get();
+        final byte[] scratchSpace = _sha256IntoScratchSpace(messageDigest, data, 0, data.length);
+
+        final byte[] output = new byte[RIPEMD_160_BYTE_COUNT];
+        final RIPEMD160Digest ripemd160Digest = _threadLocalRipemd160Digest.get();
+        ripemd160Digest.update(scratchSpace, 0, SHA_256_BYTE_COUNT);
         ripemd160Digest.doFinal(output, 0);
         return output;
     }
@@ -0,0 +1,20 @@
+package com.softwareverde.network.p2p.message;
+
+/**
+ * Inflates a ProtocolMessage while its packet is still being received, so that invalid packets may be rejected before they
+ *  have been fully received.  An IncrementalProtocolMessageInflater is created per packet, once the packet's header is known.
+ */
+public interface IncrementalProtocolMessageInflater {
+    /**
+     * Invoked as the bytes of the packet are received.
+     *  The first receivedByteCount bytes of packet, including the header, have been received.  packet may be a different (larger)
+     *  byte[] between invocations, since the packet grows as its bytes arrive; it should not be retained between invocations.
+     *  Returns false if the packet is invalid, in which case its remaining bytes are discarded.
+     */
+    Boolean onBytesReceived(byte[] packet, Integer receivedByteCount);
+
+    /**
+     * Invoked once the full packet has been received; returns the inflated message, or null if the packet is invalid.
+     */
+    ProtocolMessage getMessage();
+}
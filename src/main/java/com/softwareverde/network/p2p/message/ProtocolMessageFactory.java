@@ -2,4 +2,10 @@ package com.softwareverde.network.p2p.message;
 
 public interface ProtocolMessageFactory<T extends ProtocolMessage> {
     T fromBytes(byte[] bytes);
+
+    /**
+     * Returns an IncrementalProtocolMessageInflater for the packet described by protocolMessageHeader, or null if
+     *  the packet's message type must be inflated via fromBytes once it has been fully received.
+     */
+    IncrementalProtocolMessageInflater createIncrementalInflater(ProtocolMessageHeader protocolMessageHeader);
 }
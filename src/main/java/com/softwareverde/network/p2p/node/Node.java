@@ -10,6 +10,8 @@ import com.softwareverde.network.p2p.message.type.*;
 import com.softwareverde.network.p2p.node.address.NodeIpAddress;
 import com.softwareverde.network.socket.BinaryPacketFormat;
 import com.softwareverde.network.socket.BinarySocket;
+import com.softwareverde.network.socket.SerialExecutor;
+import com.softwareverde.network.socket.Socket;
 import com.softwareverde.util.RotatingQueue;
 import com.softwareverde.util.Util;
 import com.softwareverde.util.type.time.SystemTime;
@@ -78,6 +80,12 @@ public abstract class Node {
 
     protected final LinkedList<Runnable> _postConnectQueue = new LinkedList<Runnable>();
 
+    /**
+     * Executes the Node's callbacks in the order they were raised, without any single Node occupying more than one slot of
+     *  the shared MESSAGE_HANDLER_EXECUTOR's queue; callbacks rejected by a full queue are retried rather than dropped.
+     */
+    protected final SerialExecutor _callbackExecutor = new SerialExecutor(Socket.MESSAGE_HANDLER_EXECUTOR);
+
     protected abstract PingMessage _createPingMessage();
     protected abstract PongMessage _createPongMessage(final PingMessage pingMessage);
     protected abstract SynchronizeVersionMessage _createSynchronizeVersionMessage();
@@ -151,7 +159,7 @@ public abstract class Node {
         }
 
         if (_nodeConnectedCallback != null) {
-            (new Thread(new Runnable() {
+            _callbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     final NodeConnectedCallback callback = _nodeConnectedCallback;
@@ -159,7 +167,7 @@ public abstract class Node {
                         callback.onNodeConnected();
                     }
                 }
-            })).start();
+            });
         }
     }
 
@@ -167,7 +175,7 @@ public abstract class Node {
         Logger.log("Socket disconnected.");
 
         if (_nodeDisconnectedCallback != null) {
-            (new Thread(new Runnable() {
+            _callbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     final NodeDisconnectedCallback callback = _nodeDisconnectedCallback;
@@ -175,7 +183,7 @@ public abstract class Node {
                         callback.onNodeDisconnected();
                     }
                 }
-            })).start();
+            });
         }
     }
 
@@ -227,7 +235,7 @@ public abstract class Node {
     protected void _onAcknowledgeVersionMessageReceived(final AcknowledgeVersionMessage acknowledgeVersionMessage) {
         _handshakeIsComplete = true;
         if (_nodeHandshakeCompleteCallback != null) {
-            (new Thread(new Runnable() {
+            _callbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     final NodeHandshakeCompleteCallback callback = _nodeHandshakeCompleteCallback;
@@ -235,7 +243,7 @@ public abstract class Node {
                         callback.onHandshakeComplete();
                     }
                 }
-            })).start();
+            });
         }
 
         while (! _postHandshakeMessageQueue.isEmpty()) {
@@ -244,19 +252,20 @@ public abstract class Node {
     }
 
     protected void _onNodeAddressesReceived(final NodeIpAddressMessage nodeIpAddressMessage) {
-        for (final NodeIpAddress nodeIpAddress : nodeIpAddressMessage.getNodeIpAddresses()) {
-            if (_nodeAddressesReceivedCallback != null) {
-                (new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        final NodeAddressesReceivedCallback callback = _nodeAddressesReceivedCallback;
-                        if (callback != null) {
-                            callback.onNewNodeAddress(nodeIpAddress);
-                        }
-                    }
-                })).start();
+        if (_nodeAddressesReceivedCallback == null) { return; }
+
+        final List<NodeIpAddress> nodeIpAddresses = nodeIpAddressMessage.getNodeIpAddresses();
+        _callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (final NodeIpAddress nodeIpAddress : nodeIpAddresses) {
+                    final NodeAddressesReceivedCallback callback = _nodeAddressesReceivedCallback;
+                    if (callback == null) { return; }
+
+                    callback.onNewNodeAddress(nodeIpAddress);
+                }
             }
-        }
+        });
     }
 
     public Node(final String host, final Integer port, final BinaryPacketFormat binaryPacketFormat) {
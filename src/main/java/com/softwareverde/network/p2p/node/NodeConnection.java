@@ -5,12 +5,14 @@ import com.softwareverde.io.Logger;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
 import com.softwareverde.network.socket.BinaryPacketFormat;
 import com.softwareverde.network.socket.BinarySocket;
+import com.softwareverde.network.socket.SerialExecutor;
+import com.softwareverde.network.socket.Socket;
 import com.softwareverde.util.StringUtil;
 
 import java.io.IOException;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -28,13 +30,13 @@ public class NodeConnection {
 
             if (_socketUsedToBeConnected) {
                 if (_onDisconnectCallback != null) {
-                    (new Thread(_onDisconnectCallback)).start();
+                    _connectionCallbackExecutor.execute(_onDisconnectCallback);
                 }
                 _socketUsedToBeConnected = false;
                 Logger.log("IO: NodeConnection: Connection lost.");
             }
 
-            Socket socket = null;
+            SocketChannel socketChannel = null;
 
             int attemptCount = 0;
             while (true) {
@@ -45,24 +47,27 @@ public class NodeConnection {
 
                 if (_socketIsConnected()) { break; }
 
-                try {
-                    attemptCount += 1;
-                    socket = new Socket(_host, _port);
-                    if (socket.isConnected()) { break; }
-                }
-                catch (final UnknownHostException exception) {
+                final InetSocketAddress socketAddress = new InetSocketAddress(_host, _port);
+                if (socketAddress.isUnresolved()) {
                     Logger.log("IO: NodeConnection: Connection could not be established. Unknown host: " + _host + ":" + _port);
                     break;
                 }
+
+                try {
+                    attemptCount += 1;
+                    socketChannel = SocketChannel.open(socketAddress); // NOTE: Connects in blocking mode; the channel is made non-blocking once registered with the BinarySocket.EVENT_LOOP...
+                    if (socketChannel.isConnected()) { break; }
+                }
                 catch (final IOException e) { }
 
-                if ( (socket == null) || (! socket.isConnected()) ) {
+                if ( (socketChannel == null) || (! socketChannel.isConnected()) ) {
                     Logger.log("IO: NodeConnection: Connection failed. Retrying in 3000ms... (" + (_host + ":" + _port) + ")");
                     try { Thread.sleep(3000); } catch (final Exception exception) { break; }
                 }
             }
 
-            if ( (socket != null) && (socket.isConnected()) ) {
+            if ( (socketChannel != null) && (socketChannel.isConnected()) ) {
+                final java.net.Socket socket = socketChannel.socket();
                 {
                     final SocketAddress socketAddress = socket.getRemoteSocketAddress();
                     final String socketIpString = socketAddress.toString();
@@ -89,6 +94,8 @@ public class NodeConnection {
     protected final BinaryPacketFormat _binaryPacketFormat;
 
     protected final LinkedList<ProtocolMessage> _outboundMessageQueue = new LinkedList<ProtocolMessage>();
+    protected final SerialExecutor _outboundMessageExecutor = new SerialExecutor(Socket.MESSAGE_HANDLER_EXECUTOR);
+    protected final SerialExecutor _connectionCallbackExecutor = new SerialExecutor(Socket.MESSAGE_HANDLER_EXECUTOR); // Preserves the order of connect/disconnect callbacks, and retries them if the shared executor is saturated...
 
     protected final Object _connectionThreadMutex = new Object();
     protected BinarySocket _binarySocket;
@@ -130,7 +137,7 @@ public class NodeConnection {
             _processOutboundMessageQueue();
 
             if (_onConnectCallback != null) {
-                (new Thread(_onConnectCallback)).start();
+                _connectionCallbackExecutor.execute(_onConnectCallback);
             }
         }
         else {
@@ -138,7 +145,7 @@ public class NodeConnection {
             _processOutboundMessageQueue();
 
             if (_onReconnectCallback != null) {
-                (new Thread(_onReconnectCallback)).start();
+                _connectionCallbackExecutor.execute(_onReconnectCallback);
             }
         }
 
@@ -264,12 +271,12 @@ public class NodeConnection {
             Logger.log("Queuing: " + (((BitcoinProtocolMessage) message).getCommand()) );
         }
 
-        (new Thread(new Runnable() {
+        _outboundMessageExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 _writeOrQueueMessage(message);
             }
-        })).start();
+        });
     }
 
     public void setMessageReceivedCallback(final MessageReceivedCallback messageReceivedCallback) {
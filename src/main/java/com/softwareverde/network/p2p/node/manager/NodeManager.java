@@ -469,6 +469,10 @@ public class NodeManager<NODE extends Node> {
             }
         }
 
+        _executeRequest(selectedNode, nodeHealth, nodeApiInvocation, replayInvocation);
+    }
+
+    protected void _executeRequest(final NODE selectedNode, final NodeHealth nodeHealth, final NodeApiInvocation<NODE> nodeApiInvocation, final ReplayInvocation replayInvocation) {
         final RequestTimeoutThread timeoutThread;
         final NodeApiInvocationCallback cancelRequestTimeout;
         {
@@ -516,6 +520,56 @@ public class NodeManager<NODE extends Node> {
         _executeRequest(nodeApiInvocation, replayInvocation.value);
     }
 
+    /**
+     * Executes the nodeApiInvocation on the provided node, instead of the node selected by the NodeManager.
+     *  If the request times out it is not replayed on another node; instead, nodeApiInvocation.onFailure() is invoked
+     *  so that the caller may choose where to retry the request.  The node's health is updated as with any other request.
+     */
+    public void executeRequest(final NODE node, final NodeApiInvocation<NODE> nodeApiInvocation) {
+        final NodeHealth nodeHealth;
+        synchronized (_mutex) {
+            nodeHealth = _nodeHealthMap.get(node.getId());
+        }
+
+        if (nodeHealth == null) { // The node has been removed...
+            nodeApiInvocation.onFailure();
+            return;
+        }
+
+        final ReplayInvocation failureInvocation = new ReplayInvocation(null, new Runnable() {
+            @Override
+            public void run() {
+                nodeApiInvocation.onFailure();
+            }
+        });
+
+        _executeRequest(node, nodeHealth, nodeApiInvocation, failureInvocation);
+    }
+
+    /**
+     * Returns the nodes that have an active connection and have completed their handshake, ordered from healthiest to least healthy.
+     */
+    public List<NODE> getActiveNodesByHealth() {
+        synchronized (_mutex) {
+            final java.util.List<NODE> activeNodes = _getActiveNodes();
+
+            final java.util.List<NodeHealth> nodeHealthList = new ArrayList<NodeHealth>(activeNodes.size());
+            for (final NODE activeNode : activeNodes) {
+                if (! activeNode.handshakeIsComplete()) { continue; }
+
+                final NodeHealth nodeHealth = _nodeHealthMap.get(activeNode.getId());
+                nodeHealthList.add(nodeHealth);
+            }
+            Collections.sort(nodeHealthList, Collections.reverseOrder(NodeHealth.COMPARATOR));
+
+            final MutableList<NODE> nodes = new MutableList<NODE>(nodeHealthList.size());
+            for (final NodeHealth nodeHealth : nodeHealthList) {
+                nodes.add(_nodes.get(nodeHealth.getNodeId()));
+            }
+            return nodes;
+        }
+    }
+
     public List<NODE> getNodes() {
         return new MutableList<NODE>(_nodes.values());
     }
@@ -22,6 +22,13 @@ public class ReplayInvocation implements Runnable {
         }
     }
 
+    /**
+     * Returns false if the invocation was created without a replay Runnable, in which case a timed-out request fails immediately.
+     */
+    public Boolean isReplayable() {
+        return (_replayRunnable != null);
+    }
+
     public Integer getReplayCount() {
         return _replayCount;
     }
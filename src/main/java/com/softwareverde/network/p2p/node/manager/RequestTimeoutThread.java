@@ -39,7 +39,7 @@ public class RequestTimeoutThread extends Thread {
 
         if (_replayInvocation != null) {
             final Integer attemptCount = _replayInvocation.getReplayCount();
-            if (attemptCount < MAX_REPLAY_COUNT) {
+            if ( _replayInvocation.isReplayable() && (attemptCount < MAX_REPLAY_COUNT) ) {
                 _replayInvocation.run();
             }
             else {
@@ -2,12 +2,192 @@ package com.softwareverde.network.socket;
 
 import com.softwareverde.io.Logger;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.util.Util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
 
+/**
+ * A Socket that reads and writes BinaryPacketFormat messages.
+ *  If the provided java.net.Socket has a SocketChannel (i.e. it was created via SocketChannel.open or accepted by a
+ *  ServerSocketChannel), its reads and writes are non-blocking and are performed by the shared EVENT_LOOP; otherwise,
+ *  a dedicated ReadThread performs blocking reads from its InputStream.
+ *
+ *  Non-blocking sockets stop reading once MAX_PENDING_MESSAGE_COUNT received messages have not yet been popped, and resume
+ *  once half of them have been, so a peer cannot queue an unbounded number of messages faster than they are processed.
+ */
 public class BinarySocket extends Socket {
     public static Integer DEFAULT_BUFFER_SIZE = 1024 * 2;
+    public static final Long MAX_QUEUED_WRITE_BYTE_COUNT = (64L * 1024L * 1024L);
+    protected static final Integer MAX_READ_COUNT_PER_EVENT = 16;
+    public static final Integer MAX_PENDING_MESSAGE_COUNT = 256;
+
+    public static final SocketEventLoop EVENT_LOOP = new SocketEventLoop(SocketEventLoop.DEFAULT_THREAD_COUNT);
+
+    /**
+     * Reads from a non-blocking SocketChannel whenever the EVENT_LOOP reports it as readable.
+     *  Despite implementing Socket.ReadThread, ChannelReader does not own a thread; start() registers the channel with the EVENT_LOOP.
+     */
+    protected static class ChannelReader implements Socket.ReadThread, SocketEventLoop.ChannelHandler {
+        private final PacketBuffer _protocolMessageBuffer;
+        private final SocketChannel _socketChannel;
+        private Callback _callback;
+        private volatile SocketEventLoop.Registration _registration;
+        private byte[] _unusedBuffer = null;
+        private volatile Boolean _hasExited = false;
+        private volatile Boolean _isReadPaused = false;
+
+        private Runnable _writableCallback;
+
+        private void _exit() {
+            if (_hasExited) { return; }
+            _hasExited = true;
+
+            final SocketEventLoop.Registration registration = _registration;
+            if (registration != null) {
+                registration.cancel();
+            }
+
+            if (_callback != null) {
+                _callback.onExit();
+            }
+        }
+
+        public ChannelReader(final SocketChannel socketChannel, final Integer bufferSize, final BinaryPacketFormat binaryPacketFormat) {
+            _socketChannel = socketChannel;
+
+            _protocolMessageBuffer = new PacketBuffer(binaryPacketFormat);
+            _protocolMessageBuffer.setBufferSize(bufferSize);
+        }
+
+        @Override
+        public void onReadable() {
+            try {
+                for (int i = 0; i < MAX_READ_COUNT_PER_EVENT; ++i) {
+                    if (_isReadPaused) { break; }
+
+                    final int bytesRead;
+                    if (_protocolMessageBuffer.isAssemblingPacket()) {
+                        // The remainder of a large packet is read directly into the packet...
+                        bytesRead = _protocolMessageBuffer.readPacketBytes(_socketChannel);
+                    }
+                    else {
+                        final byte[] buffer = (_unusedBuffer != null ? _unusedBuffer : _protocolMessageBuffer.getRecycledBuffer());
+                        _unusedBuffer = null;
+
+                        bytesRead = _socketChannel.read(ByteBuffer.wrap(buffer));
+                        if (bytesRead > 0) {
+                            _protocolMessageBuffer.appendBytes(buffer, bytesRead);
+                        }
+                        else {
+                            _unusedBuffer = buffer;
+                        }
+                    }
+
+                    if (bytesRead < 0) {
+                        throw new IOException("IO: Remote socket closed the connection.");
+                    }
+
+                    if (bytesRead == 0) { break; }
+
+                    if (LOGGING_ENABLED) {
+                        Logger.log("IO: [Received "+ bytesRead + " bytes from socket.] (Bytes In Buffer: "+ _protocolMessageBuffer.getByteCount() +")");
+                    }
+
+                    while (_protocolMessageBuffer.hasMessage()) {
+                        final ProtocolMessage message = _protocolMessageBuffer.popMessage();
+
+                        if (_callback != null) {
+                            if (message != null) {
+                                _callback.onNewMessage(message);
+                            }
+                        }
+                    }
+                }
+            }
+            catch (final IOException exception) {
+                Logger.log(exception);
+                _exit();
+            }
+        }
+
+        @Override
+        public void onWritable() {
+            final Runnable writableCallback = _writableCallback;
+            if (writableCallback != null) {
+                writableCallback.run();
+            }
+        }
+
+        @Override
+        public void onClosed() {
+            _exit();
+        }
+
+        @Override
+        public void setInputStream(final InputStream inputStream) {
+            // Nothing; bytes are read directly from the SocketChannel.
+        }
+
+        @Override
+        public void setCallback(final Callback callback) {
+            _callback = callback;
+        }
+
+        public void setWritableCallback(final Runnable writableCallback) {
+            _writableCallback = writableCallback;
+        }
+
+        public SocketEventLoop.Registration getRegistration() {
+            return _registration;
+        }
+
+        /**
+         * Enables or disables reading from the SocketChannel; messages that were already read are still delivered.
+         */
+        public void setReadPaused(final Boolean isReadPaused) {
+            if (Util.areEqual(_isReadPaused, isReadPaused)) { return; }
+            _isReadPaused = isReadPaused;
+
+            final SocketEventLoop.Registration registration = _registration;
+            if (registration != null) {
+                registration.setReadInterest(! isReadPaused);
+            }
+        }
+
+        public Boolean isReadPaused() {
+            return _isReadPaused;
+        }
+
+        @Override
+        public void start() {
+            try {
+                _registration = EVENT_LOOP.register(_socketChannel, this);
+            }
+            catch (final IOException exception) {
+                Logger.log(exception);
+                _exit();
+            }
+        }
+
+        @Override
+        public void interrupt() {
+            final SocketEventLoop.Registration registration = _registration;
+            if (registration != null) {
+                registration.cancel();
+            }
+        }
+
+        @Override
+        public void join() { }
+
+        public void setBufferSize(final Integer bufferSize) {
+            _protocolMessageBuffer.setBufferSize(bufferSize);
+        }
+    }
 
     protected static class ReadThread extends Thread implements Socket.ReadThread {
         private final PacketBuffer _protocolMessageBuffer;
@@ -82,18 +262,154 @@ public class BinarySocket extends Socket {
         }
     }
 
+    protected static Socket.ReadThread _createReadThread(final java.net.Socket socket, final BinaryPacketFormat binaryPacketFormat) {
+        final SocketChannel socketChannel = socket.getChannel();
+        if (socketChannel != null) {
+            return new ChannelReader(socketChannel, DEFAULT_BUFFER_SIZE, binaryPacketFormat);
+        }
+
+        return new ReadThread(DEFAULT_BUFFER_SIZE, binaryPacketFormat);
+    }
+
     protected final BinaryPacketFormat _binaryPacketFormat;
     protected Integer _bufferSize;
 
+    protected final ChannelReader _channelReader; // null if the socket does not have a SocketChannel...
+    protected final LinkedList<ByteBuffer> _queuedWrites = new LinkedList<ByteBuffer>();
+    protected Long _queuedWriteByteCount = 0L;
+    protected Boolean _isWriteInterested = false;
+
+    /**
+     * Writes as many of the queued bytes as the SocketChannel will currently accept, and requests a writable-event
+     *  from the EVENT_LOOP if bytes remain.  Returns false if the SocketChannel could not be written to.
+     */
+    // NOTE: Requires _queuedWrites lock...
+    protected Boolean _flushQueuedWrites() {
+        final SocketChannel socketChannel = _socket.getChannel();
+
+        try {
+            while (! _queuedWrites.isEmpty()) {
+                final ByteBuffer byteBuffer = _queuedWrites.getFirst();
+                final int byteCount = socketChannel.write(byteBuffer);
+                _queuedWriteByteCount -= byteCount;
+
+                if (byteBuffer.hasRemaining()) { break; }
+                _queuedWrites.removeFirst();
+            }
+        }
+        catch (final IOException exception) {
+            return false;
+        }
+
+        final Boolean isWriteInterested = (! _queuedWrites.isEmpty());
+        if (isWriteInterested != _isWriteInterested) {
+            final SocketEventLoop.Registration registration = _channelReader.getRegistration();
+            if (registration != null) {
+                registration.setWriteInterest(isWriteInterested);
+                _isWriteInterested = isWriteInterested;
+            }
+        }
+
+        return true;
+    }
+
     public BinarySocket(final java.net.Socket socket, final BinaryPacketFormat binaryPacketFormat) {
-        super(socket, new ReadThread(DEFAULT_BUFFER_SIZE, binaryPacketFormat));
+        super(socket, _createReadThread(socket, binaryPacketFormat));
         _binaryPacketFormat = binaryPacketFormat;
         _bufferSize = DEFAULT_BUFFER_SIZE;
+
+        if (_readThread instanceof ChannelReader) {
+            _channelReader = (ChannelReader) _readThread;
+            _channelReader.setWritableCallback(new Runnable() {
+                @Override
+                public void run() {
+                    final Boolean wasSuccessful;
+                    synchronized (_queuedWrites) {
+                        wasSuccessful = _flushQueuedWrites();
+                    }
+
+                    if (! wasSuccessful) {
+                        _closeSocket();
+                    }
+                }
+            });
+        }
+        else {
+            _channelReader = null;
+        }
+    }
+
+    @Override
+    protected void _onMessageReceived(final ProtocolMessage message) {
+        super._onMessageReceived(message);
+
+        // NOTE: Invoked while holding the _messages lock...
+        //  Reads are only paused while the message handler is scheduled (or awaiting a retry after the MESSAGE_HANDLER_EXECUTOR
+        //  rejected it), since its execution is what resumes reads.
+        if ( (_channelReader != null) && (_messages.size() >= MAX_PENDING_MESSAGE_COUNT) && _messageReceivedExecutor.isRunning() ) {
+            if (LOGGING_ENABLED) {
+                Logger.log("IO: " + _messages.size() + " messages pending. Pausing reads from socket: " + this);
+            }
+            _channelReader.setReadPaused(true);
+        }
+    }
+
+    /**
+     * Queues the message to be written by the EVENT_LOOP if the socket is non-blocking, otherwise writes the message to the
+     *  socket's OutputStream.  If the remote peer stops reading and more than MAX_QUEUED_WRITE_BYTE_COUNT bytes are queued,
+     *  the socket is closed.
+     */
+    @Override
+    public void write(final ProtocolMessage outboundMessage) {
+        if (_channelReader == null) {
+            super.write(outboundMessage);
+            return;
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(outboundMessage.getBytes().getBytes());
+
+        final Boolean wasSuccessful;
+        synchronized (_queuedWrites) {
+            _queuedWrites.addLast(byteBuffer);
+            _queuedWriteByteCount += byteBuffer.remaining();
+
+            if (_queuedWriteByteCount > MAX_QUEUED_WRITE_BYTE_COUNT) {
+                Logger.log("IO: Write queue exceeded " + MAX_QUEUED_WRITE_BYTE_COUNT + " bytes. Closing socket: " + this);
+                wasSuccessful = false;
+            }
+            else {
+                wasSuccessful = _flushQueuedWrites();
+            }
+        }
+
+        if (! wasSuccessful) {
+            _closeSocket();
+        }
+    }
+
+    @Override
+    public ProtocolMessage popMessage() {
+        final ProtocolMessage message = super.popMessage();
+
+        if (_channelReader != null) {
+            synchronized (_messages) {
+                if ( _channelReader.isReadPaused() && (_messages.size() <= (MAX_PENDING_MESSAGE_COUNT / 2)) ) {
+                    _channelReader.setReadPaused(false);
+                }
+            }
+        }
+
+        return message;
     }
 
     public void setBufferSize(final Integer bufferSize) {
         _bufferSize = bufferSize;
-        ((ReadThread) _readThread).setBufferSize(bufferSize);
+        if (_channelReader != null) {
+            _channelReader.setBufferSize(bufferSize);
+        }
+        else {
+            ((ReadThread) _readThread).setBufferSize(bufferSize);
+        }
     }
 
     public Integer getBufferSize() {
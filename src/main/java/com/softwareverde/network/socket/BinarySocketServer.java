@@ -29,7 +29,7 @@ public class BinarySocketServer extends SocketServer<BinarySocket> {
     protected final BinaryPacketFormat _binaryPacketFormat;
 
     public BinarySocketServer(final Integer port, final BinaryPacketFormat binaryPacketFormat) {
-        super(port, new BinarySocketFactory(binaryPacketFormat));
+        super(port, new BinarySocketFactory(binaryPacketFormat), true);
         _binaryPacketFormat = binaryPacketFormat;
     }
 }
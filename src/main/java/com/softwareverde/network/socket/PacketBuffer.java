@@ -1,6 +1,7 @@
 package com.softwareverde.network.socket;
 
 import com.softwareverde.io.Logger;
+import com.softwareverde.network.p2p.message.IncrementalProtocolMessageInflater;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
 import com.softwareverde.network.p2p.message.ProtocolMessageFactory;
 import com.softwareverde.network.p2p.message.ProtocolMessageHeader;
@@ -8,20 +9,44 @@ import com.softwareverde.network.p2p.message.ProtocolMessageHeaderInflater;
 import com.softwareverde.util.ByteUtil;
 import com.softwareverde.util.HexUtil;
 import com.softwareverde.util.Util;
+import com.softwareverde.util.bytearray.ByteArrayReader;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.List;
 
+/**
+ * Frames the bytes received from a socket into ProtocolMessages.
+ *  The header of the next packet is parsed once, in place when it lies within a single buffer, and is kept until its packet is popped.
+ *  Packets larger than the buffer size are assembled directly into a single byte[] as soon as their header is known (see
+ *  readPacketBytes), so that large messages (i.e. BlockMessages) are not re-assembled from many small buffers.  The packet's
+ *  byte[] is allocated with at most INITIAL_PACKET_BYTE_COUNT bytes and is doubled as the packet's bytes arrive, so that a
+ *  peer cannot cause the allocation of a max-sized packet by sending only its header.  The assembled byte[] is handed to the
+ *  ProtocolMessageFactory as-is.
+ *
+ *  If the ProtocolMessageFactory provides an IncrementalProtocolMessageInflater for a packet being assembled, the packet is
+ *  inflated while its bytes arrive, and its remaining bytes are discarded as soon as the packet is found to be invalid.
+ */
 public class PacketBuffer {
+    public static final Integer MAX_READ_BYTE_COUNT = (256 * 1024);
+    public static final Integer INITIAL_PACKET_BYTE_COUNT = (256 * 1024);
+
     protected static class ByteBuffer {
         public byte[] bytes;
         public int startIndex;
         public int byteCount;
+        public final boolean isRecyclable;
 
         public ByteBuffer(final byte[] bytes, final int startIndex, final int byteCount) {
+            this(bytes, startIndex, byteCount, true);
+        }
+
+        public ByteBuffer(final byte[] bytes, final int startIndex, final int byteCount, final boolean isRecyclable) {
             this.bytes = bytes;
             this.startIndex = startIndex;
             this.byteCount = byteCount;
+            this.isRecyclable = isRecyclable;
         }
 
         public void markBytesConsumed(final int byteCount) {
@@ -42,72 +67,166 @@ public class PacketBuffer {
     protected final LinkedList<ByteBuffer> _byteArrayList = new LinkedList<ByteBuffer>();
     protected final ProtocolMessageHeaderInflater _protocolMessageHeaderInflater;
     protected final ProtocolMessageFactory _protocolMessageFactory;
-    protected int _byteCount = 0;
-
-    protected final byte[] _packetStartingBytesBuffer;
-
-    protected byte[] _readContiguousBytes(final int desiredByteCount, final boolean shouldConsumeBytes) {
-        final byte[] bytes = new byte[desiredByteCount];
-
-        // Make a copy of the list when modifying to prevent concurrent-modification...
-        final List<ByteBuffer> byteArrayList = (shouldConsumeBytes ? Util.copyList(_byteArrayList) : _byteArrayList);
+    protected int _byteCount = 0; // The number of bytes within _byteArrayList...
+
+    protected final byte[] _packetHeaderBuffer;
+    protected ProtocolMessageHeader _protocolMessageHeader = null; // The parsed header of the next packet...
+    protected byte[] _packet = null; // The next packet, while it is being assembled; its length may be less than _fullPacketByteCount until it is received...
+    protected int _packetByteCount = 0; // The number of bytes of _packet that have been received...
+    protected int _fullPacketByteCount = 0; // The size of the packet being assembled...
+    protected IncrementalProtocolMessageInflater _incrementalProtocolMessageInflater = null; // The inflater of _packet, if its message type supports incremental inflation...
+    protected long _remainingDiscardedByteCount = 0L; // The number of bytes of an oversized packet that have not yet been received...
+
+    protected void _recycleByteArray(final ByteBuffer byteArray) {
+        if (byteArray.isRecyclable) {
+            _recycledByteArrays.addLast(byteArray);
+        }
+    }
 
+    /**
+     * Copies up to desiredByteCount bytes from the front of _byteArrayList into destination, starting at destinationIndex.
+     *  If destination is null, the bytes are not copied.  If shouldConsumeBytes is true, the bytes are removed from
+     *  _byteArrayList and any emptied byte arrays are recycled.  Returns the number of bytes copied.
+     */
+    protected int _copyBytes(final byte[] destination, final int destinationIndex, final int desiredByteCount, final boolean shouldConsumeBytes) {
         int byteCount = 0;
-        for (final ByteBuffer byteArray : byteArrayList) {
+
+        final Iterator<ByteBuffer> iterator = _byteArrayList.iterator();
+        while ( (byteCount < desiredByteCount) && iterator.hasNext() ) {
+            final ByteBuffer byteArray = iterator.next();
             final int byteCountFromThisArray = Math.min((desiredByteCount - byteCount), byteArray.byteCount);
-            for (int i=0; i<byteCountFromThisArray; ++i) {
-                bytes[byteCount + i] = byteArray.bytes[byteArray.startIndex + i];
+            if (destination != null) {
+                System.arraycopy(byteArray.bytes, byteArray.startIndex, destination, (destinationIndex + byteCount), byteCountFromThisArray);
             }
             byteCount += byteCountFromThisArray;
 
             if (shouldConsumeBytes) {
                 byteArray.markBytesConsumed(byteCountFromThisArray);
                 if (! byteArray.hasBytesRemaining()) {
-                    _byteArrayList.removeFirst();
-                    _recycledByteArrays.addLast(byteArray);
+                    iterator.remove();
+                    _recycleByteArray(byteArray);
                 }
             }
-
-            if (byteCount >= desiredByteCount) { break; }
         }
 
         if (shouldConsumeBytes) {
             _byteCount -= byteCount;
         }
 
-        return bytes;
-    }
-
-    protected byte[] _peakContiguousBytes(final int desiredByteCount) {
-        return _readContiguousBytes(desiredByteCount, false);
+        return byteCount;
     }
 
     protected byte[] _consumeContiguousBytes(final int desiredByteCount) {
-        return _readContiguousBytes(desiredByteCount, true);
+        final byte[] bytes = new byte[desiredByteCount];
+        _copyBytes(bytes, 0, desiredByteCount, true);
+        return bytes;
     }
 
     protected ProtocolMessageHeader _peakProtocolHeader() {
-        final int headerByteCount = _protocolMessageHeaderInflater.getHeaderByteCount();
+        if (_protocolMessageHeader != null) { return _protocolMessageHeader; }
 
+        final int headerByteCount = _protocolMessageHeaderInflater.getHeaderByteCount();
         if (_byteCount < headerByteCount) { return null; }
 
-        final byte[] packetHeader = _peakContiguousBytes(headerByteCount);
-        return _protocolMessageHeaderInflater.fromBytes(packetHeader);
+        final ByteBuffer firstByteArray = _byteArrayList.getFirst();
+        final ByteArrayReader byteArrayReader;
+        if (firstByteArray.byteCount >= headerByteCount) {
+            byteArrayReader = new ByteArrayReader(firstByteArray.bytes);
+            byteArrayReader.setPosition(firstByteArray.startIndex);
+        }
+        else { // The header spans multiple byte arrays...
+            _copyBytes(_packetHeaderBuffer, 0, headerByteCount, false);
+            byteArrayReader = new ByteArrayReader(_packetHeaderBuffer);
+        }
+
+        _protocolMessageHeader = _protocolMessageHeaderInflater.fromBytes(byteArrayReader);
+        return _protocolMessageHeader;
+    }
+
+    /**
+     * Moves the currently buffered bytes into a new byte[] for the packet; the remainder of the packet is then appended
+     *  directly to that byte[], which grows as the bytes arrive (see _ensurePacketCapacity).
+     */
+    protected void _beginPacketAssembly(final int fullPacketByteCount) {
+        _fullPacketByteCount = fullPacketByteCount;
+        _packet = new byte[Math.min(fullPacketByteCount, Math.max(_byteCount, INITIAL_PACKET_BYTE_COUNT))];
+        _packetByteCount = _copyBytes(_packet, 0, _packet.length, true);
+
+        _incrementalProtocolMessageInflater = _protocolMessageFactory.createIncrementalInflater(_protocolMessageHeader);
+        _onPacketBytesReceived();
+    }
+
+    /**
+     * Grows the packet being assembled so that it can hold at least byteCount bytes.
+     *  The packet's capacity is doubled (up to the full packet's size) so that the bytes received so far are copied O(log n) times.
+     */
+    protected void _ensurePacketCapacity(final int byteCount) {
+        if (_packet.length >= byteCount) { return; }
+
+        final int newByteCount = (int) Math.min(_fullPacketByteCount, Math.max(byteCount, (_packet.length * 2L)));
+        final byte[] packet = new byte[newByteCount];
+        System.arraycopy(_packet, 0, packet, 0, _packetByteCount);
+        _packet = packet;
+    }
+
+    /**
+     * Provides the newly received bytes of the packet being assembled to its IncrementalProtocolMessageInflater, if it has one.
+     *  If the packet is invalid, it is abandoned and its remaining bytes are discarded as they arrive.
+     */
+    protected void _onPacketBytesReceived() {
+        if (_incrementalProtocolMessageInflater == null) { return; }
+        if (_incrementalProtocolMessageInflater.onBytesReceived(_packet, _packetByteCount)) { return; }
+
+        Logger.log("IO: Dropping invalid packet after " + _packetByteCount + " of " + _fullPacketByteCount + " bytes.");
+        _remainingDiscardedByteCount = (_fullPacketByteCount - _packetByteCount);
+        _packet = null;
+        _packetByteCount = 0;
+        _fullPacketByteCount = 0;
+        _protocolMessageHeader = null;
+        _incrementalProtocolMessageInflater = null;
+    }
+
+    /**
+     * Returns the partially assembled packet to the front of _byteArrayList, so that its bytes may be read via readBytes.
+     */
+    protected void _abandonPacketAssembly() {
+        if (_packet == null) { return; }
+
+        _byteArrayList.addFirst(new ByteBuffer(_packet, 0, _packetByteCount, false));
+        _byteCount += _packetByteCount;
+
+        _packet = null;
+        _packetByteCount = 0;
+        _fullPacketByteCount = 0;
+        _incrementalProtocolMessageInflater = null;
+    }
+
+    protected void _discardBytes() {
+        final int discardedByteCount = _copyBytes(null, 0, (int) Math.min(_remainingDiscardedByteCount, _byteCount), true);
+        _remainingDiscardedByteCount -= discardedByteCount;
+    }
+
+    protected boolean _startsWithReversedMagicNumber(final byte[] bytes) {
+        for (int i = 0; i < _mainNetMagicNumberByteCount; ++i) {
+            if (bytes[i] != _reversedMainNetMagicNumber[i]) { return false; }
+        }
+        return true;
     }
 
     protected void _resetBuffer() {
-        final byte[] discardedPacket = _readContiguousBytes(_byteCount, true);
+        final byte[] discardedPacket = _consumeContiguousBytes(_byteCount);
+        _protocolMessageHeader = null;
         Logger.log("IO: DISCARDED PACKET: "+ HexUtil.toHexString(discardedPacket));
     }
 
     public PacketBuffer(final BinaryPacketFormat binaryPacketFormat) {
         final int magicNumberByteCount = binaryPacketFormat.magicNumber.getByteCount();
         _mainNetMagicNumberByteCount = magicNumberByteCount;
-        _packetStartingBytesBuffer = new byte[magicNumberByteCount];
         _reversedMainNetMagicNumber = ByteUtil.reverseEndian(binaryPacketFormat.magicNumber.getBytes());
 
         _protocolMessageHeaderInflater = binaryPacketFormat.protocolMessageHeaderInflater;
         _protocolMessageFactory = binaryPacketFormat.protocolMessageFactory;
+        _packetHeaderBuffer = new byte[_protocolMessageHeaderInflater.getHeaderByteCount()];
     }
 
     public void setBufferSize(final int bufferSize) {
@@ -124,25 +243,76 @@ public class PacketBuffer {
      *      therefore, it is important that any byte[] fed into appendBytes() is not used again outside of this invocation.
      *  - byteBuffer may be kept in memory indefinitely and recycled via getRecycledBuffer().
      *  - byteCount is used to specify the endIndex of byteBuffer.
-     *  - if byteBuffer's bytes begin with ProtocolMessage.MAIN_NET_MAGIC_NUMBER, then the previous non-message packets
-     *      are assumed to be corrupted, and are discarded.
+     *  - if a packet is being assembled, byteBuffer's bytes are copied into the packet and byteBuffer is recycled immediately.
+     *  - if byteBuffer's bytes begin with ProtocolMessage.MAIN_NET_MAGIC_NUMBER, and the buffered bytes do not begin with
+     *      a valid header, then the previous non-message packets are assumed to be corrupted, and are discarded.
      */
     public void appendBytes(final byte[] byteBuffer, final int byteCount) {
         // if (byteCount > bytes.length) { throw new RuntimeException("Invalid byteCount. Attempted to add more bytes than was available within byte array."); }
         final int safeByteCount = Math.min(byteBuffer.length, byteCount);
 
-        if (_byteCount > 0) {
+        int startIndex = 0;
+        if (_packet != null) {
+            final int copiedByteCount = Math.min((_fullPacketByteCount - _packetByteCount), safeByteCount);
+            _ensurePacketCapacity(_packetByteCount + copiedByteCount);
+            System.arraycopy(byteBuffer, 0, _packet, _packetByteCount, copiedByteCount);
+            _packetByteCount += copiedByteCount;
+            startIndex = copiedByteCount;
+
+            _onPacketBytesReceived();
+        }
+
+        if (_remainingDiscardedByteCount > 0L) {
+            final int discardedByteCount = (int) Math.min(_remainingDiscardedByteCount, (safeByteCount - startIndex));
+            _remainingDiscardedByteCount -= discardedByteCount;
+            startIndex += discardedByteCount;
+        }
+        else if ( (startIndex == 0) && (_byteCount > 0) && (_protocolMessageHeader == null) ) {
             if (safeByteCount >= _mainNetMagicNumberByteCount) {
-                ByteUtil.setBytes(_packetStartingBytesBuffer, byteBuffer);
-                final Boolean startsWithMagicNumber = (ByteUtil.areEqual(_packetStartingBytesBuffer, _reversedMainNetMagicNumber));
-                if (startsWithMagicNumber) {
+                if (_startsWithReversedMagicNumber(byteBuffer)) {
                     _resetBuffer();
                 }
             }
         }
 
-        _byteArrayList.addLast(new ByteBuffer(byteBuffer, 0, safeByteCount));
-        _byteCount += safeByteCount;
+        final ByteBuffer byteArray = new ByteBuffer(byteBuffer, startIndex, (safeByteCount - startIndex));
+        if (byteArray.hasBytesRemaining()) {
+            _byteArrayList.addLast(byteArray);
+            _byteCount += byteArray.byteCount;
+        }
+        else {
+            _recycleByteArray(byteArray);
+        }
+    }
+
+    /**
+     * Reads the remainder of the packet being assembled directly from the channel into the packet, without an intermediate buffer.
+     *  At most MAX_READ_BYTE_COUNT bytes are read per invocation, which bounds the temporary direct buffer used by the channel
+     *  and the amount by which the packet grows ahead of the bytes actually received.
+     *  Returns the number of bytes read, or -1 if the channel has reached end-of-stream.  Returns 0 if no packet is being assembled.
+     */
+    public int readPacketBytes(final ReadableByteChannel readableByteChannel) throws IOException {
+        if (_packet == null) { return 0; }
+
+        final int remainingByteCount = (_fullPacketByteCount - _packetByteCount);
+        if (remainingByteCount == 0) { return 0; }
+
+        final int readByteCount = Math.min(remainingByteCount, MAX_READ_BYTE_COUNT);
+        _ensurePacketCapacity(_packetByteCount + readByteCount);
+
+        final int byteCount = readableByteChannel.read(java.nio.ByteBuffer.wrap(_packet, _packetByteCount, readByteCount));
+        if (byteCount > 0) {
+            _packetByteCount += byteCount;
+            _onPacketBytesReceived();
+        }
+        return byteCount;
+    }
+
+    /**
+     * Returns true if the remainder of the next packet should be received via readPacketBytes.
+     */
+    public boolean isAssemblingPacket() {
+        return ( (_packet != null) && (_packetByteCount < _fullPacketByteCount) );
     }
 
     public byte[] getRecycledBuffer() {
@@ -155,7 +325,7 @@ public class PacketBuffer {
     }
 
     public int getByteCount() {
-        return _byteCount;
+        return (_byteCount + _packetByteCount);
     }
 
     public int getBufferCount() {
@@ -163,42 +333,67 @@ public class PacketBuffer {
     }
 
     public byte[] readBytes(final int byteCount) {
+        _abandonPacketAssembly();
+        _protocolMessageHeader = null;
         return _consumeContiguousBytes(byteCount);
     }
 
     public boolean hasMessage() {
+        if (_packet != null) {
+            return (_packetByteCount >= _fullPacketByteCount);
+        }
+
         final ProtocolMessageHeader protocolMessageHeader = _peakProtocolHeader();
         if (protocolMessageHeader == null) { return false; }
-        final Integer expectedMessageLength = (protocolMessageHeader.getPayloadByteCount() + _protocolMessageHeaderInflater.getHeaderByteCount());
-        return (_byteCount >= expectedMessageLength);
-    }
 
-    public ProtocolMessage popMessage() {
-        final ProtocolMessageHeader protocolMessageHeader = _peakProtocolHeader();
-        if (protocolMessageHeader == null) { return null; }
+        final long payloadByteCount = protocolMessageHeader.getPayloadByteCount().longValue();
+        final long fullPacketByteCount = (payloadByteCount + _protocolMessageHeaderInflater.getHeaderByteCount());
+        if ( (payloadByteCount < 0L) || (fullPacketByteCount > Util.coalesce(_protocolMessageHeaderInflater.getMaxPacketByteCount(), Integer.MAX_VALUE)) ) {
+            Logger.log("IO: Dropping packet. Packet exceeded max byte count: " + fullPacketByteCount);
+            _protocolMessageHeader = null;
+            _remainingDiscardedByteCount = Math.max(fullPacketByteCount, _protocolMessageHeaderInflater.getHeaderByteCount());
+            _discardBytes();
+            return hasMessage();
+        }
 
-        final int headerByteCount  = _protocolMessageHeaderInflater.getHeaderByteCount();
-        final int payloadByteCount = protocolMessageHeader.getPayloadByteCount();
+        if (_byteCount >= fullPacketByteCount) { return true; }
 
-        if (_byteCount < payloadByteCount) {
-            Logger.log("NOTICE: PacketBuffer.popMessage: Insufficient byte count.");
-            return null;
+        if (fullPacketByteCount > _bufferSize) {
+            _beginPacketAssembly((int) fullPacketByteCount);
         }
 
-        final int fullPacketByteCount = (headerByteCount + payloadByteCount);
-
-        final byte[] fullPacket = _consumeContiguousBytes(fullPacketByteCount);
+        return false;
+    }
 
-        if (fullPacketByteCount > Util.coalesce(_protocolMessageHeaderInflater.getMaxPacketByteCount(), Integer.MAX_VALUE)) {
-            Logger.log("IO: Dropping packet. Packet exceeded max byte count: " + fullPacketByteCount);
+    public ProtocolMessage popMessage() {
+        if (! hasMessage()) {
+            if (_protocolMessageHeader != null) {
+                Logger.log("NOTICE: PacketBuffer.popMessage: Insufficient byte count.");
+            }
             return null;
         }
 
-        final ProtocolMessage protocolMessage = _protocolMessageFactory.fromBytes(fullPacket);
+        final byte[] fullPacket;
+        final IncrementalProtocolMessageInflater incrementalProtocolMessageInflater = _incrementalProtocolMessageInflater;
+        if (_packet != null) {
+            fullPacket = _packet; // NOTE: The packet's capacity never exceeds its full size, so the completed packet is exactly its size...
+            _packet = null;
+            _packetByteCount = 0;
+            _fullPacketByteCount = 0;
+            _incrementalProtocolMessageInflater = null;
+        }
+        else {
+            final int headerByteCount  = _protocolMessageHeaderInflater.getHeaderByteCount();
+            final int payloadByteCount = _protocolMessageHeader.getPayloadByteCount();
+            fullPacket = _consumeContiguousBytes(headerByteCount + payloadByteCount);
+        }
+        _protocolMessageHeader = null;
+
+        final ProtocolMessage protocolMessage = (incrementalProtocolMessageInflater != null ? incrementalProtocolMessageInflater.getMessage() : _protocolMessageFactory.fromBytes(fullPacket));
         if (protocolMessage == null) {
             Logger.log("NOTICE: Error inflating message: " + HexUtil.toHexString(ByteUtil.copyBytes(fullPacket, 0, Math.min(fullPacket.length, 128))) + " (+"+ ( (fullPacket.length > 128) ? (fullPacket.length - 128) : 0 ) +" bytes)");
         }
 
         return protocolMessage;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package com.softwareverde.network.socket;
+
+import com.softwareverde.io.Logger;
+
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes Runnables one at a time, in the order they were submitted, on the threads of a shared Executor.
+ *  At most one task per SerialExecutor is queued within the shared Executor at a time, so many SerialExecutors
+ *  (i.e. one per socket) may share a small, bounded thread pool while each preserves its own ordering.
+ *
+ *  If the shared Executor rejects the SerialExecutor's task, the submitted Runnables remain queued and the task is
+ *  resubmitted after RETRY_DELAY_MS, so deferred Runnables are executed without another invocation of execute().
+ */
+public class SerialExecutor implements Executor {
+    public static final Long RETRY_DELAY_MS = 100L;
+
+    protected static final ScheduledExecutorService RETRY_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable);
+            thread.setName("SerialExecutor - Retry Thread - " + thread.getId());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    protected final Executor _executor;
+    protected final LinkedList<Runnable> _tasks = new LinkedList<Runnable>();
+    protected Boolean _isRunning = false;
+
+    protected final Runnable _runTasks = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                final Runnable task;
+                synchronized (_tasks) {
+                    if (_tasks.isEmpty()) {
+                        _isRunning = false;
+                        return;
+                    }
+
+                    task = _tasks.removeFirst();
+                }
+
+                try {
+                    task.run();
+                }
+                catch (final Exception exception) {
+                    Logger.log(exception);
+                }
+            }
+        }
+    };
+
+    protected final Runnable _retrySubmitTasks = new Runnable() {
+        @Override
+        public void run() {
+            _submitTasks();
+        }
+    };
+
+    /**
+     * Submits _runTasks to the shared Executor.  _isRunning must already be set, and remains set while a retry is pending,
+     *  so that concurrent invocations of execute() only enqueue their Runnables.
+     */
+    protected void _submitTasks() {
+        try {
+            _executor.execute(_runTasks);
+        }
+        catch (final RejectedExecutionException exception) {
+            final Integer deferredTaskCount = this.getQueuedTaskCount();
+            Logger.log("NOTICE: Executor rejected task; " + deferredTaskCount + " task(s) deferred for " + RETRY_DELAY_MS + "ms.");
+            RETRY_EXECUTOR.schedule(_retrySubmitTasks, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public SerialExecutor(final Executor executor) {
+        _executor = executor;
+    }
+
+    @Override
+    public void execute(final Runnable runnable) {
+        synchronized (_tasks) {
+            _tasks.addLast(runnable);
+
+            if (_isRunning) { return; }
+            _isRunning = true;
+        }
+
+        _submitTasks();
+    }
+
+    /**
+     * Returns true if the SerialExecutor's task is scheduled, running, or awaiting a retry within the shared Executor, i.e.
+     *  its queued Runnables will be executed without another invocation of execute().
+     */
+    public Boolean isRunning() {
+        synchronized (_tasks) {
+            return _isRunning;
+        }
+    }
+
+    /**
+     * Returns the number of submitted Runnables that have not yet begun executing.
+     */
+    public Integer getQueuedTaskCount() {
+        synchronized (_tasks) {
+            return _tasks.size();
+        }
+    }
+}
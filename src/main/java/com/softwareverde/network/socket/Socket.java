@@ -9,6 +9,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public abstract class Socket {
     public static Boolean LOGGING_ENABLED = false;
@@ -16,6 +20,37 @@ public abstract class Socket {
     private static final Object _nextIdMutex = new Object();
     private static Long _nextId = 0L;
 
+    public static final Integer MESSAGE_HANDLER_THREAD_COUNT = Math.max(4, (Runtime.getRuntime().availableProcessors() * 2));
+    public static final Integer MAX_QUEUED_MESSAGE_HANDLER_COUNT = 1024;
+
+    /**
+     * The bounded pool of threads that processes received messages and connection callbacks for every socket.
+     *  Each socket dispatches its messages through its own SerialExecutor, so a socket's messages are processed in the order
+     *  they were received, and a socket occupies at most one slot of the queue.  Tasks are never run by the submitting thread
+     *  (which may be a SocketEventLoop selector thread); if the queue is full, the task is rejected with a RejectedExecutionException.
+     */
+    public static final ThreadPoolExecutor MESSAGE_HANDLER_EXECUTOR;
+    static {
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            MESSAGE_HANDLER_THREAD_COUNT,
+            MESSAGE_HANDLER_THREAD_COUNT,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(MAX_QUEUED_MESSAGE_HANDLER_COUNT),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable);
+                    thread.setName("Socket - Message Handler Thread - " + thread.getId());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        MESSAGE_HANDLER_EXECUTOR = threadPoolExecutor;
+    }
+
     protected interface ReadThread {
         interface Callback {
             void onNewMessage(ProtocolMessage protocolMessage);
@@ -36,6 +71,7 @@ public abstract class Socket {
 
     protected Runnable _messageReceivedCallback;
     protected final ReadThread _readThread;
+    protected final SerialExecutor _messageReceivedExecutor = new SerialExecutor(MESSAGE_HANDLER_EXECUTOR);
 
     protected final OutputStream _rawOutputStream;
     protected final InputStream _rawInputStream;
@@ -58,7 +94,7 @@ public abstract class Socket {
         final Runnable messageReceivedCallback = _messageReceivedCallback;
 
         if (messageReceivedCallback != null) {
-            (new Thread(messageReceivedCallback)).start();
+            _messageReceivedExecutor.execute(messageReceivedCallback);
         }
     }
 
@@ -0,0 +1,226 @@
+package com.softwareverde.network.socket;
+
+import com.softwareverde.io.Logger;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A small, fixed pool of selector threads that perform the non-blocking reads and writes of every registered SocketChannel.
+ *  Each channel is assigned to a single selector thread for its lifetime (round-robin), so its ChannelHandler is never
+ *  invoked concurrently.  ChannelHandlers are invoked on the selector thread and must not block; processing of received
+ *  messages should be dispatched to Socket.MESSAGE_HANDLER_EXECUTOR.
+ *
+ *  The selector threads are started when the first channel is registered, and are daemon threads.
+ */
+public class SocketEventLoop {
+    public static final Integer DEFAULT_THREAD_COUNT = Math.max(1, Math.min(4, (Runtime.getRuntime().availableProcessors() / 2)));
+
+    public interface ChannelHandler {
+        void onReadable();
+        void onWritable();
+
+        /**
+         * Invoked if the channel was closed before it could be registered.
+         */
+        void onClosed();
+    }
+
+    public static class Registration {
+        protected final SelectorThread _selectorThread;
+        protected volatile SelectionKey _selectionKey = null;
+        protected volatile Boolean _isReadInterested = true;
+        protected volatile Boolean _isWriteInterested = false;
+
+        protected final Runnable _updateInterestOps = new Runnable() {
+            @Override
+            public void run() {
+                final SelectionKey selectionKey = _selectionKey;
+                if ( (selectionKey == null) || (! selectionKey.isValid()) ) { return; }
+
+                selectionKey.interestOps((_isReadInterested ? SelectionKey.OP_READ : 0) | (_isWriteInterested ? SelectionKey.OP_WRITE : 0));
+            }
+        };
+
+        protected Registration(final SelectorThread selectorThread) {
+            _selectorThread = selectorThread;
+        }
+
+        /**
+         * Enables or disables ChannelHandler::onWritable; it should be enabled only while there are bytes waiting to be written.
+         */
+        public void setWriteInterest(final Boolean isWriteInterested) {
+            _isWriteInterested = isWriteInterested;
+            _selectorThread.execute(_updateInterestOps);
+        }
+
+        /**
+         * Enables or disables ChannelHandler::onReadable; it is enabled by default, and may be disabled to stop reading from
+         *  a peer until its previously received messages have been processed.
+         */
+        public void setReadInterest(final Boolean isReadInterested) {
+            _isReadInterested = isReadInterested;
+            _selectorThread.execute(_updateInterestOps);
+        }
+
+        public void cancel() {
+            _selectorThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final SelectionKey selectionKey = _selectionKey;
+                    if (selectionKey != null) {
+                        selectionKey.cancel();
+                    }
+                }
+            });
+        }
+    }
+
+    protected static class SelectorThread extends Thread {
+        protected final Selector _selector;
+        protected final ConcurrentLinkedQueue<Runnable> _pendingTasks = new ConcurrentLinkedQueue<Runnable>();
+
+        protected void _runPendingTasks() {
+            while (true) {
+                final Runnable runnable = _pendingTasks.poll();
+                if (runnable == null) { break; }
+
+                try {
+                    runnable.run();
+                }
+                catch (final Exception exception) {
+                    Logger.log(exception);
+                }
+            }
+        }
+
+        protected void _onSelected(final SelectionKey selectionKey) {
+            final ChannelHandler channelHandler = (ChannelHandler) selectionKey.attachment();
+
+            try {
+                if (selectionKey.isValid() && selectionKey.isWritable()) {
+                    channelHandler.onWritable();
+                }
+
+                if (selectionKey.isValid() && selectionKey.isReadable()) {
+                    channelHandler.onReadable();
+                }
+            }
+            catch (final CancelledKeyException exception) { }
+            catch (final Exception exception) {
+                Logger.log(exception);
+            }
+        }
+
+        public SelectorThread(final Selector selector) {
+            _selector = selector;
+
+            this.setName("Socket Event Loop - Selector Thread - " + this.getId());
+            this.setDaemon(true);
+        }
+
+        /**
+         * Runs the runnable on the selector thread.  Registrations and interest-op changes must be made on the selector thread,
+         *  since they would otherwise block while the selector is waiting.
+         */
+        public void execute(final Runnable runnable) {
+            _pendingTasks.add(runnable);
+            _selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (! this.isInterrupted()) {
+                try {
+                    _selector.select();
+                }
+                catch (final IOException exception) {
+                    Logger.log(exception);
+                    break;
+                }
+
+                _runPendingTasks();
+
+                final Iterator<SelectionKey> selectionKeys = _selector.selectedKeys().iterator();
+                while (selectionKeys.hasNext()) {
+                    final SelectionKey selectionKey = selectionKeys.next();
+                    selectionKeys.remove();
+
+                    _onSelected(selectionKey);
+                }
+            }
+
+            try { _selector.close(); } catch (final IOException exception) { }
+        }
+    }
+
+    protected final Integer _threadCount;
+    protected SelectorThread[] _selectorThreads = null;
+    protected Integer _nextSelectorThreadIndex = 0;
+
+    protected synchronized SelectorThread _getNextSelectorThread() throws IOException {
+        if (_selectorThreads == null) {
+            final SelectorThread[] selectorThreads = new SelectorThread[_threadCount];
+            for (int i = 0; i < _threadCount; ++i) {
+                selectorThreads[i] = new SelectorThread(Selector.open());
+                selectorThreads[i].start();
+            }
+            _selectorThreads = selectorThreads;
+        }
+
+        final SelectorThread selectorThread = _selectorThreads[_nextSelectorThreadIndex];
+        _nextSelectorThreadIndex = ((_nextSelectorThreadIndex + 1) % _threadCount);
+        return selectorThread;
+    }
+
+    public SocketEventLoop(final Integer threadCount) {
+        _threadCount = threadCount;
+    }
+
+    /**
+     * Configures the socketChannel as non-blocking and registers it for reads.
+     *  The channelHandler is invoked on the assigned selector thread whenever the socketChannel is readable (or writable, if requested).
+     */
+    public Registration register(final SocketChannel socketChannel, final ChannelHandler channelHandler) throws IOException {
+        socketChannel.configureBlocking(false);
+
+        final SelectorThread selectorThread = _getNextSelectorThread();
+        final Registration registration = new Registration(selectorThread);
+
+        selectorThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    registration._selectionKey = socketChannel.register(selectorThread._selector, SelectionKey.OP_READ, channelHandler);
+                    registration._updateInterestOps.run();
+                }
+                catch (final ClosedChannelException exception) {
+                    channelHandler.onClosed();
+                }
+            }
+        });
+
+        return registration;
+    }
+
+    public synchronized void stop() {
+        if (_selectorThreads == null) { return; }
+
+        for (final SelectorThread selectorThread : _selectorThreads) {
+            selectorThread.interrupt();
+            selectorThread._selector.wakeup();
+        }
+
+        for (final SelectorThread selectorThread : _selectorThreads) {
+            try { selectorThread.join(); } catch (final InterruptedException exception) { }
+        }
+
+        _selectorThreads = null;
+    }
+}
@@ -4,6 +4,8 @@ import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.io.Logger;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
 
 public class SocketServer<T extends Socket> {
     public interface SocketFactory<T> {
@@ -51,6 +53,7 @@ public class SocketServer<T extends Socket> {
 
     protected final Integer _port;
     protected final SocketFactory<T> _socketFactory;
+    protected final Boolean _shouldUseSocketChannels;
     protected java.net.ServerSocket _socket;
 
     protected final MutableList<T> _connections = new MutableList<T>();
@@ -62,6 +65,12 @@ public class SocketServer<T extends Socket> {
     protected SocketConnectedCallback<T> _socketConnectedCallback = null;
     protected SocketDisconnectedCallback<T> _socketDisconnectedCallback = null;
 
+    /**
+     * Executes the connected/disconnected callbacks in the order they were raised; callbacks rejected by a saturated
+     *  MESSAGE_HANDLER_EXECUTOR are retried rather than dropped, so a socket's disconnect is never lost.
+     */
+    protected final SerialExecutor _callbackExecutor = new SerialExecutor(Socket.MESSAGE_HANDLER_EXECUTOR);
+
     protected void _purgeDisconnectedConnections() {
         final Integer socketCount = _connections.getSize();
         final MutableList<T> disconnectedSockets = new MutableList<T>(socketCount);
@@ -92,12 +101,12 @@ public class SocketServer<T extends Socket> {
         final SocketConnectedCallback<T> socketConnectedCallback = _socketConnectedCallback;
 
         if (socketConnectedCallback != null) {
-            (new Thread(new Runnable() {
+            _callbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     socketConnectedCallback.run(socketConnection);
                 }
-            })).start();
+            });
         }
     }
 
@@ -105,18 +114,29 @@ public class SocketServer<T extends Socket> {
         final SocketDisconnectedCallback<T> socketDisconnectedCallback = _socketDisconnectedCallback;
 
         if (socketDisconnectedCallback != null) {
-            (new Thread(new Runnable() {
+            _callbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     socketDisconnectedCallback.run(socketConnection);
                 }
-            })).start();
+            });
         }
     }
 
     public SocketServer(final Integer port, final SocketFactory<T> socketFactory) {
+        this(port, socketFactory, false);
+    }
+
+    /**
+     * If shouldUseSocketChannels is true, connections are accepted via a ServerSocketChannel, so accepted sockets have a
+     *  SocketChannel and are eligible for non-blocking I/O; otherwise connections are accepted via a plain java.net.ServerSocket.
+     *  Sockets that perform blocking stream I/O (i.e. JsonSocket) must not use SocketChannels, since a channel's stream adaptor
+     *  blocks writes while a read is in progress.
+     */
+    public SocketServer(final Integer port, final SocketFactory<T> socketFactory, final Boolean shouldUseSocketChannels) {
         _port = port;
         _socketFactory = socketFactory;
+        _shouldUseSocketChannels = shouldUseSocketChannels;
     }
 
     public void setSocketConnectedCallback(final SocketConnectedCallback<T> socketConnectedCallback) {
@@ -131,7 +151,14 @@ public class SocketServer<T extends Socket> {
         _shouldContinue = true;
 
         try {
-            _socket = new java.net.ServerSocket(_port);
+            if (_shouldUseSocketChannels) {
+                final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+                serverSocketChannel.socket().bind(new InetSocketAddress(_port));
+                _socket = serverSocketChannel.socket(); // NOTE: Sockets accepted by the channel's ServerSocket have a SocketChannel...
+            }
+            else {
+                _socket = new java.net.ServerSocket(_port);
+            }
 
             _serverThread = new ServerThread();
             _serverThread.start();
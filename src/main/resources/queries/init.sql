@@ -7,11 +7,11 @@ CREATE TABLE addresses (
 
 CREATE TABLE blocks (
     id int unsigned NOT NULL AUTO_INCREMENT,
-    hash char(64) NOT NULL,
+    hash binary(32) NOT NULL,
     previous_block_id int unsigned,
     block_height int unsigned NOT NULL,
     block_chain_segment_id int unsigned,
-    merkle_root char(64) NOT NULL,
+    merkle_root binary(32) NOT NULL,
     version int unsigned NOT NULL DEFAULT '1',
     timestamp bigint unsigned NOT NULL,
     difficulty char(8) NOT NULL,
@@ -37,9 +37,20 @@ CREATE TABLE block_chain_segments (
 
 ALTER TABLE blocks ADD CONSTRAINT blocks_block_chain_segments_fk FOREIGN KEY (block_chain_segment_id) REFERENCES block_chain_segments (id);
 
+CREATE TABLE block_files (
+    id int unsigned NOT NULL AUTO_INCREMENT,
+    block_id int unsigned NOT NULL,
+    file_index int unsigned NOT NULL,
+    file_offset bigint unsigned NOT NULL,
+    byte_count int unsigned NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY block_files_block_id_uq (block_id),
+    FOREIGN KEY block_files_block_id_ix (block_id) REFERENCES blocks (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
 CREATE TABLE transactions (
     id int unsigned NOT NULL AUTO_INCREMENT,
-    hash char(64) NOT NULL,
+    hash binary(32) NOT NULL,
     block_id int unsigned,
     version int unsigned NOT NULL,
     lock_time bigint unsigned NOT NULL,
@@ -92,6 +103,39 @@ CREATE TABLE unlocking_scripts (
     FOREIGN KEY unlocking_scripts_input_id_ix (transaction_input_id) REFERENCES transaction_inputs (id)
 ) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
 
+CREATE TABLE address_transaction_outputs (
+    id int unsigned NOT NULL AUTO_INCREMENT,
+    address_id int unsigned NOT NULL,
+    block_id int unsigned NOT NULL,
+    transaction_id int unsigned NOT NULL,
+    transaction_output_id int unsigned NOT NULL,
+    amount bigint unsigned NOT NULL,
+    spent_by_block_id int unsigned NULL,
+    spent_by_transaction_input_id int unsigned NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY address_transaction_outputs_uq (transaction_output_id),
+    INDEX address_transaction_outputs_address_ix (address_id, spent_by_block_id) USING BTREE,
+    INDEX address_transaction_outputs_block_ix (block_id) USING BTREE,
+    INDEX address_transaction_outputs_spent_block_ix (spent_by_block_id) USING BTREE,
+    FOREIGN KEY address_transaction_outputs_address_id_ix (address_id) REFERENCES addresses (id),
+    FOREIGN KEY address_transaction_outputs_output_id_ix (transaction_output_id) REFERENCES transaction_outputs (id),
+    FOREIGN KEY address_transaction_outputs_input_id_ix (spent_by_transaction_input_id) REFERENCES transaction_inputs (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
+CREATE TABLE address_balances (
+    address_id int unsigned NOT NULL,
+    balance bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (address_id),
+    FOREIGN KEY address_balances_address_id_ix (address_id) REFERENCES addresses (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
+CREATE TABLE address_index_head (
+    id tinyint unsigned NOT NULL,
+    block_id int unsigned NOT NULL,
+    PRIMARY KEY (id),
+    FOREIGN KEY address_index_head_block_id_ix (block_id) REFERENCES blocks (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
 CREATE TABLE nodes (
     id int unsigned NOT NULL AUTO_INCREMENT,
     host varchar(255) NOT NULL,
@@ -111,4 +155,4 @@ CREATE TABLE node_features (
     FOREIGN KEY node_features_ix (node_id) REFERENCES nodes (id)
 ) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
 
-INSERT INTO metadata (version, timestamp) VALUES (1, UNIX_TIMESTAMP());
+INSERT INTO metadata (version, timestamp) VALUES (4, UNIX_TIMESTAMP());
@@ -0,0 +1,9 @@
+ALTER TABLE blocks ADD COLUMN binary_hash binary(32) NULL AFTER hash, ADD COLUMN binary_merkle_root binary(32) NULL AFTER merkle_root;
+UPDATE blocks SET binary_hash = UNHEX(hash), binary_merkle_root = UNHEX(merkle_root);
+ALTER TABLE blocks DROP INDEX block_hash_uq, DROP COLUMN hash, DROP COLUMN merkle_root, CHANGE binary_hash hash binary(32) NOT NULL, CHANGE binary_merkle_root merkle_root binary(32) NOT NULL, ADD UNIQUE KEY block_hash_uq (hash);
+
+ALTER TABLE transactions ADD COLUMN binary_hash binary(32) NULL AFTER hash;
+UPDATE transactions SET binary_hash = UNHEX(hash);
+ALTER TABLE transactions DROP INDEX transaction_hash_uq, DROP COLUMN hash, CHANGE binary_hash hash binary(32) NOT NULL, ADD UNIQUE KEY transaction_hash_uq (hash, block_id);
+
+INSERT INTO metadata (version, timestamp) VALUES (2, UNIX_TIMESTAMP());
@@ -0,0 +1,12 @@
+CREATE TABLE block_files (
+    id int unsigned NOT NULL AUTO_INCREMENT,
+    block_id int unsigned NOT NULL,
+    file_index int unsigned NOT NULL,
+    file_offset bigint unsigned NOT NULL,
+    byte_count int unsigned NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY block_files_block_id_uq (block_id),
+    FOREIGN KEY block_files_block_id_ix (block_id) REFERENCES blocks (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
+INSERT INTO metadata (version, timestamp) VALUES (3, UNIX_TIMESTAMP());
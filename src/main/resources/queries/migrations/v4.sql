@@ -0,0 +1,34 @@
+CREATE TABLE address_transaction_outputs (
+    id int unsigned NOT NULL AUTO_INCREMENT,
+    address_id int unsigned NOT NULL,
+    block_id int unsigned NOT NULL,
+    transaction_id int unsigned NOT NULL,
+    transaction_output_id int unsigned NOT NULL,
+    amount bigint unsigned NOT NULL,
+    spent_by_block_id int unsigned NULL,
+    spent_by_transaction_input_id int unsigned NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY address_transaction_outputs_uq (transaction_output_id),
+    INDEX address_transaction_outputs_address_ix (address_id, spent_by_block_id) USING BTREE,
+    INDEX address_transaction_outputs_block_ix (block_id) USING BTREE,
+    INDEX address_transaction_outputs_spent_block_ix (spent_by_block_id) USING BTREE,
+    FOREIGN KEY address_transaction_outputs_address_id_ix (address_id) REFERENCES addresses (id),
+    FOREIGN KEY address_transaction_outputs_output_id_ix (transaction_output_id) REFERENCES transaction_outputs (id),
+    FOREIGN KEY address_transaction_outputs_input_id_ix (spent_by_transaction_input_id) REFERENCES transaction_inputs (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
+CREATE TABLE address_balances (
+    address_id int unsigned NOT NULL,
+    balance bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (address_id),
+    FOREIGN KEY address_balances_address_id_ix (address_id) REFERENCES addresses (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
+CREATE TABLE address_index_head (
+    id tinyint unsigned NOT NULL,
+    block_id int unsigned NOT NULL,
+    PRIMARY KEY (id),
+    FOREIGN KEY address_index_head_block_id_ix (block_id) REFERENCES blocks (id)
+) ENGINE=InnoDB DEFAULT CHARSET=UTF8MB4;
+
+INSERT INTO metadata (version, timestamp) VALUES (4, UNIX_TIMESTAMP());
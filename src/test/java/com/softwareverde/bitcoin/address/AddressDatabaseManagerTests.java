@@ -0,0 +1,167 @@
+package com.softwareverde.bitcoin.address;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
+import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.script.ScriptPatternMatcher;
+import com.softwareverde.bitcoin.transaction.script.ScriptType;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AddressDatabaseManagerTests extends IntegrationTest {
+
+    protected AddressId _getCoinbaseAddressId(final Block block, final AddressDatabaseManager addressDatabaseManager) throws Exception {
+        final ScriptPatternMatcher scriptPatternMatcher = new ScriptPatternMatcher();
+
+        final Transaction coinbaseTransaction = block.getCoinbaseTransaction();
+        final LockingScript lockingScript = coinbaseTransaction.getTransactionOutputs().get(0).getLockingScript();
+        final ScriptType scriptType = scriptPatternMatcher.getScriptType(lockingScript);
+        final Address address = scriptPatternMatcher.extractAddress(scriptType, lockingScript);
+
+        return addressDatabaseManager.getAddressId(address.toBase58CheckEncoded());
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+        _resetCache();
+    }
+
+    @Test
+    public void should_index_address_balances_and_revert_them_when_the_head_block_changes() throws Exception {
+        try (final MysqlDatabaseConnection databaseConnection = _database.newConnection()) {
+            // Setup
+            final BlockInflater blockInflater = new BlockInflater();
+            final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+            final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
+            final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+
+            final Block block_A = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK));
+            final Block block_B = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1));
+            final Block block_C = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2));
+            final Block block_C2 = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.ForkChain3.BLOCK_2));
+
+            final BlockId[] blockIds = new BlockId[4];
+            {
+                int i = 0;
+                for (final Block block : new Block[]{ block_A, block_B, block_C, block_C2 }) {
+                    blockIds[i] = blockDatabaseManager.insertBlock(block);
+                    blockChainDatabaseManager.updateBlockChainsForNewBlock(block);
+                    i += 1;
+                }
+            }
+            final BlockId blockId_C = blockIds[2];
+            final BlockId blockId_C2 = blockIds[3];
+
+            final AddressId addressId_B = _getCoinbaseAddressId(block_B, addressDatabaseManager);
+            final AddressId addressId_C = _getCoinbaseAddressId(block_C, addressDatabaseManager);
+            Assert.assertNotNull(addressId_B);
+            Assert.assertNotNull(addressId_C);
+
+            // Action
+            addressDatabaseManager.updateAddressIndex(blockId_C);
+
+            // Assert
+            Assert.assertEquals(blockId_C, addressDatabaseManager.getAddressIndexHeadBlockId());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_B).longValue());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_C).longValue());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressTotalReceived(addressId_C).longValue());
+            Assert.assertEquals(1, addressDatabaseManager.getSpendableTransactionOutputs(addressId_C).getSize());
+
+            // Action
+            addressDatabaseManager.updateAddressIndex(blockId_C2);
+
+            // Assert
+            Assert.assertEquals(blockId_C2, addressDatabaseManager.getAddressIndexHeadBlockId());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_B).longValue());
+            Assert.assertEquals(0L, addressDatabaseManager.getAddressBalance(addressId_C).longValue());
+            Assert.assertEquals(0L, addressDatabaseManager.getAddressTotalReceived(addressId_C).longValue());
+            Assert.assertEquals(0, addressDatabaseManager.getSpendableTransactionOutputs(addressId_C).getSize());
+
+            // Action
+            addressDatabaseManager.updateAddressIndex(blockId_C);
+
+            // Assert
+            Assert.assertEquals(blockId_C, addressDatabaseManager.getAddressIndexHeadBlockId());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_B).longValue());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_C).longValue());
+        }
+    }
+
+    @Test
+    public void should_disconnect_the_indexed_branch_when_a_sibling_of_the_same_height_was_stored_after_it() throws Exception {
+        try (final MysqlDatabaseConnection databaseConnection = _database.newConnection()) {
+            // Setup
+            final BlockInflater blockInflater = new BlockInflater();
+            final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+            final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
+            final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+
+            final Block block_A = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK));
+            final Block block_B = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1));
+            final Block block_C = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2));
+            final Block block_C2 = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.ForkChain3.BLOCK_2));
+            final Block block_D = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_3));
+            final Block block_D2 = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.ForkChain3.BLOCK_3));
+
+            final BlockId[] blockIds = new BlockId[6];
+            {
+                int i = 0;
+                for (final Block block : new Block[]{ block_A, block_B, block_C }) {
+                    blockIds[i] = blockDatabaseManager.insertBlock(block);
+                    blockChainDatabaseManager.updateBlockChainsForNewBlock(block);
+                    i += 1;
+                }
+
+                addressDatabaseManager.updateAddressIndex(blockIds[2]);
+
+                for (final Block block : new Block[]{ block_C2, block_D2, block_D }) {
+                    blockIds[i] = blockDatabaseManager.insertBlock(block);
+                    blockChainDatabaseManager.updateBlockChainsForNewBlock(block);
+                    i += 1;
+                }
+            }
+            final BlockId blockId_C = blockIds[2];
+            final BlockId blockId_C2 = blockIds[3];
+            final BlockId blockId_D2 = blockIds[4];
+            final BlockId blockId_D = blockIds[5];
+
+            final AddressId addressId_C = _getCoinbaseAddressId(block_C, addressDatabaseManager);
+            final AddressId addressId_D = _getCoinbaseAddressId(block_D, addressDatabaseManager);
+
+            final BlockId indexedHeadBlockIdAfterSiblingsWereStored = addressDatabaseManager.getAddressIndexHeadBlockId();
+
+            // Action
+            final AddressDatabaseManager.HeadBlockChange headBlockChange = addressDatabaseManager.updateAddressIndex(blockId_D2);
+
+            // Assert
+            Assert.assertEquals(blockId_C, indexedHeadBlockIdAfterSiblingsWereStored);
+            Assert.assertEquals(1, headBlockChange.getDisconnectedBlockIds().getSize());
+            Assert.assertEquals(blockId_C, headBlockChange.getDisconnectedBlockIds().get(0));
+            Assert.assertEquals(2, headBlockChange.getConnectedBlockIds().getSize());
+            Assert.assertEquals(blockId_C2, headBlockChange.getConnectedBlockIds().get(0));
+            Assert.assertEquals(blockId_D2, headBlockChange.getConnectedBlockIds().get(1));
+            Assert.assertEquals(blockId_D2, addressDatabaseManager.getAddressIndexHeadBlockId());
+            Assert.assertEquals(0L, addressDatabaseManager.getAddressBalance(addressId_C).longValue());
+            Assert.assertEquals(0, addressDatabaseManager.getSpendableTransactionOutputs(addressId_C).getSize());
+
+            // Action
+            addressDatabaseManager.updateAddressIndex(blockId_D);
+
+            // Assert
+            Assert.assertEquals(blockId_D, addressDatabaseManager.getAddressIndexHeadBlockId());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_C).longValue());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressBalance(addressId_D).longValue());
+            Assert.assertEquals(5000000000L, addressDatabaseManager.getAddressTotalReceived(addressId_D).longValue());
+        }
+    }
+}
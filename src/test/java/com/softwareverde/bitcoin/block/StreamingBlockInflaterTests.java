@@ -0,0 +1,91 @@
+package com.softwareverde.bitcoin.block;
+
+import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.IoUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingBlockInflaterTests {
+    protected static final String BLOCK_HASH = "000000000000051F68F43E9D455E72D9C4E4CE52E8A00C5E24C07340632405CB";
+
+    protected static byte[] _loadBlockBytes() {
+        return HexUtil.hexStringToByteArray(IoUtil.getResource("/blocks/" + BLOCK_HASH));
+    }
+
+    @Test
+    public void should_inflate_block_received_in_chunks() {
+        // Setup
+        final byte[] blockBytes = _loadBlockBytes();
+        final Block expectedBlock = (new BlockInflater()).fromBytes(blockBytes);
+        final StreamingBlockInflater streamingBlockInflater = new StreamingBlockInflater(0, blockBytes.length);
+
+        // Action
+        Boolean allChunksWereAccepted = true;
+        for (int receivedByteCount = 1000; receivedByteCount < (blockBytes.length + 1000); receivedByteCount += 1000) {
+            allChunksWereAccepted = (allChunksWereAccepted && streamingBlockInflater.onBytesReceived(blockBytes, Math.min(receivedByteCount, blockBytes.length)));
+        }
+        final Block block = streamingBlockInflater.getBlock();
+
+        // Assert
+        Assert.assertTrue(allChunksWereAccepted);
+        Assert.assertTrue(streamingBlockInflater.isComplete());
+        Assert.assertEquals(BLOCK_HASH, block.getHash().toString());
+        Assert.assertEquals(expectedBlock.getTransactionCount(), block.getTransactionCount());
+        Assert.assertEquals(expectedBlock.getMerkleRoot(), block.getMerkleRoot());
+    }
+
+    @Test
+    public void should_inflate_block_received_in_chunks_smaller_than_its_transactions() {
+        // Setup
+        final byte[] blockBytes = _loadBlockBytes();
+        final Block expectedBlock = (new BlockInflater()).fromBytes(blockBytes);
+        final StreamingBlockInflater streamingBlockInflater = new StreamingBlockInflater(0, blockBytes.length);
+
+        // Action
+        Boolean allChunksWereAccepted = true;
+        for (int receivedByteCount = 7; receivedByteCount < (blockBytes.length + 7); receivedByteCount += 7) {
+            allChunksWereAccepted = (allChunksWereAccepted && streamingBlockInflater.onBytesReceived(blockBytes, Math.min(receivedByteCount, blockBytes.length)));
+        }
+        final Block block = streamingBlockInflater.getBlock();
+
+        // Assert
+        Assert.assertTrue(allChunksWereAccepted);
+        Assert.assertTrue(streamingBlockInflater.isComplete());
+        Assert.assertEquals(BLOCK_HASH, block.getHash().toString());
+        Assert.assertEquals(expectedBlock.getTransactionCount(), block.getTransactionCount());
+        Assert.assertEquals(expectedBlock.getMerkleRoot(), block.getMerkleRoot());
+    }
+
+    @Test
+    public void should_reject_block_with_invalid_header_before_its_transactions_are_received() {
+        // Setup
+        final byte[] blockBytes = _loadBlockBytes();
+        blockBytes[76] ^= 0x01; // Alter the nonce, so that the header no longer satisfies its difficulty...
+        final StreamingBlockInflater streamingBlockInflater = new StreamingBlockInflater(0, blockBytes.length);
+
+        // Action
+        final Boolean wasAccepted = streamingBlockInflater.onBytesReceived(blockBytes, 100);
+
+        // Assert
+        Assert.assertFalse(wasAccepted);
+        Assert.assertTrue(streamingBlockInflater.isInvalid());
+        Assert.assertNull(streamingBlockInflater.getBlock());
+    }
+
+    @Test
+    public void should_reject_block_whose_transactions_do_not_match_its_merkle_root() {
+        // Setup
+        final byte[] blockBytes = _loadBlockBytes();
+        blockBytes[blockBytes.length - 1] ^= 0x01; // Alter the lock time of the last transaction...
+        final StreamingBlockInflater streamingBlockInflater = new StreamingBlockInflater(0, blockBytes.length);
+
+        // Action
+        final Boolean partialBlockWasAccepted = streamingBlockInflater.onBytesReceived(blockBytes, (blockBytes.length / 2));
+        final Boolean fullBlockWasAccepted = streamingBlockInflater.onBytesReceived(blockBytes, blockBytes.length);
+
+        // Assert
+        Assert.assertTrue(partialBlockWasAccepted);
+        Assert.assertFalse(fullBlockWasAccepted);
+        Assert.assertNull(streamingBlockInflater.getBlock());
+    }
+}
@@ -0,0 +1,119 @@
+package com.softwareverde.bitcoin.block.merkleroot;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.test.util.TestUtil;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.type.merkleroot.MerkleRoot;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.util.ByteUtil;
+import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.IoUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatMerkleTreeTests {
+    static class Item implements Hashable {
+        private final int _value;
+
+        public Item(final int value) { _value = value; }
+
+        @Override
+        public Sha256Hash getHash() {
+            return MutableSha256Hash.wrap(BitcoinUtil.sha256(ByteUtil.integerToBytes(_value)));
+        }
+    }
+
+    protected static byte[] _calculateNodeHash(final byte[] hash0, final byte[] hash1) {
+        final byte[] bytes = new byte[Sha256Hash.BYTE_COUNT * 2];
+        ByteUtil.setBytes(bytes, ByteUtil.reverseEndian(hash0));
+        ByteUtil.setBytes(bytes, ByteUtil.reverseEndian(hash1), Sha256Hash.BYTE_COUNT);
+        return ByteUtil.reverseEndian(BitcoinUtil.sha256(BitcoinUtil.sha256(bytes)));
+    }
+
+    protected static MerkleTree<Item> _populate(final MerkleTree<Item> merkleTree, final int itemCount) {
+        for (int i = 0; i < itemCount; ++i) {
+            merkleTree.addItem(new Item(i));
+        }
+        return merkleTree;
+    }
+
+    @Test
+    public void should_calculate_the_same_merkle_root_as_merkle_tree_node() {
+        final int[] itemCounts = new int[] { 1, 2, 3, 4, 5, 7, 8, 9, 13, 26, 100, (FlatMerkleTree.PARALLEL_NODE_COUNT * 2) + 1 };
+        for (final int itemCount : itemCounts) {
+            // Setup
+            final MerkleTree<Item> merkleTreeNode = _populate(new MerkleTreeNode<Item>(), itemCount);
+            final MerkleTree<Item> flatMerkleTree = _populate(new FlatMerkleTree<Item>(), itemCount);
+
+            // Action
+            final MerkleRoot merkleRoot = flatMerkleTree.getMerkleRoot();
+
+            // Assert
+            TestUtil.assertEqual(merkleTreeNode.getMerkleRoot().getBytes(), merkleRoot.getBytes());
+        }
+    }
+
+    @Test
+    public void should_recalculate_the_merkle_root_after_items_are_added_and_replaced() {
+        // Setup
+        final MerkleTree<Item> merkleTreeNode = _populate(new MerkleTreeNode<Item>(), 9);
+        final MerkleTree<Item> flatMerkleTree = _populate(new FlatMerkleTree<Item>(), 9);
+        flatMerkleTree.getMerkleRoot();
+
+        // Action
+        merkleTreeNode.addItem(new Item(9));
+        flatMerkleTree.addItem(new Item(9));
+        merkleTreeNode.replaceItem(0, new Item(-1));
+        flatMerkleTree.replaceItem(0, new Item(-1));
+
+        // Assert
+        TestUtil.assertEqual(merkleTreeNode.getMerkleRoot().getBytes(), flatMerkleTree.getMerkleRoot().getBytes());
+        Assert.assertEquals(10, flatMerkleTree.getItemCount());
+    }
+
+    @Test
+    public void should_calculate_the_merkle_root_of_a_block_with_over_ninety_transactions() {
+        // Setup
+        final BlockInflater blockInflater = new BlockInflater();
+        final String blockData = IoUtil.getResource("/blocks/0000000000000898E40E2EA2CB98E3A5EBBE2852461E581C5813633A6A267F6E");
+
+        final byte[] expectedMerkleRoot = HexUtil.hexStringToByteArray("B13C237E2A3BA3BC6DC3886E592DC5DF4B77A21F20E07D1901A071D15163A821");
+        final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
+        final FlatMerkleTree<Transaction> merkleTree = new FlatMerkleTree<Transaction>(block.getTransactions());
+
+        // Action
+        final MerkleRoot merkleRoot = merkleTree.getMerkleRoot();
+
+        // Assert
+        TestUtil.assertEqual(expectedMerkleRoot, merkleRoot.getBytes());
+    }
+
+    @Test
+    public void should_create_partial_tree_that_calculates_the_merkle_root_from_each_item() {
+        // Setup
+        final int itemCount = 13;
+        final MerkleTree<Item> merkleTree = _populate(new FlatMerkleTree<Item>(), itemCount);
+        final byte[] expectedMerkleRoot = merkleTree.getMerkleRoot().getBytes();
+
+        for (int index = 0; index < itemCount; ++index) {
+            // Action
+            final List<Sha256Hash> partialMerkleTree = merkleTree.getPartialTree(index);
+
+            byte[] hash = new Item(index).getHash().getBytes();
+            int nodeIndex = index;
+            for (final Sha256Hash partialHash : partialMerkleTree) {
+                final boolean isLeftNode = ((nodeIndex % 2) == 0);
+                hash = (isLeftNode ? _calculateNodeHash(hash, partialHash.getBytes()) : _calculateNodeHash(partialHash.getBytes(), hash));
+                nodeIndex /= 2;
+            }
+
+            // Assert
+            Assert.assertEquals(4, partialMerkleTree.getSize().intValue());
+            TestUtil.assertEqual(expectedMerkleRoot, hash);
+        }
+    }
+}
@@ -12,6 +12,9 @@ import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.test.BlockData;
 import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.database.DatabaseException;
 import com.softwareverde.database.Query;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
@@ -92,7 +95,7 @@ public class DifficultyCalculatorTests extends IntegrationTest {
             databaseConnection.executeSql(
                 new Query("UPDATE blocks SET block_height = ? WHERE hash = ?")
                     .setParameter(blockHeight)
-                    .setParameter(blockHeader.getHash())
+                    .setParameter(blockHeader.getHash().getBytes())
             );
 
             returnedBlockHeaders[i] = blockHeader;
@@ -170,7 +173,7 @@ public class DifficultyCalculatorTests extends IntegrationTest {
         final DifficultyCalculator difficultyCalculator = new DifficultyCalculator(databaseConnection);
 
         final BlockId blockId = blockDatabaseManager.storeBlockHeader(blockHeader);
-        databaseConnection.executeSql(new Query("UPDATE blocks SET block_height = ? WHERE hash = ?").setParameter(478577L).setParameter(blockHeader.getHash()));
+        databaseConnection.executeSql(new Query("UPDATE blocks SET block_height = ? WHERE hash = ?").setParameter(478577L).setParameter(blockHeader.getHash().getBytes()));
 
         final BlockChainSegmentId blockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(blockId);
 
@@ -199,7 +202,7 @@ public class DifficultyCalculatorTests extends IntegrationTest {
         final DifficultyCalculator difficultyCalculator = new DifficultyCalculator(databaseConnection);
 
         final BlockId blockId = blockDatabaseManager.storeBlockHeader(blockHeader);
-        databaseConnection.executeSql(new Query("UPDATE blocks SET block_height = ? WHERE hash = ?").setParameter(478573L).setParameter(blockHeader.getHash()));
+        databaseConnection.executeSql(new Query("UPDATE blocks SET block_height = ? WHERE hash = ?").setParameter(478573L).setParameter(blockHeader.getHash().getBytes()));
 
         final BlockChainSegmentId blockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(blockId);
 
@@ -209,4 +212,102 @@ public class DifficultyCalculatorTests extends IntegrationTest {
         // Assert
         Assert.assertEquals(ImmutableDifficulty.decode(HexUtil.hexStringToByteArray("18014735")), difficulty);
     }
+
+    @Test
+    public void should_calculate_bitcoin_cash_adjusted_difficulty_from_block_header_window() throws Exception {
+        // Setup
+        final MysqlDatabaseConnection databaseConnection = _database.newConnection();
+
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+
+        final BlockHeader[] blockHeaders = _initBlocks(478577L, databaseConnection);
+        final BlockHeader headBlockHeader = blockHeaders[blockHeaders.length - 1];
+
+        // Action
+        final BlockHeaderWindow blockHeaderWindow = blockDatabaseManager.initializeBlockHeaderWindow(headBlockHeader.getHash());
+        final Difficulty difficulty = blockHeaderWindow.calculateRequiredDifficulty();
+
+        // Assert
+        Assert.assertEquals(blockHeaders.length, blockHeaderWindow.getBlockCount().intValue());
+        Assert.assertEquals(Long.valueOf(478576L), blockHeaderWindow.getHeadBlockHeight());
+        Assert.assertEquals(ImmutableDifficulty.decode(HexUtil.hexStringToByteArray("18019902")), difficulty);
+    }
+
+    @Test
+    public void should_calculate_difficulty_from_block_header_window_after_rewinding() throws Exception {
+        // Setup
+        final MysqlDatabaseConnection databaseConnection = _database.newConnection();
+
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+
+        final BlockHeader[] blockHeaders = _initBlocks(478577L, databaseConnection);
+        final BlockHeaderWindow blockHeaderWindow = blockDatabaseManager.initializeBlockHeaderWindow(blockHeaders[blockHeaders.length - 1].getHash());
+        final BlockHeader block478572 = blockHeaders[(int) (478572L - 478550L)];
+
+        // Action
+        final Boolean wasRewound = blockHeaderWindow.rewindTo(block478572.getHash());
+        final Difficulty difficulty = blockHeaderWindow.calculateRequiredDifficulty();
+
+        // Assert
+        Assert.assertTrue(wasRewound);
+        Assert.assertEquals(Long.valueOf(478572L), blockHeaderWindow.getHeadBlockHeight());
+        Assert.assertEquals(ImmutableDifficulty.decode(HexUtil.hexStringToByteArray("18014735")), difficulty);
+    }
+
+    @Test
+    public void should_not_have_complete_history_after_rewinding_past_a_full_difficulty_adjustment_period() {
+        // Setup
+        final Difficulty difficulty = ImmutableDifficulty.decode(HexUtil.hexStringToByteArray("18019902"));
+        final BlockHeaderWindow blockHeaderWindow = new BlockHeaderWindow();
+        final Sha256Hash[] blockHashes = new Sha256Hash[BlockHeaderWindow.DEFAULT_CAPACITY];
+        for (int i = 0; i < blockHashes.length; ++i) {
+            final byte[] hashBytes = new byte[Sha256Hash.BYTE_COUNT];
+            ByteUtil.setBytes(hashBytes, ByteUtil.integerToBytes(i + 1));
+            blockHashes[i] = MutableSha256Hash.wrap(hashBytes);
+
+            blockHeaderWindow.addBlock(blockHashes[i], (100000L + i), (1500000000L + (i * 600L)), difficulty);
+        }
+
+        final int blockCountPerDifficultyAdjustment = DifficultyCalculator.BLOCK_COUNT_PER_DIFFICULTY_ADJUSTMENT;
+        final Boolean wasComplete = blockHeaderWindow.hasCompleteHistory();
+
+        // Action
+        final Boolean wasRewoundToFullPeriod = blockHeaderWindow.rewindTo(blockHashes[blockCountPerDifficultyAdjustment - 1]);
+        final Boolean fullPeriodIsComplete = blockHeaderWindow.hasCompleteHistory();
+        final Boolean wasRewoundPastFullPeriod = blockHeaderWindow.rewindTo(blockHashes[blockCountPerDifficultyAdjustment - 2]);
+        final Boolean partialPeriodIsComplete = blockHeaderWindow.hasCompleteHistory();
+
+        // Assert
+        Assert.assertTrue(wasComplete);
+        Assert.assertTrue(wasRewoundToFullPeriod);
+        Assert.assertTrue(fullPeriodIsComplete);
+        Assert.assertTrue(wasRewoundPastFullPeriod);
+        Assert.assertFalse(partialPeriodIsComplete);
+        Assert.assertEquals((blockCountPerDifficultyAdjustment - 1), blockHeaderWindow.getBlockCount().intValue());
+    }
+
+    @Test
+    public void should_have_complete_history_when_window_contains_the_genesis_block() {
+        // Setup
+        final Difficulty difficulty = ImmutableDifficulty.decode(HexUtil.hexStringToByteArray("1D00FFFF"));
+        final BlockHeaderWindow blockHeaderWindow = new BlockHeaderWindow();
+        final BlockHeaderWindow partialBlockHeaderWindow = new BlockHeaderWindow();
+        for (int i = 0; i < 20; ++i) {
+            final byte[] hashBytes = new byte[Sha256Hash.BYTE_COUNT];
+            ByteUtil.setBytes(hashBytes, ByteUtil.integerToBytes(i + 1));
+            final Sha256Hash blockHash = MutableSha256Hash.wrap(hashBytes);
+
+            blockHeaderWindow.addBlock(blockHash, (long) i, (1231006505L + (i * 600L)), difficulty);
+            partialBlockHeaderWindow.addBlock(blockHash, (i + 1L), (1231006505L + (i * 600L)), difficulty);
+        }
+
+        // Action
+        final Boolean isComplete = blockHeaderWindow.hasCompleteHistory();
+        final Boolean partialWindowIsComplete = partialBlockHeaderWindow.hasCompleteHistory();
+
+        // Assert
+        Assert.assertTrue(isComplete);
+        Assert.assertFalse(partialWindowIsComplete);
+        Assert.assertFalse(new BlockHeaderWindow().hasCompleteHistory());
+    }
 }
@@ -3,13 +3,17 @@ package com.softwareverde.bitcoin.chain;
 import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.test.BlockData;
 import com.softwareverde.bitcoin.test.IntegrationTest;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.type.hash.sha256.ImmutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.database.Query;
 import com.softwareverde.database.Row;
 import com.softwareverde.database.mysql.MysqlDatabaseConnection;
@@ -974,12 +978,12 @@ public class BlockChainDatabaseManagerTests extends IntegrationTest {
             final Transaction transaction = block2Prime.getTransactions().get(1);
             Assert.assertNotEquals(new ImmutableSha256Hash(), transaction.getTransactionInputs().get(0).getPreviousOutputTransactionHash()); // Assert this transactionInput is not a coinbase transaction...
             final Sha256Hash transactionHash = transaction.getHash();
-            final Long transactionId = databaseConnection.query(new Query("SELECT id FROM transactions WHERE hash = ?").setParameter(transactionHash)).get(0).getLong("id");
+            final Long transactionId = databaseConnection.query(new Query("SELECT id FROM transactions WHERE hash = ?").setParameter(transactionHash.getBytes())).get(0).getLong("id");
             final Long previousTransactionOutputId = databaseConnection.query(new Query("SELECT previous_transaction_output_id FROM transaction_inputs WHERE transaction_id = ?").setParameter(transactionId)).get(0).getLong("previous_transaction_output_id");
             final Long blockIdContainingSpentTransaction = databaseConnection.query(new Query("SELECT transactions.block_id FROM transactions INNER JOIN transaction_outputs ON (transaction_outputs.transaction_id = transactions.id) WHERE transaction_outputs.id = ?").setParameter(previousTransactionOutputId)).get(0).getLong("block_id");
-            final String blockHashContainingSpentTransaction = databaseConnection.query(new Query("SELECT hash FROM blocks WHERE id = ?").setParameter(blockIdContainingSpentTransaction)).get(0).getString("hash");
+            final Sha256Hash blockHashContainingSpentTransaction = MutableSha256Hash.wrap(databaseConnection.query(new Query("SELECT hash FROM blocks WHERE id = ?").setParameter(blockIdContainingSpentTransaction)).get(0).getBytes("hash"));
 
-            Assert.assertEquals(block1Prime.getHash().toString(), blockHashContainingSpentTransaction);
+            Assert.assertEquals(block1Prime.getHash(), blockHashContainingSpentTransaction);
         }
     }
 
@@ -1029,12 +1033,12 @@ public class BlockChainDatabaseManagerTests extends IntegrationTest {
             final Transaction transaction = block2Prime.getTransactions().get(1);
             Assert.assertNotEquals(new ImmutableSha256Hash(), transaction.getTransactionInputs().get(0).getPreviousOutputTransactionHash()); // Assert this transactionInput is not a coinbase transaction...
             final Sha256Hash transactionHash = transaction.getHash();
-            final Long transactionId = databaseConnection.query(new Query("SELECT id FROM transactions WHERE hash = ?").setParameter(transactionHash)).get(0).getLong("id");
+            final Long transactionId = databaseConnection.query(new Query("SELECT id FROM transactions WHERE hash = ?").setParameter(transactionHash.getBytes())).get(0).getLong("id");
             final Long previousTransactionOutputId = databaseConnection.query(new Query("SELECT previous_transaction_output_id FROM transaction_inputs WHERE transaction_id = ?").setParameter(transactionId)).get(0).getLong("previous_transaction_output_id");
             final Long blockIdContainingSpentTransaction = databaseConnection.query(new Query("SELECT transactions.block_id FROM transactions INNER JOIN transaction_outputs ON (transaction_outputs.transaction_id = transactions.id) WHERE transaction_outputs.id = ?").setParameter(previousTransactionOutputId)).get(0).getLong("block_id");
-            final String blockHashContainingSpentTransaction = databaseConnection.query(new Query("SELECT hash FROM blocks WHERE id = ?").setParameter(blockIdContainingSpentTransaction)).get(0).getString("hash");
+            final Sha256Hash blockHashContainingSpentTransaction = MutableSha256Hash.wrap(databaseConnection.query(new Query("SELECT hash FROM blocks WHERE id = ?").setParameter(blockIdContainingSpentTransaction)).get(0).getBytes("hash"));
 
-            Assert.assertEquals(block1Prime.getHash().toString(), blockHashContainingSpentTransaction);
+            Assert.assertEquals(block1Prime.getHash(), blockHashContainingSpentTransaction);
         }
     }
 
@@ -1042,4 +1046,55 @@ public class BlockChainDatabaseManagerTests extends IntegrationTest {
     public void should_not_link_transaction_when_transaction_output_is_only_found_on_separate_fork() throws Exception {
         // TODO
     }
+
+    @Test
+    public void should_extend_chain_with_bulk_inserted_block_headers() throws Exception {
+        // Setup
+        final MysqlDatabaseConnection databaseConnection = _database.newConnection();
+
+        final BlockInflater blockInflater = new BlockInflater();
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+        final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
+
+        final Block genesisBlock = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK));
+        final BlockId genesisBlockId = blockDatabaseManager.insertBlock(genesisBlock);
+        blockChainDatabaseManager.updateBlockChainsForNewBlock(genesisBlock);
+
+        final MutableList<BlockHeader> blockHeaders = new MutableList<BlockHeader>(5);
+        for (final String blockData : new String[] { BlockData.MainChain.BLOCK_1, BlockData.MainChain.BLOCK_2, BlockData.MainChain.BLOCK_3, BlockData.MainChain.BLOCK_4, BlockData.MainChain.BLOCK_5 }) {
+            blockHeaders.add(blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData)));
+        }
+
+        Assert.assertTrue(blockChainDatabaseManager.canExtendBlockChainSegment(genesisBlockId));
+
+        // Action
+        final List<BlockId> blockIds = blockDatabaseManager.insertBlockHeaders(blockHeaders);
+        blockChainDatabaseManager.updateBlockChainsForNewBlocks(genesisBlockId, blockIds);
+
+        // Assert
+        Assert.assertEquals(5, blockIds.getSize().intValue());
+        Assert.assertFalse(blockChainDatabaseManager.canExtendBlockChainSegment(genesisBlockId));
+        Assert.assertTrue(blockChainDatabaseManager.canExtendBlockChainSegment(blockIds.get(4)));
+
+        final java.util.List<Row> rows = databaseConnection.query(new Query("SELECT * FROM block_chain_segments"));
+        Assert.assertEquals(1, rows.size());
+
+        final Row row = rows.get(0);
+        Assert.assertEquals(blockIds.get(4).longValue(), row.getLong("head_block_id").longValue());
+        Assert.assertEquals(genesisBlockId.longValue(), row.getLong("tail_block_id").longValue());
+        Assert.assertEquals(5L, row.getLong("block_height").longValue());
+        Assert.assertEquals(6L, row.getLong("block_count").longValue());
+
+        BlockId previousBlockId = genesisBlockId;
+        for (int i = 0; i < blockIds.getSize(); ++i) {
+            final BlockId blockId = blockIds.get(i);
+            final BlockHeader blockHeader = blockHeaders.get(i);
+
+            Assert.assertEquals(blockId, blockDatabaseManager.getBlockIdFromHash(blockHeader.getHash()));
+            Assert.assertEquals(previousBlockId, blockDatabaseManager.getAncestorBlockId(blockId, 1));
+            Assert.assertEquals(Long.valueOf(i + 1L), blockDatabaseManager.getBlockHeightForBlockId(blockId));
+            Assert.assertEquals(1L, blockDatabaseManager.getBlockChainSegmentId(blockId).longValue());
+            previousBlockId = blockId;
+        }
+    }
 }
@@ -57,6 +57,26 @@ public class Secp256k1Tests {
         System.out.println("Verify via JNI: "+ elapsed);
     }
 
+    @Test
+    public void should_verify_signature_native_via_direct_buffer() throws Exception {
+        // Setup
+        final PrivateKey privateKey = PrivateKey.createNewKey();
+        final PublicKey publicKey = privateKey.getPublicKey();
+        final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot."));
+        final byte[] otherMessage = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a big teapot."));
+        final Signature signature = Secp256k1.sign(privateKey.getBytes(), message);
+
+        // Action
+        final Boolean signatureIsValid = NativeSecp256k1.verify(message, signature.encodeAsDer(), publicKey);
+        final Boolean otherSignatureIsValid = NativeSecp256k1.verify(otherMessage, signature.encodeAsDer(), publicKey);
+        final Boolean compressedSignatureIsValid = NativeSecp256k1.verify(message, signature.encodeAsDer(), publicKey.compress());
+
+        // Assert
+        Assert.assertTrue(signatureIsValid);
+        Assert.assertFalse(otherSignatureIsValid);
+        Assert.assertTrue(compressedSignatureIsValid);
+    }
+
     @Test
     public void should_create_and_verify_signature() {
         // Setup
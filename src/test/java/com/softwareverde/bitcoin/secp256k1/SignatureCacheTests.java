@@ -0,0 +1,51 @@
+package com.softwareverde.bitcoin.secp256k1;
+
+import com.softwareverde.bitcoin.secp256k1.signature.Signature;
+import com.softwareverde.bitcoin.type.key.PrivateKey;
+import com.softwareverde.bitcoin.type.key.PublicKey;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.util.StringUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignatureCacheTests {
+    @Test
+    public void should_only_verify_valid_signature_once() {
+        // Setup
+        final SignatureCache signatureCache = new SignatureCache(1024);
+        final PrivateKey privateKey = PrivateKey.createNewKey();
+        final PublicKey publicKey = privateKey.getPublicKey();
+        final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot."));
+        final Signature signature = Secp256k1.sign(privateKey.getBytes(), message);
+
+        // Action
+        final Boolean firstVerification = signatureCache.verifySignature(message, publicKey, signature);
+        final Boolean secondVerification = signatureCache.verifySignature(message, publicKey, signature);
+
+        // Assert
+        Assert.assertTrue(firstVerification);
+        Assert.assertTrue(secondVerification);
+        Assert.assertEquals(2L, signatureCache.getCacheQueryCount().longValue());
+        Assert.assertEquals(1L, signatureCache.getCacheMissCount().longValue());
+    }
+
+    @Test
+    public void should_not_cache_invalid_signature() {
+        // Setup
+        final SignatureCache signatureCache = new SignatureCache(1024);
+        final PrivateKey privateKey = PrivateKey.createNewKey();
+        final PublicKey otherPublicKey = PrivateKey.createNewKey().getPublicKey();
+        final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot."));
+        final Signature signature = Secp256k1.sign(privateKey.getBytes(), message);
+
+        // Action
+        final Boolean firstVerification = signatureCache.verifySignature(message, otherPublicKey, signature);
+        final Boolean secondVerification = signatureCache.verifySignature(message, otherPublicKey, signature);
+
+        // Assert
+        Assert.assertFalse(firstVerification);
+        Assert.assertFalse(secondVerification);
+        Assert.assertEquals(2L, signatureCache.getCacheMissCount().longValue());
+        Assert.assertFalse(signatureCache.isSignatureCached(message, otherPublicKey, signature));
+    }
+}
@@ -0,0 +1,62 @@
+package com.softwareverde.bitcoin.secp256k1;
+
+import com.softwareverde.bitcoin.secp256k1.signature.Signature;
+import com.softwareverde.bitcoin.type.key.PrivateKey;
+import com.softwareverde.bitcoin.type.key.PublicKey;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.util.StringUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignatureVerificationBatchTests {
+    protected static void _addSignatures(final SignatureVerificationBatch signatureVerificationBatch, final Integer signatureCount) {
+        for (int i = 0; i < signatureCount; ++i) {
+            final PrivateKey privateKey = PrivateKey.createNewKey();
+            final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("Message #" + i));
+            final Signature signature = Secp256k1.sign(privateKey.getBytes(), message);
+            signatureVerificationBatch.addSignature(message, privateKey.getPublicKey(), signature);
+        }
+    }
+
+    @Test
+    public void should_verify_and_cache_valid_batch() {
+        // Setup
+        final SignatureCache signatureCache = new SignatureCache(1024);
+        final SignatureVerificationBatch signatureVerificationBatch = new SignatureVerificationBatch(signatureCache);
+        _addSignatures(signatureVerificationBatch, 100);
+
+        final SignatureVerificationBatch.SignatureVerification lastSignatureVerification = signatureVerificationBatch.getSignatureVerifications().get(99);
+
+        // Action
+        final Boolean batchIsValid = signatureVerificationBatch.verify();
+
+        // Assert
+        Assert.assertTrue(batchIsValid);
+        Assert.assertTrue(signatureCache.isSignatureCached(lastSignatureVerification.message, lastSignatureVerification.publicKey, lastSignatureVerification.signature));
+    }
+
+    @Test
+    public void should_not_verify_batch_containing_invalid_signature() {
+        // Setup
+        final SignatureCache signatureCache = new SignatureCache(1024);
+        final SignatureVerificationBatch signatureVerificationBatch = new SignatureVerificationBatch(signatureCache);
+        _addSignatures(signatureVerificationBatch, 50);
+
+        final PrivateKey privateKey = PrivateKey.createNewKey();
+        final PublicKey otherPublicKey = PrivateKey.createNewKey().getPublicKey();
+        final byte[] message = BitcoinUtil.sha256(StringUtil.stringToBytes("I am a little teapot."));
+        final Signature signature = Secp256k1.sign(privateKey.getBytes(), message);
+        signatureVerificationBatch.addSignature(message, otherPublicKey, signature);
+
+        _addSignatures(signatureVerificationBatch, 50);
+
+        final SignatureVerificationBatch.SignatureVerification firstSignatureVerification = signatureVerificationBatch.getSignatureVerifications().get(0);
+
+        // Action
+        final Boolean batchIsValid = signatureVerificationBatch.verify();
+
+        // Assert
+        Assert.assertFalse(batchIsValid);
+        Assert.assertFalse(signatureCache.isSignatureCached(firstSignatureVerification.message, firstSignatureVerification.publicKey, firstSignatureVerification.signature));
+    }
+}
@@ -4,6 +4,7 @@ import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockId;
 import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.block.MutableBlock;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
 import com.softwareverde.bitcoin.test.BlockData;
 import com.softwareverde.bitcoin.test.IntegrationTest;
@@ -330,6 +331,82 @@ public class BlockDatabaseManagerTests extends IntegrationTest {
         Assert.assertFalse(isBlockConnected);
     }
 
+    @Test
+    public void should_answer_ancestry_queries_from_the_block_tree() throws Exception {
+        // Setup
+        final MysqlDatabaseConnection databaseConnection = _database.newConnection();
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+
+        final ScenarioData scenarioData = _setupScenario(databaseConnection);
+        final BlockId[] blockIds = new BlockId[]{ scenarioData.A, scenarioData.B, scenarioData.C, scenarioData.C2, scenarioData.D, scenarioData.E, scenarioData.E2 };
+
+        // Assert
+        Assert.assertTrue(BlockDatabaseManager.BLOCK_TREE.isEnabled());
+        Assert.assertEquals(7, BlockDatabaseManager.BLOCK_TREE.getSize().intValue());
+        for (final BlockId blockId : blockIds) {
+            Assert.assertTrue(BlockDatabaseManager.BLOCK_TREE.containsBlock(blockId));
+        }
+
+        Assert.assertEquals(4L, blockDatabaseManager.getBlockHeightForBlockId(scenarioData.E2).longValue());
+        Assert.assertEquals(scenarioData.A, blockDatabaseManager.getAncestorBlockId(scenarioData.E, 4));
+        Assert.assertEquals(scenarioData.B, blockDatabaseManager.getAncestorBlockId(scenarioData.C2, 1));
+        Assert.assertEquals(scenarioData.D, blockDatabaseManager.getChildBlockId(BlockChainSegmentId.wrap(4L), scenarioData.C));
+
+        final BlockHeader blockHeader = blockDatabaseManager.findBlockAtBlockHeight(BlockChainSegmentId.wrap(5L), 2L);
+        Assert.assertEquals(blockDatabaseManager.getBlockHashFromId(scenarioData.C), blockHeader.getHash());
+        Assert.assertNull(blockDatabaseManager.findBlockAtBlockHeight(BlockChainSegmentId.wrap(3L), 3L));
+    }
+
+    @Test
+    public void should_answer_connectivity_queries_from_the_block_tree_the_same_as_from_the_database() throws Exception {
+        // Setup
+        final MysqlDatabaseConnection databaseConnection = _database.newConnection();
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+
+        final ScenarioData scenarioData = _setupScenario(databaseConnection);
+        final BlockId[] blockIds = new BlockId[]{ scenarioData.A, scenarioData.B, scenarioData.C, scenarioData.C2, scenarioData.D, scenarioData.E, scenarioData.E2 };
+        final int blockChainSegmentCount = 5;
+
+        final Boolean[][] blockTreeResults = new Boolean[blockIds.length][blockChainSegmentCount];
+        for (int i = 0; i < blockIds.length; ++i) {
+            for (int j = 0; j < blockChainSegmentCount; ++j) {
+                blockTreeResults[i][j] = blockDatabaseManager.isBlockConnectedToChain(blockIds[i], BlockChainSegmentId.wrap(j + 1L));
+            }
+        }
+
+        // Action
+        BlockDatabaseManager.BLOCK_TREE.clear(); // Forces the database queries to be used...
+
+        // Assert
+        Assert.assertFalse(BlockDatabaseManager.BLOCK_TREE.containsBlock(scenarioData.A));
+        for (int i = 0; i < blockIds.length; ++i) {
+            for (int j = 0; j < blockChainSegmentCount; ++j) {
+                final Boolean databaseResult = blockDatabaseManager.isBlockConnectedToChain(blockIds[i], BlockChainSegmentId.wrap(j + 1L));
+                Assert.assertEquals(databaseResult, blockTreeResults[i][j]);
+            }
+        }
+    }
+
+    @Test
+    public void should_load_block_tree_from_the_database() throws Exception {
+        // Setup
+        final MysqlDatabaseConnection databaseConnection = _database.newConnection();
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+
+        final ScenarioData scenarioData = _setupScenario(databaseConnection);
+        BlockDatabaseManager.BLOCK_TREE.clear();
+
+        // Action
+        final Integer blockCount = blockDatabaseManager.loadBlockTree();
+
+        // Assert
+        Assert.assertEquals(7, blockCount.intValue());
+        Assert.assertTrue(BlockDatabaseManager.BLOCK_TREE.containsBlock(scenarioData.E2));
+        Assert.assertEquals(scenarioData.B, BlockDatabaseManager.BLOCK_TREE.getAncestorBlockId(scenarioData.E2, 1L));
+        Assert.assertTrue(blockDatabaseManager.isBlockConnectedToChain(scenarioData.C, BlockChainSegmentId.wrap(4L)));
+        Assert.assertFalse(blockDatabaseManager.isBlockConnectedToChain(scenarioData.C2, BlockChainSegmentId.wrap(4L)));
+    }
+
     @Test
     public void should_inflate_block_00000000B0C5A240B2A61D2E75692224EFD4CBECDF6EAF4CC2CF477CA7C270E7() throws Exception {
         // Setup
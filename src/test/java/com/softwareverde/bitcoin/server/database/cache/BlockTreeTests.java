@@ -0,0 +1,115 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.constable.list.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockTreeTests {
+    /**
+     * Creates a BlockTree containing a chain of blockCount blocks, with BlockIds 1 through blockCount.
+     */
+    protected static BlockTree _createBlockTree(final Integer blockCount) {
+        final BlockTree blockTree = new BlockTree();
+        blockTree.initialize();
+
+        BlockId previousBlockId = null;
+        for (int i = 0; i < blockCount; ++i) {
+            final BlockId blockId = BlockId.wrap(i + 1L);
+            blockTree.addBlock(blockId, previousBlockId, (long) i);
+            previousBlockId = blockId;
+        }
+        blockTree.commit();
+
+        return blockTree;
+    }
+
+    @Test
+    public void should_find_ancestor_at_every_block_height() {
+        // Setup
+        final BlockTree blockTree = _createBlockTree(5000);
+        final BlockId headBlockId = BlockId.wrap(5000L);
+
+        for (long blockHeight = 0L; blockHeight < 5000L; ++blockHeight) {
+            // Action
+            final BlockId ancestorBlockId = blockTree.getAncestorBlockId(headBlockId, blockHeight);
+
+            // Assert
+            Assert.assertEquals(BlockId.wrap(blockHeight + 1L), ancestorBlockId);
+        }
+
+        Assert.assertNull(blockTree.getAncestorBlockId(headBlockId, 5000L));
+        Assert.assertEquals(Long.valueOf(4999L), blockTree.getBlockHeight(headBlockId));
+    }
+
+    @Test
+    public void should_only_connect_blocks_on_the_same_chain() {
+        // Setup
+        final BlockTree blockTree = _createBlockTree(10);
+        final BlockId forkBlockId = BlockId.wrap(11L);
+        final BlockId forkChildBlockId = BlockId.wrap(12L);
+        blockTree.addBlock(forkBlockId, BlockId.wrap(5L), 5L);
+        blockTree.addBlock(forkChildBlockId, forkBlockId, 6L);
+        blockTree.commit();
+
+        // Action
+        final Boolean forkIsConnectedToParent = blockTree.areBlocksConnected(forkChildBlockId, BlockId.wrap(5L));
+        final Boolean forkIsConnectedToMainChain = blockTree.areBlocksConnected(forkChildBlockId, BlockId.wrap(10L));
+        final Boolean forkIsConnectedToSibling = blockTree.areBlocksConnected(forkBlockId, BlockId.wrap(6L));
+        final List<BlockId> childBlockIds = blockTree.getChildBlockIds(BlockId.wrap(5L));
+
+        // Assert
+        Assert.assertTrue(forkIsConnectedToParent);
+        Assert.assertFalse(forkIsConnectedToMainChain);
+        Assert.assertFalse(forkIsConnectedToSibling);
+        Assert.assertEquals(2, childBlockIds.getSize().intValue());
+        Assert.assertEquals(BlockId.wrap(6L), childBlockIds.get(0));
+        Assert.assertEquals(forkBlockId, childBlockIds.get(1));
+    }
+
+    @Test
+    public void should_not_add_block_without_parent_in_tree() {
+        // Setup
+        final BlockTree blockTree = _createBlockTree(3);
+
+        // Action
+        final Boolean wasAdded = blockTree.addBlock(BlockId.wrap(5L), BlockId.wrap(4L), 4L);
+
+        // Assert
+        Assert.assertFalse(wasAdded);
+        Assert.assertNull(blockTree.getBlockHeight(BlockId.wrap(5L)));
+        Assert.assertNull(blockTree.areBlocksConnected(BlockId.wrap(5L), BlockId.wrap(1L)));
+    }
+
+    @Test
+    public void should_remove_uncommitted_blocks_on_rollback() {
+        // Setup
+        final BlockTree blockTree = _createBlockTree(3);
+        blockTree.addBlock(BlockId.wrap(4L), BlockId.wrap(3L), 3L);
+        blockTree.addBlock(BlockId.wrap(5L), BlockId.wrap(2L), 2L);
+
+        // Action
+        blockTree.rollback();
+
+        // Assert
+        Assert.assertEquals(3, blockTree.getSize().intValue());
+        Assert.assertFalse(blockTree.containsBlock(BlockId.wrap(4L)));
+        Assert.assertFalse(blockTree.containsBlock(BlockId.wrap(5L)));
+        Assert.assertEquals(0, blockTree.getChildBlockIds(BlockId.wrap(3L)).getSize().intValue());
+        Assert.assertEquals(1, blockTree.getChildBlockIds(BlockId.wrap(2L)).getSize().intValue());
+    }
+
+    @Test
+    public void should_ignore_blocks_while_disabled() {
+        // Setup
+        final BlockTree blockTree = new BlockTree();
+
+        // Action
+        final Boolean wasAdded = blockTree.addBlock(BlockId.wrap(1L), null, 0L);
+
+        // Assert
+        Assert.assertFalse(wasAdded);
+        Assert.assertFalse(blockTree.isEnabled());
+        Assert.assertNull(blockTree.getBlockHeight(BlockId.wrap(1L)));
+    }
+}
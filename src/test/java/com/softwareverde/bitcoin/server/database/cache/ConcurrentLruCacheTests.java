@@ -0,0 +1,165 @@
+package com.softwareverde.bitcoin.server.database.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentLruCacheTests {
+    protected static ConcurrentLruCache<String, Integer> _createSingleSegmentCache(final Integer maxItemCount) {
+        return new ConcurrentLruCache<String, Integer>("TestCache", maxItemCount, 1, 1);
+    }
+
+    @Test
+    public void should_return_null_when_empty() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = _createSingleSegmentCache(1024);
+
+        // Action
+        final Integer value = cache.get("0");
+
+        // Assert
+        Assert.assertNull(value);
+        Assert.assertEquals(1L, cache.getMissCount().longValue());
+    }
+
+    @Test
+    public void should_evict_first_item_when_full() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = _createSingleSegmentCache(2);
+        cache.put("0", 0);
+        cache.put("1", 1);
+
+        // Action
+        cache.put("2", 2);
+
+        // Assert
+        Assert.assertNull(cache.get("0"));
+        Assert.assertEquals(1, cache.get("1").intValue());
+        Assert.assertEquals(2, cache.get("2").intValue());
+        Assert.assertEquals(2, cache.getSize().intValue());
+        Assert.assertEquals(1L, cache.getEvictionCount().longValue());
+    }
+
+    @Test
+    public void should_evict_second_item_when_first_is_accessed_again() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = _createSingleSegmentCache(3);
+        cache.put("0", 0);
+        cache.put("1", 1);
+        cache.put("2", 2);
+        cache.get("0");     // 1, 2, 0
+
+        // Action
+        cache.put("3", 3);  // 2, 0, 3
+        cache.put("4", 4);  // 0, 3, 4
+
+        // Assert
+        Assert.assertNull(cache.get("1"));
+        Assert.assertNull(cache.get("2"));
+        Assert.assertEquals(0, cache.get("0").intValue());
+        Assert.assertEquals(3, cache.get("3").intValue());
+        Assert.assertEquals(4, cache.get("4").intValue());
+    }
+
+    @Test
+    public void should_not_replace_existing_value_when_put_if_absent() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = _createSingleSegmentCache(1024);
+        cache.put("0", 0);
+
+        // Action
+        final Integer existingValue = cache.putIfAbsent("0", 1);
+
+        // Assert
+        Assert.assertEquals(0, existingValue.intValue());
+        Assert.assertEquals(0, cache.get("0").intValue());
+    }
+
+    @Test
+    public void should_shrink_to_byte_budget() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = new ConcurrentLruCache<String, Integer>("TestCache", 1024, 100, 1);
+        for (int i = 0; i < 1024; ++i) {
+            cache.put(String.valueOf(i), i);
+        }
+
+        // Action
+        cache.setMaxByteCount(1000L);
+        cache.put("1024", 1024);
+
+        // Assert
+        Assert.assertEquals(10, cache.getMaxItemCount().intValue());
+        Assert.assertEquals(10, cache.getSize().intValue());
+        Assert.assertNull(cache.get("1014"));
+        Assert.assertEquals(1024, cache.get("1024").intValue());
+        Assert.assertEquals(1023, cache.get("1023").intValue());
+    }
+
+    @Test
+    public void should_retain_items_across_multiple_segments() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = new ConcurrentLruCache<String, Integer>("TestCache", 4096, 1);
+
+        // Action
+        for (int i = 0; i < 1024; ++i) {
+            cache.put(String.valueOf(i), i);
+        }
+
+        // Assert
+        Assert.assertEquals(1024, cache.getSize().intValue());
+        for (int i = 0; i < 1024; ++i) {
+            Assert.assertEquals(i, cache.get(String.valueOf(i)).intValue());
+        }
+    }
+
+    @Test
+    public void should_not_lose_concurrent_updates_of_the_same_key() throws Exception {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = _createSingleSegmentCache(1024);
+        final int threadCount = 4;
+        final int updateCountPerThread = 10000;
+        final ConcurrentLruCache.UpdateCallback<String, Integer> incrementCallback = new ConcurrentLruCache.UpdateCallback<String, Integer>() {
+            @Override
+            public Integer run(final String key, final Integer existingValue) {
+                return ((existingValue == null ? 0 : existingValue) + 1);
+            }
+        };
+
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < updateCountPerThread; ++j) {
+                        cache.update("0", incrementCallback);
+                    }
+                }
+            });
+        }
+
+        // Action
+        for (final Thread thread : threads) { thread.start(); }
+        for (final Thread thread : threads) { thread.join(); }
+
+        // Assert
+        Assert.assertEquals((threadCount * updateCountPerThread), cache.get("0").intValue());
+    }
+
+    @Test
+    public void should_remove_item_when_update_returns_null() {
+        // Setup
+        final ConcurrentLruCache<String, Integer> cache = _createSingleSegmentCache(1024);
+        cache.put("0", 0);
+
+        // Action
+        cache.update("0", new ConcurrentLruCache.UpdateCallback<String, Integer>() {
+            @Override
+            public Integer run(final String key, final Integer existingValue) {
+                return null;
+            }
+        });
+
+        // Assert
+        Assert.assertNull(cache.get("0"));
+        Assert.assertEquals(0, cache.getSize().intValue());
+    }
+}
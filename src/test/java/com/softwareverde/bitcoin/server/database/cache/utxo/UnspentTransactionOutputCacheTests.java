@@ -0,0 +1,125 @@
+package com.softwareverde.bitcoin.server.database.cache.utxo;
+
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutputId;
+import com.softwareverde.bitcoin.type.hash.sha256.ImmutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UnspentTransactionOutputCacheTests {
+    protected static final Sha256Hash TRANSACTION_HASH = ImmutableSha256Hash.fromHexString("4A5E1E4BAAB89F3A32518A88C31BC87F618F76673E2CC77AB2127B7AFDEDA33B");
+
+    protected static UnspentTransactionOutputCache _newCache() {
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = new UnspentTransactionOutputCache();
+        unspentTransactionOutputCache.initialize(ByteUtil.Unit.MEGABYTES * 1L);
+        return unspentTransactionOutputCache;
+    }
+
+    @Test
+    public void should_return_cached_output() {
+        // Setup
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = _newCache();
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 1, TransactionOutputId.wrap(7L), BlockId.wrap(3L), BlockChainSegmentId.wrap(2L), 5000000000L);
+
+        // Action
+        final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 1);
+        final CachedUnspentTransactionOutput missingUnspentTransactionOutput = unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0);
+
+        // Assert
+        Assert.assertEquals(TransactionOutputId.wrap(7L), cachedUnspentTransactionOutput.getTransactionOutputId());
+        Assert.assertEquals(BlockId.wrap(3L), cachedUnspentTransactionOutput.getBlockId());
+        Assert.assertEquals(BlockChainSegmentId.wrap(2L), cachedUnspentTransactionOutput.getBlockChainSegmentId());
+        Assert.assertEquals(5000000000L, cachedUnspentTransactionOutput.getAmount().longValue());
+        Assert.assertNull(missingUnspentTransactionOutput);
+    }
+
+    @Test
+    public void should_retain_spent_output_until_committed() {
+        // Setup
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = _newCache();
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(1L), BlockId.wrap(1L), BlockChainSegmentId.wrap(1L), 50L);
+        unspentTransactionOutputCache.commit();
+
+        // Action
+        unspentTransactionOutputCache.markTransactionOutputAsSpent(TRANSACTION_HASH, 0);
+        final CachedUnspentTransactionOutput uncommittedSpentOutput = unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0);
+        unspentTransactionOutputCache.commit();
+        final CachedUnspentTransactionOutput committedSpentOutput = unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0);
+
+        // Assert
+        Assert.assertNotNull(uncommittedSpentOutput);
+        Assert.assertNull(committedSpentOutput);
+        Assert.assertEquals(0, unspentTransactionOutputCache.getSize().intValue());
+    }
+
+    @Test
+    public void should_remove_new_outputs_and_restore_spent_outputs_on_rollback() {
+        // Setup
+        final Sha256Hash newTransactionHash = ImmutableSha256Hash.fromHexString("0E3E2357E806B6CDB1F70B54C3A3A17B6714EE1F0E68BEBB44A74B1EFD512098");
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = _newCache();
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(1L), BlockId.wrap(1L), BlockChainSegmentId.wrap(1L), 50L);
+        unspentTransactionOutputCache.commit();
+
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(newTransactionHash, 0, TransactionOutputId.wrap(2L), BlockId.wrap(2L), BlockChainSegmentId.wrap(1L), 50L);
+        unspentTransactionOutputCache.markTransactionOutputAsSpent(TRANSACTION_HASH, 0);
+
+        // Action
+        unspentTransactionOutputCache.rollback();
+        unspentTransactionOutputCache.commit();
+
+        // Assert
+        Assert.assertNotNull(unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0));
+        Assert.assertNull(unspentTransactionOutputCache.getCachedUnspentTransactionOutput(newTransactionHash, 0));
+        Assert.assertEquals(1, unspentTransactionOutputCache.getSize().intValue());
+    }
+
+    @Test
+    public void should_not_return_output_cached_with_conflicting_ids() {
+        // Setup
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = _newCache();
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(1L), BlockId.wrap(1L), BlockChainSegmentId.wrap(1L), 50L);
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(2L), BlockId.wrap(2L), BlockChainSegmentId.wrap(2L), 50L);
+
+        // Action
+        final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0);
+
+        // Assert
+        Assert.assertNull(cachedUnspentTransactionOutput);
+    }
+
+    @Test
+    public void should_invalidate_block_chain_segment_ids() {
+        // Setup
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = _newCache();
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(1L), BlockId.wrap(1L), BlockChainSegmentId.wrap(1L), 50L);
+
+        // Action
+        unspentTransactionOutputCache.invalidateBlockChainSegmentIds();
+        final CachedUnspentTransactionOutput cachedUnspentTransactionOutput = unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0);
+
+        // Assert
+        Assert.assertNull(cachedUnspentTransactionOutput.getBlockChainSegmentId());
+        Assert.assertEquals(BlockId.wrap(1L), cachedUnspentTransactionOutput.getBlockId());
+    }
+
+    @Test
+    public void should_not_cache_outputs_with_ids_larger_than_32_bits() {
+        // Setup
+        final Sha256Hash otherTransactionHash = ImmutableSha256Hash.fromHexString("0E3E2357E806B6CDB1F70B54C3A3A17B6714EE1F0E68BEBB44A74B1EFD512098");
+        final long largeId = (0xFFFFFFFFL + 2L); // Would be truncated to 1...
+        final UnspentTransactionOutputCache unspentTransactionOutputCache = _newCache();
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(1L), BlockId.wrap(1L), BlockChainSegmentId.wrap(1L), 50L);
+
+        // Action
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(TRANSACTION_HASH, 0, TransactionOutputId.wrap(largeId), BlockId.wrap(2L), BlockChainSegmentId.wrap(1L), 50L);
+        unspentTransactionOutputCache.cacheUnspentTransactionOutput(otherTransactionHash, 0, TransactionOutputId.wrap(2L), BlockId.wrap(largeId), BlockChainSegmentId.wrap(1L), 50L);
+
+        // Assert
+        Assert.assertNull(unspentTransactionOutputCache.getCachedUnspentTransactionOutput(TRANSACTION_HASH, 0));
+        Assert.assertNull(unspentTransactionOutputCache.getCachedUnspentTransactionOutput(otherTransactionHash, 0));
+        Assert.assertEquals(1, unspentTransactionOutputCache.getSize().intValue());
+    }
+}
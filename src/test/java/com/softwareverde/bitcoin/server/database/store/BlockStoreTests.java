@@ -0,0 +1,74 @@
+package com.softwareverde.bitcoin.server.database.store;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.util.HexUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class BlockStoreTests {
+    protected File _blockDirectory;
+
+    @Before
+    public void setup() throws Exception {
+        _blockDirectory = Files.createTempDirectory("blocks").toFile();
+    }
+
+    @After
+    public void teardown() {
+        final File[] files = _blockDirectory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        _blockDirectory.delete();
+    }
+
+    @Test
+    public void should_read_stored_blocks() {
+        // Setup
+        final BlockStore blockStore = new BlockStore(_blockDirectory.getPath());
+        final ByteArray firstBlockBytes = MutableByteArray.wrap(HexUtil.hexStringToByteArray("0100000000000000"));
+        final ByteArray secondBlockBytes = MutableByteArray.wrap(HexUtil.hexStringToByteArray("020000000000000000000000"));
+
+        // Action
+        final BlockFileLocation firstBlockFileLocation = blockStore.storeBlock(firstBlockBytes);
+        final BlockFileLocation secondBlockFileLocation = blockStore.storeBlock(secondBlockBytes);
+        final ByteArray firstReadBlockBytes = blockStore.readBlock(firstBlockFileLocation);
+        final ByteArray secondReadBlockBytes = blockStore.readBlock(secondBlockFileLocation);
+        blockStore.close();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), firstBlockFileLocation.getFileIndex());
+        Assert.assertEquals(Integer.valueOf(0), secondBlockFileLocation.getFileIndex());
+        Assert.assertEquals(Integer.valueOf(8), firstBlockFileLocation.getByteCount());
+        Assert.assertTrue(secondBlockFileLocation.getFileOffset() > firstBlockFileLocation.getFileOffset());
+        Assert.assertEquals(firstBlockBytes, firstReadBlockBytes);
+        Assert.assertEquals(secondBlockBytes, secondReadBlockBytes);
+    }
+
+    @Test
+    public void should_not_read_block_from_invalid_location() {
+        // Setup
+        final BlockStore blockStore = new BlockStore(_blockDirectory.getPath());
+        final ByteArray blockBytes = MutableByteArray.wrap(HexUtil.hexStringToByteArray("0100000000000000"));
+        final BlockFileLocation blockFileLocation = blockStore.storeBlock(blockBytes);
+
+        // Action
+        final ByteArray misalignedBlockBytes = blockStore.readBlock(new BlockFileLocation(0, blockFileLocation.getFileOffset() + 1L, blockFileLocation.getByteCount()));
+        final ByteArray oversizedBlockBytes = blockStore.readBlock(new BlockFileLocation(0, blockFileLocation.getFileOffset(), blockFileLocation.getByteCount() + 1));
+        final ByteArray missingFileBlockBytes = blockStore.readBlock(new BlockFileLocation(1, blockFileLocation.getFileOffset(), blockFileLocation.getByteCount()));
+        blockStore.close();
+
+        // Assert
+        Assert.assertNull(misalignedBlockBytes);
+        Assert.assertNull(oversizedBlockBytes);
+        Assert.assertNull(missingFileBlockBytes);
+    }
+}
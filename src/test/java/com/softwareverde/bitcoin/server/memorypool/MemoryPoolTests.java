@@ -0,0 +1,190 @@
+package com.softwareverde.bitcoin.server.memorypool;
+
+import com.softwareverde.bitcoin.block.MutableBlock;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryPoolTests {
+    protected static final Sha256Hash CONFIRMED_TRANSACTION_HASH_0 = MutableSha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9");
+    protected static final Sha256Hash CONFIRMED_TRANSACTION_HASH_1 = MutableSha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16");
+
+    /**
+     * Creates a 60-byte transaction with a single input and a single output.
+     */
+    protected static Transaction _createTransaction(final Sha256Hash previousOutputTransactionHash, final Integer previousOutputIndex, final Long amount) {
+        final MutableTransactionInput transactionInput = new MutableTransactionInput();
+        transactionInput.setPreviousOutputTransactionHash(previousOutputTransactionHash);
+        transactionInput.setPreviousOutputIndex(previousOutputIndex);
+
+        final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+        transactionOutput.setAmount(amount);
+        transactionOutput.setIndex(0);
+
+        final MutableTransaction transaction = new MutableTransaction();
+        transaction.addTransactionInput(transactionInput);
+        transaction.addTransactionOutput(transactionOutput);
+        return transaction;
+    }
+
+    @Test
+    public void should_order_transactions_by_fee_rate_with_parents_before_children() {
+        // Setup
+        final MemoryPool memoryPool = new MemoryPool();
+
+        final Transaction transaction_A = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 1000L);
+        final Transaction transaction_B = _createTransaction(CONFIRMED_TRANSACTION_HASH_1, 0, 2000L);
+        final Transaction transaction_C = _createTransaction(transaction_A.getHash(), 0, 500L); // Child of A...
+
+        Assert.assertTrue(memoryPool.addTransaction(transaction_A, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_B, 500L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_C, 1000L));
+
+        // Action
+        final List<MemoryPoolTransaction> transactions = memoryPool.getTransactionsByFeeRate(Long.MAX_VALUE);
+
+        // Assert
+        Assert.assertEquals(3, transactions.getSize());
+        Assert.assertEquals(transaction_B.getHash(), transactions.get(0).getHash());
+        Assert.assertEquals(transaction_A.getHash(), transactions.get(1).getHash());
+        Assert.assertEquals(transaction_C.getHash(), transactions.get(2).getHash());
+        Assert.assertTrue(transactions.get(2).hasUnconfirmedParents());
+        Assert.assertEquals(180L, memoryPool.getByteCount().longValue());
+    }
+
+    @Test
+    public void should_not_add_transaction_spending_an_output_already_spent_within_the_pool() {
+        // Setup
+        final MemoryPool memoryPool = new MemoryPool();
+
+        final Transaction transaction = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 1000L);
+        final Transaction conflictingTransaction = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 900L);
+
+        // Action
+        final Boolean wasAdded = memoryPool.addTransaction(transaction, 100L);
+        final Boolean conflictingTransactionWasAdded = memoryPool.addTransaction(conflictingTransaction, 200L);
+        final Boolean duplicateWasAdded = memoryPool.addTransaction(transaction, 100L);
+
+        // Assert
+        Assert.assertTrue(wasAdded);
+        Assert.assertFalse(conflictingTransactionWasAdded);
+        Assert.assertFalse(duplicateWasAdded);
+        Assert.assertEquals(1, memoryPool.getTransactionCount().intValue());
+        Assert.assertEquals(transaction.getHash(), memoryPool.getSpendingTransactionHash(CONFIRMED_TRANSACTION_HASH_0, 0));
+    }
+
+    @Test
+    public void should_evict_lowest_fee_rate_transaction_and_its_descendants_when_full() {
+        // Setup
+        final MemoryPool memoryPool = new MemoryPool(150L);
+
+        final Transaction transaction_A = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 1000L);
+        final Transaction transaction_B = _createTransaction(CONFIRMED_TRANSACTION_HASH_1, 0, 2000L);
+        final Transaction transaction_C = _createTransaction(transaction_A.getHash(), 0, 500L); // Child of A...
+
+        Assert.assertTrue(memoryPool.addTransaction(transaction_A, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_C, 1000L));
+
+        // Action
+        final Boolean wasAdded = memoryPool.addTransaction(transaction_B, 500L);
+
+        // Assert
+        Assert.assertTrue(wasAdded);
+        Assert.assertEquals(1, memoryPool.getTransactionCount().intValue());
+        Assert.assertTrue(memoryPool.containsTransaction(transaction_B.getHash()));
+        Assert.assertFalse(memoryPool.containsTransaction(transaction_A.getHash()));
+        Assert.assertFalse(memoryPool.containsTransaction(transaction_C.getHash()));
+        Assert.assertNull(memoryPool.getSpendingTransactionHash(CONFIRMED_TRANSACTION_HASH_0, 0));
+        Assert.assertEquals(60L, memoryPool.getByteCount().longValue());
+    }
+
+    @Test
+    public void should_remove_confirmed_transactions_and_conflicting_transactions() {
+        // Setup
+        final MemoryPool memoryPool = new MemoryPool();
+
+        final Transaction transaction_A = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 1000L);
+        final Transaction transaction_B = _createTransaction(CONFIRMED_TRANSACTION_HASH_1, 0, 2000L);
+        final Transaction transaction_C = _createTransaction(transaction_A.getHash(), 0, 500L); // Child of A...
+        final Transaction transaction_D = _createTransaction(transaction_B.getHash(), 0, 1500L); // Child of B...
+        final Transaction conflictingTransaction = _createTransaction(CONFIRMED_TRANSACTION_HASH_1, 0, 1900L); // Double-spends B...
+
+        Assert.assertTrue(memoryPool.addTransaction(transaction_A, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_B, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_C, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_D, 100L));
+
+        final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK));
+        final MutableBlock block = new MutableBlock(blockHeader);
+        block.addTransaction(transaction_A);
+        block.addTransaction(conflictingTransaction);
+
+        // Action
+        memoryPool.removeConfirmedTransactions(block);
+
+        // Assert
+        Assert.assertEquals(1, memoryPool.getTransactionCount().intValue());
+        Assert.assertTrue(memoryPool.containsTransaction(transaction_C.getHash()));
+        Assert.assertFalse(memoryPool.getTransaction(transaction_C.getHash()).hasUnconfirmedParents());
+        Assert.assertNull(memoryPool.getSpendingTransactionHash(CONFIRMED_TRANSACTION_HASH_1, 0));
+        Assert.assertNull(memoryPool.getSpendingTransactionHash(transaction_B.getHash(), 0));
+    }
+
+    @Test
+    public void should_link_restored_transaction_to_the_pool_transactions_that_spend_it() {
+        // Setup
+        final MemoryPool memoryPool = new MemoryPool();
+
+        final Transaction transaction_A = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 1000L);
+        final Transaction transaction_C = _createTransaction(transaction_A.getHash(), 0, 500L); // Child of A, accepted while A was confirmed...
+
+        Assert.assertTrue(memoryPool.addTransaction(transaction_C, 1000L));
+
+        // Action
+        final Boolean wasRestored = memoryPool.addTransaction(transaction_A, 100L); // A's block was disconnected...
+        final List<MemoryPoolTransaction> transactions = memoryPool.getTransactionsByFeeRate(Long.MAX_VALUE);
+
+        // Assert
+        Assert.assertTrue(wasRestored);
+        Assert.assertTrue(memoryPool.getTransaction(transaction_C.getHash()).hasUnconfirmedParents());
+        Assert.assertEquals(2, transactions.getSize());
+        Assert.assertEquals(transaction_A.getHash(), transactions.get(0).getHash());
+        Assert.assertEquals(transaction_C.getHash(), transactions.get(1).getHash());
+    }
+
+    @Test
+    public void should_remove_transactions_spending_an_invalidated_transaction_and_their_descendants() {
+        // Setup
+        final MemoryPool memoryPool = new MemoryPool();
+
+        final Transaction transaction_A = _createTransaction(CONFIRMED_TRANSACTION_HASH_0, 0, 1000L); // Mined within a disconnected block...
+        final Transaction transaction_B = _createTransaction(CONFIRMED_TRANSACTION_HASH_1, 0, 2000L);
+        final Transaction transaction_C = _createTransaction(transaction_A.getHash(), 0, 500L); // Child of A...
+        final Transaction transaction_D = _createTransaction(transaction_C.getHash(), 0, 400L); // Child of C...
+
+        Assert.assertTrue(memoryPool.addTransaction(transaction_B, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_C, 100L));
+        Assert.assertTrue(memoryPool.addTransaction(transaction_D, 100L));
+
+        // Action
+        memoryPool.removeSpendingTransactions(transaction_A);
+
+        // Assert
+        Assert.assertEquals(1, memoryPool.getTransactionCount().intValue());
+        Assert.assertTrue(memoryPool.containsTransaction(transaction_B.getHash()));
+        Assert.assertNull(memoryPool.getSpendingTransactionHash(transaction_A.getHash(), 0));
+        Assert.assertNull(memoryPool.getSpendingTransactionHash(transaction_C.getHash(), 0));
+        Assert.assertEquals(60L, memoryPool.getByteCount().longValue());
+    }
+}
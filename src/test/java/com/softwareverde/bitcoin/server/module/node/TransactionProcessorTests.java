@@ -0,0 +1,224 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.address.AddressDatabaseManager;
+import com.softwareverde.bitcoin.address.AddressInflater;
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockId;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.chain.segment.BlockChainSegmentId;
+import com.softwareverde.bitcoin.chain.time.ImmutableMedianBlockTime;
+import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
+import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.server.database.TransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
+import com.softwareverde.bitcoin.transaction.locktime.LockTime;
+import com.softwareverde.bitcoin.transaction.locktime.SequenceNumber;
+import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
+import com.softwareverde.bitcoin.transaction.script.ScriptBuilder;
+import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
+import com.softwareverde.bitcoin.transaction.signer.SignatureContext;
+import com.softwareverde.bitcoin.transaction.signer.SignatureContextGenerator;
+import com.softwareverde.bitcoin.transaction.signer.TransactionSigner;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.key.PrivateKey;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransactionProcessorTests extends IntegrationTest {
+    /**
+     * The main chain (A, B, C) and a longer fork (A, B, C2, D2).  C mines spendingTransaction, which spends an output of
+     *  fundingTransaction (mined within B); the address index (and therefore the MemoryPool) starts at C.
+     */
+    protected static class ReorganizedChain {
+        public BlockId blockId_C;
+        public BlockId blockId_D2;
+        public PrivateKey privateKey;
+        public Transaction fundingTransaction;
+        public Transaction spendingTransaction;
+    }
+
+    protected static Transaction _createTransaction(final MutableTransactionInput transactionInput, final PrivateKey payToPrivateKey) {
+        final AddressInflater addressInflater = new AddressInflater();
+
+        final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+        transactionOutput.setAmount(50L * Transaction.SATOSHIS_PER_BITCOIN);
+        transactionOutput.setIndex(0);
+        transactionOutput.setLockingScript(ScriptBuilder.payToAddress(addressInflater.fromPrivateKey(payToPrivateKey)));
+
+        final MutableTransaction transaction = new MutableTransaction();
+        transaction.setVersion(1L);
+        transaction.setLockTime(new ImmutableLockTime(LockTime.MIN_TIMESTAMP));
+        transaction.addTransactionInput(transactionInput);
+        transaction.addTransactionOutput(transactionOutput);
+        return transaction;
+    }
+
+    protected static Transaction _createSignedTransaction(final Transaction transactionToSpend, final PrivateKey privateKey, final PrivateKey payToPrivateKey, final BlockChainSegmentId blockChainSegmentId, final MysqlDatabaseConnection databaseConnection) throws Exception {
+        final MutableTransactionInput transactionInput = new MutableTransactionInput();
+        transactionInput.setPreviousOutputTransactionHash(transactionToSpend.getHash());
+        transactionInput.setPreviousOutputIndex(0);
+        transactionInput.setSequenceNumber(SequenceNumber.MAX_SEQUENCE_NUMBER);
+        transactionInput.setUnlockingScript(UnlockingScript.EMPTY_SCRIPT);
+
+        final Transaction unsignedTransaction = _createTransaction(transactionInput, payToPrivateKey);
+
+        final TransactionSigner transactionSigner = new TransactionSigner();
+        final SignatureContextGenerator signatureContextGenerator = new SignatureContextGenerator(databaseConnection);
+        final SignatureContext signatureContext = signatureContextGenerator.createContextForEntireTransaction(blockChainSegmentId, unsignedTransaction, false);
+        return transactionSigner.signTransaction(signatureContext, privateKey);
+    }
+
+    protected ReorganizedChain _storeReorganizedChain(final MysqlDatabaseConnection databaseConnection) throws Exception {
+        final BlockInflater blockInflater = new BlockInflater();
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+        final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
+        final TransactionDatabaseManager transactionDatabaseManager = new TransactionDatabaseManager(databaseConnection);
+        final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+
+        final ReorganizedChain reorganizedChain = new ReorganizedChain();
+        reorganizedChain.privateKey = PrivateKey.createNewKey();
+
+        final BlockId[] blockIds = new BlockId[5];
+        final Block[] blocks = new Block[] {
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.GENESIS_BLOCK)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_2)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.ForkChain3.BLOCK_2)),
+            blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.ForkChain3.BLOCK_3))
+        };
+
+        for (int i = 0; i < 3; ++i) {
+            blockIds[i] = blockDatabaseManager.insertBlock(blocks[i]);
+            blockChainDatabaseManager.updateBlockChainsForNewBlock(blocks[i]);
+        }
+
+        final BlockChainSegmentId blockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(blockIds[2]);
+
+        { // Mine the funding transaction within B, and the transaction that spends it within C...
+            final MutableTransactionInput coinbaseTransactionInput = new MutableTransactionInput();
+            coinbaseTransactionInput.setPreviousOutputTransactionHash(new MutableSha256Hash());
+            coinbaseTransactionInput.setPreviousOutputIndex(0);
+            coinbaseTransactionInput.setSequenceNumber(SequenceNumber.MAX_SEQUENCE_NUMBER);
+            coinbaseTransactionInput.setUnlockingScript((new ScriptBuilder()).pushString("Mined via Bitcoin-Verde.").buildUnlockingScript());
+
+            reorganizedChain.fundingTransaction = _createTransaction(coinbaseTransactionInput, reorganizedChain.privateKey);
+            transactionDatabaseManager.insertTransaction(blockChainSegmentId, blockIds[1], reorganizedChain.fundingTransaction);
+
+            reorganizedChain.spendingTransaction = _createSignedTransaction(reorganizedChain.fundingTransaction, reorganizedChain.privateKey, PrivateKey.createNewKey(), blockChainSegmentId, databaseConnection);
+            transactionDatabaseManager.insertTransaction(blockChainSegmentId, blockIds[2], reorganizedChain.spendingTransaction); // NOTE: Flags the funding transaction's output as spent...
+        }
+
+        addressDatabaseManager.updateAddressIndex(blockIds[2]);
+
+        for (int i = 3; i < 5; ++i) {
+            blockIds[i] = blockDatabaseManager.insertBlock(blocks[i]);
+            blockChainDatabaseManager.updateBlockChainsForNewBlock(blocks[i]);
+        }
+
+        reorganizedChain.blockId_C = blockIds[2];
+        reorganizedChain.blockId_D2 = blockIds[4];
+        return reorganizedChain;
+    }
+
+    protected TransactionProcessor _createTransactionProcessor(final MemoryPool memoryPool) {
+        final BitcoinNodeManager nodeManager = new BitcoinNodeManager(1, _database.getDatabaseConnectionFactory());
+        return new TransactionProcessor(_database.getDatabaseConnectionFactory(), nodeManager, new ImmutableMedianBlockTime(Long.MAX_VALUE), memoryPool);
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+        _resetCache();
+    }
+
+    @Test
+    public void should_restore_transaction_of_disconnected_block_to_the_memory_pool() throws Exception {
+        try (final MysqlDatabaseConnection databaseConnection = _database.newConnection()) {
+            // Setup
+            final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+            final ReorganizedChain reorganizedChain = _storeReorganizedChain(databaseConnection);
+
+            final MemoryPool memoryPool = new MemoryPool();
+            final TransactionProcessor transactionProcessor = _createTransactionProcessor(memoryPool);
+
+            final MutableList<Transaction> disconnectedTransactions = new MutableList<Transaction>();
+            disconnectedTransactions.add(reorganizedChain.spendingTransaction);
+
+            transactionProcessor.restoreTransactions(disconnectedTransactions); // Still mined within the head block chain...
+            final Boolean wasRestoredBeforeReorganization = memoryPool.containsTransaction(reorganizedChain.spendingTransaction.getHash());
+
+            final AddressDatabaseManager.HeadBlockChange headBlockChange = addressDatabaseManager.updateAddressIndex(reorganizedChain.blockId_D2);
+
+            // Action
+            transactionProcessor.restoreTransactions(disconnectedTransactions);
+
+            // Assert
+            Assert.assertFalse(wasRestoredBeforeReorganization);
+            Assert.assertEquals(reorganizedChain.blockId_C, headBlockChange.getDisconnectedBlockIds().get(0));
+            Assert.assertTrue(memoryPool.containsTransaction(reorganizedChain.spendingTransaction.getHash()));
+            Assert.assertEquals(reorganizedChain.spendingTransaction.getHash(), memoryPool.getSpendingTransactionHash(reorganizedChain.fundingTransaction.getHash(), 0));
+        }
+    }
+
+    @Test
+    public void should_accept_transaction_spending_an_output_only_spent_within_a_stale_block() throws Exception {
+        try (final MysqlDatabaseConnection databaseConnection = _database.newConnection()) {
+            // Setup
+            final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+            final AddressDatabaseManager addressDatabaseManager = new AddressDatabaseManager(databaseConnection);
+            final ReorganizedChain reorganizedChain = _storeReorganizedChain(databaseConnection);
+            addressDatabaseManager.updateAddressIndex(reorganizedChain.blockId_D2);
+
+            final MemoryPool memoryPool = new MemoryPool();
+            final TransactionProcessor transactionProcessor = _createTransactionProcessor(memoryPool);
+
+            final BlockChainSegmentId headBlockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(reorganizedChain.blockId_D2);
+            final Transaction doubleSpendingTransaction = _createSignedTransaction(reorganizedChain.fundingTransaction, reorganizedChain.privateKey, PrivateKey.createNewKey(), headBlockChainSegmentId, databaseConnection);
+
+            // Action
+            final Boolean transactionWasAccepted = transactionProcessor.processTransaction(doubleSpendingTransaction, null);
+
+            // Assert
+            Assert.assertTrue(transactionWasAccepted);
+            Assert.assertTrue(memoryPool.containsTransaction(doubleSpendingTransaction.getHash()));
+        }
+    }
+
+    @Test
+    public void should_remember_rejected_transaction_until_cleared() throws Exception {
+        try (final MysqlDatabaseConnection databaseConnection = _database.newConnection()) {
+            // Setup
+            final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+            final ReorganizedChain reorganizedChain = _storeReorganizedChain(databaseConnection);
+
+            final MemoryPool memoryPool = new MemoryPool();
+            final TransactionProcessor transactionProcessor = _createTransactionProcessor(memoryPool);
+
+            final BlockChainSegmentId headBlockChainSegmentId = blockDatabaseManager.getBlockChainSegmentId(reorganizedChain.blockId_C);
+            final Transaction doubleSpendingTransaction = _createSignedTransaction(reorganizedChain.fundingTransaction, reorganizedChain.privateKey, PrivateKey.createNewKey(), headBlockChainSegmentId, databaseConnection);
+
+            // Action
+            final Boolean transactionWasAccepted = transactionProcessor.processTransaction(doubleSpendingTransaction, null);
+            final Boolean wasRecentlyRejected = transactionProcessor.wasRecentlyRejected(doubleSpendingTransaction.getHash());
+            final Boolean spendingTransactionWasRecentlyRejected = transactionProcessor.wasRecentlyRejected(reorganizedChain.spendingTransaction.getHash());
+
+            transactionProcessor.clearRecentlyRejectedTransactions();
+
+            // Assert
+            Assert.assertFalse(transactionWasAccepted);
+            Assert.assertTrue(wasRecentlyRejected);
+            Assert.assertFalse(spendingTransactionWasRecentlyRejected);
+            Assert.assertFalse(transactionProcessor.wasRecentlyRejected(doubleSpendingTransaction.getHash()));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.softwareverde.bitcoin.server.module.node.sync;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.MutableBlock;
+import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.network.p2p.node.NodeId;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockDownloadWindowTests {
+    protected static final Sha256Hash GENESIS_BLOCK_HASH = Block.GENESIS_BLOCK_HASH;
+
+    /**
+     * Creates a chain of blockCount blocks following the genesis block.
+     */
+    protected static List<Block> _createBlocks(final Integer blockCount) {
+        final MutableList<Block> blocks = new MutableList<Block>(blockCount);
+
+        Sha256Hash previousBlockHash = GENESIS_BLOCK_HASH;
+        for (int i = 0; i < blockCount; ++i) {
+            final MutableBlock block = new MutableBlock();
+            block.setVersion(1L);
+            block.setPreviousBlockHash(previousBlockHash);
+            block.setTimestamp(1231006505L + (i * 600L));
+            block.setDifficulty(Difficulty.BASE_DIFFICULTY);
+            block.setNonce((long) i);
+
+            blocks.add(block);
+            previousBlockHash = block.getHash();
+        }
+
+        return blocks;
+    }
+
+    protected static List<Sha256Hash> _getBlockHashes(final List<Block> blocks) {
+        final MutableList<Sha256Hash> blockHashes = new MutableList<Sha256Hash>(blocks.getSize());
+        for (final Block block : blocks) {
+            blockHashes.add(block.getHash());
+        }
+        return blockHashes;
+    }
+
+    @Test
+    public void should_release_blocks_downloaded_out_of_order_in_chain_order() {
+        // Setup
+        final List<Block> blocks = _createBlocks(3);
+        final NodeId nodeId0 = NodeId.wrap(1L);
+        final NodeId nodeId1 = NodeId.wrap(2L);
+
+        final BlockDownloadWindow blockDownloadWindow = new BlockDownloadWindow(GENESIS_BLOCK_HASH, 8, 5_000L);
+        blockDownloadWindow.addBlockHashes(_getBlockHashes(blocks));
+
+        blockDownloadWindow.onBlockRequested(blocks.get(0).getHash(), nodeId0, 0L);
+        blockDownloadWindow.onBlockRequested(blocks.get(1).getHash(), nodeId1, 0L);
+        blockDownloadWindow.onBlockRequested(blocks.get(2).getHash(), nodeId1, 0L);
+
+        // Action
+        blockDownloadWindow.onBlockDownloaded(blocks.get(2), nodeId1);
+        blockDownloadWindow.onBlockDownloaded(blocks.get(1), nodeId1);
+        final List<Block> blocksReleasedBeforeFirstBlock = blockDownloadWindow.releaseBlocks(8);
+
+        blockDownloadWindow.onBlockDownloaded(blocks.get(0), nodeId0);
+        final List<Block> blocksReleasedAfterFirstBlock = blockDownloadWindow.releaseBlocks(8);
+
+        // Assert
+        Assert.assertEquals(0, blocksReleasedBeforeFirstBlock.getSize().intValue());
+        Assert.assertEquals(3, blocksReleasedAfterFirstBlock.getSize().intValue());
+        for (int i = 0; i < blocks.getSize(); ++i) {
+            Assert.assertEquals(blocks.get(i).getHash(), blocksReleasedAfterFirstBlock.get(i).getHash());
+        }
+        Assert.assertEquals(0, blockDownloadWindow.getRequestCount(nodeId0).intValue());
+        Assert.assertEquals(0, blockDownloadWindow.getRequestCount(nodeId1).intValue());
+        Assert.assertEquals(blocks.get(2).getHash(), blockDownloadWindow.getLastBlockHash());
+    }
+
+    @Test
+    public void should_request_stalled_block_from_another_node_once_window_is_full() {
+        // Setup
+        final List<Block> blocks = _createBlocks(4);
+        final NodeId slowNodeId = NodeId.wrap(1L);
+        final NodeId fastNodeId = NodeId.wrap(2L);
+
+        final BlockDownloadWindow blockDownloadWindow = new BlockDownloadWindow(GENESIS_BLOCK_HASH, 2, 5_000L);
+        blockDownloadWindow.addBlockHashes(_getBlockHashes(blocks));
+
+        blockDownloadWindow.onBlockRequested(blockDownloadWindow.getNextRequestableBlockHash(), slowNodeId, 0L);
+        blockDownloadWindow.onBlockRequested(blockDownloadWindow.getNextRequestableBlockHash(), fastNodeId, 0L);
+        blockDownloadWindow.onBlockDownloaded(blocks.get(1), fastNodeId);
+
+        // Action
+        final Sha256Hash requestableBlockHash = blockDownloadWindow.getNextRequestableBlockHash();
+        final Sha256Hash earlyStalledBlockHash = blockDownloadWindow.getStalledBlockHash(4_999L);
+        final Sha256Hash stalledBlockHash = blockDownloadWindow.getStalledBlockHash(5_000L);
+
+        // Assert
+        Assert.assertNull(requestableBlockHash);
+        Assert.assertNull(earlyStalledBlockHash);
+        Assert.assertEquals(blocks.get(0).getHash(), stalledBlockHash);
+        Assert.assertFalse(blockDownloadWindow.canRequestBlockFrom(stalledBlockHash, slowNodeId, 2));
+        Assert.assertTrue(blockDownloadWindow.canRequestBlockFrom(stalledBlockHash, fastNodeId, 2));
+
+        blockDownloadWindow.onBlockRequested(stalledBlockHash, fastNodeId, 5_000L);
+        Assert.assertTrue(blockDownloadWindow.onBlockDownloaded(blocks.get(0), fastNodeId));
+        Assert.assertFalse(blockDownloadWindow.onBlockDownloaded(blocks.get(0), slowNodeId)); // The slow node's duplicate is ignored...
+        Assert.assertEquals(2, blockDownloadWindow.releaseBlocks(8).getSize().intValue());
+        Assert.assertEquals(blocks.get(2).getHash(), blockDownloadWindow.getNextRequestableBlockHash());
+    }
+
+    @Test
+    public void should_requeue_failed_block_request_for_another_node() {
+        // Setup
+        final List<Block> blocks = _createBlocks(2);
+        final NodeId nodeId0 = NodeId.wrap(1L);
+        final NodeId nodeId1 = NodeId.wrap(2L);
+
+        final BlockDownloadWindow blockDownloadWindow = new BlockDownloadWindow(GENESIS_BLOCK_HASH, 8, 5_000L);
+        blockDownloadWindow.addBlockHashes(_getBlockHashes(blocks));
+
+        final Sha256Hash blockHash = blockDownloadWindow.getNextRequestableBlockHash();
+        blockDownloadWindow.onBlockRequested(blockHash, nodeId0, 0L);
+
+        // Action
+        blockDownloadWindow.onBlockRequestFailed(blockHash, nodeId0);
+
+        // Assert
+        Assert.assertEquals(blockHash, blockDownloadWindow.getNextRequestableBlockHash());
+        Assert.assertEquals(0, blockDownloadWindow.getInFlightBlockCount().intValue());
+        Assert.assertFalse(blockDownloadWindow.canRequestBlockFrom(blockHash, nodeId0, 2));
+        Assert.assertTrue(blockDownloadWindow.canRequestBlockFrom(blockHash, nodeId1, 2));
+        Assert.assertTrue(blockDownloadWindow.canRequestBlockFrom(blockHash, nodeId0, 1)); // Every known node has failed, so retry with any of them...
+    }
+}
@@ -0,0 +1,109 @@
+package com.softwareverde.bitcoin.server.stratum;
+
+import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bitcoin.address.AddressInflater;
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
+import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
+import com.softwareverde.bitcoin.server.memorypool.MemoryPool;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.IntegrationTest;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
+import com.softwareverde.bitcoin.transaction.output.MutableTransactionOutput;
+import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.type.key.PrivateKey;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.database.mysql.MysqlDatabaseConnection;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StratumMineBlockTaskBuilderTests extends IntegrationTest {
+    protected static final Sha256Hash CONFIRMED_TRANSACTION_HASH = MutableSha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9");
+    protected static final Integer EXTRA_NONCE_BYTE_COUNT = 4;
+    protected static final Integer TOTAL_EXTRA_NONCE_BYTE_COUNT = 8;
+
+    protected static Transaction _createTransaction(final Sha256Hash previousOutputTransactionHash, final Integer previousOutputIndex, final Long amount) {
+        final MutableTransactionInput transactionInput = new MutableTransactionInput();
+        transactionInput.setPreviousOutputTransactionHash(previousOutputTransactionHash);
+        transactionInput.setPreviousOutputIndex(previousOutputIndex);
+
+        final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+        transactionOutput.setAmount(amount);
+        transactionOutput.setIndex(0);
+
+        final MutableTransaction transaction = new MutableTransaction();
+        transaction.addTransactionInput(transactionInput);
+        transaction.addTransactionOutput(transactionOutput);
+        return transaction;
+    }
+
+    /**
+     * Stores the MainChain's GENESIS_BLOCK, BLOCK_1, and BLOCK_2, and returns BLOCK_2 (the head block).
+     */
+    protected Block _storeHeadBlockChain(final MysqlDatabaseConnection databaseConnection) throws Exception {
+        final BlockInflater blockInflater = new BlockInflater();
+        final BlockDatabaseManager blockDatabaseManager = new BlockDatabaseManager(databaseConnection);
+        final BlockChainDatabaseManager blockChainDatabaseManager = new BlockChainDatabaseManager(databaseConnection);
+
+        Block headBlock = null;
+        for (final String blockData : new String[] { BlockData.MainChain.GENESIS_BLOCK, BlockData.MainChain.BLOCK_1, BlockData.MainChain.BLOCK_2 }) {
+            final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
+            blockDatabaseManager.insertBlock(block);
+            blockChainDatabaseManager.updateBlockChainsForNewBlock(block);
+            headBlock = block;
+        }
+        return headBlock;
+    }
+
+    @Before
+    public void setup() {
+        _resetDatabase();
+        _resetCache();
+    }
+
+    @Test
+    public void should_build_template_extending_head_block_with_memory_pool_transactions() throws Exception {
+        try (final MysqlDatabaseConnection databaseConnection = _database.newConnection()) {
+            // Setup
+            final Block headBlock = _storeHeadBlockChain(databaseConnection);
+
+            final Long parentTransactionFee = 100L;
+            final Long childTransactionFee = 1000L; // The child's fee-rate is higher than its parent's...
+            final Transaction parentTransaction = _createTransaction(CONFIRMED_TRANSACTION_HASH, 0, 1000L);
+            final Transaction childTransaction = _createTransaction(parentTransaction.getHash(), 0, 500L);
+
+            final MemoryPool memoryPool = new MemoryPool();
+            Assert.assertTrue(memoryPool.addTransaction(parentTransaction, parentTransactionFee));
+            Assert.assertTrue(memoryPool.addTransaction(childTransaction, childTransactionFee));
+
+            final AddressInflater addressInflater = new AddressInflater();
+            final Address coinbaseAddress = addressInflater.fromPrivateKey(PrivateKey.createNewKey());
+            final MutableByteArray extraNonce = new MutableByteArray(EXTRA_NONCE_BYTE_COUNT);
+
+            final StratumMineBlockTaskBuilder stratumMineBlockTaskBuilder = new StratumMineBlockTaskBuilder(_database.getDatabaseConnectionFactory(), memoryPool, coinbaseAddress, "Mined via Bitcoin-Verde.", extraNonce, TOTAL_EXTRA_NONCE_BYTE_COUNT);
+
+            // Action
+            final StratumMineBlockTask stratumMineBlockTask = stratumMineBlockTaskBuilder.buildMineBlockTask();
+            final Block block = stratumMineBlockTask.assembleBlock(new StratumMineBlockTask.ShareValidationContext(), "00000000", "00000000", "00000000");
+
+            // Assert
+            final Long blockHeight = 3L;
+            final Long expectedCoinbaseAmount = (BlockHeader.calculateBlockReward(blockHeight) + parentTransactionFee + childTransactionFee);
+
+            Assert.assertEquals(headBlock.getHash(), block.getPreviousBlockHash());
+            Assert.assertEquals(headBlock.getDifficulty(), block.getDifficulty());
+
+            Assert.assertEquals(3, block.getTransactionCount().intValue());
+            Assert.assertEquals(expectedCoinbaseAmount, block.getCoinbaseTransaction().getTotalOutputValue());
+            Assert.assertEquals(parentTransaction.getHash(), block.getTransactions().get(1).getHash());
+            Assert.assertEquals(childTransaction.getHash(), block.getTransactions().get(2).getHash());
+        }
+    }
+}
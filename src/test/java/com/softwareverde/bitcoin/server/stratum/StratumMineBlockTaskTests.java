@@ -0,0 +1,171 @@
+package com.softwareverde.bitcoin.server.stratum;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionDeflater;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StratumMineBlockTaskTests {
+    /**
+     * A solved block (with a coinbase and one other transaction), decomposed into the values a stratum miner is sent and submits.
+     *  The coinbase is split within its unlocking script's message: extraNonce1 and extraNonce2 are each 4 bytes of "Mined via Bitcoin-Verde.".
+     */
+    protected static class SolvedShare {
+        public Block block;
+        public String coinbaseTransactionHead;
+        public String extraNonce1;
+        public String extraNonce2;
+        public String coinbaseTransactionTail;
+        public String timestamp;
+        public String nonce;
+    }
+
+    protected static final int EXTRA_NONCE_1_OFFSET = 52;
+    protected static final int EXTRA_NONCE_BYTE_COUNT = 4;
+
+    protected static SolvedShare _createSolvedShare() {
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.ForkChain4.BLOCK_1));
+
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+        final byte[] coinbaseTransactionBytes = transactionDeflater.toBytes(block.getCoinbaseTransaction()).getBytes();
+
+        final int extraNonce2Offset = (EXTRA_NONCE_1_OFFSET + EXTRA_NONCE_BYTE_COUNT);
+        final int tailOffset = (extraNonce2Offset + EXTRA_NONCE_BYTE_COUNT);
+
+        final SolvedShare solvedShare = new SolvedShare();
+        solvedShare.block = block;
+        solvedShare.coinbaseTransactionHead = HexUtil.toHexString(ByteUtil.copyBytes(coinbaseTransactionBytes, 0, EXTRA_NONCE_1_OFFSET));
+        solvedShare.extraNonce1 = HexUtil.toHexString(ByteUtil.copyBytes(coinbaseTransactionBytes, EXTRA_NONCE_1_OFFSET, EXTRA_NONCE_BYTE_COUNT));
+        solvedShare.extraNonce2 = HexUtil.toHexString(ByteUtil.copyBytes(coinbaseTransactionBytes, extraNonce2Offset, EXTRA_NONCE_BYTE_COUNT));
+        solvedShare.coinbaseTransactionTail = HexUtil.toHexString(ByteUtil.copyBytes(coinbaseTransactionBytes, tailOffset, (coinbaseTransactionBytes.length - tailOffset)));
+
+        // The stratum timestamp and nonce are big-endian...
+        solvedShare.timestamp = HexUtil.toHexString(ByteUtil.integerToBytes(block.getTimestamp()));
+        solvedShare.nonce = HexUtil.toHexString(ByteUtil.integerToBytes(block.getNonce()));
+        return solvedShare;
+    }
+
+    protected static StratumMineBlockTask _createStratumMineBlockTask(final SolvedShare solvedShare) {
+        final Block block = solvedShare.block;
+
+        final StratumMineBlockTask stratumMineBlockTask = new StratumMineBlockTask();
+        stratumMineBlockTask.setBlockVersion(block.getVersion());
+        stratumMineBlockTask.setPreviousBlockHash(block.getPreviousBlockHash());
+        stratumMineBlockTask.setDifficulty(block.getDifficulty());
+        stratumMineBlockTask.setExtraNonce(solvedShare.extraNonce1);
+        stratumMineBlockTask.setCoinbaseTransaction(solvedShare.coinbaseTransactionHead, solvedShare.coinbaseTransactionTail);
+
+        boolean isCoinbase = true;
+        for (final Transaction transaction : block.getTransactions()) {
+            if (isCoinbase) {
+                isCoinbase = false;
+                continue;
+            }
+            stratumMineBlockTask.addTransaction(transaction);
+        }
+
+        stratumMineBlockTask.precalculate();
+        return stratumMineBlockTask;
+    }
+
+    /**
+     * Returns the hex string with the lowest bit of its last byte inverted.
+     */
+    protected static String _flipLowestBit(final String hexString) {
+        final byte[] bytes = HexUtil.hexStringToByteArray(hexString);
+        bytes[bytes.length - 1] ^= 0x01;
+        return HexUtil.toHexString(bytes);
+    }
+
+    @Test
+    public void should_validate_solved_block_share() {
+        // Setup
+        final SolvedShare solvedShare = _createSolvedShare();
+        final StratumMineBlockTask stratumMineBlockTask = _createStratumMineBlockTask(solvedShare);
+        final StratumMineBlockTask.ShareValidationContext shareValidationContext = new StratumMineBlockTask.ShareValidationContext();
+
+        // Action
+        final Boolean isValidBlock = stratumMineBlockTask.isValidBlock(shareValidationContext, solvedShare.nonce, solvedShare.extraNonce2, solvedShare.timestamp);
+
+        // Assert
+        Assert.assertTrue(isValidBlock);
+    }
+
+    @Test
+    public void should_assemble_solved_block_from_share() {
+        // Setup
+        final SolvedShare solvedShare = _createSolvedShare();
+        final StratumMineBlockTask stratumMineBlockTask = _createStratumMineBlockTask(solvedShare);
+        final StratumMineBlockTask.ShareValidationContext shareValidationContext = new StratumMineBlockTask.ShareValidationContext();
+
+        // Action
+        final Block assembledBlock = stratumMineBlockTask.assembleBlock(shareValidationContext, solvedShare.nonce, solvedShare.extraNonce2, solvedShare.timestamp);
+
+        // Assert
+        Assert.assertEquals(solvedShare.block.getHash(), assembledBlock.getHash());
+        Assert.assertEquals(solvedShare.block.getMerkleRoot(), assembledBlock.getMerkleRoot());
+        Assert.assertEquals(solvedShare.block.getTransactionCount(), assembledBlock.getTransactionCount());
+        Assert.assertEquals(solvedShare.block.getCoinbaseTransaction().getHash(), assembledBlock.getCoinbaseTransaction().getHash());
+    }
+
+    @Test
+    public void should_not_validate_share_with_one_bit_of_nonce_changed() {
+        // Setup
+        final SolvedShare solvedShare = _createSolvedShare();
+        final StratumMineBlockTask stratumMineBlockTask = _createStratumMineBlockTask(solvedShare);
+        final StratumMineBlockTask.ShareValidationContext shareValidationContext = new StratumMineBlockTask.ShareValidationContext();
+
+        final String invalidNonce = _flipLowestBit(solvedShare.nonce);
+
+        // Action
+        final Boolean isValidBlock = stratumMineBlockTask.isValidBlock(shareValidationContext, invalidNonce, solvedShare.extraNonce2, solvedShare.timestamp);
+
+        // Assert
+        Assert.assertFalse(isValidBlock);
+    }
+
+    @Test
+    public void should_recalculate_merkle_root_when_extra_nonce_2_changes() {
+        // Setup
+        final SolvedShare solvedShare = _createSolvedShare();
+        final StratumMineBlockTask stratumMineBlockTask = _createStratumMineBlockTask(solvedShare);
+        final StratumMineBlockTask.ShareValidationContext shareValidationContext = new StratumMineBlockTask.ShareValidationContext();
+
+        final String otherExtraNonce2 = _flipLowestBit(solvedShare.extraNonce2);
+
+        // Action
+        final Boolean otherShareIsValidBlock = stratumMineBlockTask.isValidBlock(shareValidationContext, solvedShare.nonce, otherExtraNonce2, solvedShare.timestamp);
+        final Boolean solvedShareIsValidBlock = stratumMineBlockTask.isValidBlock(shareValidationContext, solvedShare.nonce, solvedShare.extraNonce2, solvedShare.timestamp);
+
+        // Assert
+        Assert.assertFalse(otherShareIsValidBlock);
+        Assert.assertTrue(solvedShareIsValidBlock);
+    }
+
+    @Test
+    public void should_validate_shares_within_independent_contexts() {
+        // Setup
+        final SolvedShare solvedShare = _createSolvedShare();
+        final StratumMineBlockTask stratumMineBlockTask = _createStratumMineBlockTask(solvedShare);
+        final StratumMineBlockTask.ShareValidationContext shareValidationContext = new StratumMineBlockTask.ShareValidationContext();
+        final StratumMineBlockTask.ShareValidationContext otherShareValidationContext = new StratumMineBlockTask.ShareValidationContext();
+
+        final String otherExtraNonce2 = _flipLowestBit(solvedShare.extraNonce2);
+
+        // Action
+        final Boolean solvedShareIsValidBlock = stratumMineBlockTask.isValidBlock(shareValidationContext, solvedShare.nonce, solvedShare.extraNonce2, solvedShare.timestamp);
+        final Boolean otherShareIsValidBlock = stratumMineBlockTask.isValidBlock(otherShareValidationContext, solvedShare.nonce, otherExtraNonce2, solvedShare.timestamp);
+        final Block assembledBlock = stratumMineBlockTask.assembleBlock(shareValidationContext, solvedShare.nonce, solvedShare.extraNonce2, solvedShare.timestamp);
+
+        // Assert
+        Assert.assertTrue(solvedShareIsValidBlock);
+        Assert.assertFalse(otherShareIsValidBlock);
+        Assert.assertEquals(solvedShare.block.getHash(), assembledBlock.getHash());
+    }
+}
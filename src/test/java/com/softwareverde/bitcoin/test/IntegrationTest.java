@@ -1,9 +1,13 @@
 package com.softwareverde.bitcoin.test;
 
 import com.softwareverde.bitcoin.address.AddressDatabaseManager;
+import com.softwareverde.bitcoin.server.Constants;
 import com.softwareverde.bitcoin.server.database.BlockChainDatabaseManager;
 import com.softwareverde.bitcoin.server.database.BlockDatabaseManager;
 import com.softwareverde.bitcoin.server.database.TransactionDatabaseManager;
+import com.softwareverde.bitcoin.server.database.TransactionOutputDatabaseManager;
+import com.softwareverde.bitcoin.transaction.script.runner.ScriptRunner;
+import com.softwareverde.bitcoin.transaction.signer.TransactionSigner;
 import com.softwareverde.database.mysql.embedded.DatabaseInitializer;
 import com.softwareverde.test.database.MysqlTestDatabase;
 
@@ -15,7 +19,7 @@ public class IntegrationTest {
     }
 
     protected static void _resetDatabase() {
-        final DatabaseInitializer databaseInitializer = new DatabaseInitializer("queries/init.sql", 1, new DatabaseInitializer.DatabaseUpgradeHandler() {
+        final DatabaseInitializer databaseInitializer = new DatabaseInitializer("queries/init.sql", Constants.DATABASE_VERSION, new DatabaseInitializer.DatabaseUpgradeHandler() {
             @Override
             public Boolean onUpgrade(final int i, final int i1) { return false; }
         });
@@ -32,6 +36,10 @@ public class IntegrationTest {
         AddressDatabaseManager.ADDRESS_CACHE.clear();
         TransactionDatabaseManager.TRANSACTION_CACHE.clear();
         BlockDatabaseManager.BLOCK_CHAIN_SEGMENT_CACHE.clear();
+        BlockDatabaseManager.BLOCK_TREE.initialize(); // NOTE: Enables the tree (as the NodeModule does) and discards any previously added blocks...
         BlockChainDatabaseManager.BLOCK_CHAIN_SEGMENT_CACHE.clear();
+        TransactionOutputDatabaseManager.UNSPENT_TRANSACTION_OUTPUT_CACHE.clear();
+        TransactionSigner.SIGNATURE_CACHE.clear();
+        ScriptRunner.COMPILED_SCRIPT_CACHE.clear();
     }
 }
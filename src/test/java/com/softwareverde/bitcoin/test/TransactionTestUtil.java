@@ -71,13 +71,13 @@ public class TransactionTestUtil {
             if (Util.areEqual(previousOutputTransactionHash, new ImmutableSha256Hash())) { continue; }
 
             final TransactionId transactionId;
-            final java.util.List<Row> transactionRows = databaseConnection.query(new Query("SELECT id FROM transactions WHERE hash = ?").setParameter(previousOutputTransactionHash));
+            final java.util.List<Row> transactionRows = databaseConnection.query(new Query("SELECT id FROM transactions WHERE hash = ?").setParameter(previousOutputTransactionHash.getBytes()));
             if (transactionRows.isEmpty()) {
                 Logger.log("TEST: NOTE: Mutating genesis block; adding fake transaction with hash: " + previousOutputTransactionHash);
 
                 transactionId = TransactionId.wrap(databaseConnection.executeSql(
                     new Query("INSERT INTO transactions (hash, block_id, version, lock_time) VALUES (?, ?, ?, ?)")
-                        .setParameter(previousOutputTransactionHash)
+                        .setParameter(previousOutputTransactionHash.getBytes())
                         .setParameter(_getGenesisBlockId(blockChainSegmentId, databaseConnection))
                         .setParameter(Transaction.VERSION)
                         .setParameter(LockTime.MIN_TIMESTAMP.getValue())
@@ -3,8 +3,10 @@ package com.softwareverde.bitcoin.transaction;
 import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.test.util.TestUtil;
+import com.softwareverde.bitcoin.transaction.locktime.ImmutableLockTime;
 import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
 import com.softwareverde.bitcoin.type.hash.sha256.Sha256Hash;
+import com.softwareverde.bitcoin.util.bytearray.ByteArrayReader;
 import com.softwareverde.util.HexUtil;
 import com.softwareverde.util.IoUtil;
 import org.junit.Assert;
@@ -71,4 +73,50 @@ public class TransactionTests {
         Assert.assertEquals(expectedOutputCount, transaction.getTransactionOutputs().getSize());
         Assert.assertEquals(transactionHash, expectedTransactionHash);
     }
+
+    @Test
+    public void should_recalculate_cached_transaction_hash_after_mutation() {
+        // Setup
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+        final TransactionInflater transactionInflater = new TransactionInflater();
+
+        final byte[] transactionBytes = HexUtil.hexStringToByteArray("01000000010000000000000000000000000000000000000000000000000000000000000000FFFFFFFF0704FFFF001D0134FFFFFFFF0100F2052A0100000043410411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3AC00000000");
+        final Sha256Hash inflatedTransactionHash = MutableSha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9");
+
+        final MutableTransaction transaction = transactionInflater.fromBytes(transactionBytes);
+        final Sha256Hash cachedTransactionHash = transaction.getHash();
+
+        // Action
+        transaction.setLockTime(new ImmutableLockTime(1L));
+        final Sha256Hash mutatedTransactionHash = transaction.getHash();
+
+        final Transaction reinflatedTransaction = transactionInflater.fromBytes(transactionDeflater.toBytes(transaction).getBytes());
+        final ImmutableTransaction constTransaction = transaction.asConst();
+
+        // Assert
+        Assert.assertEquals(inflatedTransactionHash, cachedTransactionHash);
+        Assert.assertNotEquals(inflatedTransactionHash, mutatedTransactionHash);
+        Assert.assertEquals(reinflatedTransaction.getHash(), mutatedTransactionHash);
+        Assert.assertEquals(mutatedTransactionHash, constTransaction.getHash());
+        Assert.assertEquals(transactionBytes.length, transaction.getByteCount().intValue());
+        Assert.assertEquals(transactionBytes.length, constTransaction.getByteCount().intValue());
+        Assert.assertEquals(transactionBytes.length, new MutableTransaction(constTransaction).getByteCount().intValue());
+    }
+
+    @Test
+    public void should_not_inflate_transaction_that_extends_beyond_the_received_bytes() {
+        // Setup
+        final TransactionInflater transactionInflater = new TransactionInflater();
+
+        final byte[] transactionBytes = HexUtil.hexStringToByteArray("01000000010000000000000000000000000000000000000000000000000000000000000000FFFFFFFF0704FFFF001D0134FFFFFFFF0100F2052A0100000043410411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3AC00000000");
+
+        // Action
+        final Transaction partialTransaction = transactionInflater.fromBytes(new ByteArrayReader(transactionBytes), (transactionBytes.length - 1));
+        final Transaction transaction = transactionInflater.fromBytes(new ByteArrayReader(transactionBytes), transactionBytes.length);
+
+        // Assert
+        Assert.assertNull(partialTransaction);
+        Assert.assertNotNull(transaction);
+        Assert.assertEquals(MutableSha256Hash.fromHexString("0437CD7F8525CEED2324359C2D0BA26006D92D856A9C20FA0241106EE5A597C9"), transaction.getHash());
+    }
 }
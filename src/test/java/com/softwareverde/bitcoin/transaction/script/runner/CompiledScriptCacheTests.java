@@ -0,0 +1,49 @@
+package com.softwareverde.bitcoin.transaction.script.runner;
+
+import com.softwareverde.bitcoin.transaction.script.locking.ImmutableLockingScript;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.transaction.script.opcode.Operation;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompiledScriptCacheTests {
+    @Test
+    public void should_reuse_operations_for_identical_scripts() {
+        // Setup
+        final CompiledScriptCache compiledScriptCache = new CompiledScriptCache(16);
+        final LockingScript lockingScript = new ImmutableLockingScript(HexUtil.hexStringToByteArray("76A914010966776006953D5567439E5E39F86A0D273BEE88AC"));
+        final LockingScript identicalLockingScript = new ImmutableLockingScript(HexUtil.hexStringToByteArray("76A914010966776006953D5567439E5E39F86A0D273BEE88AC"));
+
+        // Action
+        final List<Operation> operations = compiledScriptCache.getOperations(lockingScript);
+        final List<Operation> cachedOperations = compiledScriptCache.getOperations(identicalLockingScript);
+
+        // Assert
+        Assert.assertEquals(5, operations.getSize());
+        Assert.assertTrue(operations == cachedOperations);
+        Assert.assertEquals(1, compiledScriptCache.getSize().intValue());
+    }
+
+    @Test
+    public void should_evict_least_recently_used_script() {
+        // Setup
+        final CompiledScriptCache compiledScriptCache = new CompiledScriptCache(2);
+        final LockingScript lockingScriptA = new ImmutableLockingScript(HexUtil.hexStringToByteArray("51"));
+        final LockingScript lockingScriptB = new ImmutableLockingScript(HexUtil.hexStringToByteArray("52"));
+        final LockingScript lockingScriptC = new ImmutableLockingScript(HexUtil.hexStringToByteArray("53"));
+
+        final List<Operation> operationsA = compiledScriptCache.getOperations(lockingScriptA);
+        final List<Operation> operationsB = compiledScriptCache.getOperations(lockingScriptB);
+        compiledScriptCache.getOperations(lockingScriptA); // Mark A as recently used...
+
+        // Action
+        compiledScriptCache.getOperations(lockingScriptC);
+
+        // Assert
+        Assert.assertEquals(2, compiledScriptCache.getSize().intValue());
+        Assert.assertTrue(operationsA == compiledScriptCache.getOperations(lockingScriptA));
+        Assert.assertFalse(operationsB == compiledScriptCache.getOperations(lockingScriptB));
+    }
+}
@@ -0,0 +1,74 @@
+package com.softwareverde.bitcoin.transaction.script.stack;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StackTests {
+    @Test
+    public void should_grow_beyond_initial_capacity() {
+        // Setup
+        final Stack stack = new Stack();
+        final int valueCount = (Stack.INITIAL_CAPACITY * 3);
+
+        // Action
+        for (int i = 0; i < valueCount; ++i) {
+            stack.push(Value.fromInteger((long) i));
+        }
+
+        // Assert
+        Assert.assertEquals(valueCount, stack.getSize().intValue());
+        for (int i = (valueCount - 1); i >= 0; --i) {
+            Assert.assertEquals(i, stack.pop().asInteger().intValue());
+        }
+        Assert.assertTrue(stack.isEmpty());
+        Assert.assertFalse(stack.didOverflow());
+    }
+
+    @Test
+    public void should_pop_value_from_middle_of_stack() {
+        // Setup
+        final Stack stack = new Stack();
+        stack.push(Value.fromInteger(1L));
+        stack.push(Value.fromInteger(2L));
+        stack.push(Value.fromInteger(3L));
+
+        // Action
+        final Value value = stack.pop(1);
+
+        // Assert
+        Assert.assertEquals(2, value.asInteger().intValue());
+        Assert.assertEquals(2, stack.getSize().intValue());
+        Assert.assertEquals(3, stack.peak(0).asInteger().intValue());
+        Assert.assertEquals(1, stack.peak(1).asInteger().intValue());
+        Assert.assertFalse(stack.didOverflow());
+    }
+
+    @Test
+    public void should_overflow_when_popping_empty_stack() {
+        // Setup
+        final Stack stack = new Stack();
+
+        // Action
+        final Value value = stack.pop();
+
+        // Assert
+        Assert.assertEquals(Stack.OVERFLOW_VALUE, value);
+        Assert.assertTrue(stack.didOverflow());
+    }
+
+    @Test
+    public void copied_stack_should_not_be_affected_by_original() {
+        // Setup
+        final Stack stack = new Stack();
+        stack.push(Value.fromInteger(7L));
+        final Stack copiedStack = new Stack(stack);
+
+        // Action
+        stack.pop();
+        stack.push(Value.fromInteger(8L));
+
+        // Assert
+        Assert.assertEquals(1, copiedStack.getSize().intValue());
+        Assert.assertEquals(7, copiedStack.peak().asInteger().intValue());
+    }
+}
@@ -3,6 +3,7 @@ package com.softwareverde.bitcoin.transaction.signer;
 import com.softwareverde.bitcoin.test.util.TestUtil;
 import com.softwareverde.bitcoin.transaction.MutableTransaction;
 import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionDeflater;
 import com.softwareverde.bitcoin.transaction.TransactionInflater;
 import com.softwareverde.bitcoin.transaction.input.MutableTransactionInput;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
@@ -17,14 +18,96 @@ import com.softwareverde.bitcoin.transaction.script.runner.ScriptRunner;
 import com.softwareverde.bitcoin.transaction.script.runner.context.MutableContext;
 import com.softwareverde.bitcoin.transaction.script.signature.hashtype.HashType;
 import com.softwareverde.bitcoin.transaction.script.signature.hashtype.Mode;
+import com.softwareverde.bitcoin.transaction.script.unlocking.ImmutableUnlockingScript;
 import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
 import com.softwareverde.bitcoin.type.hash.sha256.MutableSha256Hash;
+import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.Endian;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class TransactionSignerTests {
+    protected static final String PUBLIC_KEY_HASH = "010966776006953D5567439E5E39F86A0D273BEE";
+    protected static final LockingScript CODE_SEPARATOR_LOCKING_SCRIPT = new ImmutableLockingScript(HexUtil.hexStringToByteArray("76A914" + PUBLIC_KEY_HASH + "88ABAC")); // OP_DUP OP_HASH160 <PUBLIC_KEY_HASH> OP_EQUALVERIFY OP_CODESEPARATOR OP_CHECKSIG
+
+    /**
+     * Creates a Transaction with three inputs (each with a non-empty unlocking script) and two outputs.
+     */
+    protected static Transaction _createMultiInputTransaction() {
+        final MutableTransaction transaction = new MutableTransaction();
+        transaction.setVersion(1L);
+        transaction.setLockTime(new ImmutableLockTime(LockTime.MIN_TIMESTAMP));
+
+        for (int i = 0; i < 3; ++i) {
+            final MutableTransactionInput transactionInput = new MutableTransactionInput();
+            transactionInput.setPreviousOutputTransactionHash(MutableSha256Hash.wrap(HexUtil.hexStringToByteArray("F2B3EB2DEB76566E7324307CD47C35EEB88413F971D88519859B1834307ECFE" + i)));
+            transactionInput.setPreviousOutputIndex(i);
+            transactionInput.setSequenceNumber(SequenceNumber.MAX_SEQUENCE_NUMBER);
+            transactionInput.setUnlockingScript(new ImmutableUnlockingScript(HexUtil.hexStringToByteArray("0" + (i + 1) + "AB")));
+            transaction.addTransactionInput(transactionInput);
+        }
+
+        for (int i = 0; i < 2; ++i) {
+            final MutableTransactionOutput transactionOutput = new MutableTransactionOutput();
+            transactionOutput.setLockingScript(new ImmutableLockingScript(HexUtil.hexStringToByteArray("76A914097072524438D003D23A2F23EDB65AAE1BB3E46" + i + "88AC")));
+            transactionOutput.setAmount(10000000L * (i + 1));
+            transactionOutput.setIndex(i);
+            transaction.addTransactionOutput(transactionOutput);
+        }
+
+        return transaction;
+    }
+
+    protected static TransactionOutput _createTransactionOutputBeingSpent(final LockingScript lockingScript) {
+        final MutableTransactionOutput transactionOutputBeingSpent = new MutableTransactionOutput();
+        transactionOutputBeingSpent.setIndex(0);
+        transactionOutputBeingSpent.setAmount(100000000L);
+        transactionOutputBeingSpent.setLockingScript(lockingScript);
+        return transactionOutputBeingSpent;
+    }
+
+    /**
+     * Calculates the original (pre-Bitcoin Cash) SIGHASH_ALL hash by serializing a copy of the whole transaction, with every
+     *  unlocking script emptied except for the signed input's, whose script is replaced with signedScript.
+     */
+    protected static byte[] _calculateReferenceBytesForSigning(final Transaction transaction, final Integer inputIndexBeingSigned, final byte[] signedScript, final HashType hashType) {
+        final MutableTransaction mutableTransaction = new MutableTransaction();
+        mutableTransaction.setVersion(transaction.getVersion());
+        mutableTransaction.setLockTime(transaction.getLockTime());
+
+        final List<TransactionInput> transactionInputs = transaction.getTransactionInputs();
+        for (int inputIndex = 0; inputIndex < transactionInputs.getSize(); ++inputIndex) {
+            final TransactionInput transactionInput = transactionInputs.get(inputIndex);
+            final MutableTransactionInput mutableTransactionInput = new MutableTransactionInput(transactionInput);
+            mutableTransactionInput.setUnlockingScript((inputIndex == inputIndexBeingSigned) ? new ImmutableUnlockingScript(signedScript) : UnlockingScript.EMPTY_SCRIPT);
+            mutableTransaction.addTransactionInput(mutableTransactionInput);
+        }
+
+        for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
+            mutableTransaction.addTransactionOutput(transactionOutput);
+        }
+
+        final TransactionDeflater transactionDeflater = new TransactionDeflater();
+        final ByteArrayBuilder byteArrayBuilder = transactionDeflater.toByteArrayBuilder(mutableTransaction);
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(ByteUtil.byteToInteger(hashType.toByte())), Endian.LITTLE);
+        return BitcoinUtil.doubleSha256(byteArrayBuilder.build());
+    }
+
+    protected static SignatureContext _createSignatureContext(final Transaction transaction, final HashType hashType, final Integer inputIndex, final LockingScript lockingScript, final PrecomputedSignatureHashes precomputedSignatureHashes) {
+        final SignatureContext signatureContext = new SignatureContext(transaction, hashType, 0L);
+        signatureContext.setInputIndexBeingSigned(inputIndex);
+        signatureContext.setShouldSignInputScript(inputIndex, true, _createTransactionOutputBeingSpent(lockingScript));
+        signatureContext.setCurrentScript(lockingScript);
+        signatureContext.setPrecomputedSignatureHashes(precomputedSignatureHashes);
+        return signatureContext;
+    }
 
     @Test
     public void should_create_hash_for_signing() {
@@ -101,4 +184,84 @@ public class TransactionSignerTests {
             Assert.assertTrue(inputIsUnlocked);
         }
     }
+
+    @Test
+    public void should_create_same_hash_for_signing_all_as_full_serialization_for_each_input() {
+        // Setup
+        final Transaction transaction = _createMultiInputTransaction();
+        final LockingScript lockingScript = new ImmutableLockingScript(HexUtil.hexStringToByteArray("76A914" + PUBLIC_KEY_HASH + "88AC"));
+        final HashType hashType = new HashType(Mode.SIGNATURE_HASH_ALL, true, false);
+        final PrecomputedSignatureHashes precomputedSignatureHashes = new PrecomputedSignatureHashes(transaction); // Shared by every input...
+        final TransactionSigner transactionSigner = new TransactionSigner();
+
+        for (int inputIndex = 0; inputIndex < transaction.getTransactionInputs().getSize(); ++inputIndex) {
+            final SignatureContext signatureContext = _createSignatureContext(transaction, hashType, inputIndex, lockingScript, precomputedSignatureHashes);
+            final byte[] expectedBytesForSigning = _calculateReferenceBytesForSigning(transaction, inputIndex, lockingScript.getBytes().getBytes(), hashType);
+
+            // Action
+            final byte[] bytesForSigning = transactionSigner._getBytesForSigning(signatureContext);
+
+            // Assert
+            TestUtil.assertEqual(expectedBytesForSigning, bytesForSigning);
+        }
+    }
+
+    @Test
+    public void should_create_same_hash_for_signing_all_as_full_serialization_with_code_separators() {
+        // Setup
+        final Transaction transaction = _createMultiInputTransaction();
+        final HashType hashType = new HashType(Mode.SIGNATURE_HASH_ALL, true, false);
+        final PrecomputedSignatureHashes precomputedSignatureHashes = new PrecomputedSignatureHashes(transaction);
+        final TransactionSigner transactionSigner = new TransactionSigner();
+
+        final SignatureContext signatureContext = _createSignatureContext(transaction, hashType, 1, CODE_SEPARATOR_LOCKING_SCRIPT, precomputedSignatureHashes);
+        final byte[] expectedBytesForSigning = _calculateReferenceBytesForSigning(transaction, 1, HexUtil.hexStringToByteArray("76A914" + PUBLIC_KEY_HASH + "88AC"), hashType); // The OP_CODESEPARATOR is removed...
+
+        // Action
+        final byte[] bytesForSigning = transactionSigner._getBytesForSigning(signatureContext);
+
+        // Assert
+        TestUtil.assertEqual(expectedBytesForSigning, bytesForSigning);
+    }
+
+    @Test
+    public void should_create_same_hash_for_signing_all_as_full_serialization_with_subscript() {
+        // Setup
+        final Transaction transaction = _createMultiInputTransaction();
+        final HashType hashType = new HashType(Mode.SIGNATURE_HASH_ALL, true, false);
+        final PrecomputedSignatureHashes precomputedSignatureHashes = new PrecomputedSignatureHashes(transaction);
+        final TransactionSigner transactionSigner = new TransactionSigner();
+
+        final SignatureContext signatureContext = _createSignatureContext(transaction, hashType, 2, CODE_SEPARATOR_LOCKING_SCRIPT, precomputedSignatureHashes);
+        signatureContext.setLastCodeSeparatorIndex(2, 5); // Only the operations after the OP_CODESEPARATOR are signed...
+        final byte[] expectedBytesForSigning = _calculateReferenceBytesForSigning(transaction, 2, HexUtil.hexStringToByteArray("AC"), hashType);
+
+        // Action
+        final byte[] bytesForSigning = transactionSigner._getBytesForSigning(signatureContext);
+
+        // Assert
+        TestUtil.assertEqual(expectedBytesForSigning, bytesForSigning);
+    }
+
+    @Test
+    public void should_create_same_hash_for_signing_all_as_full_serialization_with_excluded_bytes() {
+        // Setup
+        final Transaction transaction = _createMultiInputTransaction();
+        final HashType hashType = new HashType(Mode.SIGNATURE_HASH_ALL, true, false);
+        final PrecomputedSignatureHashes precomputedSignatureHashes = new PrecomputedSignatureHashes(transaction);
+        final TransactionSigner transactionSigner = new TransactionSigner();
+
+        final MutableList<ByteArray> bytesToExcludeFromScript = new MutableList<ByteArray>();
+        bytesToExcludeFromScript.add(MutableByteArray.wrap(HexUtil.hexStringToByteArray(PUBLIC_KEY_HASH)));
+
+        final SignatureContext signatureContext = _createSignatureContext(transaction, hashType, 0, CODE_SEPARATOR_LOCKING_SCRIPT, precomputedSignatureHashes);
+        signatureContext.setBytesToExcludeFromScript(bytesToExcludeFromScript);
+        final byte[] expectedBytesForSigning = _calculateReferenceBytesForSigning(transaction, 0, HexUtil.hexStringToByteArray("76A988AC"), hashType); // The push of PUBLIC_KEY_HASH and the OP_CODESEPARATOR are removed...
+
+        // Action
+        final byte[] bytesForSigning = transactionSigner._getBytesForSigning(signatureContext);
+
+        // Assert
+        TestUtil.assertEqual(expectedBytesForSigning, bytesForSigning);
+    }
 }
@@ -0,0 +1,81 @@
+package com.softwareverde.bitcoin.util;
+
+import com.softwareverde.bitcoin.test.util.TestUtil;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+public class BitcoinUtilTests {
+    @Test
+    public void should_calculate_double_sha256_into_buffer() {
+        // Setup
+        final byte[] data = "abc".getBytes();
+        final byte[] expectedHash = HexUtil.hexStringToByteArray("4F8B42C22DD3729B519BA6F68D2DA7CC5B2D606D05DAED5AD5128CC03E6C6358");
+
+        final byte[] paddedData = new byte[data.length + 8];
+        System.arraycopy(data, 0, paddedData, 4, data.length);
+
+        final byte[] output = new byte[BitcoinUtil.SHA_256_BYTE_COUNT + 3];
+        final byte[] byteBufferOutput = new byte[BitcoinUtil.SHA_256_BYTE_COUNT];
+
+        // Action
+        final byte[] hash = BitcoinUtil.doubleSha256(data);
+        BitcoinUtil.doubleSha256(paddedData, 4, data.length, output, 3);
+        BitcoinUtil.doubleSha256(ByteBuffer.wrap(data), byteBufferOutput, 0);
+
+        // Assert
+        TestUtil.assertEqual(expectedHash, hash);
+        TestUtil.assertEqual(expectedHash, BitcoinUtil.sha256(BitcoinUtil.sha256(data)));
+        TestUtil.assertEqual(expectedHash, byteBufferOutput);
+        for (int i = 0; i < BitcoinUtil.SHA_256_BYTE_COUNT; ++i) {
+            Assert.assertEquals(expectedHash[i], output[i + 3]);
+        }
+        Assert.assertEquals(0, output[0]);
+    }
+
+    @Test
+    public void should_calculate_hash160() {
+        // Setup
+        final byte[] expectedEmptyHash = HexUtil.hexStringToByteArray("B472A266D0BD89C13706A4132CCFB16F7C3B9FCB");
+        final byte[] data = HexUtil.hexStringToByteArray("0411DB93E1DCDB8A016B49840F8C53BC1EB68A382E97B1482ECAD7B148A6909A5CB2E0EADDFB84CCF9744464F82E160BFA9B8B64F9D4C03F999B8643F656B412A3");
+
+        // Action
+        final byte[] emptyHash = BitcoinUtil.hash160(new byte[0]);
+        final byte[] hash = BitcoinUtil.hash160(data);
+
+        // Assert
+        TestUtil.assertEqual(expectedEmptyHash, emptyHash);
+        TestUtil.assertEqual(BitcoinUtil.ripemd160(BitcoinUtil.sha256(data)), hash);
+    }
+
+    @Test
+    public void should_produce_same_hash_with_reused_digests() throws Exception {
+        // Setup
+        final int hashCount = 256;
+        final byte[] blockHeaderBytes = new byte[80];
+
+        final byte[][] expectedHashes = new byte[hashCount][];
+        for (int i = 0; i < hashCount; ++i) {
+            blockHeaderBytes[0] = (byte) i;
+            final byte[] firstHash = MessageDigest.getInstance("SHA-256").digest(blockHeaderBytes);
+            expectedHashes[i] = MessageDigest.getInstance("SHA-256").digest(firstHash);
+        }
+
+        // Action
+        final byte[][] hashes = new byte[hashCount][];
+        final byte[] hash = new byte[BitcoinUtil.SHA_256_BYTE_COUNT];
+        for (int i = 0; i < hashCount; ++i) {
+            blockHeaderBytes[0] = (byte) i;
+            BitcoinUtil.doubleSha256(blockHeaderBytes, 0, blockHeaderBytes.length, hash, 0); // The same thread's digests are reused for each hash...
+            hashes[i] = hash.clone();
+        }
+
+        // Assert
+        for (int i = 0; i < hashCount; ++i) {
+            TestUtil.assertEqual(expectedHashes[i], hashes[i]);
+        }
+    }
+}
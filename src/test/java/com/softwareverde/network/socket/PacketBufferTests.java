@@ -1,12 +1,70 @@
 package com.softwareverde.network.socket;
 
 import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeaderInflater;
+import com.softwareverde.bitcoin.server.message.type.node.ping.BitcoinPingMessage;
 import com.softwareverde.bitcoin.test.util.TestUtil;
 import com.softwareverde.util.HexUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
 public class PacketBufferTests {
+    /**
+     * A ReadableByteChannel that returns its bytes a few at a time, returning 0 bytes between each fragment.
+     */
+    protected static class FragmentedByteChannel implements ReadableByteChannel {
+        protected final byte[] _bytes;
+        protected final int[] _fragmentByteCounts;
+        protected int _position = 0;
+        protected int _readCount = 0;
+
+        public FragmentedByteChannel(final byte[] bytes, final int[] fragmentByteCounts) {
+            _bytes = bytes;
+            _fragmentByteCounts = fragmentByteCounts;
+        }
+
+        @Override
+        public int read(final ByteBuffer byteBuffer) {
+            if (_position >= _bytes.length) { return -1; }
+
+            _readCount += 1;
+            if (_readCount % 2 == 0) { return 0; }
+
+            final int fragmentByteCount = _fragmentByteCounts[(_readCount / 2) % _fragmentByteCounts.length];
+            final int byteCount = Math.min(Math.min(fragmentByteCount, byteBuffer.remaining()), (_bytes.length - _position));
+            byteBuffer.put(_bytes, _position, byteCount);
+            _position += byteCount;
+            return byteCount;
+        }
+
+        public boolean hasBytesRemaining() {
+            return (_position < _bytes.length);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() { }
+    }
+
+    /**
+     * Sets the header's (little-endian) payload byte count.
+     */
+    protected static void _setPayloadByteCount(final byte[] packetBytes, final int payloadByteCount) {
+        final int payloadByteCountIndex = 16;
+        for (int i = 0; i < 4; ++i) {
+            packetBytes[payloadByteCountIndex + i] = (byte) (payloadByteCount >>> (i * 8));
+        }
+    }
+
     private byte[] _hexStringToByteArray(final String hexString, final Integer extraByteCount) {
         final byte[] bytes = HexUtil.hexStringToByteArray(hexString.replaceAll(" ", ""));
         if (bytes == null) { return null; }
@@ -90,4 +148,206 @@ public class PacketBufferTests {
         // The second byte[] should increment from 0x00 to 0x27, since we were telling the packetBuffer to only use the first 10 bytes of each buffer (i.e. packetBuffer.appendBytes(..., 10))
         TestUtil.assertMatchesMaskedHexString("0001 0203 0405 0607 0809 0A0B 0C0D 0E0F 1011 1213 1415 1617 1819 1A1B 1C1D 1E1F 2021 2223 2425 2627", readBytes1);
     }
+
+    @Test
+    public void should_assemble_packets_larger_than_the_buffer_size_from_many_buffers() {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+        packetBuffer.setBufferSize(8);
+
+        final BitcoinPingMessage pingMessage0 = new BitcoinPingMessage();
+        final BitcoinPingMessage pingMessage1 = new BitcoinPingMessage();
+
+        final byte[] pingMessageBytes0 = pingMessage0.getBytes().getBytes();
+        final byte[] pingMessageBytes1 = pingMessage1.getBytes().getBytes();
+        final byte[] bytes = new byte[pingMessageBytes0.length + pingMessageBytes1.length];
+        System.arraycopy(pingMessageBytes0, 0, bytes, 0, pingMessageBytes0.length);
+        System.arraycopy(pingMessageBytes1, 0, bytes, pingMessageBytes0.length, pingMessageBytes1.length);
+
+        final List<BitcoinPingMessage> pingMessages = new ArrayList<BitcoinPingMessage>();
+
+        // Action
+        // Append the bytes 5 at a time, so that the headers and payloads span multiple buffers...
+        for (int i = 0; i < bytes.length; i += 5) {
+            final int byteCount = Math.min(5, (bytes.length - i));
+            final byte[] buffer = packetBuffer.getRecycledBuffer();
+            System.arraycopy(bytes, i, buffer, 0, byteCount);
+            packetBuffer.appendBytes(buffer, byteCount);
+
+            while (packetBuffer.hasMessage()) {
+                pingMessages.add((BitcoinPingMessage) packetBuffer.popMessage());
+            }
+        }
+
+        // Assert
+        Assert.assertEquals(2, pingMessages.size());
+        Assert.assertEquals(pingMessage0.getNonce(), pingMessages.get(0).getNonce());
+        Assert.assertEquals(pingMessage1.getNonce(), pingMessages.get(1).getNonce());
+        Assert.assertEquals(0, packetBuffer.getByteCount());
+    }
+
+    @Test
+    public void should_drop_packets_that_exceed_the_max_packet_size() {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+        packetBuffer.setBufferSize(64 * 1024);
+        final int headerByteCount = BitcoinProtocolMessageHeaderInflater.HEADER_BYTE_COUNT;
+        final int oversizedPayloadByteCount = BitcoinProtocolMessageHeaderInflater.MAX_PACKET_SIZE; // The header makes the packet exceed the max size...
+
+        final BitcoinPingMessage pingMessage = new BitcoinPingMessage();
+        final byte[] pingMessageBytes = pingMessage.getBytes().getBytes();
+
+        final byte[] oversizedHeader = new byte[headerByteCount];
+        System.arraycopy(pingMessageBytes, 0, oversizedHeader, 0, headerByteCount);
+        _setPayloadByteCount(oversizedHeader, oversizedPayloadByteCount);
+
+        final List<BitcoinPingMessage> pingMessages = new ArrayList<BitcoinPingMessage>();
+        int maxBufferedByteCount = 0;
+
+        // Action
+        packetBuffer.appendBytes(oversizedHeader, headerByteCount);
+        final boolean hadMessageAfterHeader = packetBuffer.hasMessage();
+
+        int remainingByteCount = oversizedPayloadByteCount;
+        while (remainingByteCount > 0) {
+            final byte[] buffer = packetBuffer.getRecycledBuffer();
+            final int byteCount = Math.min(buffer.length, remainingByteCount);
+            packetBuffer.appendBytes(buffer, byteCount);
+            remainingByteCount -= byteCount;
+
+            Assert.assertFalse(packetBuffer.hasMessage());
+            maxBufferedByteCount = Math.max(maxBufferedByteCount, packetBuffer.getByteCount());
+        }
+
+        packetBuffer.appendBytes(pingMessageBytes, pingMessageBytes.length);
+        while (packetBuffer.hasMessage()) {
+            pingMessages.add((BitcoinPingMessage) packetBuffer.popMessage());
+        }
+
+        // Assert
+        Assert.assertFalse(hadMessageAfterHeader);
+        Assert.assertEquals(0, maxBufferedByteCount); // The oversized packet's bytes are discarded as they arrive...
+        Assert.assertNull(packetBuffer._packet);
+        Assert.assertEquals(1, pingMessages.size());
+        Assert.assertEquals(pingMessage.getNonce(), pingMessages.get(0).getNonce());
+        Assert.assertEquals(0, packetBuffer.getByteCount());
+    }
+
+    @Test
+    public void should_drop_header_with_negative_payload_byte_count() {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+        final int headerByteCount = BitcoinProtocolMessageHeaderInflater.HEADER_BYTE_COUNT;
+
+        final BitcoinPingMessage pingMessage = new BitcoinPingMessage();
+        final byte[] pingMessageBytes = pingMessage.getBytes().getBytes();
+
+        final byte[] bytes = new byte[headerByteCount + pingMessageBytes.length];
+        System.arraycopy(pingMessageBytes, 0, bytes, 0, headerByteCount);
+        _setPayloadByteCount(bytes, -1);
+        System.arraycopy(pingMessageBytes, 0, bytes, headerByteCount, pingMessageBytes.length);
+
+        // Action
+        packetBuffer.appendBytes(bytes, bytes.length);
+        final boolean hasMessage = packetBuffer.hasMessage();
+        final BitcoinPingMessage receivedPingMessage = (BitcoinPingMessage) packetBuffer.popMessage();
+
+        // Assert
+        Assert.assertTrue(hasMessage);
+        Assert.assertEquals(pingMessage.getNonce(), receivedPingMessage.getNonce());
+        Assert.assertEquals(0, packetBuffer.getByteCount());
+    }
+
+    @Test
+    public void should_assemble_packet_from_fragmented_channel_reads() {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+        packetBuffer.setBufferSize(8);
+
+        final BitcoinPingMessage pingMessage = new BitcoinPingMessage();
+        final byte[] pingMessageBytes = pingMessage.getBytes().getBytes();
+
+        final FragmentedByteChannel byteChannel = new FragmentedByteChannel(pingMessageBytes, new int[]{ 3, 1, 5 });
+        final List<BitcoinPingMessage> pingMessages = new ArrayList<BitcoinPingMessage>();
+
+        // Action
+        // Mirrors BinarySocket.ChannelReader: buffered reads until a packet is being assembled, then reads directly into the packet...
+        int zeroByteReadCount = 0;
+        while (byteChannel.hasBytesRemaining()) {
+            final int byteCount;
+            if (packetBuffer.isAssemblingPacket()) {
+                byteCount = packetBuffer.readPacketBytes(byteChannel);
+            }
+            else {
+                final byte[] buffer = packetBuffer.getRecycledBuffer();
+                byteCount = byteChannel.read(ByteBuffer.wrap(buffer));
+                if (byteCount > 0) {
+                    packetBuffer.appendBytes(buffer, byteCount);
+                }
+            }
+
+            if (byteCount == 0) {
+                zeroByteReadCount += 1;
+            }
+
+            while (packetBuffer.hasMessage()) {
+                pingMessages.add((BitcoinPingMessage) packetBuffer.popMessage());
+            }
+        }
+
+        // Assert
+        Assert.assertTrue(zeroByteReadCount > 0);
+        Assert.assertEquals(1, pingMessages.size());
+        Assert.assertEquals(pingMessage.getNonce(), pingMessages.get(0).getNonce());
+        Assert.assertEquals(0, packetBuffer.getByteCount());
+        Assert.assertFalse(packetBuffer.isAssemblingPacket());
+    }
+
+    @Test
+    public void should_grow_large_packet_as_fragmented_bytes_arrive() throws Exception {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+        final int headerByteCount = BitcoinProtocolMessageHeaderInflater.HEADER_BYTE_COUNT;
+        final int payloadByteCount = ((PacketBuffer.INITIAL_PACKET_BYTE_COUNT * 3) + 17);
+
+        final byte[] packetBytes = new byte[headerByteCount + payloadByteCount];
+        System.arraycopy(new BitcoinPingMessage().getBytes().getBytes(), 0, packetBytes, 0, headerByteCount);
+        _setPayloadByteCount(packetBytes, payloadByteCount);
+        for (int i = headerByteCount; i < packetBytes.length; ++i) {
+            packetBytes[i] = (byte) (i * 31);
+        }
+
+        final FragmentedByteChannel byteChannel = new FragmentedByteChannel(packetBytes, new int[]{ 1000, 70000, 300000, 1 });
+
+        // Action
+        final byte[] firstBuffer = packetBuffer.getRecycledBuffer();
+        final int firstByteCount = byteChannel.read(ByteBuffer.wrap(firstBuffer));
+        packetBuffer.appendBytes(firstBuffer, firstByteCount);
+
+        final boolean hadMessageAfterHeader = packetBuffer.hasMessage();
+        final boolean wasAssemblingPacket = packetBuffer.isAssemblingPacket();
+        final int initialPacketCapacity = packetBuffer._packet.length;
+
+        int maxPacketCapacityAheadOfReceivedBytes = 0;
+        while (packetBuffer.isAssemblingPacket()) {
+            final int byteCount = packetBuffer.readPacketBytes(byteChannel);
+            Assert.assertTrue(byteCount >= 0);
+
+            maxPacketCapacityAheadOfReceivedBytes = Math.max(maxPacketCapacityAheadOfReceivedBytes, (packetBuffer._packet.length - packetBuffer.getByteCount()));
+        }
+
+        final boolean hasMessage = packetBuffer.hasMessage();
+        final int finalPacketCapacity = packetBuffer._packet.length;
+        final byte[] receivedBytes = packetBuffer.readBytes(packetBytes.length);
+
+        // Assert
+        Assert.assertFalse(hadMessageAfterHeader);
+        Assert.assertTrue(wasAssemblingPacket);
+        Assert.assertTrue(initialPacketCapacity <= PacketBuffer.INITIAL_PACKET_BYTE_COUNT);
+        Assert.assertTrue(maxPacketCapacityAheadOfReceivedBytes <= Math.max(packetBuffer.getBufferSize(), (packetBytes.length / 2) + PacketBuffer.MAX_READ_BYTE_COUNT));
+        Assert.assertTrue(hasMessage);
+        Assert.assertEquals(packetBytes.length, finalPacketCapacity);
+        Assert.assertArrayEquals(packetBytes, receivedBytes);
+        Assert.assertEquals(0, packetBuffer.getByteCount());
+    }
 }
@@ -0,0 +1,73 @@
+package com.softwareverde.network.socket;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class SerialExecutorTests {
+    protected static class RejectingExecutor implements Executor {
+        public volatile Boolean shouldReject = true;
+
+        @Override
+        public void execute(final Runnable runnable) {
+            if (shouldReject) {
+                throw new RejectedExecutionException();
+            }
+
+            runnable.run();
+        }
+    }
+
+    @Test
+    public void should_retry_tasks_rejected_by_executor_without_another_execute() throws Exception {
+        // Setup
+        final RejectingExecutor rejectingExecutor = new RejectingExecutor();
+        final SerialExecutor serialExecutor = new SerialExecutor(rejectingExecutor);
+        final List<Integer> executedTasks = new ArrayList<Integer>();
+
+        serialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (executedTasks) {
+                    executedTasks.add(1);
+                }
+            }
+        });
+        serialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (executedTasks) {
+                    executedTasks.add(2);
+                }
+            }
+        });
+
+        final Boolean wasRunningAfterRejection = serialExecutor.isRunning();
+        final Integer queuedTaskCountAfterRejection = serialExecutor.getQueuedTaskCount();
+
+        // Action
+        rejectingExecutor.shouldReject = false;
+
+        final Long timeoutMs = (SerialExecutor.RETRY_DELAY_MS * 20L);
+        final Long startTime = System.currentTimeMillis();
+        while (serialExecutor.isRunning() && ((System.currentTimeMillis() - startTime) < timeoutMs)) {
+            Thread.sleep(SerialExecutor.RETRY_DELAY_MS);
+        }
+
+        // Assert
+        Assert.assertTrue(wasRunningAfterRejection);
+        Assert.assertEquals(2, queuedTaskCountAfterRejection.intValue());
+
+        synchronized (executedTasks) {
+            Assert.assertEquals(2, executedTasks.size());
+            Assert.assertEquals(1, executedTasks.get(0).intValue());
+            Assert.assertEquals(2, executedTasks.get(1).intValue());
+        }
+        Assert.assertFalse(serialExecutor.isRunning());
+        Assert.assertEquals(0, serialExecutor.getQueuedTaskCount().intValue());
+    }
+}